@@ -0,0 +1,85 @@
+package backend.belatro.benchmarks;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Bid;
+import backend.belatro.pojo.gamelogic.Player;
+import backend.belatro.pojo.gamelogic.Team;
+import backend.belatro.simulation.GreedyPolicy;
+import backend.belatro.simulation.MonteCarloPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decisions per second of {@link MonteCarloPolicy} for a range of budgets and pool sizes, on
+ * positions taken at random points of greedy-played hands. The {@code samples} counter is the
+ * rate of deals played out, which is how much search each budget buys; how that search turns
+ * into wins is measured by {@code ./gradlew autoPlayQuality}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Thread)
+public class AutoPlayBenchmark {
+
+    private static final int POSITIONS = 64;
+
+    @Param({"1", "5", "20", "50"})
+    public long budgetMs;
+
+    @Param({"0", "2"})
+    public int threads;
+
+    private final BelotGame[] positions = new BelotGame[POSITIONS];
+    private MonteCarloPolicy policy;
+    private int next;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        policy = new MonteCarloPolicy(Duration.ofMillis(budgetMs), threads);
+
+        GreedyPolicy greedy = new GreedyPolicy();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < POSITIONS; i++) {
+            BelotGame game = new BelotGame("bench-" + i,
+                    new Team(List.of(new Player("p1"), new Player("p3"))),
+                    new Team(List.of(new Player("p2"), new Player("p4"))),
+                    random.nextLong());
+            game.startGame();
+            game.placeBid(Bid.callTrump(game.getCurrentPlayer(),
+                    greedy.chooseTrump(game, game.getCurrentSeat(), true, random)));
+            // stop before the last few cards, where the choice is usually forced
+            for (int cards = random.nextInt(24); cards > 0; cards--) {
+                int seat = game.getCurrentSeat();
+                game.playCard(seat, greedy.chooseCard(game, seat, random), false);
+            }
+            positions[i] = game;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        policy.close();
+    }
+
+    /** Total deals played out across decisions, reported as a rate. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long samples;
+    }
+
+    @Benchmark
+    public MonteCarloPolicy.Decision decide(Counters counters) {
+        BelotGame game = positions[next++ & (POSITIONS - 1)];
+        MonteCarloPolicy.Decision decision = policy.decide(game, game.getCurrentSeat(), seed++);
+        counters.samples += decision.samples();
+        return decision;
+    }
+}
@@ -0,0 +1,117 @@
+package backend.belatro.benchmarks;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The rules engine: a whole hand played through {@link BelotGame#playCard}, a bidding round
+ * through {@link BelotGame#placeBid}, declaration scoring and trick resolution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameLogicBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final int[] hands = new int[SAMPLES];
+    private final List<List<Card>> handLists = new ArrayList<>(SAMPLES);
+    private final Trick[] tricks = new Trick[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        List<Card> deck = new ArrayList<>(CardSet.toList(CardSet.FULL_DECK));
+        for (int i = 0; i < SAMPLES; i++) {
+            Collections.shuffle(deck, random);
+            List<Card> hand = List.copyOf(deck.subList(0, 8));
+            hands[i] = CardSet.of(hand);
+            handLists.add(hand);
+
+            Trick trick = new Trick("p0", Boja.values()[random.nextInt(4)]);
+            for (int p = 0; p < 4; p++) {
+                trick.addPlay("p" + p, deck.get(8 + p));
+            }
+            tricks[i] = trick;
+        }
+    }
+
+    static BelotGame newGame() {
+        Player p1 = new Player("p1");
+        Player p2 = new Player("p2");
+        Player p3 = new Player("p3");
+        Player p4 = new Player("p4");
+        return new BelotGame("bench", new Team(List.of(p1, p3)), new Team(List.of(p2, p4)));
+    }
+
+    /** A freshly dealt game waiting for its first bid. */
+    @State(Scope.Thread)
+    public static class Dealt {
+        BelotGame game;
+
+        @Setup(Level.Invocation)
+        public void deal() {
+            game = newGame();
+            game.startGame();
+        }
+    }
+
+    /** Deal, call trump and play all 32 cards, always the first legal one. */
+    @Benchmark
+    public BelotGame fullHand() {
+        BelotGame game = newGame();
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC));
+        for (int i = 0; i < 32; i++) {
+            game.playCard(game.getCurrentPlayer(), game.getLegalMoves().getFirst(), false);
+        }
+        return game;
+    }
+
+    /** Three passes and the dealer's forced call, which also deals the talon. */
+    @Benchmark
+    public BelotGame biddingRound(Dealt dealt) {
+        BelotGame game = dealt.game;
+        for (int i = 0; i < 3; i++) {
+            game.placeBid(Bid.pass(game.getCurrentPlayer()));
+        }
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.PIK));
+        return game;
+    }
+
+    @Benchmark
+    public void declarationsMask(Blackhole bh) {
+        int hand = hands[next++ & (SAMPLES - 1)];
+        bh.consume(ZvanjaValidator.bestSequencePoints(hand));
+        bh.consume(ZvanjaValidator.fourOfAKindPoints(hand));
+        bh.consume(ZvanjaValidator.isBela(hand, Boja.HERC));
+    }
+
+    /** The {@code List<Card>} entry points used by the public view. */
+    @Benchmark
+    public void declarationsList(Blackhole bh) {
+        List<Card> hand = handLists.get(next++ & (SAMPLES - 1));
+        bh.consume(ZvanjaValidator.evaluateAllSequences(hand));
+        bh.consume(ZvanjaValidator.evaluateFourOfAKind(hand));
+        bh.consume(ZvanjaValidator.isBela(hand, Boja.HERC));
+    }
+
+    @Benchmark
+    public String trickWinner() {
+        return tricks[next++ & (SAMPLES - 1)].determineWinner();
+    }
+
+    @Benchmark
+    public int trickPoints() {
+        return tricks[next++ & (SAMPLES - 1)].calculatePoints();
+    }
+}
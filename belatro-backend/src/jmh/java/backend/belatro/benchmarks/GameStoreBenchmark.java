@@ -0,0 +1,145 @@
+package backend.belatro.benchmarks;
+
+import backend.belatro.components.ReactiveGameStore;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Player;
+import backend.belatro.pojo.gamelogic.Team;
+import backend.belatro.util.BelotGameRedisSerializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Reading the games of many tables at once from Redis: through the blocking template and its
+ * connection pool, sized as in production, with a virtual thread per table, against
+ * {@link ReactiveGameStore} on the one shared connection. One operation reads every table once.
+ * <p>
+ * Needs a Redis to talk to: {@code ./gradlew jmh -PjmhIncludes=GameStoreBenchmark} against
+ * localhost:6379 by default, or set the {@code host} and {@code port} parameters. The benchmark
+ * writes its games under {@code belot:game:bench-*} and deletes them afterwards.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameStoreBenchmark {
+
+    @Param("localhost")
+    public String host;
+
+    @Param("6379")
+    public int port;
+
+    @Param("1000")
+    public int tables;
+
+    /** As {@code spring.redis.lettuce.pool.max-active} defaults to in {@code RedisConfig}. */
+    @Param("16")
+    public int poolSize;
+
+    private LettuceConnectionFactory factory;
+    private RedisTemplate<String, BelotGame> blocking;
+    private ReactiveGameStore reactive;
+    private BelotGameRedisSerializer serializer;
+    private List<String> gameIds;
+    private ExecutorService threads;
+
+    @Setup
+    public void setUp() {
+        GenericObjectPoolConfig<?> pool = new GenericObjectPoolConfig<>();
+        pool.setMaxTotal(poolSize);
+        pool.setMaxIdle(poolSize);
+        factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port),
+                LettucePoolingClientConfiguration.builder()
+                        .poolConfig(pool)
+                        .commandTimeout(Duration.ofSeconds(10))
+                        .build());
+        factory.afterPropertiesSet();
+
+        serializer = new BelotGameRedisSerializer(JsonMapper.builder().addModule(new JavaTimeModule()).build(), false);
+        blocking = new RedisTemplate<>();
+        blocking.setConnectionFactory(factory);
+        blocking.setKeySerializer(new StringRedisSerializer());
+        blocking.setValueSerializer(serializer);
+        blocking.afterPropertiesSet();
+        reactive = new ReactiveGameStore(new ReactiveRedisTemplate<>(factory,
+                RedisSerializationContext.<String, byte[]>newSerializationContext(RedisSerializer.string())
+                        .value(RedisSerializer.byteArray())
+                        .build()), serializer);
+
+        gameIds = IntStream.range(0, tables).mapToObj(i -> "bench-" + i).toList();
+        blocking.executePipelined((RedisCallback<Object>) connection -> {
+            for (String gameId : gameIds) {
+                BelotGame game = new BelotGame(gameId,
+                        new Team(List.of(new Player("p1"), new Player("p3"))),
+                        new Team(List.of(new Player("p2"), new Player("p4"))));
+                game.startGame();
+                connection.stringCommands().set(key(gameId), serializer.serialize(game));
+            }
+            return null;
+        });
+        threads = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        threads.close();
+        blocking.execute((RedisCallback<Long>) connection ->
+                connection.keyCommands().del(gameIds.stream().map(GameStoreBenchmark::key).toArray(byte[][]::new)));
+        factory.destroy();
+    }
+
+    /** Each table's virtual thread borrows a pooled connection for TYPE and GET, as reads did before. */
+    @Benchmark
+    public int pooledBlocking() throws Exception {
+        List<Future<BelotGame>> reads = new ArrayList<>(tables);
+        for (String gameId : gameIds) {
+            reads.add(threads.submit(() -> blocking.execute((RedisCallback<BelotGame>) connection -> {
+                byte[] key = key(gameId);
+                connection.keyCommands().type(key);
+                return serializer.deserialize(connection.stringCommands().get(key));
+            })));
+        }
+        int read = 0;
+        for (Future<BelotGame> game : reads) {
+            read += game.get() != null ? 1 : 0;
+        }
+        return read;
+    }
+
+    /** Every table's read in flight at once on the shared connection. */
+    @Benchmark
+    public long sharedReactive() {
+        return Flux.fromIterable(gameIds)
+                .flatMap(reactive::load, tables)
+                .count()
+                .block();
+    }
+
+    private static byte[] key(String gameId) {
+        return ("belot:game:" + gameId).getBytes(StandardCharsets.UTF_8);
+    }
+}
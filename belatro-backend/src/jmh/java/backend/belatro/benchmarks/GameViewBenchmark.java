@@ -0,0 +1,72 @@
+package backend.belatro.benchmarks;
+
+import backend.belatro.dtos.PrivateGameView;
+import backend.belatro.dtos.PublicGameView;
+import backend.belatro.models.User;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Bid;
+import backend.belatro.pojo.gamelogic.Player;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.repos.UserRepo;
+import backend.belatro.services.BelotGameService;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The views broadcast after every action. The user repository is an in-memory stub so the
+ * numbers cover only the mapping work, not MongoDB.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameViewBenchmark {
+
+    private BelotGameService service;
+    private BelotGame game;
+    private Player player;
+
+    @Setup
+    public void setUp() {
+        service = new BelotGameService(null, null, null, null, stubUserRepo(), null, null);
+
+        game = GameLogicBenchmark.newGame();
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC));
+        for (int i = 0; i < 6; i++) {
+            game.playCard(game.getCurrentPlayer(), game.getLegalMoves().getFirst(), false);
+        }
+        player = game.getCurrentPlayer();
+    }
+
+    /** Answers {@code findById} with a user named after the ID; nothing else is called. */
+    private static UserRepo stubUserRepo() {
+        return (UserRepo) Proxy.newProxyInstance(
+                UserRepo.class.getClassLoader(),
+                new Class<?>[]{UserRepo.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findById")) {
+                        User user = new User();
+                        user.setId((String) args[0]);
+                        user.setUsername("user-" + args[0]);
+                        return Optional.of(user);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Benchmark
+    public PublicGameView publicView() {
+        return service.toPublicView(game);
+    }
+
+    @Benchmark
+    public PrivateGameView privateView() {
+        return service.toPrivateView(game, player);
+    }
+}
@@ -0,0 +1,83 @@
+package backend.belatro.benchmarks;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Legal-move generation: raw {@link LegalMoves} masks over random positions, and the
+ * game-level entry points used by the socket controller and the turn timer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LegalMovesBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    private final int[] hands = new int[POSITIONS];
+    private final int[] played = new int[POSITIONS];
+    private final Boja[] leads = new Boja[POSITIONS];
+    private final Boja[] trumps = new Boja[POSITIONS];
+    private int next;
+
+    private BelotGame game;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        List<Card> deck = new ArrayList<>(CardSet.toList(CardSet.FULL_DECK));
+        for (int i = 0; i < POSITIONS; i++) {
+            Collections.shuffle(deck, random);
+            int plays = random.nextInt(4);
+            played[i] = CardSet.of(deck.subList(0, plays));
+            leads[i] = plays > 0 ? deck.getFirst().getBoja() : null;
+            hands[i] = CardSet.of(deck.subList(plays, plays + 1 + random.nextInt(8)));
+            trumps[i] = Boja.values()[random.nextInt(4)];
+        }
+
+        // a game two cards into the first trick
+        Player p1 = new Player("p1");
+        Player p2 = new Player("p2");
+        Player p3 = new Player("p3");
+        Player p4 = new Player("p4");
+        game = new BelotGame("bench", new Team(List.of(p1, p3)), new Team(List.of(p2, p4)));
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC));
+        for (int i = 0; i < 2; i++) {
+            game.playCard(game.getCurrentPlayer(), game.getLegalMoves().getFirst(), false);
+        }
+    }
+
+    @Benchmark
+    public int mask() {
+        int i = next++ & (POSITIONS - 1);
+        return LegalMoves.of(hands[i], played[i], leads[i], trumps[i]);
+    }
+
+    @Benchmark
+    public int gameLegalMoveSet() {
+        return game.getLegalMoveSet();
+    }
+
+    @Benchmark
+    public List<Card> gameLegalMoves() {
+        return game.getLegalMoves();
+    }
+
+    /** What the turn timer used to do before picking a random card. */
+    @Benchmark
+    public void isValidPlayPerCard(Blackhole bh) {
+        Player current = game.getCurrentPlayer();
+        for (Card card : current.getHand()) {
+            bh.consume(game.isValidPlay(current, card));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package backend.belatro.benchmarks;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Bid;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.util.BelotGameRedisSerializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis value codec: a {@link BelotGame} through {@link BelotGameRedisSerializer} in its binary
+ * and its legacy JSON form, at the start of bidding and in the middle of a hand (half the tricks
+ * completed). The size of the stored value is printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    @Param({"BIDDING", "MID_HAND"})
+    public String phase;
+
+    @Param({"binary", "json"})
+    public String format;
+
+    private BelotGameRedisSerializer serializer;
+    private BelotGame game;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = new BelotGameRedisSerializer(
+                JsonMapper.builder().addModule(new JavaTimeModule()).build(), format.equals("json"));
+
+        game = GameLogicBenchmark.newGame();
+        game.startGame();
+        if (phase.equals("MID_HAND")) {
+            game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC));
+            for (int i = 0; i < 16; i++) {
+                game.playCard(game.getCurrentPlayer(), game.getLegalMoves().getFirst(), false);
+            }
+        }
+        bytes = serializer.serialize(game);
+        System.out.printf("%n%s %s: %d bytes per game%n", phase, format, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(game);
+    }
+
+    @Benchmark
+    public BelotGame deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    @Benchmark
+    public BelotGame roundTrip() {
+        return serializer.deserialize(serializer.serialize(game));
+    }
+}
@@ -0,0 +1,50 @@
+package backend.belatro.simulation;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Plays {@link MonteCarloPolicy} (seats 0 and 2) against {@link GreedyPolicy} (seats 1 and 3)
+ * for each budget and reports how win rate and score margin grow with it. Run through
+ * {@code ./gradlew autoPlayQuality}:
+ * <pre>
+ * --games 200 --seed 1 --threads 8 --budgets 1,5,20,50
+ * </pre>
+ * Games run in parallel, so each decision samples on its own thread only.
+ */
+public final class AutoPlayQuality {
+
+    private AutoPlayQuality() {
+    }
+
+    public static void main(String[] args) {
+        long games = 100;
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        String budgets = "1,5,20,50";
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games" -> games = Long.parseLong(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--budgets" -> budgets = value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        System.out.printf("%d games per budget, seed %d, %d threads%n", games, seed, threads);
+        for (String budget : budgets.split(",")) {
+            long ms = Long.parseLong(budget.trim());
+            try (MonteCarloPolicy mc = new MonteCarloPolicy(Duration.ofMillis(ms), 0)) {
+                GreedyPolicy greedy = new GreedyPolicy();
+                SimulationReport report = new SelfPlaySimulator(List.of(mc, greedy, mc, greedy))
+                        .run(games, seed, threads);
+                System.out.printf("budget %3d ms: won %5.1f%% (%d/%d), margin %+7.1f/game, %.2f hands/s, %d violations%n",
+                        ms, report.teamAWinRate() * 100, report.teamAWins(), report.teamAWins() + report.teamBWins(),
+                        (double) report.teamAMargin() / report.games(), report.handsPerSecond(), report.violations());
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package backend.belatro.simulation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line entry point for {@link SelfPlaySimulator}, run through {@code ./gradlew selfPlay}.
+ * <pre>
+ * --games 100000 --seed 1 --threads 8 --policies greedy,random,greedy,random --fouls 0.01 --challenges 0.05
+ * </pre>
+ * Policies are {@code random}, {@code greedy} and {@code mc:<budget ms>} ({@link MonteCarloPolicy}).
+ */
+public final class SelfPlay {
+
+    private SelfPlay() {
+    }
+
+    public static void main(String[] args) {
+        long games = 10_000;
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        String policies = "greedy,random,greedy,random";
+        double fouls = 0;
+        double challenges = 0;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games" -> games = Long.parseLong(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--threads" -> threads = Integer.parseInt(value);
+                case "--policies" -> policies = value;
+                case "--fouls" -> fouls = Double.parseDouble(value);
+                case "--challenges" -> challenges = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<SeatPolicy> seats = new ArrayList<>();
+        for (String name : policies.split(",")) {
+            String policy = name.trim();
+            if (policy.startsWith("mc:")) {
+                seats.add(new MonteCarloPolicy(Duration.ofMillis(Long.parseLong(policy.substring(3))), 0));
+                continue;
+            }
+            seats.add(switch (policy) {
+                case "random" -> new RandomLegalPolicy();
+                case "greedy" -> new GreedyPolicy();
+                default -> throw new IllegalArgumentException("Unknown policy " + name);
+            });
+        }
+
+        System.out.printf("%d games, seed %d, %d threads, policies %s, fouls %.3f, challenges %.3f%n",
+                games, seed, threads, policies, fouls, challenges);
+        SimulationReport report = new SelfPlaySimulator(seats, fouls, challenges).run(games, seed, threads);
+        System.out.println(report);
+
+        if (report.violations() > 0) {
+            System.exit(1);
+        }
+    }
+}
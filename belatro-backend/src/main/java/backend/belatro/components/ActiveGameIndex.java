@@ -0,0 +1,117 @@
+package backend.belatro.components;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Which games are live, kept in Redis beside the games themselves so nothing has to walk the
+ * keyspace to find them.
+ * <p>
+ * {@link #ACTIVE_KEY} is a sorted set of game ids scored by the time of their last save in epoch
+ * milliseconds, and each {@link #LIVE_STATES live state} has a set of the games in it. The save
+ * scripts of {@link LiveGameCache} update both in the same call that writes the game, so the
+ * index is exactly as current as Redis. A game leaves the index when it is saved as completed or
+ * cancelled.
+ */
+@Component
+public class ActiveGameIndex {
+
+    public static final String ACTIVE_KEY = "belot:games:active";
+    public static final String STATE_KEY_PREFIX = "belot:games:state:";
+    public static final List<GameState> LIVE_STATES = Arrays.stream(GameState.values())
+            .filter(state -> state != GameState.COMPLETED && state != GameState.CANCELLED)
+            .toList();
+
+    private final RedisTemplate<String, BelotGame> redis;
+
+    public ActiveGameIndex(RedisTemplate<String, BelotGame> redis) {
+        this.redis = redis;
+    }
+
+    /**
+     * @return ids of live games not saved since {@code cutoff}, longest idle first
+     */
+    public List<String> idleSince(Instant cutoff) {
+        Set<byte[]> ids = redis.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRangeByScore(bytes(ACTIVE_KEY),
+                        Range.leftUnbounded(Range.Bound.inclusive((double) cutoff.toEpochMilli()))));
+        return ids == null ? List.of() : ids.stream().map(ActiveGameIndex::string).toList();
+    }
+
+    /**
+     * @return ids of the live games in each live state
+     */
+    public Map<GameState, Set<String>> byState() {
+        List<Object> members = redis.executePipelined((RedisCallback<Object>) connection -> {
+            for (GameState state : LIVE_STATES) {
+                connection.setCommands().sMembers(stateKey(state));
+            }
+            return null;
+        }, RedisSerializer.string());
+        Map<GameState, Set<String>> byState = new EnumMap<>(GameState.class);
+        for (int i = 0; i < LIVE_STATES.size(); i++) {
+            Set<String> ids = new TreeSet<>();
+            for (Object id : (Collection<?>) members.get(i)) {
+                ids.add((String) id);
+            }
+            byState.put(LIVE_STATES.get(i), ids);
+        }
+        return byState;
+    }
+
+    /**
+     * @return number of live games
+     */
+    public long size() {
+        Long size = redis.execute((RedisCallback<Long>) connection -> connection.zSetCommands().zCard(bytes(ACTIVE_KEY)));
+        return size != null ? size : 0;
+    }
+
+    /**
+     * Drops a game whose key is gone, e.g. expired or deleted by hand, so it is not found again.
+     */
+    public void remove(String gameId) {
+        byte[] id = bytes(gameId);
+        redis.executePipelined((RedisCallback<Object>) connection -> {
+            connection.zSetCommands().zRem(bytes(ACTIVE_KEY), id);
+            for (GameState state : LIVE_STATES) {
+                connection.setCommands().sRem(stateKey(state), id);
+            }
+            return null;
+        }, RedisSerializer.string());
+    }
+
+    /**
+     * @return {@link #ACTIVE_KEY} and the live state sets, as the save scripts take them after
+     *         the game key
+     */
+    static byte[][] keys() {
+        byte[][] keys = new byte[1 + LIVE_STATES.size()][];
+        keys[0] = bytes(ACTIVE_KEY);
+        for (int i = 0; i < LIVE_STATES.size(); i++) {
+            keys[1 + i] = stateKey(LIVE_STATES.get(i));
+        }
+        return keys;
+    }
+
+    private static byte[] stateKey(GameState state) {
+        return bytes(STATE_KEY_PREFIX + state.name());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,185 @@
+package backend.belatro.components;
+
+import backend.belatro.events.ClusterMembershipChangedEvent;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.util.ConsistentHashRing;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Which nodes serve games, and which node owns which game.
+ * <p>
+ * Each node holds a lease in the sorted set {@link #NODES_KEY}: its id, scored by the time its
+ * lease runs out. A heartbeat renews the lease, drops the expired ones and reads the live
+ * members, in one script that takes the time from Redis, so leases do not depend on the nodes'
+ * clocks agreeing. Every game belongs to one member, picked by a {@link ConsistentHashRing} over
+ * the member ids, so all nodes agree on owners without talking to each other. When the members
+ * change, a {@link ClusterMembershipChangedEvent} is published and the games that moved are handed
+ * over. A node that stops cleanly gives up its lease at once; one that dies is dropped when its
+ * lease runs out.
+ * <p>
+ * Nodes see a change at their next heartbeat, so for up to one heartbeat two nodes can both think
+ * they own a game. Only one of them runs it: an action first takes the game's
+ * {@link GameLeases lease}, which the old owner gives back when it hands the game over. With
+ * {@code belatro.cluster.enabled=false}, the default, the node is alone and owns every game
+ * without touching Redis. To try a cluster on one machine, start several instances on different
+ * ports against the same Redis with {@code belatro.cluster.enabled=true}.
+ */
+@Component
+public class ClusterMembership {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterMembership.class);
+
+    public static final String NODES_KEY = "belot:nodes";
+
+    /**
+     * KEYS[1] {@link #NODES_KEY}. ARGV[1] node id, ARGV[2] lease in ms. Renews the node's lease,
+     * drops the expired ones and returns the live members, all by the Redis clock.
+     */
+    private static final byte[] HEARTBEAT_SCRIPT = bytes("""
+            local t = redis.call('TIME')
+            local now = t[1] * 1000 + math.floor(t[2] / 1000)
+            redis.call('ZADD', KEYS[1], now + tonumber(ARGV[2]), ARGV[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. now)
+            return redis.call('ZRANGEBYSCORE', KEYS[1], now, '+inf')
+            """);
+
+    private final RedisTemplate<String, BelotGame> redis;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final String nodeId;
+    private final long leaseMs;
+
+    private volatile ConsistentHashRing ring;
+
+    public ClusterMembership(RedisTemplate<String, BelotGame> redis,
+                             ApplicationEventPublisher events,
+                             @Value("${belatro.cluster.enabled:false}") boolean enabled,
+                             @Value("${belatro.cluster.node-id:}") String nodeId,
+                             @Value("${belatro.cluster.lease-ms:10000}") long leaseMs) {
+        this.redis = redis;
+        this.events = events;
+        this.enabled = enabled;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.leaseMs = leaseMs;
+        this.ring = new ConsistentHashRing(List.of(this.nodeId));
+    }
+
+    /**
+     * @return membership of a node on its own, for tests and tools
+     */
+    public static ClusterMembership standalone() {
+        return new ClusterMembership(null, null, false, "local", 0);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if this node owns {@code gameId}
+     */
+    public boolean isLocal(String gameId) {
+        return !enabled || nodeId.equals(ring.ownerOf(gameId));
+    }
+
+    /**
+     * @return id of the node that owns {@code gameId}
+     */
+    public String ownerOf(String gameId) {
+        return ring.ownerOf(gameId);
+    }
+
+    public ConsistentHashRing ring() {
+        return ring;
+    }
+
+    @PostConstruct
+    public void join() {
+        if (enabled) {
+            LOGGER.info("Joining cluster as node {}", nodeId);
+            heartbeat();
+        }
+    }
+
+    /**
+     * Renews this node's lease, drops expired ones and updates the ring from the live members.
+     * A heartbeat that cannot reach Redis keeps the last ring.
+     */
+    @Scheduled(fixedDelayString = "${belatro.cluster.heartbeat-ms:2000}")
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        List<byte[]> members;
+        try {
+            members = redis.execute((RedisCallback<List<byte[]>>) connection -> connection.scriptingCommands()
+                    .eval(HEARTBEAT_SCRIPT, ReturnType.MULTI, 1, bytes(NODES_KEY), bytes(nodeId), bytes(Long.toString(leaseMs))));
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Cluster heartbeat failed, keeping {} members: {}", ring.nodes().size(), ex.getMessage());
+            return;
+        }
+        update(members == null ? List.of() : members.stream().map(ClusterMembership::string).toList());
+    }
+
+    private void update(List<String> members) {
+        if (members.isEmpty()) {
+            return;                     // not even this node's own lease; keep the ring as it is
+        }
+        ConsistentHashRing next = new ConsistentHashRing(members);
+        ConsistentHashRing before = ring;
+        if (next.equals(before)) {
+            return;
+        }
+        ring = next;
+        LOGGER.info("Cluster members changed: {} -> {}", before.nodes(), next.nodes());
+        events.publishEvent(new ClusterMembershipChangedEvent(before, next));
+    }
+
+    /** Gives up the lease so the other nodes take over this node's games now. */
+    @PreDestroy
+    public void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redis.execute((RedisCallback<Long>) connection -> connection.zSetCommands().zRem(bytes(NODES_KEY), bytes(nodeId)));
+            LOGGER.info("Node {} left the cluster", nodeId);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not leave the cluster; the lease runs out in {} ms: {}", leaseMs, ex.getMessage());
+        }
+    }
+
+    /** Members other than this node, as of the last heartbeat. */
+    public Set<String> peers() {
+        return ring.nodes().stream().filter(node -> !node.equals(nodeId))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -1,48 +1,45 @@
 package backend.belatro.components;
 
-import backend.belatro.pojo.gamelogic.BelotGame;
-import backend.belatro.pojo.gamelogic.enums.GameState;
+import backend.belatro.services.BelotGameService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.Instant;
 
+/**
+ * Cancels live games that nobody has played in for {@link #QUIET_FOR} and nobody is watching.
+ * Only the games idle that long are looked at, found through the {@link ActiveGameIndex}, so a
+ * run costs as much as there are stale games.
+ * <p>
+ * The reaper runs on every node but each node only reaps the games it owns, and asks
+ * {@link GameWatchers} whether a game is watched, which knows the sessions of all nodes.
+ */
 @Component
 @RequiredArgsConstructor
 public class EmptyMatchReaper {
 
-    private final RedisTemplate<String, BelotGame> redis;
-    private final SimpUserRegistry simpUserRegistry;
+    private final ActiveGameIndex activeGames;
+    private final BelotGameService games;
+    private final ClusterMembership cluster;
+    private final GameWatchers watchers;
 
     private static final Duration QUIET_FOR = Duration.ofMinutes(20);
 
     @Scheduled(fixedDelay = 300_000)    // every 5 min
     public void reap() {
-        for (String key : redis.keys("game:*")) {
-            BelotGame g = redis.opsForValue().get(key);
-            assert g != null;
-            boolean stillPlaying =
-                    g.getGameState() != GameState.COMPLETED &&
-                            g.getGameState() != GameState.CANCELLED;
-            if (!stillPlaying) continue;
-
-            boolean nobodyConnected =
-                    simpUserRegistry.findSubscriptions(
-                                    s -> s.getDestination().equals("/topic/games/" + g.getGameId()))
-                            .isEmpty();
-
-            boolean quietLongEnough =
-                    Instant.now().minus(QUIET_FOR)
-                            .isAfter(g.getLastActivity());  // you already update this field
+        for (String gameId : activeGames.idleSince(Instant.now().minus(QUIET_FOR))) {
+            if (!cluster.isLocal(gameId)) {
+                continue;                       // its owner reaps it
+            }
+            if (games.head(gameId) == null) {
+                activeGames.remove(gameId);     // the key expired or was deleted
+                continue;
+            }
 
-            if (nobodyConnected && quietLongEnough) {
-                g.cancelMatch();
-                redis.opsForValue().set(key, g);
-                // (optional) write audit line
+            if (!watchers.isWatched(gameId)) {
+                games.cancelMatch(gameId, "reaper");
             }
         }
     }
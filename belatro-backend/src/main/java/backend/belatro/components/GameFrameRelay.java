@@ -0,0 +1,328 @@
+package backend.belatro.components;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import io.lettuce.core.RedisNoScriptException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Carries game frames to the clients connected to other nodes.
+ * <p>
+ * The STOMP broker is the simple in-memory one, so a frame sent on one node reaches only the
+ * sessions on that node. This interceptor sits on the broker channel and appends every frame for
+ * {@code /topic/games/{id}} or {@code /user/{name}/queue/games/{id}} to the Redis stream
+ * {@link #STREAM_KEY} once, before the local broker delivers it. A reader thread on each node
+ * follows that stream and hands the frames written by other nodes to its own broker, which
+ * delivers them to its sessions just like frames sent there; user destinations are resolved on
+ * the node the user is connected to.
+ * <p>
+ * Ordering: one stream, read by one thread per node, so every node delivers the frames in the
+ * order Redis took them, and the frames of a game in the order its owner sent them.
+ * <p>
+ * Replay: each frame also goes to the game's own stream, {@code belot:frames:<game id>}, capped at
+ * {@code belatro.ws.replay-frames} frames and dropped {@code belatro.ws.replay-ttl-ms} after the
+ * last one. Frames carry their stream id in the {@value #SEQ_HEADER} header, and a client that
+ * reconnects can ask for the frames after the last id it got with {@link #replay}.
+ * <p>
+ * The relay runs only with {@code belatro.cluster.enabled=true}; a single node needs none of it.
+ */
+@Component
+public class GameFrameRelay implements ChannelInterceptor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameFrameRelay.class);
+
+    public static final String STREAM_KEY = "belot:frames";
+    public static final String SEQ_HEADER = "seq";
+    /** Set on frames this relay delivers, so they are not relayed again. */
+    private static final String RELAYED_HEADER = "belatroRelayed";
+
+    private static final Pattern GAME_DESTINATION =
+            Pattern.compile("^(?:/topic/games/|/user/[^/]+/queue/games/)([^/]+)$");
+    private static final Duration READ_BLOCK = Duration.ofSeconds(1);
+    private static final int READ_COUNT = 100;
+    private static final Pattern STREAM_ID = Pattern.compile("^\\d+-\\d+$");
+
+    /**
+     * KEYS[1] {@link #STREAM_KEY}, KEYS[2] the game's stream. ARGV[1] and ARGV[2] their lengths,
+     * ARGV[3] node id, ARGV[4] destination, ARGV[5] content type, ARGV[6] payload, ARGV[7] expiry
+     * of the game's stream in ms. The game's stream takes the id the shared one gave the frame.
+     * Returns that id.
+     */
+    static final String APPEND_SCRIPT = """
+            local id = redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], '*',
+                                  'n', ARGV[3], 'd', ARGV[4], 'c', ARGV[5], 'p', ARGV[6])
+            redis.call('XADD', KEYS[2], 'MAXLEN', '~', ARGV[2], id, 'd', ARGV[4], 'c', ARGV[5], 'p', ARGV[6])
+            redis.call('PEXPIRE', KEYS[2], ARGV[7])
+            return id
+            """;
+
+    private static final byte[] NODE_FIELD = bytes("n");
+    private static final byte[] DESTINATION_FIELD = bytes("d");
+    private static final byte[] CONTENT_TYPE_FIELD = bytes("c");
+    private static final byte[] PAYLOAD_FIELD = bytes("p");
+
+    /**
+     * A frame as kept for replay.
+     *
+     * @param seq id of the frame in the streams
+     */
+    public record Frame(String seq, String destination, MimeType contentType, byte[] payload) {
+    }
+
+    private final ClusterMembership cluster;
+    private final RedisTemplate<String, BelotGame> redis;
+    private final MessageChannel brokerChannel;
+    private final long streamLength;
+    private final long replayFrames;
+    private final long replayTtlMs;
+    private final byte[] appendScript = bytes(APPEND_SCRIPT);
+    private final String appendScriptSha = new DefaultRedisScript<>(APPEND_SCRIPT, String.class).getSha1();
+
+    /** Id of the last frame read from {@link #STREAM_KEY}. */
+    private volatile String lastRead = "0-0";
+    private volatile boolean running;
+    private Thread reader;
+
+    public GameFrameRelay(ClusterMembership cluster,
+                          RedisTemplate<String, BelotGame> redis,
+                          @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel,
+                          @Value("${belatro.ws.relay-stream-length:10000}") long streamLength,
+                          @Value("${belatro.ws.replay-frames:200}") long replayFrames,
+                          @Value("${belatro.ws.replay-ttl-ms:600000}") long replayTtlMs) {
+        this.cluster = cluster;
+        this.redis = redis;
+        this.brokerChannel = brokerChannel;
+        this.streamLength = streamLength;
+        this.replayFrames = replayFrames;
+        this.replayTtlMs = replayTtlMs;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        lastRead = latestId();
+        running = true;
+        reader = Thread.ofPlatform().name("frame-relay").daemon().start(this::follow);
+        LOGGER.info("Relaying game frames through {} from {}", STREAM_KEY, lastRead);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (reader != null) {
+            reader.interrupt();
+        }
+    }
+
+    /**
+     * Appends game frames to the streams and stamps them with their id; leaves other messages,
+     * and frames another node relayed here, alone.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!cluster.isEnabled() || message.getHeaders().containsKey(RELAYED_HEADER)
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        Matcher game = destination != null ? GAME_DESTINATION.matcher(destination) : null;
+        if (game == null || !game.matches()) {
+            return message;
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        String seq;
+        try {
+            seq = append(game.group(1), destination, contentType != null ? contentType.toString() : "", payload);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Frame for {} not relayed; only this node's clients get it: {}", destination, ex.getMessage());
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setNativeHeader(SEQ_HEADER, seq);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private String append(String gameId, String destination, String contentType, byte[] payload) {
+        byte[][] keysAndArgs = {
+                bytes(STREAM_KEY), bytes(STREAM_KEY + ":" + gameId),
+                bytes(Long.toString(streamLength)), bytes(Long.toString(replayFrames)),
+                bytes(cluster.nodeId()), bytes(destination), bytes(contentType), payload,
+                bytes(Long.toString(replayTtlMs))
+        };
+        byte[] id = redis.execute((RedisCallback<byte[]>) connection -> {
+            try {
+                return connection.scriptingCommands().evalSha(appendScriptSha, ReturnType.VALUE, 2, keysAndArgs);
+            } catch (RuntimeException ex) {
+                // the exception converter wraps the driver's error, whose message it does not repeat
+                if (!(NestedExceptionUtils.getMostSpecificCause(ex) instanceof RedisNoScriptException)) {
+                    throw ex;
+                }
+                return connection.scriptingCommands().eval(appendScript, ReturnType.VALUE, 2, keysAndArgs);
+            }
+        });
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private void follow() {
+        while (running) {
+            try {
+                poll();
+            } catch (RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                LOGGER.warn("Reading {} failed, retrying: {}", STREAM_KEY, ex.getMessage());
+                try {
+                    Thread.sleep(READ_BLOCK.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits up to a second for frames after the last one read and delivers those other nodes
+     * wrote to this node's broker. The reader thread calls this in a loop.
+     *
+     * @return number of frames delivered
+     */
+    public int poll() {
+        // xRead takes generic varargs, an array of StreamOffset<byte[]> that can only be made unchecked
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        StreamOffset<byte[]>[] offsets = new StreamOffset[] {
+                StreamOffset.create(bytes(STREAM_KEY), ReadOffset.from(lastRead))
+        };
+        List<ByteRecord> records = redis.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRead(StreamReadOptions.empty().block(READ_BLOCK).count(READ_COUNT), offsets));
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+        int delivered = 0;
+        String self = cluster.nodeId();
+        for (ByteRecord record : records) {
+            Map<byte[], byte[]> fields = record.getValue();
+            if (!self.equals(string(field(fields, NODE_FIELD)))) {
+                brokerChannel.send(relayed(frame(record.getId().getValue(), fields)));
+                delivered++;
+            }
+            lastRead = record.getId().getValue();
+        }
+        return delivered;
+    }
+
+    private static Message<byte[]> relayed(Frame frame) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(frame.destination());
+        if (frame.contentType() != null) {
+            accessor.setContentType(frame.contentType());
+        }
+        accessor.setNativeHeader(SEQ_HEADER, frame.seq());
+        accessor.setHeader(RELAYED_HEADER, true);
+        return MessageBuilder.createMessage(frame.payload(), accessor.getMessageHeaders());
+    }
+
+    /**
+     * Frames of a game after {@code after} that {@code user} was sent: those to the game's topic
+     * and to the user's own queue, oldest first.
+     *
+     * @return the frames, or null if the replay window no longer reaches back to {@code after}
+     *         and the client has to load the game afresh
+     */
+    public List<Frame> replay(String gameId, String after, String user) {
+        if (after == null || !STREAM_ID.matcher(after).matches()) {
+            return null;
+        }
+        byte[] key = bytes(STREAM_KEY + ":" + gameId);
+        List<ByteRecord> oldest = redis.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRange(key, Range.unbounded(), Limit.limit().count(1)));
+        if (oldest == null || oldest.isEmpty() || compareIds(oldest.get(0).getId().getValue(), after) > 0) {
+            return null;
+        }
+        List<ByteRecord> records = redis.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRange(key, Range.rightUnbounded(Range.Bound.exclusive(after))));
+        String topic = "/topic/games/" + gameId;
+        String queue = "/user/" + user + "/queue/games/" + gameId;
+        List<Frame> frames = new ArrayList<>();
+        for (ByteRecord record : records != null ? records : List.<ByteRecord>of()) {
+            Frame frame = frame(record.getId().getValue(), record.getValue());
+            if (frame.destination().equals(topic) || frame.destination().equals(queue)) {
+                frames.add(frame);
+            }
+        }
+        return frames;
+    }
+
+    private String latestId() {
+        List<ByteRecord> latest = redis.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xRevRange(bytes(STREAM_KEY), Range.unbounded(), Limit.limit().count(1)));
+        return latest == null || latest.isEmpty() ? "0-0" : latest.get(0).getId().getValue();
+    }
+
+    private static Frame frame(String seq, Map<byte[], byte[]> fields) {
+        String contentType = string(field(fields, CONTENT_TYPE_FIELD));
+        return new Frame(seq, string(field(fields, DESTINATION_FIELD)),
+                contentType.isEmpty() ? null : MimeType.valueOf(contentType), field(fields, PAYLOAD_FIELD));
+    }
+
+    /** Stream ids are {@code <ms>-<counter>}; compares them numerically. */
+    static int compareIds(String first, String second) {
+        String[] a = first.split("-");
+        String[] b = second.split("-");
+        int byTime = Long.compare(Long.parseLong(a[0]), Long.parseLong(b[0]));
+        return byTime != 0 ? byTime : Long.compare(Long.parseLong(a[1]), Long.parseLong(b[1]));
+    }
+
+    private static byte[] field(Map<byte[], byte[]> fields, byte[] name) {
+        for (Map.Entry<byte[], byte[]> field : fields.entrySet()) {
+            if (Arrays.equals(field.getKey(), name)) {
+                return field.getValue();
+            }
+        }
+        return new byte[0];
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,73 @@
+package backend.belatro.components;
+
+import backend.belatro.events.ClusterMembershipChangedEvent;
+import backend.belatro.services.BelotGameService;
+import backend.belatro.util.ConsistentHashRing;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Moves games between nodes when the cluster changes. Games this node no longer owns are written
+ * out, dropped from memory, their timers stopped and their {@link GameLeases leases} given back;
+ * live games it now owns get their timers started again from the state in Redis. Nothing else
+ * needs moving: the new owner loads a game on its first command.
+ * <p>
+ * A game is released in its own {@link GameMailboxes mailbox}, behind the commands already queued
+ * for it. Released any earlier, an action still running could save after the game was dropped and
+ * put it back in memory while the new owner, holding the lease by then, runs it from older state.
+ */
+@Component
+@RequiredArgsConstructor
+public class GameHandoff {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameHandoff.class);
+
+    private final ClusterMembership cluster;
+    private final LiveGameCache cache;
+    private final GameLeases leases;
+    private final GameMailboxes mailboxes;
+    private final ActiveGameIndex activeGames;
+    private final BelotGameService games;
+    private final TurnTimerService timers;
+
+    @EventListener
+    public void onMembershipChanged(ClusterMembershipChangedEvent event) {
+        String self = cluster.nodeId();
+        ConsistentHashRing after = event.after();
+
+        List<String> lost = cache.ids().stream()
+                .filter(id -> !self.equals(after.ownerOf(id)))
+                .toList();
+        CompletableFuture<?>[] released = lost.stream()
+                .map(id -> mailboxes.submit(id, () -> release(id)).exceptionally(ex -> {
+                    LOGGER.warn("Could not hand off game {}: {}", id, ex.getMessage());
+                    return null;
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(released).join();
+
+        List<String> gained = activeGames.byState().values().stream()
+                .flatMap(Set::stream)
+                .filter(id -> self.equals(after.ownerOf(id)) && !self.equals(event.before().ownerOf(id)))
+                .toList();
+        gained.forEach(games::resume);
+
+        LOGGER.info("Handed off {} games, took over {}", lost.size(), gained.size());
+    }
+
+    private Void release(String gameId) {
+        List<String> ids = List.of(gameId);
+        cache.release(ids);
+        games.release(ids);
+        timers.cancelTimer(gameId);
+        leases.release(ids);
+        return null;
+    }
+}
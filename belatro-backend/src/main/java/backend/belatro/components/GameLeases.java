@@ -0,0 +1,155 @@
+package backend.belatro.components;
+
+import backend.belatro.exceptions.GameNotOwnedException;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes sure one node at a time runs each game.
+ * <p>
+ * The {@link ClusterMembership ring} alone cannot: nodes see a change at their next heartbeat, so
+ * for a moment two of them can both think they own a game, and a command nobody received runs
+ * wherever it was sent. Both would save, journal and fan out their actions, and the one whose save
+ * Redis refused afterwards would have already told clients about moves that are then lost.
+ * <p>
+ * So before an action touches a game its node takes the game's lease, the key
+ * {@code belot:lease:<game id>} holding the node id for {@code belatro.cluster.lease-ms}. A node
+ * that holds it renews it when less than half is left; one that does not gets it only once it has
+ * run out or been given back, and until then its actions fail with
+ * {@link GameNotOwnedException} before changing anything. A node gives a game's lease back when it
+ * hands the game over or the game ends; leases of games that went quiet are forgotten once they
+ * have run out. The lease is timed from before the request that took it, so a node never
+ * believes it holds a lease that Redis has already let go.
+ * <p>
+ * The versioned saves of {@link LiveGameCache} stay as a last guard: a save retried after Redis was
+ * unreachable for longer than a lease can still lose to the next owner, and the actions behind it
+ * are then lost.
+ * <p>
+ * With {@code belatro.cluster.enabled=false} the node owns every game and Redis is not asked.
+ */
+@Component
+public class GameLeases {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameLeases.class);
+
+    public static final String KEY_PREFIX = "belot:lease:";
+
+    /**
+     * KEYS[1] the lease. ARGV[1] node id, ARGV[2] lease in ms. Takes or renews the lease unless
+     * another node holds it, and returns the holder: empty if it is now this node's.
+     */
+    private static final byte[] HOLD_SCRIPT = bytes("""
+            local holder = redis.call('GET', KEYS[1])
+            if holder and holder ~= ARGV[1] then
+              return holder
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+            return ''
+            """);
+
+    /** KEYS[1] the lease. ARGV[1] node id. Deletes the lease if this node holds it. */
+    private static final byte[] RELEASE_SCRIPT = bytes("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """);
+
+    private final RedisTemplate<String, BelotGame> redis;
+    private final ClusterMembership cluster;
+    private final long leaseMs;
+
+    /** {@link System#nanoTime()} at which each held lease runs out. */
+    private final Map<String, Long> heldUntil = new ConcurrentHashMap<>();
+
+    public GameLeases(RedisTemplate<String, BelotGame> redis,
+                      ClusterMembership cluster,
+                      @Value("${belatro.cluster.lease-ms:10000}") long leaseMs) {
+        this.redis = redis;
+        this.cluster = cluster;
+        this.leaseMs = leaseMs;
+    }
+
+    /**
+     * Takes or renews the game's lease for this node, asking Redis only when less than half of
+     * the lease is left.
+     *
+     * @throws GameNotOwnedException if another node holds it
+     */
+    public void hold(String gameId) {
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        Long until = heldUntil.get(gameId);
+        long leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMs);
+        if (until != null && until - now > leaseNanos / 2) {
+            return;
+        }
+        byte[] holder = redis.execute((RedisCallback<byte[]>) connection -> connection.scriptingCommands()
+                .eval(HOLD_SCRIPT, ReturnType.VALUE, 1, key(gameId), bytes(cluster.nodeId()), bytes(Long.toString(leaseMs))));
+        if (holder != null && holder.length > 0) {
+            heldUntil.remove(gameId);
+            throw new GameNotOwnedException(gameId, new String(holder, StandardCharsets.UTF_8));
+        }
+        heldUntil.put(gameId, now + leaseNanos);
+    }
+
+    /**
+     * Gives back the leases of games handed over to other nodes or ended, so whoever runs them
+     * next need not wait for the leases to run out.
+     */
+    public void release(Collection<String> gameIds) {
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        gameIds.forEach(heldUntil::remove);
+        byte[] node = bytes(cluster.nodeId());
+        try {
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                for (String gameId : gameIds) {
+                    connection.scriptingCommands().eval(RELEASE_SCRIPT, ReturnType.INTEGER, 1, key(gameId), node);
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not give back the leases of {} games; they run out in {} ms: {}",
+                    gameIds.size(), leaseMs, ex.getMessage());
+        }
+    }
+
+    /**
+     * @return number of leases this node believes it holds
+     */
+    public int size() {
+        return heldUntil.size();
+    }
+
+    /** Forgets leases that have run out, those of games this node no longer runs. */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        heldUntil.values().removeIf(until -> until - now < 0);
+    }
+
+    private static byte[] key(String gameId) {
+        return bytes(KEY_PREFIX + gameId);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,195 @@
+package backend.belatro.components;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the commands for each game one at a time, in the order they arrive, on virtual threads.
+ * <p>
+ * Every game with work to do has a mailbox. The first command put into an empty mailbox starts a
+ * virtual thread that runs the queued commands and ends once the mailbox is empty, so an idle game
+ * holds no thread and no lock. Commands for different games run in parallel. A slow command, say
+ * one waiting on Mongo, holds up only its own game, and its blocking I/O parks a virtual thread,
+ * not a scheduler or inbound thread. A command that calls back into its own game runs inline.
+ * <p>
+ * A mailbox is dropped once it is empty after {@link #retire}, which the game service calls when a
+ * game ends; mailboxes of games that went quiet without ending are swept after {@link #IDLE_FOR}.
+ * <p>
+ * Metrics: {@code belatro.game.mailboxes} (open mailboxes), {@code belatro.game.commands.queued}
+ * (commands waiting), {@code belatro.game.command.wait} (queued until started) and
+ * {@code belatro.game.command.run} (time running).
+ */
+@Component
+public class GameMailboxes {
+
+    private static final Duration IDLE_FOR = Duration.ofMinutes(10);
+
+    /** The game whose mailbox this thread is running, if any. */
+    private static final ThreadLocal<String> RUNNING = new ThreadLocal<>();
+
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ExecutorService threads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("game-", 0).factory());
+    private final Timer waitTimer;
+    private final Timer runTimer;
+
+    public GameMailboxes(MeterRegistry meters) {
+        Gauge.builder("belatro.game.mailboxes", mailboxes, Map::size)
+                .description("Games with an open mailbox")
+                .register(meters);
+        Gauge.builder("belatro.game.commands.queued", queued, AtomicInteger::get)
+                .description("Game commands waiting for their game")
+                .register(meters);
+        this.waitTimer = Timer.builder("belatro.game.command.wait")
+                .description("Time a game command waits behind earlier commands for the same game")
+                .register(meters);
+        this.runTimer = Timer.builder("belatro.game.command.run")
+                .description("Time a game command runs")
+                .register(meters);
+    }
+
+    /**
+     * Queues {@code command} behind the game's earlier commands.
+     *
+     * @return completes with the command's result, or exceptionally with what it threw
+     */
+    public <R> CompletableFuture<R> submit(String gameId, Supplier<R> command) {
+        Command<R> queuedCommand = new Command<>(command);
+        boolean[] start = new boolean[1];
+        Mailbox mailbox = mailboxes.compute(gameId, (id, current) -> {
+            Mailbox box = current != null ? current : new Mailbox(id);
+            box.queue.add(queuedCommand);
+            start[0] = box.depth.getAndIncrement() == 0;
+            return box;
+        });
+        queued.incrementAndGet();
+        if (start[0]) {
+            threads.execute(mailbox::drain);
+        }
+        return queuedCommand.result;
+    }
+
+    /**
+     * Runs {@code command} in the game's turn and waits for it; inline if this thread is already
+     * running the game's mailbox.
+     */
+    public <R> R call(String gameId, Supplier<R> command) {
+        if (gameId.equals(RUNNING.get())) {
+            return command.get();
+        }
+        try {
+            return submit(gameId, command).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Marks the game as over: its mailbox is dropped once the commands already queued have run.
+     */
+    public void retire(String gameId) {
+        mailboxes.computeIfPresent(gameId, (id, box) -> {
+            box.retired = true;
+            return box.depth.get() == 0 ? null : box;
+        });
+    }
+
+    /**
+     * @return number of open mailboxes
+     */
+    public int size() {
+        return mailboxes.size();
+    }
+
+    /** Drops empty mailboxes of games that have not had a command for {@link #IDLE_FOR}. */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - IDLE_FOR.toNanos();
+        for (String gameId : mailboxes.keySet()) {
+            mailboxes.computeIfPresent(gameId, (id, box) ->
+                    box.depth.get() == 0 && box.lastUsed - cutoff < 0 ? null : box);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        threads.close();    // lets queued commands finish
+    }
+
+    private final class Mailbox {
+        private final String gameId;
+        private final Queue<Command<?>> queue = new ConcurrentLinkedQueue<>();
+        /** Commands queued or running; the one that raises it from 0 starts the drain. */
+        private final AtomicInteger depth = new AtomicInteger();
+        private volatile boolean retired;
+        private volatile long lastUsed = System.nanoTime();
+
+        Mailbox(String gameId) {
+            this.gameId = gameId;
+        }
+
+        void drain() {
+            RUNNING.set(gameId);
+            try {
+                do {
+                    Command<?> command = queue.poll();
+                    queued.decrementAndGet();
+                    command.run();
+                    lastUsed = System.nanoTime();
+                } while (depth.decrementAndGet() > 0);
+            } finally {
+                RUNNING.remove();
+            }
+            if (retired) {
+                mailboxes.computeIfPresent(gameId, (id, box) -> box == this && depth.get() == 0 ? null : box);
+            }
+        }
+    }
+
+    private final class Command<R> {
+        private final Supplier<R> body;
+        private final long queuedAt = System.nanoTime();
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+
+        Command(Supplier<R> body) {
+            this.body = body;
+        }
+
+        /** Records the timings before completing, so a caller that sees the result sees them. */
+        void run() {
+            long started = System.nanoTime();
+            waitTimer.record(started - queuedAt, TimeUnit.NANOSECONDS);
+            R value = null;
+            Throwable failure = null;
+            try {
+                value = body.get();
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+            runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+}
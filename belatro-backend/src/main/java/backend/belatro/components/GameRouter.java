@@ -0,0 +1,144 @@
+package backend.belatro.components;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends game commands to the node that owns the game.
+ * <p>
+ * A client may be connected to any node, but a game is run by its {@link ClusterMembership owner}
+ * only. A command for a game owned elsewhere is published on the owner's channel,
+ * {@code belot:node:<node id>}, and run there by the handler registered for its action with
+ * {@link #on}, as if the client had sent it to that node. A command that nobody receives, e.g.
+ * because the owner has just died and the ring has not caught up yet, runs here instead, once
+ * the owner's {@link GameLeases lease} on the game has run out; until then it is refused.
+ */
+@Component
+public class GameRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameRouter.class);
+
+    static final String CHANNEL_PREFIX = "belot:node:";
+
+    /** Set while a forwarded command runs, so it is never forwarded again. */
+    private static final ThreadLocal<Boolean> FORWARDED = new ThreadLocal<>();
+
+    /**
+     * Runs a command for a game.
+     *
+     * @param principal the user who sent it, null if the command had none
+     */
+    @FunctionalInterface
+    public interface Handler<T> {
+        void handle(String gameId, T payload, Principal principal);
+    }
+
+    /** A command on its way to the game's owner. */
+    record Forwarded(String gameId, String action, String principal, JsonNode payload) {
+    }
+
+    private record Route<T>(Class<T> type, Handler<T> handler) {
+    }
+
+    private final ClusterMembership cluster;
+    private final RedisTemplate<String, BelotGame> redis;
+    private final RedisMessageListenerContainer listeners;
+    private final ObjectMapper json;
+    private final Map<String, Route<?>> routes = new ConcurrentHashMap<>();
+
+    public GameRouter(ClusterMembership cluster,
+                      RedisTemplate<String, BelotGame> redis,
+                      RedisMessageListenerContainer listeners,
+                      ObjectMapper json) {
+        this.cluster = cluster;
+        this.redis = redis;
+        this.listeners = listeners;
+        this.json = json;
+    }
+
+    @PostConstruct
+    public void listen() {
+        if (cluster.isEnabled()) {
+            listeners.addMessageListener((message, pattern) -> receive(message.getBody()),
+                    new ChannelTopic(CHANNEL_PREFIX + cluster.nodeId()));
+        }
+    }
+
+    /**
+     * Registers the handler for commands of type {@code action}.
+     */
+    public <T> void on(String action, Class<T> type, Handler<T> handler) {
+        routes.put(action, new Route<>(type, handler));
+    }
+
+    /**
+     * Sends the command to the game's owner if that is another node.
+     *
+     * @return true if it was sent, false if the caller should run it here
+     */
+    public boolean forward(String gameId, String action, Object payload, Principal principal) {
+        if (cluster.isLocal(gameId) || Boolean.TRUE.equals(FORWARDED.get())) {
+            return false;
+        }
+        String owner = cluster.ownerOf(gameId);
+        byte[] message;
+        try {
+            message = json.writeValueAsBytes(new Forwarded(gameId, action,
+                    principal != null ? principal.getName() : null, json.valueToTree(payload)));
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Cannot forward " + action + " for game " + gameId, ex);
+        }
+        Long receivers = redis.execute((RedisCallback<Long>) connection ->
+                connection.publish((CHANNEL_PREFIX + owner).getBytes(StandardCharsets.UTF_8), message));
+        if (receivers == null || receivers == 0) {
+            LOGGER.warn("Node {} did not take {} for game {}; running it here", owner, action, gameId);
+            return false;
+        }
+        LOGGER.debug("Forwarded {} for game {} to node {}", action, gameId, owner);
+        return true;
+    }
+
+    void receive(byte[] body) {
+        Forwarded command;
+        try {
+            command = json.readValue(body, Forwarded.class);
+        } catch (IOException ex) {
+            LOGGER.error("Dropping unreadable forwarded command: {}", ex.getMessage());
+            return;
+        }
+        Route<?> route = routes.get(command.action());
+        if (route == null) {
+            LOGGER.error("No handler for forwarded {} on game {}", command.action(), command.gameId());
+            return;
+        }
+        FORWARDED.set(true);
+        try {
+            run(route, command);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Forwarded {} on game {} failed: {}", command.action(), command.gameId(), ex.getMessage());
+        } finally {
+            FORWARDED.remove();
+        }
+    }
+
+    private <T> void run(Route<T> route, Forwarded command) {
+        T payload = json.convertValue(command.payload(), route.type());
+        Principal principal = command.principal() != null ? command.principal()::toString : null;
+        route.handler().handle(command.gameId(), payload, principal);
+    }
+}
@@ -0,0 +1,135 @@
+package backend.belatro.components;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Which games someone is watching, across all nodes.
+ * <p>
+ * A node's {@link SimpUserRegistry} only knows the sessions connected to it. With
+ * {@code belatro.cluster.enabled=true} each node therefore marks the games its sessions subscribe
+ * to with a key {@code belot:watched:<game id>} that expires {@code belatro.cluster.watch-ttl-ms}
+ * after it was last set. A node sets it when a session subscribes and again every
+ * {@code belatro.cluster.watch-refresh-ms} for as long as one stays subscribed, so the key is gone
+ * within one TTL of the last watcher leaving, whichever node it was on. Expiry is Redis' own, so
+ * the nodes' clocks do not matter.
+ * <p>
+ * On a node alone the local registry is the whole picture and Redis is not used.
+ */
+@Component
+public class GameWatchers {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GameWatchers.class);
+
+    public static final String KEY_PREFIX = "belot:watched:";
+
+    private static final Pattern GAME_TOPIC = Pattern.compile("^/topic/games/([^/]+)$");
+
+    private final RedisTemplate<String, BelotGame> redis;
+    private final ClusterMembership cluster;
+    private final SimpUserRegistry users;
+    private final long ttlMs;
+
+    public GameWatchers(RedisTemplate<String, BelotGame> redis,
+                        ClusterMembership cluster,
+                        SimpUserRegistry users,
+                        @Value("${belatro.cluster.watch-ttl-ms:60000}") long ttlMs) {
+        this.redis = redis;
+        this.cluster = cluster;
+        this.users = users;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * @return true if a session on any node is subscribed to {@code /topic/games/<gameId>}. When
+     *         Redis cannot be asked the game counts as watched, so nothing is cancelled blind.
+     */
+    public boolean isWatched(String gameId) {
+        if (!users.findSubscriptions(s -> s.getDestination().equals("/topic/games/" + gameId)).isEmpty()) {
+            return true;
+        }
+        if (!cluster.isEnabled()) {
+            return false;
+        }
+        try {
+            Boolean exists = redis.execute((RedisCallback<Boolean>) connection ->
+                    connection.keyCommands().exists(key(gameId)));
+            return exists == null || exists;
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Cannot tell whether game {} is watched, keeping it: {}", gameId, ex.getMessage());
+            return true;
+        }
+    }
+
+    /** Marks the game a session just subscribed to, so other nodes see it before the next refresh. */
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        String destination = SimpMessageHeaderAccessor.getDestination(event.getMessage().getHeaders());
+        Matcher matcher = destination == null ? null : GAME_TOPIC.matcher(destination);
+        if (cluster.isEnabled() && matcher != null && matcher.matches()) {
+            mark(Set.of(matcher.group(1)));
+        }
+    }
+
+    /** Marks again every game a session on this node is subscribed to. */
+    @Scheduled(fixedDelayString = "${belatro.cluster.watch-refresh-ms:20000}")
+    public void refresh() {
+        if (!cluster.isEnabled()) {
+            return;
+        }
+        Set<String> gameIds = new TreeSet<>();
+        for (SimpSubscription subscription : users.findSubscriptions(s -> GAME_TOPIC.matcher(s.getDestination()).matches())) {
+            Matcher matcher = GAME_TOPIC.matcher(subscription.getDestination());
+            if (matcher.matches()) {
+                gameIds.add(matcher.group(1));
+            }
+        }
+        mark(gameIds);
+    }
+
+    private void mark(Collection<String> gameIds) {
+        if (gameIds.isEmpty()) {
+            return;
+        }
+        byte[] node = bytes(cluster.nodeId());
+        try {
+            redis.executePipelined((RedisCallback<Object>) connection -> {
+                for (String gameId : gameIds) {
+                    connection.stringCommands().set(key(gameId), node, Expiration.milliseconds(ttlMs),
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Cannot mark {} watched games: {}", gameIds.size(), ex.getMessage());
+        }
+    }
+
+    private static byte[] key(String gameId) {
+        return bytes(KEY_PREFIX + gameId);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,633 @@
+package backend.belatro.components;
+
+import backend.belatro.exceptions.StaleGameException;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.BelotGameCodec;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisNoScriptException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * This node's copy of the games it runs, kept ahead of Redis.
+ * <p>
+ * Every saved game is held here as its encoded snapshot, which is the primary copy while the
+ * game is played. {@link #get} decodes a private copy from memory, so callers may change it
+ * freely, just as they could a copy read from Redis. {@link #save} replaces the snapshot and
+ * queues it for Redis. A single writer thread drains the queue after a short delay. All the
+ * saves a game gets before the writer comes round are written once, and every pending game
+ * goes to Redis in one pipeline.
+ * <p>
+ * Saves are compare-and-set on the game's {@link BelotGame#getVersion() version}: a game saved
+ * from a version that is no longer current is refused with {@link StaleGameException}, and the
+ * caller replays its change on a fresh copy. Writes to Redis are compare-and-set too, through
+ * {@link #SAVE_SCRIPT}, against the version this node last wrote or read there. If another node
+ * has written the game since, Redis wins: the local copy is dropped and the next read reloads it.
+ * That refusal comes after the actions behind the save were journalled and sent to clients, and
+ * those actions are lost, so it is only a last guard; {@link GameLeases} keeps two nodes from
+ * running a game at once in the first place.
+ * <p>
+ * Recovery: Redis holds each game as of its last flush, normally a few milliseconds behind
+ * memory. A game this node has not seen, for example after a restart, is loaded from Redis on
+ * first access, through {@link ReactiveGameStore}. Saves that were not flushed when a node dies are lost. Clients get back in step
+ * on their next refresh, which reads the recovered state. A failed flush is retried, and shutdown
+ * flushes everything before the node stops.
+ * <p>
+ * Layout: by default a game is one string key holding its {@link BelotGameCodec binary form}.
+ * With {@code belatro.redis.game-layout=hash} it is a hash with a field per
+ * {@link BelotGameCodec#SECTIONS section}, plus {@code v} (version), {@code s} (state) and
+ * {@code turn} (player to act). A flush then writes only the sections that differ from what this
+ * node last wrote or read, usually the meta section, one hand and the current trick, and
+ * {@link #head} can answer from three fields without reading the game. Both layouts read and
+ * replace keys written in the other, so the setting can be changed on a running cluster.
+ * <p>
+ * Cluster: only the games this node {@link ClusterMembership owns} are kept. A game owned
+ * elsewhere is read from Redis on every access and, if this node saves it, dropped again once
+ * the save is flushed, so a stale copy never outlives a read. When ownership moves,
+ * {@link #release} hands the games over. With the {@link NearGameCache} on, reads of those games
+ * are kept there until Redis reports a change.
+ * <p>
+ * Metrics: {@code belatro.game-cache.pending} (games saved but not yet in Redis) and
+ * {@code belatro.game-cache.conflicts} (flushes Redis refused because another node wrote first).
+ */
+@Component
+public class LiveGameCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LiveGameCache.class);
+
+    static final String KEY_PREFIX = "belot:game:";
+    private static final Duration RETRY_DELAY = Duration.ofMillis(500);
+    /** How long finished and cancelled games stay in memory after their last save. */
+    private static final Duration RETENTION = Duration.ofMinutes(3);
+
+    static final byte[] VERSION_FIELD = bytes("v");
+    static final byte[] STATE_FIELD = bytes("s");
+    static final byte[] TURN_FIELD = bytes("turn");
+    private static final byte[][] SECTION_FIELDS = BelotGameCodec.SECTIONS.stream()
+            .map(LiveGameCache::bytes).toArray(byte[][]::new);
+
+    private static final byte[][] INDEX_KEYS = ActiveGameIndex.keys();
+
+    /**
+     * Start of both save scripts: KEYS[1] game key, KEYS[2] and on the {@link ActiveGameIndex}
+     * keys, ARGV[1] version expected in Redis. Finds the stored version and state in whichever
+     * layout the key has, and returns {0, stored version, stored state name} unless the version is
+     * the expected one. Binary values carry both in their header; JSON values, written with
+     * {@code belatro.redis.game-format=json} or before versions existed, are decoded.
+     * <p>
+     * {@code index(old, new)} files the game under its new state after a write: scored by the
+     * Redis clock in the active set and in the set of its state, or out of both once it is over.
+     */
+    private static final String CHECK_VERSION = """
+            local states = {%s}
+            local function header(value)
+              if string.byte(value, 1) == %d then
+                if string.byte(value, 2) >= 2 then
+                  return struct.unpack('>i8', value, %d), states[string.byte(value, %d) + 1]
+                end
+                return 0, false
+              end
+              local game = cjson.decode(value)
+              return tonumber(game.version) or 0, game.gameState or false
+            end
+            local function index(old, new)
+              local id = string.sub(KEYS[1], %d)
+              local live = false
+              for i = 3, #KEYS do
+                if KEYS[i] == '%s' .. tostring(new) then
+                  live = true
+                  redis.call('SADD', KEYS[i], id)
+                elseif old ~= new then
+                  redis.call('SREM', KEYS[i], id)
+                end
+              end
+              if live then
+                local now = redis.call('TIME')
+                redis.call('ZADD', KEYS[2], now[1] * 1000 + math.floor(now[2] / 1000), id)
+              else
+                redis.call('ZREM', KEYS[2], id)
+              end
+            end
+            local kind = redis.call('TYPE', KEYS[1]).ok
+            local version, state = 0, false
+            if kind == 'hash' then
+              local head = redis.call('HMGET', KEYS[1], 'v', 's')
+              version = tonumber(head[1]) or 0
+              state = head[2]
+            elseif kind == 'string' then
+              version, state = header(redis.call('GET', KEYS[1]))
+            end
+            if version ~= tonumber(ARGV[1]) then
+              return {0, version, state}
+            end
+            """.formatted(
+            Arrays.stream(GameState.values()).map(st -> "'" + st.name() + "'").collect(Collectors.joining(",")),
+            BelotGameCodec.MAGIC & 0xFF,
+            BelotGameCodec.VERSION_OFFSET + 1,
+            BelotGameCodec.STATE_OFFSET + 1,
+            KEY_PREFIX.length() + 1,
+            ActiveGameIndex.STATE_KEY_PREFIX);
+
+    /**
+     * String layout. ARGV[2] new value, ARGV[3] expiry in ms or 0. Sets the value if the stored
+     * version is the expected one. Either way it returns {1 if set else 0, stored version,
+     * stored state name}.
+     */
+    static final String SAVE_SCRIPT = CHECK_VERSION + """
+            if ARGV[3] == '0' then
+              redis.call('SET', KEYS[1], ARGV[2])
+            else
+              redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            end
+            index(state, select(2, header(ARGV[2])))
+            return {1, version, state}
+            """;
+
+    /**
+     * Hash layout. ARGV[2] new version, ARGV[3] state name, ARGV[4] player to act or empty,
+     * ARGV[5] expiry in ms or 0, ARGV[6] 1 if every section follows, then section field and value
+     * pairs. Sets the given fields if the stored version is the expected one; a key in the string
+     * layout is replaced, but only by a complete game. Replies like {@link #SAVE_SCRIPT}.
+     */
+    static final String HASH_SAVE_SCRIPT = CHECK_VERSION + """
+            if kind ~= 'hash' then
+              if ARGV[6] ~= '1' then
+                return {0, version, state}
+              end
+              redis.call('DEL', KEYS[1])
+            end
+            redis.call('HSET', KEYS[1], 'v', ARGV[2], 's', ARGV[3], 'turn', ARGV[4], unpack(ARGV, 7))
+            if ARGV[5] == '0' then
+              redis.call('PERSIST', KEYS[1])
+            else
+              redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            end
+            index(state, ARGV[3])
+            return {1, version, state}
+            """;
+
+    private final RedisTemplate<String, BelotGame> redis;
+    private final ReactiveGameStore store;
+    private final RedisSerializer<BelotGame> codec;
+    private final ClusterMembership cluster;
+    private final NearGameCache near;
+    private final long flushDelayMs;
+    private final boolean hashLayout;
+    private final byte[] saveScript;
+    private final String saveScriptSha;
+
+    private final Map<String, Snapshot> games = new ConcurrentHashMap<>();
+    /** Snapshots saved since the last flush, latest per game. */
+    private final Map<String, Snapshot> dirty = new ConcurrentHashMap<>();
+    /** Version of each game as this node last wrote or read it in Redis. */
+    private final Map<String, Long> storedVersions = new ConcurrentHashMap<>();
+    /** Hash layout: sections of each game as this node last wrote or read them in Redis. */
+    private final Map<String, byte[][]> storedSections = new ConcurrentHashMap<>();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "game-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param turn id of the player to act, null if nobody is
+     * @param ttl  Redis expiry for the key, null to keep it
+     */
+    private record Snapshot(byte[] bytes, long version, GameState state, String turn, long savedAt, Duration ttl) {
+
+        static Snapshot of(byte[] bytes, BelotGame game, Duration ttl) {
+            int seat = game.getCurrentSeat();
+            return new Snapshot(bytes, game.getVersion(), game.getGameState(),
+                    seat >= 0 ? game.playerAt(seat).getId() : null, System.currentTimeMillis(), ttl);
+        }
+    }
+
+    /**
+     * What a check such as "is it still this player's turn" needs, without the game itself.
+     *
+     * @param currentPlayerId id of the player to act, null if nobody is
+     */
+    public record GameHead(long version, GameState state, String currentPlayerId) {
+    }
+
+    /**
+     * @param layout {@code string} (one value per game) or {@code hash} (one field per section)
+     */
+    public LiveGameCache(RedisTemplate<String, BelotGame> redis,
+                         ReactiveGameStore store,
+                         @Qualifier("belotGameSerializer") RedisSerializer<BelotGame> codec,
+                         ClusterMembership cluster,
+                         NearGameCache near,
+                         MeterRegistry meters,
+                         @Value("${belatro.game-cache.flush-delay-ms:10}") long flushDelayMs,
+                         @Value("${belatro.redis.game-layout:string}") String layout) {
+        if (!layout.equals("string") && !layout.equals("hash")) {
+            throw new IllegalArgumentException("Unknown belatro.redis.game-layout " + layout);
+        }
+        this.redis = redis;
+        this.store = store;
+        this.codec = codec;
+        this.cluster = cluster;
+        this.near = near;
+        this.flushDelayMs = flushDelayMs;
+        this.hashLayout = layout.equals("hash");
+        String script = hashLayout ? HASH_SAVE_SCRIPT : SAVE_SCRIPT;
+        this.saveScript = bytes(script);
+        this.saveScriptSha = new DefaultRedisScript<>(script, List.class).getSha1();
+        Gauge.builder("belatro.game-cache.pending", dirty, Map::size)
+                .description("Games saved but not yet written to Redis")
+                .register(meters);
+        FunctionCounter.builder("belatro.game-cache.conflicts", conflicts, AtomicLong::get)
+                .description("Flushed games Redis refused because another node had written them")
+                .register(meters);
+    }
+
+    /**
+     * Loads the save script into Redis, and again each time a connection to Redis comes back:
+     * a restarted Redis has lost its scripts. A flush that finds the script missing all the same
+     * loads it and tries again at once.
+     */
+    @PostConstruct
+    public void start() {
+        if (redis.getConnectionFactory() instanceof LettuceConnectionFactory factory
+                && factory.getNativeClient() instanceof AbstractRedisClient client) {
+            client.addListener(new RedisConnectionStateListener() {
+                @Override
+                public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress address) {
+                    writer.execute(LiveGameCache.this::loadScript);   // not on the connection's event loop
+                }
+            });
+        }
+        writer.execute(this::loadScript);
+    }
+
+    /**
+     * @return a private copy of the game, from memory, or from Redis the first time this node
+     *         sees it or every time if another node owns it; null if it exists in neither
+     */
+    public BelotGame get(String gameId) {
+        Snapshot snapshot = games.get(gameId);
+        if (snapshot == null && !cluster.isLocal(gameId)) {
+            if (near.isEnabled()) {
+                NearGameCache.Cached cached = near.read(gameId, this::fetchForNearCache);
+                return cached != null ? codec.deserialize(cached.bytes()) : null;
+            }
+            ReactiveGameStore.Loaded loaded = fetch(gameId);
+            return loaded != null ? loaded.game() : null;
+        }
+        if (snapshot == null) {
+            snapshot = load(gameId);
+        }
+        return snapshot != null ? codec.deserialize(snapshot.bytes()) : null;
+    }
+
+    /**
+     * Reads only the version, state and player to act. From memory that needs no decoding; in
+     * the hash layout a game not in memory is not loaded either, as three fields answer it.
+     *
+     * @return null if the game exists neither here nor in Redis
+     */
+    public GameHead head(String gameId) {
+        Snapshot snapshot = games.get(gameId);
+        if (snapshot == null && near.isEnabled() && !cluster.isLocal(gameId)) {
+            NearGameCache.Cached cached = near.read(gameId, this::fetchForNearCache);
+            return cached != null ? cached.head() : null;
+        }
+        if (snapshot == null && hashLayout) {
+            try {
+                return store.head(gameId).block();
+            } catch (DataAccessException ex) {
+                // still in the string layout: read it whole
+            }
+        }
+        if (snapshot == null && !cluster.isLocal(gameId)) {
+            ReactiveGameStore.Loaded loaded = fetch(gameId);
+            snapshot = loaded != null ? Snapshot.of(null, loaded.game(), null) : null;
+        } else if (snapshot == null) {
+            snapshot = load(gameId);
+        }
+        return snapshot != null ? new GameHead(snapshot.version(), snapshot.state(), snapshot.turn()) : null;
+    }
+
+    /**
+     * Reads the game from Redis and keeps it in memory, unless a save got in first.
+     */
+    private Snapshot load(String gameId) {
+        ReactiveGameStore.Loaded loaded = fetch(gameId);
+        if (loaded == null) {
+            return null;
+        }
+        BelotGame game = loaded.game();
+        Snapshot snapshot = Snapshot.of(codec.serialize(game), game, null);
+        Snapshot raced = games.putIfAbsent(gameId, snapshot);   // a save that got in first wins
+        if (raced != null) {
+            return raced;
+        }
+        storedVersions.put(gameId, game.getVersion());
+        if (loaded.sections() != null) {
+            storedSections.put(gameId, loaded.sections());
+        }
+        LOGGER.debug("Loaded game {} version {} from Redis", gameId, game.getVersion());
+        return snapshot;
+    }
+
+    /**
+     * Reads the game from Redis over the shared connection of {@link ReactiveGameStore}, so a
+     * cache miss waits for its reply without holding a pooled connection.
+     */
+    private ReactiveGameStore.Loaded fetch(String gameId) {
+        return store.load(gameId).block();
+    }
+
+    private NearGameCache.Cached fetchForNearCache(String gameId) {
+        ReactiveGameStore.Loaded loaded = fetch(gameId);
+        if (loaded == null) {
+            return null;
+        }
+        Snapshot snapshot = Snapshot.of(codec.serialize(loaded.game()), loaded.game(), null);
+        return new NearGameCache.Cached(snapshot.bytes(),
+                new GameHead(snapshot.version(), snapshot.state(), snapshot.turn()));
+    }
+
+    /**
+     * Makes {@code game} the current state, bumps its version and queues it for Redis.
+     *
+     * @param ttl Redis expiry for the stored game, null to keep it indefinitely
+     * @return the state of the snapshot this replaces, null if the game was not in memory
+     * @throws StaleGameException if the game was saved by someone else since {@code game} was read
+     */
+    public GameState save(BelotGame game, Duration ttl) {
+        String gameId = game.getGameId();
+        long expected = game.getVersion();
+        Snapshot[] replaced = new Snapshot[1];
+        Snapshot snapshot = games.compute(gameId, (id, current) -> {
+            if (current != null && current.version() != expected) {
+                throw new StaleGameException(id, expected, current.version());
+            }
+            replaced[0] = current;
+            game.setVersion(expected + 1);
+            return Snapshot.of(codec.serialize(game), game, ttl);
+        });
+        Snapshot previous = replaced[0];
+        if (previous == null) {
+            storedVersions.putIfAbsent(gameId, expected);   // read from Redis, not kept here
+        }
+        dirty.put(gameId, snapshot);
+        if (flushQueued.compareAndSet(false, true)) {
+            writer.schedule(this::flush, flushDelayMs, TimeUnit.MILLISECONDS);
+        }
+        return previous != null ? previous.state() : null;
+    }
+
+    /**
+     * Writes every pending snapshot in one pipeline of save script calls; on failure puts
+     * back the ones that have not been superseded meanwhile and tries again later. Runs on the
+     * writer thread.
+     */
+    private void flush() {
+        flushQueued.set(false);
+        List<Map.Entry<String, Snapshot>> batch = new ArrayList<>(dirty.size());
+        for (String gameId : dirty.keySet()) {
+            Snapshot snapshot = dirty.remove(gameId);
+            if (snapshot != null) {
+                batch.add(Map.entry(gameId, snapshot));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        byte[][][] written = new byte[batch.size()][][];
+        List<byte[][]> calls = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String gameId = batch.get(i).getKey();
+            Snapshot snapshot = batch.get(i).getValue();
+            byte[] expected = bytes(Long.toString(storedVersions.getOrDefault(gameId, 0L)));
+            byte[] ttl = bytes(Long.toString(snapshot.ttl() != null ? snapshot.ttl().toMillis() : 0));
+            if (!hashLayout) {
+                calls.add(keysAndArgs(gameId, List.of(expected, snapshot.bytes(), ttl)));
+                continue;
+            }
+            written[i] = BelotGameCodec.encodeSections(codec.deserialize(snapshot.bytes()));
+            calls.add(keysAndArgs(gameId, hashSaveArgs(gameId, snapshot, expected, ttl, written[i])));
+        }
+
+        List<Object> replies;
+        try {
+            replies = redis.executePipelined((RedisCallback<Object>) connection -> {
+                for (byte[][] keyAndArgs : calls) {
+                    connection.scriptingCommands().evalSha(saveScriptSha, ReturnType.MULTI, 1 + INDEX_KEYS.length, keyAndArgs);
+                }
+                return null;
+            }, RedisSerializer.string());
+        } catch (RuntimeException ex) {
+            // a pipeline reports the first failed command as its cause, wrapped by the exception converter
+            boolean noScript = NestedExceptionUtils.getMostSpecificCause(ex) instanceof RedisNoScriptException;
+            if (noScript) {
+                loadScript();
+            } else {
+                LOGGER.warn("Flushing {} games to Redis failed, retrying in {}: {}", batch.size(), RETRY_DELAY, ex.getMessage());
+            }
+            for (Map.Entry<String, Snapshot> entry : batch) {
+                dirty.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            if (flushQueued.compareAndSet(false, true)) {
+                writer.schedule(this::flush, noScript ? 0 : RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            String gameId = batch.get(i).getKey();
+            Snapshot snapshot = batch.get(i).getValue();
+            List<?> reply = (List<?>) replies.get(i);
+            if (((Number) reply.get(0)).longValue() == 1) {
+                storedVersions.put(gameId, snapshot.version());
+                if (written[i] != null) {
+                    storedSections.put(gameId, written[i]);
+                }
+                if (!cluster.isLocal(gameId)) {
+                    near.invalidate(gameId);   // before Redis reports it, so no read sees the old copy
+                    forget(gameId, snapshot);
+                }
+            } else {
+                onConflict(gameId, snapshot, ((Number) reply.get(1)).longValue(), (String) reply.get(2));
+            }
+        }
+        LOGGER.debug("Flushed {} games to Redis", batch.size());
+    }
+
+    private void loadScript() {
+        try {
+            redis.execute((RedisCallback<String>) connection -> connection.scriptingCommands().scriptLoad(saveScript));
+        } catch (DataAccessException ex) {
+            LOGGER.warn("Loading the save script into Redis failed, the next flush tries again: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * The game key and the index keys, then {@code args}: what a save script is called with.
+     */
+    private static byte[][] keysAndArgs(String gameId, List<byte[]> args) {
+        byte[][] keysAndArgs = new byte[1 + INDEX_KEYS.length + args.size()][];
+        keysAndArgs[0] = key(gameId);
+        System.arraycopy(INDEX_KEYS, 0, keysAndArgs, 1, INDEX_KEYS.length);
+        for (int i = 0; i < args.size(); i++) {
+            keysAndArgs[1 + INDEX_KEYS.length + i] = args.get(i);
+        }
+        return keysAndArgs;
+    }
+
+    /**
+     * Arguments of {@link #HASH_SAVE_SCRIPT}: the sections that differ from what this node last
+     * wrote or read, or all of them if it has not seen the game in Redis yet.
+     */
+    private List<byte[]> hashSaveArgs(String gameId, Snapshot snapshot, byte[] expected, byte[] ttl, byte[][] sections) {
+        byte[][] stored = storedSections.get(gameId);
+        List<byte[]> args = new ArrayList<>(6 + 2 * sections.length);
+        args.add(expected);
+        args.add(bytes(Long.toString(snapshot.version())));
+        args.add(bytes(snapshot.state().name()));
+        args.add(bytes(snapshot.turn() != null ? snapshot.turn() : ""));
+        args.add(ttl);
+        args.add(bytes(stored == null ? "1" : "0"));
+        for (int section = 0; section < sections.length; section++) {
+            if (stored == null || !Arrays.equals(stored[section], sections[section])) {
+                args.add(SECTION_FIELDS[section]);
+                args.add(sections[section]);
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Another node wrote the game since this one last did. Its copy wins: everything this node
+     * saved after that is dropped, and the next read loads the game from Redis again. The actions
+     * behind the dropped saves have already been journalled and sent to clients, and are lost;
+     * with {@link GameLeases} this only happens to a save still queued when its lease ran out.
+     */
+    private void onConflict(String gameId, Snapshot snapshot, long storedVersion, String storedState) {
+        conflicts.incrementAndGet();
+        near.invalidate(gameId);
+        LOGGER.warn("Game {} version {} not written: Redis has version {} ({}), expected {}; reloading",
+                gameId, snapshot.version(), storedVersion, storedState, storedVersions.get(gameId));
+        games.remove(gameId);
+        dirty.remove(gameId);
+        storedVersions.remove(gameId);
+        storedSections.remove(gameId);
+    }
+
+    /**
+     * Drops {@code snapshot} from memory unless a later save has replaced it.
+     */
+    private void forget(String gameId, Snapshot snapshot) {
+        if (games.remove(gameId, snapshot) && !dirty.containsKey(gameId)) {
+            storedVersions.remove(gameId);
+            storedSections.remove(gameId);
+        }
+    }
+
+    /**
+     * Hands games over to the node that now owns them: writes what is pending, then drops them
+     * from memory. A game saved again meanwhile is kept until its own flush drops it.
+     */
+    public void release(Collection<String> gameIds) {
+        flushNow();
+        for (String gameId : gameIds) {
+            Snapshot snapshot = games.get(gameId);
+            if (snapshot != null && !dirty.containsKey(gameId)) {
+                forget(gameId, snapshot);
+            }
+        }
+        LOGGER.info("Released {} games to other nodes", gameIds.size());
+    }
+
+    /**
+     * @return ids of the games held in memory
+     */
+    public Set<String> ids() {
+        return Set.copyOf(games.keySet());
+    }
+
+    /**
+     * Writes all pending snapshots now and waits for Redis to take them.
+     */
+    public void flushNow() {
+        try {
+            writer.submit(this::flush).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Flushing games to Redis failed", ex.getCause());
+        }
+    }
+
+    /** Drops finished and cancelled games from memory once their retention is over. */
+    @Scheduled(fixedDelay = 60_000)
+    public void evictFinished() {
+        long cutoff = System.currentTimeMillis() - RETENTION.toMillis();
+        games.entrySet().removeIf(entry -> {
+            Snapshot snapshot = entry.getValue();
+            boolean over = snapshot.state() == GameState.COMPLETED || snapshot.state() == GameState.CANCELLED;
+            boolean evict = over && snapshot.savedAt() < cutoff && !dirty.containsKey(entry.getKey());
+            if (evict) {
+                storedVersions.remove(entry.getKey());
+                storedSections.remove(entry.getKey());
+            }
+            return evict;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushNow();
+        writer.shutdown();
+        if (!dirty.isEmpty()) {
+            LOGGER.error("{} games could not be written to Redis before shutdown", dirty.size());
+        }
+    }
+
+    static byte[] key(String gameId) {
+        return bytes(KEY_PREFIX + gameId);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
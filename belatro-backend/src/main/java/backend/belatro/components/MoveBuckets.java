@@ -0,0 +1,249 @@
+package backend.belatro.components;
+
+import backend.belatro.enums.MoveType;
+import backend.belatro.models.MatchMove;
+import backend.belatro.models.MatchMoveBucket;
+import backend.belatro.pojo.gamelogic.Card;
+import backend.belatro.pojo.gamelogic.CardSet;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * The {@code buckets} layout of the move log: one {@link MatchMoveBucket} per hand instead of one
+ * document per move, selected with {@code belatro.moves.layout} ({@code documents} by default).
+ * <p>
+ * {@link #push} turns a batch of moves into one upsert per hand, an update pipeline that appends
+ * to each array only the moves whose numbers the bucket does not hold yet. Pushing moves that are
+ * already there, as the {@link MoveJournal} does when it replays, therefore adds just the ones that
+ * are missing, however much of the batch was stored before, and moves may arrive in any order: a
+ * hand's earlier moves flushed by its old owner after the new owner pushed later ones still land.
+ * <p>
+ * {@link #read} turns a match's buckets back into {@link MatchMove}s with the payloads they were
+ * recorded with, so readers do not know which layout wrote them.
+ */
+@Component
+public class MoveBuckets {
+
+    public static final String DOCUMENTS = "documents";
+    public static final String BUCKETS = "buckets";
+
+    /** The bucket's arrays of moves, each entry numbered in {@code n}. */
+    private static final List<String> ARRAYS = List.of("bids", "plays", "tricks", "challenges", "events");
+
+    private static final Map<String, Card> CARDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < CardSet.DECK_SIZE; i++) {
+            CARDS.put(Card.of(i).toString(), Card.of(i));
+        }
+    }
+
+    private final MongoOperations mongo;
+    private final boolean enabled;
+
+    public MoveBuckets(MongoOperations mongo,
+                       @Value("${belatro.moves.layout:documents}") String layout) {
+        if (!DOCUMENTS.equals(layout) && !BUCKETS.equals(layout)) {
+            throw new IllegalArgumentException("Unknown belatro.moves.layout: " + layout);
+        }
+        this.mongo = mongo;
+        this.enabled = BUCKETS.equals(layout);
+    }
+
+    /** Whether moves are written to buckets rather than one document each. */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds an upsert per hand to {@code ops}, a bulk on {@link MatchMoveBucket}.
+     */
+    public BulkOperations push(BulkOperations ops, List<MatchMove> moves) {
+        Map<String, List<MatchMove>> byHand = new LinkedHashMap<>();
+        for (MatchMove move : moves) {
+            byHand.computeIfAbsent(bucketId(move.getMatchId(), move.getHandNo()), id -> new ArrayList<>()).add(move);
+        }
+        byHand.forEach((id, hand) -> {
+            MatchMove first = hand.get(0);
+            ops.upsert(query(where("_id").is(id)), append(bucket(first.getMatchId(), first.getHandNo(), hand)));
+        });
+        return ops;
+    }
+
+    /**
+     * One {@code $set} stage that adds the bucket's moves whose numbers are not stored yet to the
+     * stored arrays, counts them and raises {@code last}. Every expression reads the stored document
+     * as it was, and a bucket not stored yet reads as empty.
+     */
+    private AggregationUpdate append(MatchMoveBucket bucket) {
+        List<Object> storedNumbers = new ArrayList<>();
+        for (String array : ARRAYS) {
+            storedNumbers.add(new Document("$ifNull", List.of("$" + array + ".n", List.of())));
+        }
+        Document stored = new Document("$concatArrays", storedNumbers);
+        Document set = new Document("matchId", new Document("$literal", bucket.getMatchId()))
+                .append("handNo", bucket.getHandNo());
+        List<Object> count = new ArrayList<>();
+        count.add(new Document("$ifNull", List.of("$count", 0)));
+        appendAll(set, count, stored, "bids", bucket.getBids());
+        appendAll(set, count, stored, "plays", bucket.getPlays());
+        appendAll(set, count, stored, "tricks", bucket.getTricks());
+        appendAll(set, count, stored, "challenges", bucket.getChallenges());
+        appendAll(set, count, stored, "events", bucket.getEvents());
+        set.append("count", new Document("$add", count))
+                .append("last", new Document("$max", List.of(new Document("$ifNull", List.of("$last", 0)), bucket.getLast())));
+        return AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+    }
+
+    private void appendAll(Document set, List<Object> count, Document storedNumbers, String array, List<?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Object> stored = new ArrayList<>(entries.size());
+        for (Object entry : entries) {
+            stored.add(mongo.getConverter().convertToMongoType(entry));
+        }
+        Document missing = new Document("$filter", new Document("input", new Document("$literal", stored))
+                .append("as", "move")
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$move.n", storedNumbers))))));
+        set.append(array, new Document("$concatArrays", List.of(new Document("$ifNull", List.of("$" + array, List.of())), missing)));
+        count.add(new Document("$size", missing));
+    }
+
+    /** The match's moves from its buckets, in number order. */
+    public List<MatchMove> read(String matchId) {
+        List<MatchMove> moves = new ArrayList<>();
+        for (MatchMoveBucket bucket : mongo.find(query(where("matchId").is(matchId)), MatchMoveBucket.class)) {
+            moves.addAll(moves(bucket));
+        }
+        moves.sort(Comparator.comparingInt(MatchMove::getNumber));
+        return moves;
+    }
+
+    /** One hand's moves as a bucket; {@link #moves} gives them back. */
+    public static MatchMoveBucket bucket(String matchId, int handNo, List<MatchMove> moves) {
+        MatchMoveBucket bucket = new MatchMoveBucket();
+        bucket.setId(bucketId(matchId, handNo));
+        bucket.setMatchId(matchId);
+        bucket.setHandNo(handNo);
+        for (MatchMove move : moves) {
+            add(bucket, move);
+            bucket.setLast(Math.max(bucket.getLast(), move.getNumber()));
+            bucket.setCount(bucket.getCount() + 1);
+        }
+        return bucket;
+    }
+
+    /** The bucket's moves, in the order of each kind's array. */
+    public static List<MatchMove> moves(MatchMoveBucket bucket) {
+        List<MatchMove> moves = new ArrayList<>(bucket.getCount());
+        for (MatchMoveBucket.Bid bid : bucket.getBids()) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("playerId", bid.getPlayerId());
+            payload.put("pass", bid.isPass());
+            if (bid.getTrump() != null) {
+                payload.put("trump", bid.getTrump());
+            }
+            moves.add(move(bucket, bid.getNumber(), bid.getTrickNo(), bid.getTs(), MoveType.BID, 0.0, payload));
+        }
+        for (MatchMoveBucket.Play play : bucket.getPlays()) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("playerId", play.getPlayerId());
+            payload.put("card", Card.of(play.getCard()).toString());
+            payload.put("declareBela", play.isDeclareBela());
+            payload.put("legal", play.isLegal());
+            moves.add(move(bucket, play.getNumber(), play.getTrickNo(), play.getTs(), MoveType.PLAY_CARD, 0.0, payload));
+        }
+        for (MatchMoveBucket.TrickEnd trick : bucket.getTricks()) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("winnerId", trick.getWinnerId());
+            payload.put("points", trick.getPoints());
+            moves.add(move(bucket, trick.getNumber(), trick.getTrickNo(), trick.getTs(), MoveType.END_TRICK, 0.0, payload));
+        }
+        for (MatchMoveBucket.Challenge challenge : bucket.getChallenges()) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("playerId", challenge.getPlayerId());
+            payload.put("success", challenge.isSuccess());
+            payload.put("violatingTeam", challenge.getViolatingTeam());
+            moves.add(move(bucket, challenge.getNumber(), challenge.getTrickNo(), challenge.getTs(), MoveType.CHALLENGE, 0.0, payload));
+        }
+        for (MatchMoveBucket.Event event : bucket.getEvents()) {
+            moves.add(move(bucket, event.getNumber(), event.getTrickNo(), event.getTs(), event.getType(),
+                    event.getEvaluation(), event.getPayload()));
+        }
+        return moves;
+    }
+
+    public static String bucketId(String matchId, int handNo) {
+        return matchId + ":" + handNo;
+    }
+
+    /** Files the move under its kind when its payload has exactly that kind's fields. */
+    private static void add(MatchMoveBucket bucket, MatchMove move) {
+        Map<String, Object> p = move.getPayload() == null ? Map.of() : move.getPayload();
+        boolean plain = move.getEvaluation() == 0.0 && move.getType() != null;
+        if (plain && move.getType() == MoveType.BID
+                && (p.keySet().equals(Set.of("playerId", "pass")) || p.keySet().equals(Set.of("playerId", "pass", "trump")))
+                && p.get("playerId") instanceof String playerId
+                && p.get("pass") instanceof Boolean pass
+                && (p.size() == 2 || p.get("trump") instanceof String)) {
+            bucket.getBids().add(new MatchMoveBucket.Bid(move.getNumber(), move.getTrickNo(), move.getTs(),
+                    playerId, pass, (String) p.get("trump")));
+        } else if (plain && move.getType() == MoveType.PLAY_CARD
+                && p.keySet().equals(Set.of("playerId", "card", "declareBela", "legal"))
+                && p.get("playerId") instanceof String playerId
+                && p.get("card") instanceof String card && CARDS.containsKey(card)
+                && p.get("declareBela") instanceof Boolean declareBela
+                && p.get("legal") instanceof Boolean legal) {
+            bucket.getPlays().add(new MatchMoveBucket.Play(move.getNumber(), move.getTrickNo(), move.getTs(),
+                    playerId, CARDS.get(card).ordinal(), declareBela, legal));
+        } else if (plain && move.getType() == MoveType.END_TRICK
+                && p.keySet().equals(Set.of("winnerId", "points"))
+                && p.get("winnerId") instanceof String winnerId
+                && p.get("points") instanceof Integer points) {
+            bucket.getTricks().add(new MatchMoveBucket.TrickEnd(move.getNumber(), move.getTrickNo(), move.getTs(),
+                    winnerId, points));
+        } else if (plain && move.getType() == MoveType.CHALLENGE
+                && p.keySet().equals(Set.of("playerId", "success", "violatingTeam"))
+                && p.get("playerId") instanceof String playerId
+                && p.get("success") instanceof Boolean success
+                && p.get("violatingTeam") instanceof String violatingTeam) {
+            bucket.getChallenges().add(new MatchMoveBucket.Challenge(move.getNumber(), move.getTrickNo(), move.getTs(),
+                    playerId, success, violatingTeam));
+        } else {
+            bucket.getEvents().add(new MatchMoveBucket.Event(move.getNumber(), move.getTrickNo(), move.getTs(),
+                    move.getType(), move.getEvaluation(), move.getPayload()));
+        }
+    }
+
+    private static MatchMove move(MatchMoveBucket bucket, int number, int trickNo, Instant ts,
+                                  MoveType type, double evaluation, Map<String, Object> payload) {
+        MatchMove move = new MatchMove();
+        move.setId(bucket.getMatchId() + ":" + number);
+        move.setMatchId(bucket.getMatchId());
+        move.setNumber(number);
+        move.setHandNo(bucket.getHandNo());
+        move.setTrickNo(trickNo);
+        move.setType(type);
+        move.setPayload(payload);
+        move.setEvaluation(evaluation);
+        move.setTs(ts);
+        return move;
+    }
+}
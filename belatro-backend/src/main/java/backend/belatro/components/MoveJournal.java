@@ -0,0 +1,471 @@
+package backend.belatro.components;
+
+import backend.belatro.models.MatchMove;
+import backend.belatro.models.MatchMoveBucket;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Takes the move log off the game's path: moves are written to a local journal and reach Mongo
+ * in batches, after the action that made them is done.
+ * <p>
+ * {@link #append} writes the moves of one action as a record to the current segment, a
+ * memory-mapped file in {@code belatro.moves.journal.dir}, and returns; what is written there
+ * survives the process dying, as the OS writes the pages back on its own. A single flusher thread
+ * inserts pending moves into {@code match_moves} in one unordered bulk insert of up to
+ * {@code batch-size} moves, as soon as that many are waiting or {@code flush-ms} after the first
+ * one. A failed insert is retried. A segment is deleted once it is full and all of its moves are
+ * in Mongo.
+ * <p>
+ * On start, the segments left by the last run are read back and their moves inserted again. A
+ * record cut short by a crash fails its checksum and ends the segment. Each move's id is
+ * {@code <matchId>:<number>}, so a move that was inserted before the crash is refused as a
+ * duplicate {@code _id}, which counts as done: replaying is idempotent. A duplicate on any other
+ * key, such as a move numbered like one recorded before move numbers came from the game, is logged
+ * and fails the batch. With the {@code buckets} layout of {@link MoveBuckets} the moves are pushed
+ * into per-hand documents instead, which skip the moves they already hold; an upsert that lost a
+ * race to create its bucket is pushed again.
+ * <p>
+ * Each node needs a directory of its own: the journal locks {@code journal.lock} in it on start and
+ * fails to start if another process holds it, as two instances started from one checkout would.
+ * <p>
+ * Metrics: {@code belatro.moves.journal.pending} (moves not yet in Mongo),
+ * {@code belatro.moves.journal.batch} (moves per insert) and {@code belatro.moves.journal.lag}
+ * (from append to insert).
+ */
+@Component
+public class MoveJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MoveJournal.class);
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("moves-(\\d+)\\.wal");
+    /** Record header: length of the body, then its CRC32. A length of 0 ends the segment. */
+    private static final int HEADER_BYTES = 8;
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int BUCKET_ATTEMPTS = 3;
+    private static final String LOCK_FILE = "journal.lock";
+    private static final TypeReference<List<MatchMove>> MOVES = new TypeReference<>() {
+    };
+
+    private final MongoOperations mongo;
+    private final MoveBuckets buckets;
+    private final ObjectMapper json;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int batchSize;
+    private final long flushMs;
+
+    private final Object lock = new Object();
+    /** Moves not yet in Mongo, oldest first. Guarded by {@link #lock}. */
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    /** Segment appends go to. Guarded by {@link #lock}. */
+    private Segment active;
+    /** Held on {@code journal.lock} while the journal is open. */
+    private FileChannel dirLock;
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "move-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final MeterRegistry meters;
+    private final DistributionSummary batches;
+    private final Timer lag;
+
+    private record Pending(MatchMove move, Segment segment, long appendedAt) {
+    }
+
+    /** A journal file; its moves are counted out as they reach Mongo. */
+    private static final class Segment {
+        final long number;
+        final Path path;
+        MappedByteBuffer buffer;
+        int unflushed;
+
+        Segment(long number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+
+        boolean isDone() {
+            return buffer == null && unflushed == 0;
+        }
+    }
+
+    public MoveJournal(MongoOperations mongo,
+                       MoveBuckets buckets,
+                       ObjectMapper json,
+                       MeterRegistry meters,
+                       @Value("${belatro.moves.journal.dir:move-journal}") Path dir,
+                       @Value("${belatro.moves.journal.segment-bytes:8388608}") int segmentBytes,
+                       @Value("${belatro.moves.journal.batch-size:500}") int batchSize,
+                       @Value("${belatro.moves.journal.flush-ms:50}") long flushMs) {
+        this.mongo = mongo;
+        this.buckets = buckets;
+        this.json = json;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.batchSize = batchSize;
+        this.flushMs = flushMs;
+        this.meters = meters;
+        this.batches = DistributionSummary.builder("belatro.moves.journal.batch")
+                .description("Moves per insert into Mongo")
+                .register(meters);
+        this.lag = Timer.builder("belatro.moves.journal.lag")
+                .description("Time from journalling a move to inserting it into Mongo")
+                .register(meters);
+    }
+
+    /**
+     * Reads back the segments the last run left and queues their moves for Mongo again, then
+     * opens a new segment. The pending gauge is registered here rather than in the constructor,
+     * which should not hand out {@code this}.
+     */
+    @PostConstruct
+    public void open() {
+        Gauge.builder("belatro.moves.journal.pending", this, MoveJournal::pendingMoves)
+                .description("Moves journalled but not yet in Mongo")
+                .register(meters);
+
+        long last = 0;
+        int replayed = 0;
+        synchronized (lock) {
+            try {
+                Files.createDirectories(dir);
+                lockDir();
+                List<Segment> found;
+                try (Stream<Path> files = Files.list(dir)) {
+                    found = files.map(MoveJournal::segmentOf)
+                            .filter(segment -> segment != null)
+                            .sorted((a, b) -> Long.compare(a.number, b.number))
+                            .toList();
+                }
+                for (Segment segment : found) {
+                    last = segment.number;
+                    for (MatchMove move : readBack(segment.path)) {
+                        pending.add(new Pending(move, segment, System.nanoTime()));
+                        segment.unflushed++;
+                        replayed++;
+                    }
+                    if (segment.isDone()) {
+                        Files.deleteIfExists(segment.path);
+                    }
+                }
+                active = newSegment(last + 1, segmentBytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot open the move journal in " + dir, ex);
+            }
+        }
+        if (replayed > 0) {
+            LOGGER.info("Replaying {} journalled moves into Mongo", replayed);
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Journals the moves and queues them for Mongo; returns once they are in the journal. Sets
+     * each move's id to {@code <matchId>:<number>}.
+     */
+    public void append(List<MatchMove> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        for (MatchMove move : moves) {
+            move.setId(move.getMatchId() + ":" + move.getNumber());
+        }
+        byte[] body;
+        try {
+            body = json.writeValueAsBytes(moves);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Cannot journal moves of match " + moves.get(0).getMatchId(), ex);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        boolean full;
+        synchronized (lock) {
+            if (active.buffer.remaining() < HEADER_BYTES + body.length) {
+                roll(HEADER_BYTES + body.length);
+            }
+            active.buffer.putInt(body.length).putInt((int) crc.getValue()).put(body);
+            long now = System.nanoTime();
+            for (MatchMove move : moves) {
+                pending.add(new Pending(move, active, now));
+            }
+            active.unflushed += moves.size();
+            full = pending.size() >= batchSize;
+        }
+        if (full) {
+            flusher.execute(this::flush);
+        } else if (flushQueued.compareAndSet(false, true)) {
+            flusher.schedule(this::flush, flushMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Inserts pending moves in batches until none are left, or an insert fails. Runs on the
+     * flusher thread.
+     */
+    private void flush() {
+        flushQueued.set(false);
+        while (true) {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            synchronized (lock) {
+                while (batch.size() < batchSize && !pending.isEmpty()) {
+                    batch.add(pending.poll());
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                insert(batch.stream().map(Pending::move).toList());
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Inserting {} journalled moves failed, retrying in {}: {}", batch.size(), RETRY_DELAY, ex.getMessage());
+                synchronized (lock) {
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        pending.addFirst(batch.get(i));
+                    }
+                }
+                if (flushQueued.compareAndSet(false, true)) {
+                    flusher.schedule(this::flush, RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+            batches.record(batch.size());
+            long now = System.nanoTime();
+            synchronized (lock) {
+                for (Pending move : batch) {
+                    lag.record(now - move.appendedAt(), TimeUnit.NANOSECONDS);
+                    move.segment().unflushed--;
+                    if (move.segment().isDone()) {
+                        delete(move.segment());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * One unordered bulk insert, or with the bucket layout one bulk of per-hand upserts; moves
+     * already in Mongo, from before a restart, are skipped.
+     */
+    private void insert(List<MatchMove> moves) {
+        if (buckets.enabled()) {
+            push(moves);
+            return;
+        }
+        try {
+            mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, MatchMove.class).insert(moves).execute();
+        } catch (BulkOperationException ex) {
+            boolean stored = true;
+            for (BulkWriteError error : ex.getErrors()) {
+                if (isIdDuplicate(error)) {
+                    continue;
+                }
+                stored = false;
+                if (error.getCode() == DUPLICATE_KEY) {
+                    LOGGER.error("Journalled move {} collides with a stored move: {}",
+                            moves.get(error.getIndex()).getId(), error.getMessage());
+                }
+            }
+            if (!stored) {
+                throw ex;
+            }
+            LOGGER.debug("{} journalled moves were already in Mongo", ex.getErrors().size());
+        }
+    }
+
+    /**
+     * Two upserts creating the same bucket can race, and the one that loses fails on the duplicate
+     * {@code _id}. Pushing the batch again then appends to the bucket the other one created; the
+     * moves that did get in are skipped.
+     */
+    private void push(List<MatchMove> moves) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                buckets.push(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, MatchMoveBucket.class), moves).execute();
+                return;
+            } catch (BulkOperationException ex) {
+                boolean raced = ex.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY);
+                if (!raced || attempt == BUCKET_ATTEMPTS) {
+                    throw ex;
+                }
+                LOGGER.debug("{} move buckets were created meanwhile, pushing again", ex.getErrors().size());
+            }
+        }
+    }
+
+    /** The server names the index in the message; the key pattern is only there on newer ones. */
+    private static boolean isIdDuplicate(BulkWriteError error) {
+        if (error.getCode() != DUPLICATE_KEY) {
+            return false;
+        }
+        BsonDocument details = error.getDetails();
+        if (details.containsKey("keyPattern")) {
+            return details.getDocument("keyPattern").keySet().equals(Set.of("_id"));
+        }
+        return error.getMessage() != null && error.getMessage().contains(" index: _id_ ");
+    }
+
+    /** Takes the directory for this process, so no other one replays or deletes its segments. */
+    private void lockDir() throws IOException {
+        FileChannel channel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock held;
+        try {
+            held = channel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            held = null;
+        }
+        if (held == null) {
+            channel.close();
+            throw new IllegalStateException("Move journal directory " + dir.toAbsolutePath()
+                    + " is in use by another instance; give each one its own belatro.moves.journal.dir");
+        }
+        dirLock = channel;
+    }
+
+    /** Seals the active segment and starts the next one, large enough for {@code needed} bytes. */
+    private void roll(int needed) {
+        Segment full = active;
+        full.buffer = null;
+        if (full.isDone()) {
+            delete(full);
+        }
+        try {
+            active = newSegment(full.number + 1, Math.max(segmentBytes, needed + HEADER_BYTES));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot start move journal segment " + (full.number + 1), ex);
+        }
+    }
+
+    private Segment newSegment(long number, int size) throws IOException {
+        Segment segment = new Segment(number, dir.resolve("moves-" + number + ".wal"));
+        try (FileChannel channel = FileChannel.open(segment.path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        return segment;
+    }
+
+    private void delete(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not delete move journal segment {}: {}", segment.path, ex.getMessage());
+        }
+    }
+
+    /**
+     * @return the moves of each whole record in the segment, up to the first that is missing or
+     *         fails its checksum
+     */
+    private List<MatchMove> readBack(Path path) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        List<MatchMove> moves = new ArrayList<>();
+        while (bytes.remaining() >= HEADER_BYTES) {
+            int length = bytes.getInt();
+            int checksum = bytes.getInt();
+            if (length <= 0 || length > bytes.remaining()) {
+                break;
+            }
+            byte[] body = new byte[length];
+            bytes.get(body);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != checksum) {
+                LOGGER.warn("Move journal segment {} ends in a torn record", path.getFileName());
+                break;
+            }
+            moves.addAll(json.readValue(body, MOVES));
+        }
+        return moves;
+    }
+
+    private static Segment segmentOf(Path path) {
+        Matcher name = SEGMENT_NAME.matcher(path.getFileName().toString());
+        return name.matches() ? new Segment(Long.parseLong(name.group(1)), path) : null;
+    }
+
+    /**
+     * @return number of moves journalled but not yet in Mongo
+     */
+    public int pendingMoves() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Inserts all pending moves now and waits for it.
+     */
+    public void flushNow() {
+        try {
+            flusher.submit(this::flush).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Flushing the move journal failed", ex.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushNow();
+        flusher.shutdown();
+        int left = pendingMoves();
+        if (left > 0) {
+            LOGGER.warn("{} moves are still only in the journal; they are inserted at the next start", left);
+        }
+        if (dirLock != null) {
+            try {
+                dirLock.close();
+            } catch (IOException ex) {
+                LOGGER.warn("Could not unlock the move journal in {}: {}", dir, ex.getMessage());
+            }
+        }
+    }
+}
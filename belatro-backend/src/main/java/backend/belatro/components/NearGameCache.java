@@ -0,0 +1,226 @@
+package backend.belatro.components;
+
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Games owned by other nodes, as last read from Redis, kept until Redis says they changed.
+ * <p>
+ * {@link LiveGameCache} holds the games this node runs, but reads a game owned elsewhere from Redis
+ * on every access: each subscription, refresh and timer check on it costs a round trip. With
+ * {@code belatro.redis.near-cache.enabled=true} those reads are kept here instead, together with
+ * the game's version, state and player to act. A dedicated connection turns on
+ * {@code CLIENT TRACKING} in broadcast mode for the game keys, so Redis pushes an invalidation
+ * over RESP3 whenever any node writes or expires one, and the entry is dropped before the next
+ * read. While that connection is down nothing is cached, and every entry is dropped, as
+ * invalidations may have been missed.
+ * <p>
+ * A read races the invalidation of a write that lands while it is in flight. The read therefore
+ * leaves a placeholder first and replaces only that placeholder with what it read; an
+ * invalidation in between removes the placeholder, so the outdated value is not kept.
+ * <p>
+ * Needs Redis 6 or later on a standalone connection. Disabled by default, and inert with the
+ * cluster disabled, as a lone node owns every game.
+ */
+@Component
+public class NearGameCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NearGameCache.class);
+
+    private static final String KEY_PREFIX = LiveGameCache.KEY_PREFIX;
+
+    /**
+     * A game as read from Redis.
+     *
+     * @param bytes the game in the form of the {@code belotGameSerializer}
+     */
+    public record Cached(byte[] bytes, LiveGameCache.GameHead head) {
+    }
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final boolean enabled;
+    private final int maxGames;
+
+    /** {@link Cached} games, and placeholders of reads in flight. */
+    private final Map<String, Object> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private volatile StatefulRedisConnection<byte[], byte[]> tracking;
+    /** True while invalidations are known to arrive. */
+    private volatile boolean active;
+
+    public NearGameCache(LettuceConnectionFactory connectionFactory,
+                         ClusterMembership cluster,
+                         @Value("${belatro.redis.near-cache.enabled:false}") boolean enabled,
+                         @Value("${belatro.redis.near-cache.max-games:10000}") int maxGames) {
+        this.connectionFactory = connectionFactory;
+        this.enabled = enabled && cluster.isEnabled();
+        this.maxGames = maxGames;
+    }
+
+    /**
+     * @return a cache that keeps nothing, for tests and tools
+     */
+    public static NearGameCache disabled() {
+        return new NearGameCache(null, ClusterMembership.standalone(), false, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!(connectionFactory.getRequiredNativeClient() instanceof RedisClient client)) {
+            LOGGER.warn("Near cache needs a standalone Redis connection; game reads are not cached");
+            return;
+        }
+        client.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress address) {
+                if (connection == tracking) {
+                    track();
+                }
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> connection) {
+                if (connection == tracking) {
+                    suspend();
+                }
+            }
+        });
+        tracking = client.connect(ByteArrayCodec.INSTANCE);
+        tracking.addListener(this::onPush);
+        track();
+    }
+
+    /**
+     * Turns on tracking of the game keys; tracking does not survive a reconnect, so this runs again
+     * after each one.
+     */
+    private void track() {
+        tracking.async().clientTracking(TrackingArgs.Builder.enabled().bcast().prefixes(KEY_PREFIX))
+                .whenComplete((reply, ex) -> {
+                    if (ex != null) {
+                        LOGGER.warn("Could not turn on client tracking; game reads are not cached: {}", ex.getMessage());
+                        return;
+                    }
+                    entries.clear();
+                    active = true;
+                    LOGGER.info("Near cache tracking {}*", KEY_PREFIX);
+                });
+    }
+
+    private void suspend() {
+        active = false;
+        entries.clear();
+        LOGGER.warn("Near cache lost its tracking connection; not caching until it is back");
+    }
+
+    /**
+     * An {@code invalidate} push names the keys that changed, or none when the whole database was
+     * flushed.
+     */
+    void onPush(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent();
+        if (content.size() < 2 || !(content.get(1) instanceof List<?> keys)) {
+            entries.clear();
+            return;
+        }
+        for (Object key : keys) {
+            String name = key instanceof ByteBuffer buffer ? StandardCharsets.UTF_8.decode(buffer.duplicate()).toString()
+                    : key instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8)
+                    : String.valueOf(key);
+            if (name.startsWith(KEY_PREFIX)) {
+                entries.remove(name.substring(KEY_PREFIX.length()));
+            }
+        }
+    }
+
+    /**
+     * @param reader reads the game from Redis, null if there is none
+     * @return the kept copy of the game, or what {@code reader} returns
+     */
+    public Cached read(String gameId, Function<String, Cached> reader) {
+        if (!active) {
+            return reader.apply(gameId);
+        }
+        Object entry = entries.get(gameId);
+        if (entry instanceof Cached cached) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        Object pending = new Object();   // marks the read in flight
+        boolean keep = entry == null && entries.size() < maxGames && entries.putIfAbsent(gameId, pending) == null;
+        Cached read;
+        try {
+            read = reader.apply(gameId);
+        } catch (RuntimeException ex) {
+            entries.remove(gameId, pending);
+            throw ex;
+        }
+        if (keep && (read == null || !entries.replace(gameId, pending, read))) {
+            entries.remove(gameId, pending);
+        }
+        return read;
+    }
+
+    /**
+     * Drops the game at once, e.g. after this node wrote it, rather than waiting for Redis to say so.
+     */
+    public void invalidate(String gameId) {
+        entries.remove(gameId);
+    }
+
+    /**
+     * @return reads answered without going to Redis
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return reads that went to Redis while caching was on
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    @PreDestroy
+    public void stop() {
+        active = false;
+        if (tracking != null) {
+            tracking.close();
+        }
+    }
+}
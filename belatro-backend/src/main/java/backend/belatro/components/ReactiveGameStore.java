@@ -0,0 +1,118 @@
+package backend.belatro.components;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.BelotGameCodec;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads games from Redis without blocking, over one multiplexed connection.
+ * <p>
+ * The blocking template borrows a connection from the pool for each call and holds it until the
+ * reply comes, so at peak callers queue for the pool. These reads go out on the connection
+ * factory's shared native connection instead: any number can be in flight at once, Lettuce
+ * pipelines them, and nothing waits on a thread or a pooled connection meanwhile.
+ * {@link LiveGameCache} reads through here on a cache miss. Writes stay with the cache's writer,
+ * which already sends each batch as one pipeline from a single thread.
+ */
+@Component
+public class ReactiveGameStore {
+
+    /**
+     * A game as read from Redis.
+     *
+     * @param sections the hash fields as stored, null if the game is in the string layout
+     */
+    public record Loaded(BelotGame game, byte[][] sections) {
+    }
+
+    private final ReactiveRedisTemplate<String, byte[]> redis;
+    private final RedisSerializer<BelotGame> codec;
+
+    public ReactiveGameStore(@Qualifier("reactiveGameRedisTemplate") ReactiveRedisTemplate<String, byte[]> redis,
+                             @Qualifier("belotGameSerializer") RedisSerializer<BelotGame> codec) {
+        this.redis = redis;
+        this.codec = codec;
+    }
+
+    /**
+     * @return the game in whichever layout it is stored; empty if there is none
+     */
+    public Mono<Loaded> load(String gameId) {
+        return redis.createMono(connection -> connection.keyCommands().type(key(gameId)).flatMap(type -> switch (type) {
+            case STRING -> connection.stringCommands().get(key(gameId))
+                    .map(value -> new Loaded(codec.deserialize(bytes(value)), null));
+            case HASH -> connection.hashCommands().hGetAll(key(gameId)).collectList()
+                    .mapNotNull(ReactiveGameStore::readHash);
+            default -> Mono.<Loaded>empty();
+        }));
+    }
+
+    /**
+     * Reads the version, state and player to act of a game in the hash layout.
+     *
+     * @return empty if there is no such game; an error if the game is in the string layout
+     */
+    public Mono<LiveGameCache.GameHead> head(String gameId) {
+        List<ByteBuffer> fields = List.of(ByteBuffer.wrap(LiveGameCache.VERSION_FIELD),
+                ByteBuffer.wrap(LiveGameCache.STATE_FIELD), ByteBuffer.wrap(LiveGameCache.TURN_FIELD));
+        return redis.createMono(connection -> connection.hashCommands().hMGet(key(gameId), fields))
+                .mapNotNull(values -> {
+                    if (values.get(1) == null) {
+                        return null;
+                    }
+                    String turn = values.get(2) != null ? string(values.get(2)) : "";
+                    return new LiveGameCache.GameHead(Long.parseLong(string(values.get(0))),
+                            GameState.valueOf(string(values.get(1))), turn.isEmpty() ? null : turn);
+                });
+    }
+
+    /**
+     * Decodes a game in the hash layout, keeping the section fields as stored.
+     */
+    private static Loaded readHash(List<Map.Entry<ByteBuffer, ByteBuffer>> fields) {
+        if (fields.isEmpty()) {
+            return null;
+        }
+        byte[][] sections = new byte[BelotGameCodec.SECTIONS.size()][];
+        String version = null;
+        for (Map.Entry<ByteBuffer, ByteBuffer> field : fields) {
+            String name = string(field.getKey());
+            int section = BelotGameCodec.SECTIONS.indexOf(name);
+            if (section >= 0) {
+                sections[section] = bytes(field.getValue());
+            } else if (Arrays.equals(bytes(field.getKey()), LiveGameCache.VERSION_FIELD)) {
+                version = string(field.getValue());
+            }
+        }
+        if (version == null) {
+            throw new IllegalStateException("Game hash without a version");
+        }
+        return new Loaded(BelotGameCodec.decodeSections(sections, Long.parseLong(version)), sections);
+    }
+
+    /** A fresh buffer per command, as each command reads its key buffer through. */
+    private static ByteBuffer key(String gameId) {
+        return ByteBuffer.wrap(LiveGameCache.key(gameId));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static String string(ByteBuffer buffer) {
+        return new String(bytes(buffer), StandardCharsets.UTF_8);
+    }
+}
@@ -1,20 +1,19 @@
 package backend.belatro.components;
 
-import backend.belatro.enums.MoveType;
 import backend.belatro.events.GameStateChangedEvent;
 import backend.belatro.events.TurnStartedEvent;
 import backend.belatro.pojo.gamelogic.BelotGame;
 import backend.belatro.pojo.gamelogic.Bid;
 import backend.belatro.pojo.gamelogic.Card;
+import backend.belatro.pojo.gamelogic.CardSet;
 import backend.belatro.pojo.gamelogic.Player;
 import backend.belatro.pojo.gamelogic.enums.Boja;
 import backend.belatro.pojo.gamelogic.enums.GameState;
 import backend.belatro.services.BelotGameService;
-import backend.belatro.services.IMatchService;
+import backend.belatro.simulation.AutoPlayPolicy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.event.EventListener;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.messaging.simp.user.SimpSubscription;
 import org.springframework.messaging.simp.user.SimpUser;
 import org.springframework.messaging.simp.user.SimpUserRegistry;
@@ -25,7 +24,6 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadLocalRandom;
 
 import static backend.belatro.configs.SecurityConfig.log;
 
@@ -35,21 +33,16 @@ public class TurnTimerService {
 
     private final TaskScheduler scheduler;          // comes from Spring Boot
     private final SimpUserRegistry userRegistry;       // tracks live WS sessions
-    private final RedisTemplate<String, BelotGame> redis;    // same bean you already use
     private final BelotGameService gameService;        // to call playCard
-    private final IMatchService matchService;
-    // for recordMove + fanOut
+    private final AutoPlayPolicy autoPlay;             // picks the trump / card for a timed-out player
 
-    public static final String KEY_PREFIX = "belot:game:";
-    
     @Autowired
-    public TurnTimerService(@Qualifier("taskScheduler") TaskScheduler scheduler, SimpUserRegistry userRegistry, RedisTemplate<String, BelotGame> redis,
-                            BelotGameService gameService, IMatchService matchService) {
+    public TurnTimerService(@Qualifier("taskScheduler") TaskScheduler scheduler, SimpUserRegistry userRegistry,
+                            BelotGameService gameService, AutoPlayPolicy autoPlay) {
         this.scheduler = scheduler;
         this.userRegistry = userRegistry;
-        this.redis = redis;
         this.gameService = gameService;
-        this.matchService = matchService;   
+        this.autoPlay = autoPlay;
     }
     /** keep at most one timer per matchId */
     private final Map<String, ScheduledFuture<?>> timers = new ConcurrentHashMap<>();
@@ -59,11 +52,11 @@ public class TurnTimerService {
     @EventListener
     public void onGameStateChanged(GameStateChangedEvent e) {
 
-        // load the freshest copy of the game
-        BelotGame g = redis.opsForValue().get(KEY_PREFIX + e.gameId());
+        // only the state is needed, not the game
+        LiveGameCache.GameHead g = gameService.head(e.gameId());
         if (g == null) return;          // should not happen
 
-        GameState s = g.getGameState();
+        GameState s = g.state();
         if (s == GameState.COMPLETED || s == GameState.CANCELLED) {
             cancelTimer(e.gameId());    // tear down any pending 30-s task
         }
@@ -76,7 +69,7 @@ public class TurnTimerService {
                 .ifPresent(f -> f.cancel(false));
         // schedule new one
         ScheduledFuture<?> f = scheduler.schedule(
-                () -> onTimeout(e.matchId(), e.playerId()),
+                () -> gameService.execute(e.matchId(), () -> onTimeout(e.matchId(), e.playerId())),
                 new Date(System.currentTimeMillis() + TURN_TIMEOUT.toMillis())
         );
 
@@ -91,7 +84,7 @@ public class TurnTimerService {
 
         // 2️⃣ schedule new 30-second task  (use java.util.Date, not Instant)
         ScheduledFuture<?> fut = scheduler.schedule(
-                () -> onTimeout(matchId, playerId),
+                () -> gameService.execute(matchId, () -> onTimeout(matchId, playerId)),
                 new Date(System.currentTimeMillis() + TURN_TIMEOUT.toMillis())
         );
         timers.put(matchId, fut);
@@ -115,20 +108,18 @@ public class TurnTimerService {
             return;
         }               // don’t punish disconnected users
 
-        /* 2️⃣ load the game and check we’re still on that exact turn ------ */
-        String key   = KEY_PREFIX + matchId;         // same prefix everywhere
-        BelotGame game = redis.opsForValue().get(key);
-        if (game == null ) return; // stale timer
-        boolean stillTurn =
-                (game.getGameState() == GameState.BIDDING  &&
-                        playerId.equals(game.getCurrentLead().getId()))
-                        || (game.getGameState() == GameState.PLAYING  &&
-                        playerId.equals(game.getCurrentPlayer().getId()));
-        if (!stillTurn) {
+        /* 2️⃣ check we’re still on that exact turn, from state and player alone */
+        LiveGameCache.GameHead head = gameService.head(matchId);
+        if (head == null) return; // stale timer
+        if (!playerId.equals(head.currentPlayerId())) {
             log.info("⛔ Auto-action aborted: not {}’s turn any more", playerId);
             return;       // someone has already bid / played
         }
 
+        /* 3️⃣ only now load the whole game to act on it ----------------- */
+        BelotGame game = gameService.get(matchId);
+        if (game == null) return;
+
         switch (game.getGameState()) {
 
             /* ===== PLAYING: already implemented (auto-card) =============== */
@@ -161,10 +152,9 @@ public class TurnTimerService {
                         game.getBids().size() == game.getTurnOrder().size() - 1;   // 3 passes already
 
         if (dealerForced) {
-            Boja trump = randomTrump();
+            Boja trump = autoPlay.chooseTrump(game, game.seatOf(bidder), true);
             Bid call   = Bid.callTrump(bidder, trump);
             BelotGame updated = gameService.placeBid(matchId, call);
-            recordAutoBid(matchId, playerId, "CALL_TRUMP", trump.name());
 
             /* schedule timer for the *first card* – now in PLAYING phase */
             scheduleTurn(matchId, updated.getCurrentPlayer().getId());
@@ -174,7 +164,6 @@ public class TurnTimerService {
         // ③ normal auto-PASS
         Bid pass = Bid.pass(bidder);
         BelotGame updated = gameService.placeBid(matchId, pass);
-        recordAutoBid(matchId, playerId, "PASS", null);
 
         /* if bidding continues, schedule for the next lead */
         if (updated.getGameState() == GameState.BIDDING) {
@@ -190,38 +179,19 @@ public class TurnTimerService {
                               String playerId) {
 
         // still that player's turn?
-        if (!playerId.equals(game.getCurrentPlayer().getId())) return;
+        if (game.seatOf(playerId) != game.getCurrentSeat()) return;
 
-        /* ---- pick a random legal card ----------------------------------- */
-        List<Card> legal = game.getCurrentPlayer()
-                .getHand().stream()
-                .filter(c -> game.isValidPlay(game.getCurrentPlayer(), c))
-                .toList();
-        if (legal.isEmpty()) return;                 // should never happen
+        /* ---- let the auto-play policy pick a legal card ------------------ */
+        if (game.getLegalMoveSet() == CardSet.EMPTY) return;    // should never happen
 
-        Card chosen = legal.get(ThreadLocalRandom.current().nextInt(legal.size()));
+        Card chosen = autoPlay.chooseCard(game, game.getCurrentSeat());
 
         /* ---- play it through normal service path ------------------------ */
         gameService.playCard(matchId, playerId, chosen, false);      // false ⇒ no bela
-        matchService.recordMove(matchId, MoveType.PLAY_CARD,
-                Map.of("playerId", playerId,
-                        "card", chosen.toString()), 0.0);
 
         /* timer for next player handled inside playCard() */
     }
 
-    /* helper */
-    private void recordAutoBid(String matchId, String pid, String kind, String trump) {
-        Map<String,Object> payload = new HashMap<>();
-        payload.put("playerId", pid);
-        payload.put("bid", kind);
-        if (trump != null) payload.put("trump", trump);
-        matchService.recordMove(matchId, MoveType.BID, payload, 0.0);
-    }
-
-    private Boja randomTrump() {
-        return Boja.values()[ThreadLocalRandom.current().nextInt(Boja.values().length)];
-    }
 
 }
 
@@ -0,0 +1,36 @@
+package backend.belatro.configs;
+
+import backend.belatro.simulation.AutoPlayPolicy;
+import backend.belatro.simulation.MonteCarloPolicy;
+import backend.belatro.simulation.RandomLegalPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Picks the {@link AutoPlayPolicy} that moves for players whose turn timer runs out.
+ */
+@Configuration
+public class AutoPlayConfig {
+
+    /** {@code monte-carlo} or {@code random} */
+    @Value("${belatro.autoplay.policy:monte-carlo}")
+    private String policy;
+
+    @Value("${belatro.autoplay.budget-ms:50}")
+    private long budgetMs;
+
+    @Value("${belatro.autoplay.threads:2}")
+    private int threads;
+
+    @Bean
+    public AutoPlayPolicy autoPlayPolicy() {
+        return switch (policy) {
+            case "random" -> new RandomLegalPolicy();
+            case "monte-carlo" -> new MonteCarloPolicy(Duration.ofMillis(budgetMs), threads);
+            default -> throw new IllegalArgumentException("Unknown belatro.autoplay.policy " + policy);
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package backend.belatro.configs;
+
+import backend.belatro.models.MatchMove;
+import backend.belatro.models.MatchMoveBucket;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+
+import java.util.List;
+
+/**
+ * Creates the indexes declared on the documents listed here. Automatic index creation is off, so
+ * without this an annotated index is never built. Creating an index that exists is a no-op; one
+ * that cannot be built (a unique index over duplicates left by older versions) is logged and the
+ * application starts without it.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private static final List<Class<?>> INDEXED = List.of(MatchMove.class, MatchMoveBucket.class);
+
+    private final MongoOperations mongo;
+
+    public MongoIndexConfig(MongoOperations mongo) {
+        this.mongo = mongo;
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongo.getConverter().getMappingContext());
+        for (Class<?> type : INDEXED) {
+            IndexOperations indexes = mongo.indexOps(type);
+            resolver.resolveIndexFor(type).forEach(index -> {
+                try {
+                    indexes.ensureIndex(index);
+                } catch (DataAccessException ex) {
+                    LOGGER.error("Cannot create index {} on {}", index.getIndexKeys(), type.getSimpleName(), ex);
+                }
+            });
+        }
+    }
+}
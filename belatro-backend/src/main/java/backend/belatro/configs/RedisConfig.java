@@ -1,6 +1,7 @@
 package backend.belatro.configs;
 
 import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.util.BelotGameRedisSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -15,9 +16,12 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
@@ -51,6 +55,10 @@ public class RedisConfig {
     @Value("${spring.redis.lettuce.pool.min-idle:2}")
     private int minIdle;
 
+    /** {@code binary}, or {@code json} while nodes that only read JSON games are still running */
+    @Value("${belatro.redis.game-format:binary}")
+    private String gameFormat;
+
     @Bean(destroyMethod = "shutdown")
     public ClientResources clientResources() {
         ClientResources resources = DefaultClientResources.create();
@@ -113,17 +121,13 @@ public class RedisConfig {
         return new GenericJackson2JsonRedisSerializer(om);
     }
     @Bean
-    public Jackson2JsonRedisSerializer<BelotGame> belotGameSerializer() {
-        Jackson2JsonRedisSerializer<BelotGame> ser =
-                new Jackson2JsonRedisSerializer<>(BelotGame.class);
-
-        // minimal mapper – no default typing necessary because the target
+    public RedisSerializer<BelotGame> belotGameSerializer() {
+        // minimal mapper for the JSON form – no default typing necessary because the target
         // class is supplied explicitly
         ObjectMapper mapper = JsonMapper.builder()
                 .addModule(new JavaTimeModule())
                 .build();
-        ser.setObjectMapper(mapper);
-        return ser;
+        return new BelotGameRedisSerializer(mapper, "json".equals(gameFormat));
     }
 
 
@@ -143,7 +147,7 @@ public class RedisConfig {
     @Bean
     public RedisTemplate<String, BelotGame> belotGameRedisTemplate(
             LettuceConnectionFactory cf,
-            Jackson2JsonRedisSerializer<BelotGame> belotGameSerializer
+            RedisSerializer<BelotGame> belotGameSerializer
     ) {
         RedisTemplate<String, BelotGame> tpl = new RedisTemplate<>();
         tpl.setConnectionFactory(cf);
@@ -153,6 +157,25 @@ public class RedisConfig {
         return tpl;
     }
 
+    /**
+     * Reactive commands share the factory's one native connection instead of borrowing from the
+     * pool; used for game reads that should not queue for a pooled connection.
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> reactiveGameRedisTemplate(LettuceConnectionFactory cf) {
+        return new ReactiveRedisTemplate<>(cf, RedisSerializationContext.<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build());
+    }
+
+    /** Subscriptions of this node, e.g. the channel other nodes forward game commands on. */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory cf) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(cf);
+        return container;
+    }
+
 
 
 }
@@ -1,5 +1,6 @@
 package backend.belatro.configs;
 
+import backend.belatro.components.GameFrameRelay;
 import backend.belatro.components.RateLimitingHandshakeInterceptor;
 import backend.belatro.security.JwtTokenProvider;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,11 +37,14 @@ public class WsConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final RateLimitingHandshakeInterceptor rateLimitingHandshakeInterceptor;
+    private final GameFrameRelay gameFrameRelay;
 
     @Autowired
-    public WsConfig(JwtTokenProvider jwtTokenProvider, RateLimitingHandshakeInterceptor rateLimitingHandshakeInterceptor) {
+    public WsConfig(JwtTokenProvider jwtTokenProvider, RateLimitingHandshakeInterceptor rateLimitingHandshakeInterceptor,
+                    GameFrameRelay gameFrameRelay) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.rateLimitingHandshakeInterceptor = rateLimitingHandshakeInterceptor;
+        this.gameFrameRelay = gameFrameRelay;
     }
 
 
@@ -152,6 +156,9 @@ public class WsConfig implements WebSocketMessageBrokerConfigurer {
 
         // tell Spring that “/user” is the prefix for user-targeted destinations
         registry.setUserDestinationPrefix("/user");
+
+        // game frames also go to the clients on the other nodes
+        registry.configureBrokerChannel().interceptors(gameFrameRelay);
     }
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
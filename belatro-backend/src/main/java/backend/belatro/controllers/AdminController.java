@@ -1,6 +1,8 @@
 package backend.belatro.controllers;
 
+import backend.belatro.components.ActiveGameIndex;
 import backend.belatro.dtos.UserDto;
+import backend.belatro.pojo.gamelogic.enums.GameState;
 import backend.belatro.services.AdminService;
 import backend.belatro.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +11,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/admin")
@@ -17,11 +21,13 @@ public class AdminController {
 
     private final AdminService adminService;
     private final UserService userService;
+    private final ActiveGameIndex activeGames;
 
     @Autowired
-    public AdminController(AdminService adminService, UserService userService) {
+    public AdminController(AdminService adminService, UserService userService, ActiveGameIndex activeGames) {
         this.adminService = adminService;
         this.userService = userService;
+        this.activeGames = activeGames;
     }
     @GetMapping("/users")
     public ResponseEntity<List<UserDto>> listUsers() {
@@ -29,6 +35,12 @@ public class AdminController {
         return ResponseEntity.ok(users);
     }
 
+    /** Live games by state, read from the index rather than the keyspace. */
+    @GetMapping("/games")
+    public ResponseEntity<Map<GameState, Set<String>>> listLiveGames() {
+        return ResponseEntity.ok(activeGames.byState());
+    }
+
     @DeleteMapping("/user/{id}")
     public ResponseEntity<Void> forgetUser(@PathVariable String id) {
         adminService.forgetUser(id);
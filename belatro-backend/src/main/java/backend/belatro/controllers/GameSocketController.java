@@ -1,5 +1,7 @@
 package backend.belatro.controllers;
 
+import backend.belatro.components.GameFrameRelay;
+import backend.belatro.components.GameRouter;
 import backend.belatro.dtos.*;
 import backend.belatro.events.GameStartedEvent;
 import backend.belatro.events.GameStateChangedEvent;
@@ -10,14 +12,19 @@ import backend.belatro.pojo.gamelogic.Card;
 import backend.belatro.pojo.gamelogic.Player;
 import backend.belatro.services.BelotGameService;
 import backend.belatro.services.IMatchService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
+import java.util.List;
 import java.util.stream.Stream;
 
 @Controller
@@ -26,12 +33,26 @@ public class GameSocketController {
     private final BelotGameService svc;
     private final SimpMessagingTemplate bus;
     private final IMatchService matchService;
+    private final GameRouter router;
+    private final GameFrameRelay frames;
 
     public GameSocketController(BelotGameService svc,
-                                SimpMessagingTemplate bus, IMatchService matchService) {
+                                SimpMessagingTemplate bus, IMatchService matchService,
+                                GameRouter router, GameFrameRelay frames) {
         this.svc = svc;
         this.bus = bus;
         this.matchService = matchService;
+        this.router = router;
+        this.frames = frames;
+    }
+
+    /** Commands for games this node owns may arrive from other nodes too. */
+    @PostConstruct
+    void routeForwardedCommands() {
+        router.on("play", PlayCardMsg.class, (id, msg, p) -> play(id, msg));
+        router.on("bid", BidMsg.class, (id, msg, p) -> bid(id, msg));
+        router.on("challenge", ChallengeMsg.class, (id, msg, p) -> challenge(id, msg));
+        router.on("cancel", CancelMsg.class, this::cancel);
     }
     @EventListener // This method will be called when a GameStartedEvent is published
     public void handleGameStartedEvent(GameStartedEvent event) {
@@ -71,28 +92,34 @@ public class GameSocketController {
 
     @MessageMapping("/games/{id}/play")
     public void play(@DestinationVariable String id, PlayCardMsg msg) {
+        if (router.forward(id, "play", msg, null)) {
+            return;
+        }
 
         BelotGame game = svc.playCard(id, msg.playerId(), msg.card(), msg.declareBela());
-        svc.save(game);
 
         fanOutGameState(game);
     }
 
     @MessageMapping("/games/{id}/bid")
     public void bid(@DestinationVariable String id, BidMsg msg) {
+        if (router.forward(id, "bid", msg, null)) {
+            return;
+        }
 
         Bid bid = msg.pass()
                 ? Bid.pass(new Player(msg.playerId()))
                 : Bid.callTrump(new Player(msg.playerId()), msg.trump());
 
         BelotGame game = svc.placeBid(id, bid);
-        svc.save(game);
-
 
         fanOutGameState(game);
     }
     @MessageMapping("/games/{id}/challenge")
     public void challenge(@DestinationVariable String id, ChallengeMsg msg) {
+        if (router.forward(id, "challenge", msg, null)) {
+            return;
+        }
 
         BelotGameService.ChallengeOutcome res = svc.challengeHand(id, msg.playerId());
 
@@ -112,6 +139,29 @@ public class GameSocketController {
                 p.getName(), "/queue/games/" + id,
                 svc.toPrivateView(g, me));
     }
+    /**
+     * A client back from a dropped connection asks for the frames it missed. They come on
+     * {@code /user/queue/games/{id}/replay}, each with its {@code seq} and the destination it was
+     * first sent to; if they are no longer all kept, the client gets a fresh refresh instead.
+     */
+    @MessageMapping("/games/{id}/resume")
+    public void resume(@DestinationVariable String id, ResumeMsg msg, Principal p) {
+        List<GameFrameRelay.Frame> missed = frames.replay(id, msg.after(), p.getName());
+        if (missed == null) {
+            refresh(id, p);
+            return;
+        }
+        for (GameFrameRelay.Frame frame : missed) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setContentType(frame.contentType());
+            headers.setNativeHeader(GameFrameRelay.SEQ_HEADER, frame.seq());
+            headers.setNativeHeader("original-destination", frame.destination());
+            headers.setLeaveMutable(true);
+            bus.send("/user/" + p.getName() + "/queue/games/" + id + "/replay",
+                    MessageBuilder.createMessage(frame.payload(), headers.getMessageHeaders()));
+        }
+    }
+
     // Sends public game state when a client subscribes to the public topic
     @SubscribeMapping("/topic/games/{gameId}")
     public PublicGameView handlePublicSubscription(@DestinationVariable String gameId) {
@@ -156,6 +206,9 @@ public class GameSocketController {
     @MessageMapping("/games/{id}/cancel")
     public void cancel(@DestinationVariable String id, CancelMsg body,
                        Principal principal) {
+        if (router.forward(id, "cancel", null, principal)) {   // the body carries nothing
+            return;
+        }
 
         BelotGame g = svc.cancelMatch(id, principal.getName());
         fanOutGameState(g);
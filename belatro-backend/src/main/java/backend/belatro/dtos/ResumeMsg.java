@@ -0,0 +1,7 @@
+package backend.belatro.dtos;
+
+/**
+ * @param after {@code seq} header of the last game frame the client got
+ */
+public record ResumeMsg(String after) {
+}
@@ -0,0 +1,9 @@
+package backend.belatro.events;
+
+import backend.belatro.util.ConsistentHashRing;
+
+/**
+ * Nodes joined or left; games whose owner differs between the two rings move.
+ */
+public record ClusterMembershipChangedEvent(ConsistentHashRing before, ConsistentHashRing after) {
+}
@@ -0,0 +1,11 @@
+package backend.belatro.exceptions;
+
+/**
+ * Thrown when an action is started on a game whose lease another node holds. Nothing has been
+ * changed; the client sends it again once the cluster agrees who owns the game.
+ */
+public class GameNotOwnedException extends RuntimeException {
+    public GameNotOwnedException(String gameId, String holder) {
+        super("Game " + gameId + " is run by node " + holder);
+    }
+}
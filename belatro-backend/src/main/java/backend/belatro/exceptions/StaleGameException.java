@@ -0,0 +1,12 @@
+package backend.belatro.exceptions;
+
+/**
+ * Thrown when a game is saved from a version that is no longer the current one, because another
+ * writer saved it in between. The caller reloads the game and replays its change.
+ */
+public class StaleGameException extends RuntimeException {
+    public StaleGameException(String gameId, long expectedVersion, long currentVersion) {
+        super("Game " + gameId + " was saved from version " + expectedVersion
+                + " but is at version " + currentVersion);
+    }
+}
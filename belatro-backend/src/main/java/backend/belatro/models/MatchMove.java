@@ -6,12 +6,18 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 import java.util.Map;
 
+/**
+ * One logged move. {@code number} orders the moves of a match and is unique within it, which the
+ * {@code matchId_number} index enforces; reading a match's moves in order walks that index.
+ */
 @Document(collection = "match_moves")
+@CompoundIndex(name = "matchId_number", def = "{'matchId': 1, 'number': 1}", unique = true)
 @Data @NoArgsConstructor @AllArgsConstructor
 @Builder
 public class MatchMove {
@@ -0,0 +1,89 @@
+package backend.belatro.models;
+
+import backend.belatro.enums.MoveType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The moves of one hand of a match, in one document, when {@code belatro.moves.layout} is
+ * {@code buckets}. Each kind of move has an array of its own, with short field names and only the
+ * fields that kind has; a move that does not fit its kind's shape goes to {@code events} with its
+ * payload as it is. {@code last} is the highest move number pushed so far.
+ */
+@Document(collection = "match_move_buckets")
+@CompoundIndex(name = "matchId_handNo", def = "{'matchId': 1, 'handNo': 1}", unique = true)
+@Data @NoArgsConstructor @AllArgsConstructor
+public class MatchMoveBucket {
+
+    @Id
+    private String  id;            // <matchId>:<handNo>
+    private String  matchId;
+    private int     handNo;
+    private int     last;
+    private int     count;
+    private List<Bid>       bids       = new ArrayList<>();
+    private List<Play>      plays      = new ArrayList<>();
+    private List<TrickEnd>  tricks     = new ArrayList<>();
+    private List<Challenge> challenges = new ArrayList<>();
+    private List<Event>     events     = new ArrayList<>();
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Bid {
+        @Field("n") private int     number;
+        @Field("t") private int     trickNo;
+        @Field("at") private Instant ts;
+        @Field("p") private String  playerId;
+        @Field("x") private boolean pass;
+        @Field("s") private String  trump;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Play {
+        @Field("n") private int     number;
+        @Field("t") private int     trickNo;
+        @Field("at") private Instant ts;
+        @Field("p") private String  playerId;
+        @Field("c") private int     card;           // Card ordinal
+        @Field("b") private boolean declareBela;
+        @Field("l") private boolean legal;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class TrickEnd {
+        @Field("n") private int     number;
+        @Field("t") private int     trickNo;
+        @Field("at") private Instant ts;
+        @Field("w") private String  winnerId;
+        @Field("v") private int     points;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Challenge {
+        @Field("n") private int     number;
+        @Field("t") private int     trickNo;
+        @Field("at") private Instant ts;
+        @Field("p") private String  playerId;
+        @Field("ok") private boolean success;
+        @Field("vt") private String  violatingTeam;
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class Event {
+        @Field("n") private int      number;
+        @Field("t") private int      trickNo;
+        @Field("at") private Instant  ts;
+        @Field("k") private MoveType type;
+        @Field("e") private double   evaluation;
+        @Field("d") private Map<String, Object> payload;
+    }
+}
@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -47,29 +49,56 @@ public class BelotGame {
     private final Team teamB;
 
     private static final int FULL_HAND_POINTS = 162;
-    @Getter
-    private final List<Player> turnOrder = new ArrayList<>();
 
-    @JsonProperty
+    /* Seats 0-3 in play order: even seats are team A, odd seats team B. */
+    private static final int SEATS = 4;
+    private static final int NO_SEAT = -1;
+    private static final int TRICKS_PER_HAND = 8;
+
+    /** Players by seat, fixed for the whole match. */
+    @JsonIgnore
+    private final Player[] seats = new Player[SEATS];
+
+    /** Undealt cards; while bidding these are the 8 talon cards, in dealing order. */
+    @JsonIgnore
     private Deck deck;
 
+    /**
+     * Number of saves this game has had. A save made from an older version is refused, so two
+     * writers cannot silently overwrite each other; see {@code LiveGameCache}.
+     */
     @Getter
-    private List<Card> talon = new ArrayList<>();
+    @Setter
+    @JsonProperty
+    private long version;
 
+    /** Seed of the whole match; with the hand number it fixes the first dealer and every deal. */
     @Getter
-    private final List<Trick> completedTricks = new ArrayList<>();
+    @JsonProperty
+    private long seed;
 
+    /** 0 for the first hand, counting every hand dealt since. */
     @Getter
-    private Trick currentTrick;
+    @JsonProperty
+    private int handNumber = 0;
 
+    /** Seed the current hand was shuffled with, see {@link Deck#handSeed(long, int)}. */
     @Getter
-    private Player currentLead;
-
+    @JsonProperty
+    private long handSeed;
 
-    private Player currentPlayer;
+    @Getter
+    private final List<Trick> completedTricks = new ArrayList<>();
 
     @Getter
-    private Player dealer;
+    private Trick currentTrick;
+
+    /** Bidder on turn while bidding, leader of the current trick while playing. */
+    @JsonIgnore
+    private int leadSeat = NO_SEAT;
+
+    @JsonIgnore
+    private int dealerSeat = NO_SEAT;
 
     @Getter
     private Boja trump; // The selected trump suit
@@ -79,9 +108,8 @@ public class BelotGame {
     @Getter
     private GameState gameState = GameState.INITIALIZED;
 
-    @JsonIdentityReference(alwaysAsId = true)
-    @JsonProperty("trumpCaller")
-    private Player trumpCaller;
+    @JsonIgnore
+    private int trumpCallerSeat = NO_SEAT;
 
     @Getter
     private final List<Bid> bids = new ArrayList<>();
@@ -127,33 +155,117 @@ public class BelotGame {
             Team teamA,
             @JsonProperty("teamB")
             Team teamB) {
+        this(gameId, teamA, teamB, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param seed fixes the first dealer and every deal, so a match can be replayed
+     */
+    public BelotGame(String gameId, Team teamA, Team teamB, long seed) {
+        this.seed = seed;
         this.gameId = Objects.requireNonNull(gameId, "Game ID cannot be null");
         this.teamA = Objects.requireNonNull(teamA, "Team A cannot be null");
         this.teamB = Objects.requireNonNull(teamB, "Team B cannot be null");
 
 
         for (int i = 0; i < teamA.getPlayers().size(); i++) {
-            turnOrder.add(teamA.getPlayers().get(i));
-            turnOrder.add(teamB.getPlayers().get(i));
+            seats[2 * i]     = teamA.getPlayers().get(i);
+            seats[2 * i + 1] = teamB.getPlayers().get(i);
         }
     }
 
-    public void selectDealer() {
-        Random random = new Random();
-        int dealerIndex = random.nextInt(turnOrder.size());
-        dealer = turnOrder.get(dealerIndex);
-
-        List<Player> newTurnOrder = new ArrayList<>();
-        for (int i = 0; i < turnOrder.size(); i++) {
-            int index = (dealerIndex + 1 + i) % turnOrder.size();
-            newTurnOrder.add(turnOrder.get(index));
+    /* ------------------------------------------------------------------ */
+    /*  seats                                                             */
+    /* ------------------------------------------------------------------ */
+
+    private static int next(int seat) {
+        return (seat + 1) & (SEATS - 1);
+    }
+
+    private static boolean isTeamASeat(int seat) {
+        return (seat & 1) == 0;
+    }
+
+    private Team teamOf(int seat) {
+        return isTeamASeat(seat) ? teamA : teamB;
+    }
+
+    /**
+     * Resolves a player ID to its seat. Callers should do this once per request and then
+     * work with the seat.
+     *
+     * @return the seat (0-3), or -1 if the player is not in this game
+     */
+    public int seatOf(String playerId) {
+        for (int seat = 0; seat < SEATS; seat++) {
+            if (seats[seat].getId().equals(playerId)) {
+                return seat;
+            }
         }
-        turnOrder.clear();
-        turnOrder.addAll(newTurnOrder);
+        return NO_SEAT;
+    }
 
-        currentLead = turnOrder.getFirst();
+    public int seatOf(Player player) {
+        if (player == null) {
+            return NO_SEAT;
+        }
+        for (int seat = 0; seat < SEATS; seat++) {
+            if (seats[seat] == player) {
+                return seat;
+            }
+        }
+        return seatOf(player.getId());
+    }
 
-        logTurnOrder("Dealer chosen (" + dealer.getId() + ")");
+    public Player playerAt(int seat) {
+        return seat == NO_SEAT ? null : seats[seat];
+    }
+
+    /**
+     * @return the players in play order, starting with the first bidder while bidding
+     *         and with the leader of the current trick once play has started
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    public List<Player> getTurnOrder() {
+        int first = (gameState == GameState.BIDDING || leadSeat == NO_SEAT) ? next(dealerSeat) : leadSeat;
+        return List.of(seats[first], seats[next(first)], seats[next(next(first))], seats[next(next(next(first)))]);
+    }
+
+    public Player getCurrentLead() {
+        return playerAt(leadSeat);
+    }
+
+    @JsonProperty("currentLead")
+    private void setCurrentLead(Player player) {
+        leadSeat = seatOf(player);
+    }
+
+    public Player getDealer() {
+        return playerAt(dealerSeat);
+    }
+
+    @JsonProperty("dealer")
+    private void setDealer(Player player) {
+        dealerSeat = seatOf(player);
+    }
+
+    @JsonIdentityReference(alwaysAsId = true)
+    @JsonProperty("trumpCaller")
+    public Player getTrumpCaller() {
+        return playerAt(trumpCallerSeat);
+    }
+
+    @JsonProperty("trumpCaller")
+    private void setTrumpCaller(Player player) {
+        trumpCallerSeat = seatOf(player);
+    }
+
+    public void selectDealer() {
+        // top two bits of the seed derived for the hand before the first
+        dealerSeat = (int) (Deck.handSeed(seed, -1) >>> 62);
+        leadSeat = next(dealerSeat);
+
+        logTurnOrder("Dealer chosen (" + getDealer().getId() + ")");
 
     }
 
@@ -161,13 +273,17 @@ public class BelotGame {
      * Starts the game by selecting a dealer, shuffling the deck, and dealing the initial cards.
      */
     public void startGame() {
+        if (gameState != GameState.INITIALIZED) {
+            // a restart is a new match: move on to a seed derived from the old one
+            seed = Deck.handSeed(seed, handNumber);
+        }
         selectDealer();
 
-        deck = new Deck();
-        deck.shuffle();
+        handNumber = 0;
+        shuffleDeck();
 
         // 6 cards
-        deck.dealInitialHands(turnOrder);
+        deck.dealInitialHands(getTurnOrder());
 
         if (deck.getCardsRemaining() != 8) {
             throw new IllegalStateException(
@@ -176,15 +292,11 @@ public class BelotGame {
             );
         }
 
-        // 2 cards
-        talon = deck.dealTalon();
-
-
+        // the 8 cards left in the deck are the talon
 
         gameState = GameState.BIDDING;
 
-        int dealerIndex = turnOrder.indexOf(dealer);
-        currentLead = turnOrder.get((dealerIndex + 1) % 4);
+        leadSeat = next(dealerSeat);
     }
 
     /**
@@ -198,21 +310,21 @@ public class BelotGame {
             throw new IllegalStateException("Bidding can only occur during bidding phase");
         }
 
-        Player player = bid.getPlayer();
+        int seat = seatOf(bid.getPlayer());
 
         // Check if it's this player's turn to bid
-        if (!player.getId().equals(currentLead.getId())) {
+        if (seat == NO_SEAT || seat != leadSeat) {
             return false;
         }
 
         // Handle passing
         if (bid.isPass()) {
-            return handlePass(player);
+            return handlePass(seat);
         }
 
         // Handle calling trump
         if (bid.isTrumpCall()) {
-            return handleTrumpCall(player, bid.getSelectedTrump());
+            return handleTrumpCall(seat, bid.getSelectedTrump());
         }
 
         return false;
@@ -221,9 +333,11 @@ public class BelotGame {
     /**
      * Handles a player's decision to pass during bidding.
      */
-    private boolean handlePass(Player player) {
+    private boolean handlePass(int seat) {
+        Player player = seats[seat];
+
         // If dealer is passing and must call trump, don't allow passing
-        if (player.equals(dealer) && !trumpCalled) {
+        if (seat == dealerSeat && !trumpCalled) {
             throw new IllegalStateException(
                     "Dealer must choose a trump suit – passing is not allowed.");
         }
@@ -245,7 +359,9 @@ public class BelotGame {
     /**
      * Handles a player calling trump during bidding.
      */
-    private boolean handleTrumpCall(Player player, Boja selectedTrump) {
+    private boolean handleTrumpCall(int seat, Boja selectedTrump) {
+        Player player = seats[seat];
+
         // Create and record the bid
         Bid trumpBid = Bid.callTrump(player, selectedTrump);
         bids.add(trumpBid);
@@ -254,7 +370,7 @@ public class BelotGame {
         // Set the trump suit
         trump = selectedTrump;
         trumpCalled = true;
-        trumpCaller = findPlayerById(player.getId());
+        trumpCallerSeat = seat;
 
         // Deal the remaining cards
         dealRemainingCards();
@@ -278,12 +394,12 @@ public class BelotGame {
      * Checks if all players except the dealer have passed during bidding.
      */
     private boolean isDealerForcedToCallTrump() {
-        if (currentLead != dealer) {
+        if (leadSeat != dealerSeat) {
             return false;
         }
 
-        for (Player player : turnOrder) {
-            if (player != dealer && !player.hasBidPassed()) {
+        for (int seat = 0; seat < SEATS; seat++) {
+            if (seat != dealerSeat && !seats[seat].hasBidPassed()) {
                 return false;
             }
         }
@@ -294,19 +410,18 @@ public class BelotGame {
      * Moves the bidding to the next player in turn order.
      */
     private void moveToNextBidder() {
-        int currentIndex = turnOrder.indexOf(currentLead);
-        currentLead = turnOrder.get((currentIndex + 1) % turnOrder.size());
+        leadSeat = next(leadSeat);
     }
 
     /**
      * Forces the dealer to call trump. This is used when all other players have passed.
      */
     public boolean dealerCallTrump(Boja selectedTrump) {
-        if (gameState != GameState.BIDDING || currentLead != dealer || !isDealerForcedToCallTrump()) {
+        if (gameState != GameState.BIDDING || leadSeat != dealerSeat || !isDealerForcedToCallTrump()) {
             return false;
         }
 
-        return handleTrumpCall(dealer, selectedTrump);
+        return handleTrumpCall(dealerSeat, selectedTrump);
     }
 
     /**
@@ -314,21 +429,15 @@ public class BelotGame {
      */
     private void setupFirstTrick() {
         // In many Belot variants, the first lead is given to the player after the dealer
-        int dealerIndex = turnOrder.indexOf(dealer);
-        int leadIndex = (dealerIndex + 1) % turnOrder.size();
-
-        // Set the current lead player
-        currentLead = turnOrder.get(leadIndex);
+        leadSeat = next(dealerSeat);
 
-        // IMPORTANT: Initialize the currentPlayer field to be the same as the lead player
-        currentPlayer = currentLead;
         teamATricksWon = 0;
         teamBTricksWon = 0;
 
         // Initialize the currentTrick with the trump suit
         // Note: The Trick constructor in your code takes leadPlayerId and trump,
         // but we should adapt based on your Trick implementation
-        currentTrick = new Trick(currentLead.getId(), trump);
+        currentTrick = new Trick(seats[leadSeat].getId(), trump);
 
         // Set the game state to PLAYING
         gameState = GameState.PLAYING;
@@ -343,15 +452,15 @@ public class BelotGame {
     public void resetBidding() {
         bids.clear();
         trumpCalled = false;
-        trumpCaller = null;
+        trumpCallerSeat = NO_SEAT;
         trump = null;
 
-        for (Player player : turnOrder) {
+        for (Player player : seats) {
             player.resetBidding();
         }
     }
     private void resetHandState() {
-        trumpCaller     = null;
+        trumpCallerSeat = NO_SEAT;
         trumpCalled     = false;
         trump           = null;
 
@@ -371,61 +480,53 @@ public class BelotGame {
 
     /**
      * Deals the remaining two cards per player (6 → 8) after trump is chosen.
-     * Uses the *real* deck and then clears the talon list.
+     * The talon is whatever is left in the deck, so this empties it.
      */
     private void dealRemainingCards() {
 
-        // put the two talon cards back on top so they’re dealt first
-        deck.cards.addAll(0, talon);   // package-private field → same class
-        talon.clear();
-
         // give everyone cards until he/she holds eight
-        for (Player p : turnOrder) {
-            p.getHand().addAll(deck.deal(2));
+        List<Player> order = getTurnOrder();
+        deck.dealRemainingCards(order);
+        for (Player p : order) {
             LOGGER.warn("{} now holds {}", p.getId(), p.getHand().size());
         }
         LOGGER.warn("### entering dealRemainingCards() ###");
     }
 
+    /**
+     * @return the talon (cards still in the deck), in dealing order
+     */
+    @JsonProperty("talon")
+    public List<Card> getTalon() {
+        return deck != null ? deck.getRemaining() : Collections.emptyList();
+    }
+
+    @JsonProperty("talon")
+    private void setTalon(List<Card> talon) {
+        deck = Deck.ofRemaining(talon);
+    }
+
 
 
     /**
      * Process all declarations from players and determine which ones count.
      */
     private void processDeclarations() {
-        // Store declarations by player: player -> (type -> points)
-        Map<Player, Map<String, Integer>> allDeclarations = new HashMap<>();
-
-        // First, find all declarations
-        for (Player player : turnOrder) {
-            Map<String, Integer> playerDeclarations = new HashMap<>();
-
-            // Check sequences in all suits
-            Map<Boja, Integer> sequences = ZvanjaValidator.evaluateAllSequences(player.getHand());
-            if (!sequences.isEmpty()) {
-                // Find the highest sequence
-                int highestSequence = sequences.values().stream()
-                        .mapToInt(Integer::intValue)
-                        .max()
-                        .orElse(0);
-
-                if (highestSequence > 0) {
-                    playerDeclarations.put("sequence", highestSequence);
-                }
-            }
-
+        // Declaration points by seat, 0 for none
+        int[] sequences = new int[SEATS];
+        int[] fourOfAKinds = new int[SEATS];
+
+        for (int seat = 0; seat < SEATS; seat++) {
+            int hand = seats[seat].getHandSet();
+            // Check sequences in all suits, keeping the highest
+            sequences[seat] = ZvanjaValidator.bestSequencePoints(hand);
             // Check four-of-a-kind
-            ZvanjaValidator.evaluateFourOfAKind(player.getHand())
-                    .ifPresent(points -> playerDeclarations.put("fourOfAKind", points));
-
-            if (!playerDeclarations.isEmpty()) {
-                allDeclarations.put(player, playerDeclarations);
-            }
+            fourOfAKinds[seat] = ZvanjaValidator.fourOfAKindPoints(hand);
         }
 
         // Process each type of declaration
-        processDeclarationType(allDeclarations, "sequence");
-        processDeclarationType(allDeclarations, "fourOfAKind");
+        processDeclarationType(sequences, "sequence");
+        processDeclarationType(fourOfAKinds, "fourOfAKind");
 
 
     }
@@ -434,79 +535,44 @@ public class BelotGame {
      * Process a specific type of declaration according to Belot rules.
      * If both teams have the same highest value, the player earlier in turn order wins.
      *
-     * @param allDeclarations Map of all declarations from all players
+     * @param points          Declaration points of this type by seat, 0 for none
      * @param declarationType The type of declaration to process (e.g., "sequence", "fourOfAKind")
      */
-    private void processDeclarationType(Map<Player, Map<String, Integer>> allDeclarations, String declarationType) {
-        // Extract declarations of this type
-        Map<Player, Integer> declarations = new HashMap<>();
-        for (Map.Entry<Player, Map<String, Integer>> entry : allDeclarations.entrySet()) {
-            if (entry.getValue().containsKey(declarationType)) {
-                declarations.put(entry.getKey(), entry.getValue().get(declarationType));
+    private void processDeclarationType(int[] points, String declarationType) {
+        // Find the highest value; turn order starts after the dealer, so ties go to the earlier seat
+        int winningSeat = NO_SEAT;
+        for (int i = 0, seat = next(dealerSeat); i < SEATS; i++, seat = next(seat)) {
+            if (points[seat] > 0 && (winningSeat == NO_SEAT || points[seat] > points[winningSeat])) {
+                winningSeat = seat;
             }
         }
 
-        if (declarations.isEmpty()) {
-            return;
-        }
-
-        // Find the highest value
-        int highestValue = declarations.values().stream()
-                .mapToInt(Integer::intValue)
-                .max()
-                .orElse(0);
-
-        // Find players with the highest value
-        List<Player> playersWithHighestValue = declarations.entrySet().stream()
-                .filter(e -> e.getValue() == highestValue)
-                .map(Map.Entry::getKey)
-                .toList();
-
-        // If there's a tie, position in turn order decides
-        Player winningPlayer;
-        if (playersWithHighestValue.size() > 1) {
-            // Find the first player in turn order among those with highest value
-            winningPlayer = playersWithHighestValue.stream()
-                    .min(Comparator.comparing(turnOrder::indexOf))
-                    .orElse(null);
-        } else {
-            winningPlayer = playersWithHighestValue.get(0);
-        }
-
-        if (winningPlayer == null) {
-            LOGGER.warn("No winning player found for " + declarationType + " declarations");
+        if (winningSeat == NO_SEAT) {
             return;
         }
 
-        // Award points to the winning team
-        Team winningTeam = teamA.getPlayers().contains(winningPlayer) ? teamA : teamB;
-
-        // Get all valid declarations from the winning team
-        for (Player player : winningTeam.getPlayers()) {
-            if (declarations.containsKey(player)) {
-                int points = declarations.get(player);
+        // Award points to the winning team: every declaration of this type its players hold
+        Team winningTeam = teamOf(winningSeat);
+        for (int seat = winningSeat & 1; seat < SEATS; seat += 2) {
+            if (points[seat] > 0) {
+                int pts = points[seat];
                 if (winningTeam == teamA) {
-                    teamAHandPoints += points;
-                    teamADeclPoints += points;
-                    LOGGER.info("Added " + points + " declaration points to Team A hand points, now: " + teamAHandPoints);
+                    teamAHandPoints += pts;
+                    teamADeclPoints += pts;
+                    LOGGER.info("Added " + pts + " declaration points to Team A hand points, now: " + teamAHandPoints);
                 } else {
-                    teamBHandPoints += points;
-                    teamBDeclPoints += points;
-                    LOGGER.info("Added " + points + " declaration points to Team B hand points, now: " + teamBHandPoints);
+                    teamBHandPoints += pts;
+                    teamBDeclPoints += pts;
+                    LOGGER.info("Added " + pts + " declaration points to Team B hand points, now: " + teamBHandPoints);
                 }
 
-                LOGGER.info("Player " + player.getId() + " " + declarationType +
-                        " declaration of " + points + " points awarded to team");
+                LOGGER.info("Player " + seats[seat].getId() + " " + declarationType +
+                        " declaration of " + pts + " points awarded to team");
 
 
             }
         }
     }
-    private void advanceToNextPlayer(Player player) {
-        int currentIndex = turnOrder.indexOf(player);
-        int nextIndex = (currentIndex + 1) % turnOrder.size();
-        this.currentPlayer = turnOrder.get(nextIndex);
-    }
 
 
 
@@ -571,25 +637,11 @@ public class BelotGame {
 //        belaAlreadyDeclared.put(playerId, true);
 //        return true;
 //    }
-    /**
-     * Determines which team a player belongs to.
-     */
-    private Team getPlayerTeam(Player player) {
-        if (teamA.getPlayers().stream().anyMatch(p -> p.getId().equals(player.getId())))
-            return teamA;
-        if (teamB.getPlayers().stream().anyMatch(p -> p.getId().equals(player.getId())))
-            return teamB;
-        return null;
-    }
-
     /**
      * Finds a player by their ID.
      */
     public  Player findPlayerById(String id) {
-        return turnOrder.stream()
-                .filter(p -> p.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return playerAt(seatOf(id));
     }
 
 
@@ -611,15 +663,35 @@ public class BelotGame {
             throw new NullPointerException("Player or card cannot be null");
         }
 
-        if (!isValidPlay(player, card)) {
-            foulingTeams.add(getPlayerTeam(player));     // record the foul once
+        int seat = seatOf(player);
+        if (seat == NO_SEAT) {
+            throw new IllegalArgumentException("Player " + player.getId() + " is not in this game");
+        }
+        return playCard(seat, card, declareBela);
+    }
+
+    /**
+     * Plays a card from the given seat, see {@link #playCard(Player, Card, boolean)}.
+     *
+     * @return false if it is not this seat's turn, true once the card has been played
+     */
+    public boolean playCard(int seat, Card card, boolean declareBela) {
+        Objects.requireNonNull(card, "Card cannot be null");
+
+        if (gameState != GameState.PLAYING || seat != getCurrentSeat()) {
+            return false;
+        }
+        Player player = seats[seat];
+
+        if (!isValidPlay(seat, card)) {
+            foulingTeams.add(teamOf(seat));     // record the foul once
             LOGGER.warn("Illegal card detected – {} by {}",
                     card,
-                    getPlayerTeam(player) == teamA ? "Team A" : "Team B");
+                    isTeamASeat(seat) ? "Team A" : "Team B");
         }
         // Process Bela declaration if requested.
         if (declareBela) {
-            boolean declared = processBela(player, card);
+            boolean declared = processBela(seat, card);
             if (!declared) {
                 // Optionally, log the failed declaration or notify the user.
                 System.out.println("Invalid Bela declaration attempted by player: " + player.getId());
@@ -632,12 +704,8 @@ public class BelotGame {
         // Add the played card to the current trick.
         currentTrick.addPlay(player.getId(), playedCard);
 
-        if (!currentTrick.isComplete(turnOrder.size())) {
-            advanceToNextPlayer(player);
-        }
-
-        // Check if the trick is complete (based on turn order size).
-        if (currentTrick.isComplete(turnOrder.size())) {
+        // Check if the trick is complete.
+        if (currentTrick.isComplete(SEATS)) {
             completeTrick();
         }
 
@@ -649,11 +717,13 @@ public class BelotGame {
      * Validates that the card is either BABA or KRALJ of trump and that the matching card
      * is present in the player's hand.
      *
-     * @param player the player attempting the declaration
+     * @param seat the seat attempting the declaration
      * @param card the card being declared (BABA or KRALJ of trump)
      * @return true if the declaration is valid and processed; false otherwise
      */
-    private boolean processBela(Player player, Card card) {
+    private boolean processBela(int seat, Card card) {
+        Player player = seats[seat];
+
         if (belaAlreadyDeclared.getOrDefault(player.getId(), false)) {
             // Player has already declared Bela in this hand.
             return false;
@@ -668,20 +738,16 @@ public class BelotGame {
         }
 
         // Check whether the matching card exists in the player's hand.
-        boolean hasMatchingCard = player.getHand().stream().anyMatch(c ->
-                c.getBoja() == trump &&
-                        ((isBabaOfTrump && c.getRank() == Rank.KRALJ) ||
-                                (isKraljOfTrump && c.getRank() == Rank.BABA))
-        );
+        Rank matchingRank = isBabaOfTrump ? Rank.KRALJ : Rank.BABA;
+        boolean hasMatchingCard = (player.getHandSet() & CardSet.bit(trump, matchingRank)) != 0;
 
         if (!hasMatchingCard) {
             return false;
         }
 
         // Award bonus points (usually 20 points) to the player's team.
-        Team playerTeam = getPlayerTeam(player);
-        if (playerTeam != null) {
-            if (playerTeam == teamA) {
+        {
+            if (isTeamASeat(seat)) {
                 teamAHandPoints += 20;
                 teamADeclPoints += 20;
                 LOGGER.info("Added 20 bela points to Team A hand points, now: " + teamAHandPoints);
@@ -718,43 +784,20 @@ public class BelotGame {
      *         false otherwise
      */
     public boolean isValidPlay(Player player, Card card) {
-        // 1) only the active player may act
-        if (!player.equals(getCurrentPlayer())) {
-            return false;
-        }
-
-        // 2) let the existing rules engine decide
-        return getLegalMoves().contains(card);
+        return isValidPlay(seatOf(player), card);
     }
 
     /**
-     * @param player The player to check
-     * @return true if it's the player's turn, false otherwise
+     * @see #isValidPlay(Player, Card)
      */
-    private boolean isPlayerTurn(Player player) {
-        if (currentTrick.getPlays().isEmpty()) {
-            return player.equals(currentLead);
-        }
-
-        for (Player p : turnOrder) {
-            if (!currentTrick.getPlays().containsKey(p.getId())) {
-                return player.equals(p);
-            }
+    public boolean isValidPlay(int seat, Card card) {
+        // 1) only the active player may act
+        if (seat == NO_SEAT || seat != getCurrentSeat()) {
+            return false;
         }
 
-        return false;
-    }
-
-    /**
-     * @param trickWinner The player who won the trick
-     * @param trickPoints The points earned from the trick
-     */
-    private void updateScores(Player trickWinner, int trickPoints) {
-        if (teamA.getPlayers().contains(trickWinner)) {
-            teamA.addPoints(trickPoints);
-        } else if (teamB.getPlayers().contains(trickWinner)) {
-            teamB.addPoints(trickPoints);
-        }
+        // 2) let the existing rules engine decide
+        return CardSet.contains(getLegalMoveSet(), card);
     }
 
 
@@ -802,10 +845,8 @@ public class BelotGame {
 
 
 
-        /* Determine which side the caller belongs to by player ID */
-        boolean callerIsA = teamA.getPlayers()
-                .stream()
-                .anyMatch(p -> p.getId().equals(trumpCaller.getId()));
+        /* Determine which side the caller belongs to by seat */
+        boolean callerIsA = isTeamASeat(trumpCallerSeat);
 
         int callerPts    = callerIsA ? teamAHandPoints : teamBHandPoints;
         int opponentPts  = callerIsA ? teamBHandPoints : teamAHandPoints;
@@ -831,17 +872,17 @@ public class BelotGame {
 
     /**
      * Completes the current trick, scores it, and sets up the next trick (or hand).
-     * – Winner and points are taken from *currentTrick* BEFORE we rotate turnOrder.
-     * – Only after scoring do we rotate the list so the winner leads the next trick.
+     * – Winner and points are taken from *currentTrick* before the next trick is set up.
+     * – The winner's seat then leads the next trick.
      */
     private void completeTrick() {
 
         /* --- 1. who won, how many points? ----------------------------------- */
-        String winnerId = currentTrick.determineWinner();
-        Player winner   = findPlayerById(winnerId);
-        int    trickPts = currentTrick.calculatePoints();          // << BEFORE reset
+        int    winnerSeat = trickWinnerSeat();
+        String winnerId   = seats[winnerSeat].getId();
+        int    trickPts   = currentTrick.calculatePoints();        // << BEFORE reset
 
-        Team  winnerTeam = getPlayerTeam(winner);
+        Team  winnerTeam = teamOf(winnerSeat);
         boolean isLastTrick = (completedTricks.size() == 7);       // 7 → this is #8
 
         if (isLastTrick) {
@@ -879,7 +920,7 @@ public class BelotGame {
             int finalTeamADeclPoints = teamADeclPoints;
             int finalTeamBDeclPoints = teamBDeclPoints;
 
-            boolean callerIsA = teamA.getPlayers().stream().anyMatch(p -> p.getId().equals(trumpCaller.getId()));
+            boolean callerIsA = isTeamASeat(trumpCallerSeat);
             int callerPts     = callerIsA ? finalTeamAHandPoints : finalTeamBHandPoints;
             int opponentPts   = callerIsA ? finalTeamBHandPoints : finalTeamAHandPoints;
             boolean padanje   = (callerPts <= opponentPts);
@@ -950,11 +991,7 @@ public class BelotGame {
         }
 
         /* --- 3. prepare next trick – winner leads --------------------------- */
-        int winIdx = turnOrder.indexOf(winner);
-        Collections.rotate(turnOrder, -winIdx);    // winner becomes index 0
-
-        currentLead   = winner;
-        currentPlayer = winner;
+        leadSeat      = winnerSeat;
         currentTrick  = new Trick(winnerId, trump);
 
         LOGGER.info("Next trick will start with {}", winnerId);
@@ -967,20 +1004,19 @@ public class BelotGame {
      * @return The player who won the trick
      */
     public Player processTrick() {
-        String winnerPlayerId = currentTrick.determineWinner();
-        Player winner = findPlayerById(winnerPlayerId);
+        Player winner = seats[trickWinnerSeat()];
 
         completeTrick();
 
         return winner;
     }
 
-
-    private boolean isOnTeamA(Player p) {
-        // Compare _IDs_, not object references
-        return teamA.getPlayers()
-                .stream()
-                .anyMatch(t -> t.getId().equals(p.getId()));
+    /**
+     * Resolved through the winning player rather than the play's position: a trick read from the
+     * legacy JSON form keeps its lead first but the other plays in whatever order the map was written.
+     */
+    private int trickWinnerSeat() {
+        return seatOf(currentTrick.determineWinner());
     }
 
 
@@ -995,38 +1031,41 @@ public class BelotGame {
 
 
     public Player getCurrentPlayer() {
-        if (gameState == GameState.BIDDING) {
-            return currentLead;
-        }
-
-        if (gameState == GameState.PLAYING) {
-            if (currentTrick.getPlays().isEmpty()) {
-                return currentLead;
-            }
+        return playerAt(getCurrentSeat());
+    }
 
-            for (Player p : turnOrder) {
-                if (!currentTrick.getPlays().containsKey(p.getId())) {
-                    return p;
-                }
-            }
-        }
+    /**
+     * @return number of the current hand as the move log counts it, from 1; a finished hand keeps
+     *         its number until the next one is dealt
+     */
+    @JsonIgnore
+    public int getHandNo() {
+        return handNumber + 1;
+    }
 
-        return null;
+    /**
+     * @return number of the trick in play, from 1; the last trick once the hand's tricks are done
+     */
+    @JsonIgnore
+    public int getTrickNo() {
+        return Math.min(completedTricks.size() + 1, TRICKS_PER_HAND);
     }
 
     /**
-     * Adds points earned from a trick to the winning team's hand points
+     * @return the seat to act: the bidder while bidding, the lead seat plus the number of
+     *         cards already in the trick while playing, -1 otherwise
      */
-    private void addTrickPoints(Player trickWinner, int points) {
-        if (teamA.getPlayers().contains(trickWinner)) {
-            teamAHandPoints += points;
-            LOGGER.debug("Team A earned {} points from trick, now has {} hand points",
-                    points, teamAHandPoints);
-        } else if (teamB.getPlayers().contains(trickWinner)) {
-            teamBHandPoints += points;
-            LOGGER.debug("Team B earned {} points from trick, now has {} hand points",
-                    points, teamBHandPoints);
+    @JsonIgnore
+    public int getCurrentSeat() {
+        if (gameState == GameState.BIDDING) {
+            return leadSeat;
         }
+
+        if (gameState == GameState.PLAYING && currentTrick.size() < SEATS) {
+            return (leadSeat + currentTrick.size()) & (SEATS - 1);
+        }
+
+        return NO_SEAT;
     }
 
 
@@ -1050,26 +1089,29 @@ public class BelotGame {
      *         false – either player already used their challenge OR no infraction existed
      */
     public boolean challengeHand(String playerId) {
-        if (!(gameState == GameState.PLAYING || gameState == GameState.HAND_COMPLETE)) {
+        int seat = seatOf(playerId);
+        if (seat == NO_SEAT) {
             return false;
         }
+        return challengeHand(seat);
+    }
 
-        if (gameState == GameState.HAND_COMPLETE && lastHandScoringCommitted) {
-            teamA.addPoints(-lastHandAwardTeamADelta);
-            teamB.addPoints(-lastHandAwardTeamBDelta);
-            lastHandAwardTeamADelta  = 0;
-            lastHandAwardTeamBDelta  = 0;
-            lastHandScoringCommitted = false;
-        }
+    /**
+     * @see #challengeHand(String)
+     */
+    public boolean challengeHand(int seat) {
+        String playerId = seats[seat].getId();
 
+        if (!(gameState == GameState.PLAYING || gameState == GameState.HAND_COMPLETE)) {
+            return false;
+        }
 
-        Player challenger = findPlayerById(playerId);
         if (challengeUsed.getOrDefault(playerId, false)) return false;
         challengeUsed.put(playerId, true);
 
         if (!anyFoul()) return false;                 // nobody fouled  ✗
 
-        Team challengerTeam = getPlayerTeam(challenger);
+        Team challengerTeam = teamOf(seat);
 
         /* ---------- new success rule -------------------------------------- */
         boolean success =
@@ -1082,11 +1124,19 @@ public class BelotGame {
             return false;                             // quota spent, nothing else
         }
 
+        /* ---- a successful challenge replaces the hand's normal scoring ---- */
+        if (gameState == GameState.HAND_COMPLETE && lastHandScoringCommitted) {
+            teamA.addPoints(-lastHandAwardTeamADelta);
+            teamB.addPoints(-lastHandAwardTeamBDelta);
+            lastHandAwardTeamADelta  = 0;
+            lastHandAwardTeamBDelta  = 0;
+            lastHandScoringCommitted = false;
+        }
+
         /* ---- award 162 + declarations to the challenger’s team ---------- */
         int declPts = (challengerTeam == teamA) ? teamADeclPoints : teamBDeclPoints;
         int total   = FULL_HAND_POINTS + declPts;
 
-        assert challengerTeam != null;
         challengerTeam.addPoints(total);
         LOGGER.info("Challenge SUCCESS – {} pts (162+decl) awarded to {}",
                 total, challengerTeam == teamA ? "Team A" : "Team B");
@@ -1129,66 +1179,22 @@ public class BelotGame {
     }
     @JsonIgnore
     public List<Card> getLegalMoves() {
+        return CardSet.toList(getLegalMoveSet());
+    }
+
+    /**
+     * @return the current player's legal cards as a {@link CardSet}, see {@link LegalMoves}
+     */
+    @JsonIgnore
+    public int getLegalMoveSet() {
         Player currentPlayer = getCurrentPlayer();
         if (currentPlayer == null) {
-            return Collections.emptyList();
+            return CardSet.EMPTY;
         }
 
-        List<Card> hand = currentPlayer.getHand();
-
-        // 1) If nobody has led yet, you can play anything
-        if (currentTrick.getPlays().isEmpty()) {
-            return new ArrayList<>(hand);
-        }
-
-        // 2) There is a lead card — pull it and its suit
-        Card leadCard = currentTrick.getLeadCard();
-        Boja leadSuit = leadCard.getBoja();
-
-        // 3) If you have cards of the lead suit…
-        List<Card> leadSuitCards = hand.stream()
-                .filter(c -> c.getBoja() == leadSuit)
-                .toList();
-        if (!leadSuitCards.isEmpty()) {
-            // 3a) Find the card you must beat
-            Card currentWinner = currentTrick.getWinningCard();
-            // 3b) Choose the right ordering (trump order if leadSuit is trump, else normal)
-            Comparator<Card> comparator = (leadSuit == trump)
-                    ? BelotRankComparator.getTrumpComparator()
-                    : BelotRankComparator.getNonTrumpComparator();
-            // 3c) Of your lead-suit cards, see which actually outrank the current winner
-            List<Card> overcards = leadSuitCards.stream()
-                    .filter(c -> comparator.compare(c, currentWinner) > 0)
-                    .toList();
-            // 3d) If you have any overcards, you must play one; otherwise you must still follow suit
-            return overcards.isEmpty() ? leadSuitCards : overcards;
-        }
-
-        // 4) You have no lead suit — if you have any trump cards, you must play one
-        List<Card> trumpCards = hand.stream()
-                .filter(c -> c.getBoja() == trump)
-                .toList();
-        if (!trumpCards.isEmpty()) {
-            // 4a) Check if someone already trumped; if so, find the highest trump in the trick
-            Optional<Card> highestTrumpInTrick = currentTrick.getPlays().values().stream()
-                    .filter(c -> c.getBoja() == trump)
-                    .max(BelotRankComparator.getTrumpComparator());
-            if (highestTrumpInTrick.isPresent()) {
-                Card highestTrump = highestTrumpInTrick.get();
-                // 4b) Of your trumps, see which outrank that
-                List<Card> overtrumps = trumpCards.stream()
-                        .filter(c -> BelotRankComparator.getTrumpComparator()
-                                .compare(c, highestTrump) > 0)
-                        .toList();
-                // 4c) If you have any overtrumps, you must play one; otherwise you must still trump
-                return overtrumps.isEmpty() ? trumpCards : overtrumps;
-            }
-            // 4d) No trump in the trick yet, but you have trumps → must play any trump
-            return trumpCards;
-        }
-
-        // 5) You can neither follow suit nor trump → play anything
-        return new ArrayList<>(hand);
+        int played = currentTrick.getPlayedSet();
+        Boja leadSuit = played != CardSet.EMPTY ? currentTrick.getLeadCard().getBoja() : null;
+        return LegalMoves.of(currentPlayer.getHandSet(), played, leadSuit, trump);
     }
 
     /**
@@ -1197,7 +1203,7 @@ public class BelotGame {
      */
     public boolean hasDeclarations(Player player) {
 
-        boolean hasBela = ZvanjaValidator.isBela(player.getHand(), trump);
+        boolean hasBela = ZvanjaValidator.isBela(player.getHandSet(), trump);
 
         Optional<Integer> sequencePoints = ZvanjaValidator.evaluateSequence(player.getHand(), trump);
 
@@ -1205,23 +1211,12 @@ public class BelotGame {
     }
 
 
-    /** Move the dealer one seat clockwise and rotate turnOrder accordingly. */
+    /** Move the dealer one seat clockwise; the player after the new dealer bids first. */
     private void selectNextDealer() {
-        int newDealerIndex = (turnOrder.indexOf(dealer) + 1) % turnOrder.size();
-        dealer = turnOrder.get(newDealerIndex);
-
-        // Rotate the seating list so that the player after the new dealer will bid first
-        List<Player> rotated = new ArrayList<>();
-        for (int i = 0; i < turnOrder.size(); i++) {
-            int idx = (newDealerIndex + 1 + i) % turnOrder.size();
-            rotated.add(turnOrder.get(idx));
-        }
-        turnOrder.clear();
-        turnOrder.addAll(rotated);
-
-        currentLead = turnOrder.getFirst();
+        dealerSeat = next(dealerSeat);
+        leadSeat = next(dealerSeat);
 
-        logTurnOrder("Dealer rotated to " + dealer.getId());
+        logTurnOrder("Dealer rotated to " + getDealer().getId());
 
     }
     @JsonIgnore
@@ -1257,16 +1252,27 @@ public class BelotGame {
     public void startNextHand() {
         selectNextDealer();      // clockwise dealer advance
 
-        deck = new Deck();
-        deck.shuffle();
-        deck.dealInitialHands(turnOrder);   // 6 cards each
-        talon = deck.dealTalon();           // 2 cards face-down
+        handNumber++;
+        shuffleDeck();
+        deck.dealInitialHands(getTurnOrder());   // 6 cards each, 8 left as talon
 
         gameState = GameState.BIDDING;
 
-        logTurnOrder("New hand — dealer " + dealer.getId());
+        logTurnOrder("New hand — dealer " + getDealer().getId());
         logScores("Start of hand");
     }
+
+    /** Shuffles all 32 cards for the current hand number, reusing the deck when there is one. */
+    private void shuffleDeck() {
+        handSeed = Deck.handSeed(seed, handNumber);
+        if (deck == null) {
+            deck = new Deck();
+        } else {
+            deck.reset();
+        }
+        deck.shuffle(handSeed);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -1281,7 +1287,8 @@ public class BelotGame {
     }
     /** INFO-level dump of current seating order (dealer in [ ]). */
     private void logTurnOrder(String msg) {
-        String order = turnOrder.stream()
+        Player dealer = getDealer();
+        String order = getTurnOrder().stream()
                 .map(p -> (p.equals(dealer) ? "[" + p.getId() + "]" : p.getId()))
                 .collect(Collectors.joining(" → "));
         LOGGER.info("{}  |  Turn order: {}", msg, order);
@@ -1313,5 +1320,268 @@ public class BelotGame {
         this.lastActivity = t;
     }
 
+    /* ------------------------------------------------------------------ */
+    /*  binary form, see BelotGameCodec                                   */
+    /* ------------------------------------------------------------------ */
+
+    private static final Boja[] SUITS = Boja.values();
+    private static final GameState[] STATES = GameState.values();
+
+    /**
+     * Writes one {@link BelotGameCodec section} of format version 3. Seats are named in the meta
+     * section, so every player reference in the others can be a seat index.
+     */
+    void writeSection(int section, BelotGameCodec.Output out) {
+        switch (section) {
+            case BelotGameCodec.META -> writeMeta(out);
+            case BelotGameCodec.BIDS -> {
+                // bid: seat in bits 0-1, call in bit 2, trump in bits 3-4
+                out.writeVarInt(bids.size());
+                for (Bid bid : bids) {
+                    int call = bid.isTrumpCall() ? 4 | bid.getSelectedTrump().ordinal() << 3 : 0;
+                    out.writeByte(seatOf(bid.getPlayer()) & 3 | call);
+                }
+            }
+            case BelotGameCodec.TRICKS -> {
+                out.writeVarInt(completedTricks.size());
+                for (Trick trick : completedTricks) {
+                    writeTrick(out, trick);
+                }
+            }
+            case BelotGameCodec.TRICK -> {
+                out.writeBoolean(currentTrick != null);
+                if (currentTrick != null) {
+                    writeTrick(out, currentTrick);
+                }
+            }
+            case BelotGameCodec.CHALLENGE -> {
+                out.writeByte(seatMask(challengeUsed));
+                out.writeBoolean(challengeWindowExpiresAt != null);
+                if (challengeWindowExpiresAt != null) {
+                    out.writeVarLong(challengeWindowExpiresAt);
+                }
+            }
+            default -> {
+                Player player = seats[section - BelotGameCodec.HAND];
+                out.writeInt(player.getHandSet());
+                out.writeBoolean(player.hasBidPassed());
+            }
+        }
+    }
+
+    /** Everything but hands, bids, tricks and the challenge window: what nearly every action changes. */
+    private void writeMeta(BelotGameCodec.Output out) {
+        out.writeString(gameId);
+        for (Player player : seats) {
+            out.writeString(player.getId());
+        }
+        out.writeVarInt(teamA.getScore());
+        out.writeVarInt(teamB.getScore());
+
+        out.writeLong(seed);
+        out.writeVarInt(handNumber);
+        out.writeLong(handSeed);
+
+        out.writeByte(gameState.ordinal());
+        out.writeByte(dealerSeat);
+        out.writeByte(leadSeat);
+        out.writeByte(trumpCallerSeat);
+        out.writeByte(trump != null ? trump.ordinal() : -1);
+        out.writeBoolean(trumpCalled);
+
+        out.writeVarInt(teamAHandPoints);
+        out.writeVarInt(teamBHandPoints);
+        out.writeVarInt(teamADeclPoints);
+        out.writeVarInt(teamBDeclPoints);
+        out.writeVarInt(teamATricksWon);
+        out.writeVarInt(teamBTricksWon);
+        out.writeVarInt(lastHandAwardTeamADelta);
+        out.writeVarInt(lastHandAwardTeamBDelta);
+        out.writeBoolean(lastHandScoringCommitted);
+
+        out.writeByte((foulingTeams.contains(teamA) ? 1 : 0) | (foulingTeams.contains(teamB) ? 2 : 0));
+        out.writeByte(seatMask(belaAlreadyDeclared));
+
+        out.writeBoolean(lastActivity != null);
+        if (lastActivity != null) {
+            out.writeVarLong(lastActivity.getEpochSecond());
+            out.writeVarInt(lastActivity.getNano());
+        }
+
+        // the talon; -1 when no deck has been dealt yet
+        out.writeByte(deck != null ? deck.getCardsRemaining() : -1);
+        if (deck != null) {
+            for (Card card : deck.getRemaining()) {
+                out.writeByte(card.ordinal());
+            }
+        }
+    }
+
+    /** Lead seat, trump, and one byte per play: seat in bits 5-6, card in bits 0-4. */
+    private void writeTrick(BelotGameCodec.Output out, Trick trick) {
+        out.writeByte(seatOf(trick.getLeadPlayerId()));
+        out.writeByte(trick.getTrump() != null ? trick.getTrump().ordinal() : -1);
+        out.writeByte(trick.size());
+        for (int i = 0; i < trick.size(); i++) {
+            out.writeByte(seatOf(trick.playerIdAt(i)) << 5 | trick.cardAt(i));
+        }
+    }
+
+    private int seatMask(Map<String, Boolean> bySeat) {
+        int mask = 0;
+        for (int seat = 0; seat < SEATS; seat++) {
+            if (Boolean.TRUE.equals(bySeat.get(seats[seat].getId()))) {
+                mask |= 1 << seat;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Reads format versions 1 and 2, which wrote the same state in one run: each seat's id, hand
+     * and pass together, then the meta fields, talon, bids and tricks. Everything but the order
+     * is read by the same code as the sections of version 3.
+     */
+    static BelotGame readFrom(BelotGameCodec.Input in) {
+        String gameId = in.readString();
+        Player[] players = new Player[SEATS];
+        for (int seat = 0; seat < SEATS; seat++) {
+            players[seat] = new Player(in.readString());
+            readHand(players[seat], in);
+        }
+        BelotGame game = readScoresAndState(gameId, players, in);
+        game.readSeatMask(in.readByte(), game.challengeUsed);
+        game.readSeatMask(in.readByte(), game.belaAlreadyDeclared);
+        game.challengeWindowExpiresAt = in.readBoolean() ? in.readVarLong() : null;
+        game.lastActivity = readInstant(in);
+        game.readTalon(in);
+
+        game.readBids(in);
+        game.readCompletedTricks(in);
+        game.readCurrentTrick(in);
+        return game;
+    }
+
+    /**
+     * Reads what {@link #writeSection} wrote, taking each section from {@code sections}.
+     */
+    static BelotGame readSections(IntFunction<BelotGameCodec.Input> sections) {
+        BelotGameCodec.Input in = sections.apply(BelotGameCodec.META);
+        String gameId = in.readString();
+        Player[] players = new Player[SEATS];
+        for (int seat = 0; seat < SEATS; seat++) {
+            players[seat] = new Player(in.readString());
+        }
+        BelotGame game = readScoresAndState(gameId, players, in);
+        game.readSeatMask(in.readByte(), game.belaAlreadyDeclared);
+        game.lastActivity = readInstant(in);
+        game.readTalon(in);
+
+        for (int seat = 0; seat < SEATS; seat++) {
+            readHand(players[seat], sections.apply(BelotGameCodec.HAND + seat));
+        }
+        game.readBids(sections.apply(BelotGameCodec.BIDS));
+        game.readCompletedTricks(sections.apply(BelotGameCodec.TRICKS));
+        game.readCurrentTrick(sections.apply(BelotGameCodec.TRICK));
+
+        in = sections.apply(BelotGameCodec.CHALLENGE);
+        game.readSeatMask(in.readByte(), game.challengeUsed);
+        game.challengeWindowExpiresAt = in.readBoolean() ? in.readVarLong() : null;
+        return game;
+    }
+
+    /** The meta fields every version writes in the same order: team scores through fouling teams. */
+    private static BelotGame readScoresAndState(String gameId, Player[] players, BelotGameCodec.Input in) {
+        Team teamA = new Team(List.of(players[0], players[2]));
+        Team teamB = new Team(List.of(players[1], players[3]));
+        teamA.addPoints(in.readVarInt());
+        teamB.addPoints(in.readVarInt());
+
+        BelotGame game = new BelotGame(gameId, teamA, teamB, in.readLong());
+        game.handNumber = in.readVarInt();
+        game.handSeed = in.readLong();
+
+        game.gameState = STATES[in.readByte()];
+        game.dealerSeat = in.readByte();
+        game.leadSeat = in.readByte();
+        game.trumpCallerSeat = in.readByte();
+        int trump = in.readByte();
+        game.trump = trump >= 0 ? SUITS[trump] : null;
+        game.trumpCalled = in.readBoolean();
+
+        game.teamAHandPoints = in.readVarInt();
+        game.teamBHandPoints = in.readVarInt();
+        game.teamADeclPoints = in.readVarInt();
+        game.teamBDeclPoints = in.readVarInt();
+        game.teamATricksWon = in.readVarInt();
+        game.teamBTricksWon = in.readVarInt();
+        game.lastHandAwardTeamADelta = in.readVarInt();
+        game.lastHandAwardTeamBDelta = in.readVarInt();
+        game.lastHandScoringCommitted = in.readBoolean();
+
+        int fouls = in.readByte();
+        if ((fouls & 1) != 0) game.foulingTeams.add(teamA);
+        if ((fouls & 2) != 0) game.foulingTeams.add(teamB);
+        return game;
+    }
+
+    private static void readHand(Player player, BelotGameCodec.Input in) {
+        player.setHandSet(in.readInt());
+        player.setBidPassed(in.readBoolean());
+    }
+
+    private static Instant readInstant(BelotGameCodec.Input in) {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readVarLong(), in.readVarInt()) : null;
+    }
+
+    private void readTalon(BelotGameCodec.Input in) {
+        int talon = in.readByte();
+        if (talon >= 0) {
+            List<Card> remaining = new ArrayList<>(talon);
+            for (int i = 0; i < talon; i++) {
+                remaining.add(CardSet.card(in.readByte()));
+            }
+            deck = Deck.ofRemaining(remaining);
+        }
+    }
+
+    private void readBids(BelotGameCodec.Input in) {
+        for (int i = in.readVarInt(); i > 0; i--) {
+            int bid = in.readByte();
+            Player player = seats[bid & 3];
+            bids.add((bid & 4) != 0 ? Bid.callTrump(player, SUITS[bid >>> 3 & 3]) : Bid.pass(player));
+        }
+    }
+
+    private void readCompletedTricks(BelotGameCodec.Input in) {
+        for (int i = in.readVarInt(); i > 0; i--) {
+            completedTricks.add(readTrick(in));
+        }
+    }
+
+    private void readCurrentTrick(BelotGameCodec.Input in) {
+        currentTrick = in.readBoolean() ? readTrick(in) : null;
+    }
+
+    private Trick readTrick(BelotGameCodec.Input in) {
+        int lead = in.readByte();
+        int trump = in.readByte();
+        int plays = in.readByte();
+        Trick trick = lead >= 0 ? new Trick(seats[lead].getId(), trump >= 0 ? SUITS[trump] : null) : Trick.empty();
+        for (int i = 0; i < plays; i++) {
+            int play = in.readByte();
+            trick.addPlay(seats[play >>> 5 & 3].getId(), CardSet.card(play & 0x1F));
+        }
+        return trick;
+    }
+
+    private void readSeatMask(int mask, Map<String, Boolean> bySeat) {
+        for (int seat = 0; seat < SEATS; seat++) {
+            if ((mask & 1 << seat) != 0) {
+                bySeat.put(seats[seat].getId(), true);
+            }
+        }
+    }
+
 
 }
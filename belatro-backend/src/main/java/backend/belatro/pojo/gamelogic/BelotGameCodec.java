@@ -0,0 +1,256 @@
+package backend.belatro.pojo.gamelogic;
+
+import backend.belatro.pojo.gamelogic.enums.GameState;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary form of a {@link BelotGame}, used for the live game in Redis.
+ * <p>
+ * It carries the same state as the JSON form, with players as seat indices, cards as
+ * {@link CardSet} ordinals (hands as 32-bit masks) and each play of a trick as one byte holding
+ * seat and card. Integers are zig-zag varints. The first byte is {@link #MAGIC}, which no JSON
+ * document starts with, and the second the format version. Since version 2 a fixed header
+ * follows: the game's {@link BelotGame#getVersion() version} as eight big-endian bytes at
+ * {@link #VERSION_OFFSET} and its {@link GameState} ordinal at {@link #STATE_OFFSET}, so the save
+ * script in Redis can check both without decoding the game. Since version 3 the body is a run
+ * of {@link #SECTIONS}, one per part of the game that changes on its own: meta (ids, scores,
+ * state, talon), one per seat's hand, bids, completed tricks, the current trick and the challenge
+ * window. {@link #encodeSections} gives them one by one for the hash layout in Redis, which
+ * stores each section as a field so a save writes only the ones it changed.
+ * {@link BelotGame#writeSection} and {@link BelotGame#readSections} define them. A new version
+ * gets its own reader here, so values written by older nodes stay readable.
+ */
+public final class BelotGameCodec {
+
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final int VERSION = 3;
+    public static final int VERSION_OFFSET = 2;
+    public static final int STATE_OFFSET = 10;
+
+    static final int META = 0;
+    /** First of the four hand sections, one per seat. */
+    static final int HAND = 1;
+    static final int BIDS = 5;
+    static final int TRICKS = 6;
+    static final int TRICK = 7;
+    static final int CHALLENGE = 8;
+    /** Section names, in the order the body writes them; the hash layout's field names. */
+    public static final List<String> SECTIONS = List.of(
+            "meta", "hand0", "hand1", "hand2", "hand3", "bids", "tricks", "trick", "challenge");
+
+    private static final GameState[] STATES = GameState.values();
+
+    private BelotGameCodec() {
+    }
+
+    /**
+     * @return true if {@code bytes} starts like a value written by {@link #encode}
+     */
+    public static boolean isBinary(byte[] bytes) {
+        return bytes != null && bytes.length > 1 && bytes[0] == MAGIC;
+    }
+
+    public static byte[] encode(BelotGame game) {
+        Output out = new Output();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(game.getVersion());
+        out.writeByte(game.getGameState().ordinal());
+        for (int section = 0; section < SECTIONS.size(); section++) {
+            game.writeSection(section, out);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @return the body of {@link #encode} split into its {@link #SECTIONS}, without the header
+     */
+    public static byte[][] encodeSections(BelotGame game) {
+        byte[][] sections = new byte[SECTIONS.size()][];
+        for (int section = 0; section < sections.length; section++) {
+            Output out = new Output();
+            game.writeSection(section, out);
+            sections[section] = out.toByteArray();
+        }
+        return sections;
+    }
+
+    /**
+     * Reads what {@link #encodeSections} wrote.
+     *
+     * @param version the game's version, kept beside the sections
+     * @throws IllegalArgumentException if a section is missing or malformed
+     */
+    public static BelotGame decodeSections(byte[][] sections, long version) {
+        if (sections.length != SECTIONS.size()) {
+            throw new IllegalArgumentException("Expected " + SECTIONS.size() + " sections, got " + sections.length);
+        }
+        BelotGame game = BelotGame.readSections(section -> {
+            if (sections[section] == null) {
+                throw new IllegalArgumentException("Missing BelotGame section " + SECTIONS.get(section));
+            }
+            return new Input(sections[section], 0);
+        });
+        game.setVersion(version);
+        return game;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code bytes} is not a value written by {@link #encode},
+     *                                  or was written by a newer version
+     */
+    public static BelotGame decode(byte[] bytes) {
+        if (!isBinary(bytes)) {
+            throw new IllegalArgumentException("Not a binary BelotGame");
+        }
+        Input in = new Input(bytes, 2);
+        int version = bytes[1];
+        BelotGame game = switch (version) {
+            case 1 -> BelotGame.readFrom(in);
+            case 2, 3 -> {
+                long saves = in.readLong();
+                GameState state = STATES[in.readByte()];
+                BelotGame read = version == 2 ? BelotGame.readFrom(in) : BelotGame.readSections(section -> in);
+                if (read.getGameState() != state) {
+                    throw new IllegalArgumentException("Header state " + state + " but game is " + read.getGameState());
+                }
+                read.setVersion(saves);
+                yield read;
+            }
+            default -> throw new IllegalArgumentException("Unknown BelotGame format version " + version);
+        };
+        if (in.position != bytes.length) {
+            throw new IllegalArgumentException((bytes.length - in.position) + " trailing bytes after BelotGame");
+        }
+        return game;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  primitives                                                        */
+    /* ------------------------------------------------------------------ */
+
+    static final class Output {
+        private byte[] buffer = new byte[256];
+        private int position;
+
+        void writeByte(int value) {
+            if (position == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        /** Fixed four bytes, for card masks. */
+        void writeInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                writeByte(value >>> shift);
+            }
+        }
+
+        /** Fixed eight bytes, for seeds. */
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value);
+        }
+
+        void writeVarLong(long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                writeByte((int) (zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            writeByte((int) zigZag);
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length);
+            for (byte b : utf8) {
+                writeByte(b);
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        /** @return the next byte, sign-extended so -1 round-trips */
+        int readByte() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated BelotGame at byte " + position);
+            }
+            return bytes[position++];
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        int readInt() {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = value << 8 | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        int readVarInt() {
+            return Math.toIntExact(readVarLong());
+        }
+
+        long readVarLong() {
+            long zigZag = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (shift > 63) {
+                    throw new IllegalArgumentException("Malformed varint at byte " + position);
+                }
+                int b = readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length < 0 || length > bytes.length - position) {
+                throw new IllegalArgumentException("Bad string length " + length + " at byte " + position);
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -2,28 +2,75 @@ package backend.belatro.pojo.gamelogic;
 
 import backend.belatro.pojo.gamelogic.enums.Boja;
 import backend.belatro.pojo.gamelogic.enums.Rank;
-import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonProperty;
-import lombok.Data;
-import lombok.EqualsAndHashCode;
-import lombok.NoArgsConstructor;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.AccessLevel;
+import lombok.Getter;
 
+import java.util.Objects;
 
-@Data
-@EqualsAndHashCode
-@NoArgsConstructor(force = true)        // NEW
+/**
+ * One of the 32 Belot cards. Cards are immutable and interned: {@link #of(Boja, Rank)},
+ * {@link CardDeserializer} and {@link Deck} only ever hand out the canonical instances,
+ * so cards can be compared by identity.
+ */
+@Getter
+@JsonDeserialize(using = CardDeserializer.class)
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class Card {                     // idem for Bid, Trick, Player, …
-    private Boja boja;
-    private Rank rank;
+public final class Card {
 
-    @JsonCreator                         // Optional if you keep the ctor
-    public Card(@JsonProperty("boja") Boja boja,
-                @JsonProperty("rank") Rank rank) {
+    private static final Card[] CARDS = new Card[CardSet.DECK_SIZE];
+
+    static {
+        for (Boja boja : Boja.values()) {
+            for (Rank rank : Rank.values()) {
+                Card card = new Card(boja, rank);
+                CARDS[card.ordinal] = card;
+            }
+        }
+    }
+
+    private final Boja boja;
+    private final Rank rank;
+    @Getter(AccessLevel.NONE)
+    private final int ordinal;
+
+    private Card(Boja boja, Rank rank) {
         this.boja = boja;
         this.rank = rank;
+        this.ordinal = boja.ordinal() << 3 | rank.ordinal();
     }
+
+    public static Card of(Boja boja, Rank rank) {
+        Objects.requireNonNull(boja, "boja");
+        Objects.requireNonNull(rank, "rank");
+        return CARDS[boja.ordinal() << 3 | rank.ordinal()];
+    }
+
+    /**
+     * @param ordinal a {@link CardSet} bit index, 0-31
+     */
+    public static Card of(int ordinal) {
+        return CARDS[ordinal];
+    }
+
+    /**
+     * @return this card's {@link CardSet} bit index
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return ordinal;
+    }
+
     @Override
     public String toString() {
         return rank + " of " + boja;
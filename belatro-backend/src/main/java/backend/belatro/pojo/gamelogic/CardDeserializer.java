@@ -0,0 +1,46 @@
+package backend.belatro.pojo.gamelogic;
+
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads {@code {"boja": ..., "rank": ...}} straight from the token stream and returns the
+ * interned {@link Card}, so no card objects are allocated while reading a game.
+ */
+public class CardDeserializer extends StdDeserializer<Card> {
+
+    public CardDeserializer() {
+        super(Card.class);
+    }
+
+    @Override
+    public Card deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.START_OBJECT) {
+            t = p.nextToken();
+        }
+
+        Boja boja = null;
+        Rank rank = null;
+        for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "boja" -> boja = Boja.valueOf(p.getText());
+                case "rank" -> rank = Rank.valueOf(p.getText());
+                default -> p.skipChildren();
+            }
+        }
+
+        if (boja == null || rank == null) {
+            return ctxt.reportInputMismatch(Card.class, "Card needs both boja and rank");
+        }
+        return Card.of(boja, rank);
+    }
+}
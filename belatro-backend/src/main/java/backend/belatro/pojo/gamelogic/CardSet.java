@@ -0,0 +1,158 @@
+package backend.belatro.pojo.gamelogic;
+
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntSupplier;
+
+/**
+ * A set of Belot cards packed into a single {@code int}.
+ * Card {@code (boja, rank)} lives at bit {@code boja.ordinal() * 8 + rank.ordinal()},
+ * so every suit owns one 8-bit lane (KARA = bits 0-7, HERC = 8-15, TREF = 16-23, PIK = 24-31)
+ * ordered by {@link Rank#ordinal()}.
+ * <p>
+ * All methods are static and work on plain {@code int}s so hands, the deck and tricks can be
+ * stored and compared without allocating.
+ */
+public final class CardSet {
+
+    public static final int EMPTY = 0;
+    public static final int FULL_DECK = 0xFFFF_FFFF;
+    public static final int LANE = 0xFF;
+    public static final int DECK_SIZE = 32;
+
+    private CardSet() {
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  single cards                                                      */
+    /* ------------------------------------------------------------------ */
+
+    public static int ordinal(Boja boja, Rank rank) {
+        return boja.ordinal() << 3 | rank.ordinal();
+    }
+
+    public static int ordinal(Card card) {
+        return card.ordinal();
+    }
+
+    public static int bit(Card card) {
+        return 1 << ordinal(card);
+    }
+
+    public static int bit(Boja boja, Rank rank) {
+        return 1 << ordinal(boja, rank);
+    }
+
+    public static Card card(int ordinal) {
+        return Card.of(ordinal);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  set operations                                                    */
+    /* ------------------------------------------------------------------ */
+
+    public static int of(Collection<Card> cards) {
+        int set = EMPTY;
+        for (Card card : cards) {
+            set |= bit(card);
+        }
+        return set;
+    }
+
+    public static boolean contains(int set, Card card) {
+        return (set & bit(card)) != 0;
+    }
+
+    public static int size(int set) {
+        return Integer.bitCount(set);
+    }
+
+    /** @return the bits of {@code boja}'s lane, in place */
+    public static int suitMask(Boja boja) {
+        return LANE << (boja.ordinal() << 3);
+    }
+
+    /** @return the cards of {@code set} that belong to {@code boja}, in place */
+    public static int ofSuit(int set, Boja boja) {
+        return set & suitMask(boja);
+    }
+
+    /** @return the 8-bit lane of {@code boja}, shifted down to bits 0-7 */
+    public static int lane(int set, Boja boja) {
+        return (set >>> (boja.ordinal() << 3)) & LANE;
+    }
+
+    /**
+     * @return the card at position {@code index} when the set is walked in ordinal order
+     * @throws IndexOutOfBoundsException if the set has fewer cards
+     */
+    public static Card get(int set, int index) {
+        if (index < 0 || index >= size(set)) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size(set));
+        }
+        for (int i = 0; i < index; i++) {
+            set &= set - 1;                          // drop lowest card
+        }
+        return Card.of(Integer.numberOfTrailingZeros(set));
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  list adapters                                                     */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * @return a new mutable list with the cards of {@code set} in ordinal order
+     */
+    public static List<Card> toList(int set) {
+        List<Card> cards = new ArrayList<>(size(set));
+        for (int rest = set; rest != 0; rest &= rest - 1) {
+            cards.add(Card.of(Integer.numberOfTrailingZeros(rest)));
+        }
+        return cards;
+    }
+
+    /**
+     * @return a live, read-only list view over whatever set {@code source} currently returns
+     */
+    public static List<Card> view(IntSupplier source) {
+        return new View(source);
+    }
+
+    public static String toString(int set) {
+        return toList(set).toString();
+    }
+
+    private static final class View extends AbstractList<Card> implements RandomAccess {
+        private final IntSupplier source;
+
+        private View(IntSupplier source) {
+            this.source = source;
+        }
+
+        @Override
+        public Card get(int index) {
+            return CardSet.get(source.getAsInt(), index);
+        }
+
+        @Override
+        public int size() {
+            return CardSet.size(source.getAsInt());
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Card card && CardSet.contains(source.getAsInt(), card);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return source.getAsInt() == EMPTY;
+        }
+    }
+}
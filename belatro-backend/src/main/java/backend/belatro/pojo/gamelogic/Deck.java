@@ -1,42 +1,124 @@
 package backend.belatro.pojo.gamelogic;
 
-import backend.belatro.pojo.gamelogic.enums.Boja;
-import backend.belatro.pojo.gamelogic.enums.Rank;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The 32 cards as a permutation of {@link CardSet} ordinals, dealt from the front.
+ * <p>
+ * Shuffling is an in-place Fisher–Yates driven by a SplitMix64 sequence, so the same seed
+ * always gives the same order and neither shuffling nor dealing allocates. A hand can be
+ * regenerated from the game seed and hand number with {@link #forHand(long, int)}.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Deck {
-    final List<Card> cards = new ArrayList<>();
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** Card ordinals in dealing order; the first {@link #dealt} are gone. */
+    private final byte[] order = new byte[CardSet.DECK_SIZE];
+    private int dealt;
 
     public Deck() {
-        for (Boja boja : Boja.values()) {
-            for (Rank rank : Rank.values()) {
-                cards.add(new Card(boja, rank));
-            }
+        reset();
+    }
+
+    private Deck(List<Card> remaining) {
+        dealt = CardSet.DECK_SIZE - remaining.size();
+        for (int i = 0; i < remaining.size(); i++) {
+            order[dealt + i] = (byte) remaining.get(i).ordinal();
+        }
+    }
+
+    /**
+     * Rebuilds a partially dealt deck whose undealt cards are exactly {@code remaining},
+     * in dealing order.
+     */
+    public static Deck ofRemaining(List<Card> remaining) {
+        return new Deck(remaining);
+    }
+
+    /**
+     * @return the full deck in the order hand {@code handNumber} of the game seeded with
+     *         {@code gameSeed} is dealt
+     */
+    public static Deck forHand(long gameSeed, int handNumber) {
+        Deck deck = new Deck();
+        deck.shuffle(handSeed(gameSeed, handNumber));
+        return deck;
+    }
+
+    /**
+     * @return the shuffle seed of hand {@code handNumber} (0 for the first hand)
+     */
+    public static long handSeed(long gameSeed, int handNumber) {
+        return mix(gameSeed + (handNumber + 1L) * GOLDEN_GAMMA);
+    }
+
+    /** SplitMix64 finalizer. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Puts all 32 cards back in suit and rank order.
+     */
+    public void reset() {
+        for (int i = 0; i < CardSet.DECK_SIZE; i++) {
+            order[i] = (byte) i;
         }
+        dealt = 0;
     }
 
     public void shuffle() {
-        Collections.shuffle(cards);
+        shuffle(ThreadLocalRandom.current().nextLong());
     }
 
-    public List<Card> deal(int n) {
-        if (n <= 0 || cards.isEmpty()) {
-            return Collections.emptyList();
+    /**
+     * Shuffles the undealt cards; the result depends only on the seed and the current order.
+     */
+    public void shuffle(long seed) {
+        long state = seed;
+        for (int i = CardSet.DECK_SIZE - 1; i > dealt; i--) {
+            state += GOLDEN_GAMMA;
+            // unsigned 32-bit draw scaled to [0, i - dealt]
+            int j = dealt + (int) (((mix(state) >>> 32) * (i - dealt + 1)) >>> 32);
+            byte card = order[i];
+            order[i] = order[j];
+            order[j] = card;
         }
-        int howMany = Math.min(n, cards.size());
+    }
 
-        List<Card> dealt = new ArrayList<>(cards.subList(0, howMany));
+    public List<Card> deal(int n) {
+        int howMany = Math.min(Math.max(n, 0), getCardsRemaining());
+        List<Card> cards = new ArrayList<>(howMany);
+        for (int i = 0; i < howMany; i++) {
+            cards.add(CardSet.card(order[dealt++]));
+        }
+        return cards;
+    }
 
-        cards.subList(0, howMany).clear();
-        return dealt;
+    /**
+     * Deals the next {@code n} cards.
+     * @return the dealt cards as a {@link CardSet}
+     */
+    public int dealSet(int n) {
+        int howMany = Math.min(Math.max(n, 0), getCardsRemaining());
+        int cards = CardSet.EMPTY;
+        for (int i = 0; i < howMany; i++) {
+            cards |= 1 << order[dealt++];
+        }
+        return cards;
     }
 
     /**
-     * Deals initial hands of 6 cards to each of the 4 players
+     * Deals initial hands of 6 cards to each of the 4 players.
+     * The 8 cards left in the deck form the talon.
      * @param players The list of players in the game
      */
     public void dealInitialHands(List<Player> players) {
@@ -44,31 +126,16 @@ public class Deck {
             throw new IllegalArgumentException("Belot requires exactly 4 players");
         }
 
-        if (cards.size() < 26) { // 24 for players + 2 for talon
+        if (getCardsRemaining() < 26) { // 24 for players + 2 for talon
             throw new IllegalStateException("Not enough cards for initial deal");
         }
 
         // Deal 6 cards to each player
         for (Player player : players) {
-            List<Card> hand = deal(6);
-            player.setHand(hand);
-        }
-    }
-
-    /**
-     * Sets aside 2 cards for the talon
-     * @return The 2 cards for the talon
-     */
-    public List<Card> dealTalon() {
-        // Deal 2 cards per player (8 total) for the talon
-        if (cards.size() < 8) {
-            throw new IllegalStateException("Not enough cards for talon");
+            player.setHandSet(dealSet(6));
         }
-
-        return deal(8);
     }
 
-
     /**
      * Deals the remaining cards after trump is called
      * @param players The list of players in the game
@@ -78,29 +145,38 @@ public class Deck {
             throw new IllegalArgumentException("Belot requires exactly 4 players");
         }
 
-        if (cards.size() != 8) {
+        if (getCardsRemaining() != 8) {
             throw new IllegalStateException("Expected exactly 8 cards remaining for second deal");
         }
 
         // Each player gets 2 more cards
         for (Player player : players) {
-            List<Card> currentHand = new ArrayList<>(player.getHand());
-            currentHand.addAll(deal(2));
-            player.setHand(currentHand);
+            player.addCards(dealSet(2));
+        }
+    }
+
+    /**
+     * @return the undealt cards, in dealing order
+     */
+    public List<Card> getRemaining() {
+        List<Card> remaining = new ArrayList<>(getCardsRemaining());
+        for (int i = dealt; i < CardSet.DECK_SIZE; i++) {
+            remaining.add(CardSet.card(order[i]));
         }
+        return Collections.unmodifiableList(remaining);
     }
 
     /**
      * @return The number of cards remaining in the deck
      */
     public int getCardsRemaining() {
-        return cards.size();
+        return CardSet.DECK_SIZE - dealt;
     }
 
     /**
      * @return Whether the deck is empty
      */
     public boolean isEmpty() {
-        return cards.isEmpty();
+        return dealt == CardSet.DECK_SIZE;
     }
-}
\ No newline at end of file
+}
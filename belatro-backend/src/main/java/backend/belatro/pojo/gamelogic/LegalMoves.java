@@ -0,0 +1,96 @@
+package backend.belatro.pojo.gamelogic;
+
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+
+/**
+ * Legal-move generator working purely on {@link CardSet} masks.
+ * <p>
+ * Follows the same rules as the original list based {@code BelotGame.getLegalMoves()}:
+ * follow suit and beat the current winner if you can, otherwise trump (and over-trump
+ * if someone already trumped), otherwise play anything. Lead-suit cards are measured
+ * against the winning card's rank in the lead suit's order, even when the winner is a trump.
+ */
+public final class LegalMoves {
+
+    /** Non-trump strength by {@link Rank#ordinal()}: A, 10, K, Q, J, 9, 8, 7. */
+    private static final int[] NON_TRUMP_STRENGTH = {1, 2, 3, 4, 5, 6, 7, 8};
+    /** Trump strength by {@link Rank#ordinal()}: J, 9, A, 10, K, Q, 8, 7. */
+    private static final int[] TRUMP_STRENGTH = {1, 2, 7, 8, 3, 4, 5, 6};
+
+    /** Lane mask of the ranks that outrank the given rank. */
+    private static final int[] ABOVE_NON_TRUMP = new int[8];
+    private static final int[] ABOVE_TRUMP = new int[8];
+
+    /** Rank ordinal of the strongest card in an 8-bit lane, -1 for an empty lane. */
+    private static final byte[] TOP_NON_TRUMP = new byte[256];
+    private static final byte[] TOP_TRUMP = new byte[256];
+
+    static {
+        for (int r = 0; r < 8; r++) {
+            for (int other = 0; other < 8; other++) {
+                if (NON_TRUMP_STRENGTH[other] > NON_TRUMP_STRENGTH[r]) ABOVE_NON_TRUMP[r] |= 1 << other;
+                if (TRUMP_STRENGTH[other] > TRUMP_STRENGTH[r])         ABOVE_TRUMP[r] |= 1 << other;
+            }
+        }
+        for (int lane = 0; lane < 256; lane++) {
+            TOP_NON_TRUMP[lane] = top(lane, NON_TRUMP_STRENGTH);
+            TOP_TRUMP[lane] = top(lane, TRUMP_STRENGTH);
+        }
+    }
+
+    private LegalMoves() {
+    }
+
+    private static byte top(int lane, int[] strength) {
+        int best = -1;
+        for (int r = 0; r < 8; r++) {
+            if ((lane & 1 << r) != 0 && (best < 0 || strength[r] > strength[best])) {
+                best = r;
+            }
+        }
+        return (byte) best;
+    }
+
+    /**
+     * @param hand     the player's hand
+     * @param played   the cards already on the table in this trick
+     * @param leadSuit suit of the lead card, ignored when {@code played} is empty
+     * @param trump    trump suit, may be {@code null}
+     * @return the subset of {@code hand} that may legally be played
+     */
+    public static int of(int hand, int played, Boja leadSuit, Boja trump) {
+        // 1) nobody has led yet – anything goes
+        if (played == CardSet.EMPTY) {
+            return hand;
+        }
+
+        int trumpsOnTable = trump != null ? CardSet.lane(played, trump) : 0;
+
+        // 2) follow suit, beating the current winner if possible
+        int follow = CardSet.ofSuit(hand, leadSuit);
+        if (follow != CardSet.EMPTY) {
+            int winnerRank = trumpsOnTable != 0
+                    ? TOP_TRUMP[trumpsOnTable]
+                    : TOP_NON_TRUMP[CardSet.lane(played, leadSuit)];
+            int[] above = leadSuit == trump ? ABOVE_TRUMP : ABOVE_NON_TRUMP;
+            int over = follow & (above[winnerRank] << (leadSuit.ordinal() << 3));
+            return over != CardSet.EMPTY ? over : follow;
+        }
+
+        // 3) can't follow – must trump, over-trumping if someone already did
+        int trumps = trump != null ? CardSet.ofSuit(hand, trump) : CardSet.EMPTY;
+        if (trumps != CardSet.EMPTY) {
+            if (trumpsOnTable != 0) {
+                int over = trumps & (ABOVE_TRUMP[TOP_TRUMP[trumpsOnTable]] << (trump.ordinal() << 3));
+                if (over != CardSet.EMPTY) {
+                    return over;
+                }
+            }
+            return trumps;
+        }
+
+        // 4) neither follow nor trump – play anything
+        return hand;
+    }
+}
@@ -1,6 +1,7 @@
 package backend.belatro.pojo.gamelogic;
 
 import com.fasterxml.jackson.annotation.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -14,7 +15,12 @@ import java.util.Objects;
         property = "id")
 public class Player {
     private final String id;
-    private final List<Card> hand = new ArrayList<>();
+    /** The hand as a {@link CardSet}; {@link #getHand()} is a read-only view over it. */
+    @JsonIgnore
+    private int handSet = CardSet.EMPTY;
+    @Getter(AccessLevel.NONE)
+    @JsonIgnore
+    private final List<Card> handView = CardSet.view(() -> handSet);
     @Setter
     private boolean bidPassed = false;
     @JsonIgnore
@@ -25,16 +31,37 @@ public class Player {
         this.id = id;
     }
 
+    /**
+     * @return a read-only view of the hand, in suit/rank order
+     */
+    public List<Card> getHand() {
+        return handView;
+    }
+
     public void setHand(List<Card> cards) {
-        hand.clear();
-        hand.addAll(cards);
+        handSet = CardSet.of(cards);
+    }
+
+    public void setHandSet(int cards) {
+        handSet = cards;
+    }
+
+    /**
+     * Adds the given {@link CardSet} to the hand.
+     */
+    public void addCards(int cards) {
+        handSet |= cards;
+    }
+
+    public boolean hasCard(Card card) {
+        return CardSet.contains(handSet, card);
     }
 
     public Card playCard(Card card) {
-        if (!hand.contains(card)) {
+        if (!hasCard(card)) {
             throw new IllegalArgumentException("Card not in hand");
         }
-        hand.remove(card);
+        handSet &= ~CardSet.bit(card);
         return card;
     }
 
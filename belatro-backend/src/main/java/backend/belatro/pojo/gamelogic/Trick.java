@@ -1,8 +1,8 @@
 package backend.belatro.pojo.gamelogic;
 
 import backend.belatro.pojo.gamelogic.enums.Boja;
-import backend.belatro.pojo.gamelogic.enums.Rank;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
@@ -22,7 +22,18 @@ public class Trick {
     @Getter
     private final Boja trump;
 
-    private final Map<String, Card> plays;
+    /** Plays in the order they were made: player IDs and {@link CardSet} card ordinals. */
+    private final String[] playerIds = new String[4];
+    private final byte[] cards = new byte[4];
+    private int count;
+
+    /** The cards on the table as a {@link CardSet}, kept in step with {@link #cards}. */
+    @JsonIgnore
+    private int playedSet = CardSet.EMPTY;
+
+    /** Lazily built map view of the plays, dropped whenever a card is added. */
+    @JsonIgnore
+    private Map<String, Card> playsView;
     private static final String PLACEHOLDER_LEAD = "_NO_LEAD_";
 
 
@@ -31,7 +42,6 @@ public class Trick {
                  @JsonProperty("trump")        Boja   trump) {
         this.leadPlayerId = Objects.requireNonNull(leadPlayerId);
         this.trump        = trump;
-        this.plays        = new HashMap<>();
     }
     public static Trick empty() { return new Trick(PLACEHOLDER_LEAD,null); }
 
@@ -47,107 +57,122 @@ public class Trick {
         Objects.requireNonNull(playerId, "Player ID cannot be null");
         Objects.requireNonNull(card, "Card cannot be null");
 
-        if (plays.containsKey(playerId)) {
+        if (hasPlayed(playerId)) {
             throw new IllegalArgumentException("Player " + playerId + " has already played a card in this trick");
         }
+        if (count == playerIds.length) {
+            throw new IllegalStateException("Trick already has " + count + " cards");
+        }
 
-        plays.put(playerId, card);
+        playerIds[count] = playerId;
+        cards[count] = (byte) CardSet.ordinal(card);
+        count++;
+        playedSet |= CardSet.bit(card);
+        playsView = null;
     }
 
 
     public boolean isComplete(int playerCount) {
 //        System.out.println("Checking if trick is complete. Current plays: " + plays.size() + ", Required: " + playerCount);
-        return plays.size() == playerCount;
+        return count == playerCount;
     }
 
-
     /**
-     * @return An unmodifiable map of player IDs to cards
+     * @return the number of cards played so far
      */
-    public Map<String, Card> getPlays() {
-        return Collections.unmodifiableMap(plays);
+    public int size() {
+        return count;
     }
 
     /**
-     * @return The playerID who won the trick, or null if the trick is empty
+     * @return true if {@code playerId} already has a card in this trick
      */
-    public String determineWinner() {
-        if (plays.isEmpty()) {
-            return null;
-        }
+    public boolean hasPlayed(String playerId) {
+        return indexOf(playerId) >= 0;
+    }
 
-        Card leadCard = plays.get(leadPlayerId);
-        if (leadCard == null) {
-            throw new IllegalStateException("Lead player has not played a card");
+    private int indexOf(String playerId) {
+        for (int i = 0; i < count; i++) {
+            if (playerIds[i].equals(playerId)) {
+                return i;
+            }
         }
+        return -1;
+    }
 
-        Boja leadSuit = leadCard.getBoja();
-
-        String currentWinnerId = leadPlayerId;
-        Card currentWinningCard = leadCard;
-
-        for (Map.Entry<String, Card> entry : plays.entrySet()) {
-            String playerId = entry.getKey();
-            Card card = entry.getValue();
+    /** @return the player who made play {@code i}, 0 being the first card */
+    String playerIdAt(int i) {
+        return playerIds[i];
+    }
 
-            // Skip the lead player, already considered
-            if (playerId.equals(leadPlayerId)) {
-                continue;
-            }
+    /** @return the {@link CardSet} ordinal of play {@code i} */
+    int cardAt(int i) {
+        return cards[i];
+    }
 
-            // Compare cards to determine the winner
-            if (!isCardWinning(currentWinningCard, card, leadSuit)) {
-                currentWinnerId = playerId;
-                currentWinningCard = card;
+    /** Jackson entry point – goes through {@link #addPlay} so the lead card is stored first. */
+    @JsonProperty("plays")
+    private void restorePlays(Map<String, Card> restored) {
+        Arrays.fill(playerIds, null);
+        count = 0;
+        playedSet = CardSet.EMPTY;
+        playsView = null;
+
+        Card lead = restored.get(leadPlayerId);
+        if (lead != null) {
+            addPlay(leadPlayerId, lead);
+        }
+        restored.forEach((playerId, card) -> {
+            if (!playerId.equals(leadPlayerId)) {
+                addPlay(playerId, card);
             }
-        }
-
-        return currentWinnerId;
+        });
     }
 
     /**
-     * Determines if the winning card beats the challenger card.
-     *
-     * @param winningCard The current winning card
-     * @param challengerCard The challenger card
-     * @param leadSuit The suit of the lead card
-     * @return true if the winning card beats the challenger, false otherwise
+     * @return The cards played so far as a {@link CardSet}
      */
-    private boolean isCardWinning(Card winningCard, Card challengerCard, Boja leadSuit) {
-        // If winning card is trump and challenger is not, winning card wins
-        if (winningCard.getBoja() == trump && challengerCard.getBoja() != trump) {
-            return true;
-        }
-
-        // If challenger is trump and winning card is not, challenger wins
-        if (challengerCard.getBoja() == trump && winningCard.getBoja() != trump) {
-            return false;
-        }
+    @JsonIgnore
+    public int getPlayedSet() {
+        return playedSet;
+    }
 
-        // If both are trump, higher rank wins
-        if (winningCard.getBoja() == trump) {
-            Comparator<Card> trumpComparator = BelotRankComparator.getTrumpComparator();
-            return trumpComparator.compare(winningCard, challengerCard) > 0;
+    /**
+     * @return An unmodifiable map of player IDs to cards, in play order
+     */
+    public Map<String, Card> getPlays() {
+        if (playsView == null) {
+            Map<String, Card> plays = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                plays.put(playerIds[i], CardSet.card(cards[i]));
+            }
+            playsView = Collections.unmodifiableMap(plays);
         }
+        return playsView;
+    }
 
-        // If winning card follows lead suit and challenger doesn't, winning card wins
-        if (winningCard.getBoja() == leadSuit && challengerCard.getBoja() != leadSuit) {
-            return true;
-        }
+    /**
+     * @return The playerID who won the trick, or null if the trick is empty
+     */
+    public String determineWinner() {
+        int winner = winnerIndex();
+        return winner >= 0 ? playerIds[winner] : null;
+    }
 
-        // If challenger follows lead suit and winning card doesn't, challenger wins
-        if (challengerCard.getBoja() == leadSuit && winningCard.getBoja() != leadSuit) {
-            return false;
+    /**
+     * @return position (0 = first card played) of the winning play, or -1 if the trick is empty
+     */
+    public int winnerIndex() {
+        if (count == 0) {
+            return -1;
         }
 
-        // If both follow lead suit, higher rank wins
-        if (winningCard.getBoja() == leadSuit) {
-            Comparator<Card> nonTrumpComparator = BelotRankComparator.getNonTrumpComparator();
-            return nonTrumpComparator.compare(winningCard, challengerCard) > 0;
+        int lead = indexOf(leadPlayerId);
+        if (lead < 0) {
+            throw new IllegalStateException("Lead player has not played a card");
         }
 
-        // If neither follows lead suit or trump, winning card stays winning
-        return true;
+        return TrickTable.winner(trump, cards, count, lead);
     }
 
     /**
@@ -156,43 +181,7 @@ public class Trick {
      * @return The total point value
      */
     public int calculatePoints() {
-        return plays.values().stream()
-            .mapToInt(this::getCardPointValue)
-            .sum();
-    }
-
-    /**
-     * Gets the point value of a card based on its rank and whether it's trump.
-     *
-     * @param card The card to evaluate
-     * @return The point value of the card
-     */
-    private int getCardPointValue(Card card) {
-        boolean isTrump = card.getBoja() == trump;
-        Rank rank = card.getRank();
-
-        // Belot card point values
-        if (isTrump) {
-            return switch (rank) {
-                case DECKO -> 20;  // Jack
-                case DEVETKA -> 14;  // Nine
-                case AS -> 11;  // Ace
-                case DESETKA -> 10;  // Ten
-                case KRALJ -> 4;  // King
-                case BABA -> 3;  // Queen
-                default -> 0;
-            };
-        } else {
-            return switch (rank) {
-                case AS -> 11;  // Ace
-                case DESETKA -> 10;  // Ten
-                case KRALJ -> 4;  // King
-                case BABA -> 3;  // Queen
-                case DECKO -> 2;  // Jack
-                case DEVETKA -> 0;
-                default -> 0;
-            };
-        }
+        return TrickTable.points(trump, cards, count);
     }
 
     /**
@@ -200,25 +189,15 @@ public class Trick {
      *         or null if no cards have been played yet.
      */
     public Card getWinningCard() {
-        if (plays.isEmpty()) {
+        if (count == 0) {
             return null;
         }
 
-        Card winningCard = getLeadCard();
-        Boja leadSuit = winningCard.getBoja();
-
-        for (Card challenger : plays.values()) {
-            // skip comparing the lead against itself
-            if (challenger == winningCard) {
-                continue;
-            }
-            // if challenger beats what we thought was winning, adopt it
-            if (!isCardWinning(winningCard, challenger, leadSuit)) {
-                winningCard = challenger;
-            }
+        int lead = indexOf(leadPlayerId);
+        if (lead < 0) {
+            lead = 0;
         }
-
-        return winningCard;
+        return CardSet.card(cards[TrickTable.winner(trump, cards, count, lead)]);
     }
 
     /**
@@ -227,17 +206,7 @@ public class Trick {
      * @return The last card played, or null if no cards have been played
      */
     public Card getLastCardPlayed() {
-        if (plays.isEmpty()) {
-            return null;
-        }
-
-        // This assumes the map iteration order reflects insertion order,
-        // which is true for LinkedHashMap but not guaranteed for HashMap
-        Card lastCard = null;
-        for (Card card : plays.values()) {
-            lastCard = card;
-        }
-        return lastCard;
+        return count == 0 ? null : CardSet.card(cards[count - 1]);
     }
 
     /**
@@ -246,7 +215,8 @@ public class Trick {
      * @return The lead card, or null if the lead player hasn't played yet
      */
     public Card getLeadCard() {
-        return plays.get(leadPlayerId);
+        int lead = indexOf(leadPlayerId);
+        return lead >= 0 ? CardSet.card(cards[lead]) : null;
     }
 
     @Override
@@ -256,7 +226,7 @@ public class Trick {
             .append(", plays={");
 
         boolean first = true;
-        for (Map.Entry<String, Card> entry : plays.entrySet()) {
+        for (Map.Entry<String, Card> entry : getPlays().entrySet()) {
             if (!first) {
                 sb.append(", ");
             }
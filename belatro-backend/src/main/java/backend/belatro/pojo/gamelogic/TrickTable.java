@@ -0,0 +1,102 @@
+package backend.belatro.pojo.gamelogic;
+
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+
+/**
+ * Precomputed trick resolution: card strength by (trump, lead suit, card ordinal) and
+ * card points by (trump, card ordinal). Card ordinals are the {@link CardSet} bit indices.
+ * <p>
+ * Strength is 0 for a card that can't win (neither trump nor lead suit), 9-16 for the lead
+ * suit and 17-24 for trumps, so the winner of a trick is simply the play with the highest
+ * strength.
+ */
+public final class TrickTable {
+
+    /** Slot used when there is no trump. */
+    private static final int NO_TRUMP = 4;
+
+    /** Non-trump strength by {@link Rank#ordinal()}: 7 < 8 < 9 < J < Q < K < 10 < A. */
+    private static final int[] NON_TRUMP_STRENGTH = {1, 2, 3, 4, 5, 6, 7, 8};
+    /** Trump strength by {@link Rank#ordinal()}: 7 < 8 < Q < K < 10 < A < 9 < J. */
+    private static final int[] TRUMP_STRENGTH = {1, 2, 7, 8, 3, 4, 5, 6};
+
+    /** Card points by {@link Rank#ordinal()}. */
+    private static final int[] NON_TRUMP_POINTS = {0, 0, 0, 2, 3, 4, 10, 11};
+    private static final int[] TRUMP_POINTS = {0, 0, 14, 20, 3, 4, 10, 11};
+
+    /** [trump slot][lead suit][card ordinal] */
+    private static final byte[] STRENGTH = new byte[5 * 4 * CardSet.DECK_SIZE];
+    /** [trump slot][card ordinal] */
+    private static final byte[] POINTS = new byte[5 * CardSet.DECK_SIZE];
+
+    static {
+        for (int trump = 0; trump <= NO_TRUMP; trump++) {
+            for (int card = 0; card < CardSet.DECK_SIZE; card++) {
+                int suit = card >>> 3;
+                int rank = card & 7;
+                POINTS[trump * CardSet.DECK_SIZE + card] =
+                        (byte) (suit == trump ? TRUMP_POINTS[rank] : NON_TRUMP_POINTS[rank]);
+
+                for (int lead = 0; lead < 4; lead++) {
+                    int strength;
+                    if (suit == trump) {
+                        strength = 16 + TRUMP_STRENGTH[rank];
+                    } else if (suit == lead) {
+                        strength = 8 + NON_TRUMP_STRENGTH[rank];
+                    } else {
+                        strength = 0;
+                    }
+                    STRENGTH[(trump * 4 + lead) * CardSet.DECK_SIZE + card] = (byte) strength;
+                }
+            }
+        }
+    }
+
+    private TrickTable() {
+    }
+
+    private static int slot(Boja trump) {
+        return trump != null ? trump.ordinal() : NO_TRUMP;
+    }
+
+    public static int strength(Boja trump, Boja lead, int card) {
+        return STRENGTH[(slot(trump) * 4 + lead.ordinal()) * CardSet.DECK_SIZE + card];
+    }
+
+    public static int points(Boja trump, int card) {
+        return POINTS[slot(trump) * CardSet.DECK_SIZE + card];
+    }
+
+    /**
+     * @param cards card ordinals of the plays
+     * @param count number of plays in {@code cards}
+     * @param lead  index of the lead play in {@code cards}
+     * @return index of the winning play
+     */
+    public static int winner(Boja trump, byte[] cards, int count, int lead) {
+        int base = (slot(trump) * 4 + (cards[lead] >>> 3)) * CardSet.DECK_SIZE;
+        int best = lead;
+        int bestStrength = STRENGTH[base + cards[lead]];
+        for (int i = 0; i < count; i++) {
+            int strength = STRENGTH[base + cards[i]];
+            if (strength > bestStrength) {
+                best = i;
+                bestStrength = strength;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return total points of the first {@code count} cards
+     */
+    public static int points(Boja trump, byte[] cards, int count) {
+        int base = slot(trump) * CardSet.DECK_SIZE;
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += POINTS[base + cards[i]];
+        }
+        return total;
+    }
+}
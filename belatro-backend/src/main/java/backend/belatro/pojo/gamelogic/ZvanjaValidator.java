@@ -3,116 +3,164 @@ package backend.belatro.pojo.gamelogic;
 import backend.belatro.pojo.gamelogic.enums.Boja;
 import backend.belatro.pojo.gamelogic.enums.Rank;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * Declaration (zvanja) evaluation on {@link CardSet} masks.
+ * <p>
+ * Every suit lane has only 256 possible subsets, so sequence points per lane are read from
+ * lookup tables built once at class load; four-of-a-kind is the AND of the four lanes.
+ * The {@code List<Card>} overloads are kept for existing callers and delegate to the mask versions.
+ */
 public class ZvanjaValidator {
-    public static boolean isBela(List<Card> hand, Boja adut) {
-        boolean hasKralj = hand
-                .stream()
-                .anyMatch(card -> card
-                        .getBoja() == adut
-                        &&
-                        card.getRank() == Rank.KRALJ);
-        boolean hasBaba = hand
-                .stream()
-                .anyMatch(card -> card
-                        .getBoja() == adut
-                        &&
-                        card.getRank() == Rank.BABA);
-        return hasKralj && hasBaba;
-    }
-    // tris, cetri, pet
-    public static Optional<Integer> evaluateSequence(List<Card> hand, Boja boja) {
-        List<Card> suitCards = hand.stream()
-                .filter(card -> card.getBoja() == boja)
-                .sorted(BelotRankComparator.getComparator()) // You may want to use a custom order.
-                .toList();
 
-        return detectSequences(suitCards);
-    }
-    private static Optional<Integer> detectSequences(List<Card> suitCards) {
-        if (suitCards.size() < 3) {
-            return Optional.empty();
+    /** Rank ordinals in sequence order: 7, 8, 9, 10, J, Q, K, A. */
+    private static final int[] SEQUENCE_ORDER = {
+            Rank.SEDMICA.ordinal(), Rank.OSMICA.ordinal(), Rank.DEVETKA.ordinal(), Rank.DESETKA.ordinal(),
+            Rank.DECKO.ordinal(), Rank.BABA.ordinal(), Rank.KRALJ.ordinal(), Rank.AS.ordinal()};
+
+    /** Rank ordinals in non-trump strength order, the order {@link #evaluateSequence} walks. */
+    private static final int[] NON_TRUMP_ORDER = {
+            Rank.SEDMICA.ordinal(), Rank.OSMICA.ordinal(), Rank.DEVETKA.ordinal(), Rank.DECKO.ordinal(),
+            Rank.BABA.ordinal(), Rank.KRALJ.ordinal(), Rank.DESETKA.ordinal(), Rank.AS.ordinal()};
+
+    /** Sequence points of an 8-bit lane: 20, 50, 100 or 0. */
+    private static final byte[] SEQUENCE_POINTS = new byte[256];
+    private static final byte[] SEQUENCE_POINTS_NON_TRUMP_ORDER = new byte[256];
+
+    /** Four-of-a-kind points by rank ordinal. */
+    private static final int[] FOUR_OF_A_KIND_POINTS = new int[8];
+
+    static {
+        for (int lane = 0; lane < 256; lane++) {
+            SEQUENCE_POINTS[lane] = (byte) sequencePoints(lane, SEQUENCE_ORDER);
+            SEQUENCE_POINTS_NON_TRUMP_ORDER[lane] = (byte) sequencePoints(lane, NON_TRUMP_ORDER);
         }
+        FOUR_OF_A_KIND_POINTS[Rank.DECKO.ordinal()] = 200;
+        FOUR_OF_A_KIND_POINTS[Rank.DEVETKA.ordinal()] = 150;
+        FOUR_OF_A_KIND_POINTS[Rank.AS.ordinal()] = 100;
+        FOUR_OF_A_KIND_POINTS[Rank.DESETKA.ordinal()] = 100;
+        FOUR_OF_A_KIND_POINTS[Rank.KRALJ.ordinal()] = 100;
+        FOUR_OF_A_KIND_POINTS[Rank.BABA.ordinal()] = 100;
+    }
 
+    /**
+     * Walks the cards of {@code lane} in {@code order} and scores the longest run of
+     * cards that are consecutive in sequence order.
+     */
+    private static int sequencePoints(int lane, int[] order) {
+        if (Integer.bitCount(lane) < 3) {
+            return 0;
+        }
 
         int longestRun = 1;
-        int maxPoints = 0;
         int currentRun = 1;
+        int previous = -1;
 
-        for (int i = 1; i < suitCards.size(); i++) {
-            int previousRankValue = BelotRankComparator.getSequenceRankOrder().get(suitCards.get(i - 1).getRank());
-            int currentRankValue = BelotRankComparator.getSequenceRankOrder().get(suitCards.get(i).getRank());
+        for (int rank : order) {
+            if ((lane & 1 << rank) == 0) {
+                continue;
+            }
+            int current = BelotRankComparator.getSequenceRankOrder().get(Rank.values()[rank]);
+            if (previous >= 0) {
+                currentRun = current == previous + 1 ? currentRun + 1 : 1;
+                longestRun = Math.max(longestRun, currentRun);
+            }
+            previous = current;
+        }
 
+        if (longestRun >= 5) return 100;
+        if (longestRun == 4) return 50;
+        if (longestRun == 3) return 20;
+        return 0;
+    }
 
-            if (currentRankValue == previousRankValue + 1) {
+    /* ------------------------------------------------------------------ */
+    /*  mask API                                                          */
+    /* ------------------------------------------------------------------ */
 
-                currentRun++;
-            } else if (currentRankValue != previousRankValue) {
-                currentRun = 1;
-            }
+    public static boolean isBela(int hand, Boja adut) {
+        int bela = CardSet.bit(adut, Rank.KRALJ) | CardSet.bit(adut, Rank.BABA);
+        return (hand & bela) == bela;
+    }
 
+    /**
+     * @return sequence points (20, 50 or 100) in {@code boja}, 0 if there is none
+     */
+    public static int sequencePoints(int hand, Boja boja) {
+        return SEQUENCE_POINTS[CardSet.lane(hand, boja)];
+    }
 
-            longestRun = Math.max(longestRun, currentRun);
+    /**
+     * @return the best sequence points across all suits, 0 if there is none
+     */
+    public static int bestSequencePoints(int hand) {
+        int best = 0;
+        for (int shift = 0; shift < CardSet.DECK_SIZE; shift += 8) {
+            best = Math.max(best, SEQUENCE_POINTS[(hand >>> shift) & CardSet.LANE]);
         }
+        return best;
+    }
 
+    /**
+     * @return points of the best four-of-a-kind in the hand, 0 if there is none
+     */
+    public static int fourOfAKindPoints(int hand) {
+        int quads = hand & hand >>> 8 & hand >>> 16 & hand >>> 24 & CardSet.LANE;
+        int best = 0;
+        for (; quads != 0; quads &= quads - 1) {
+            best = Math.max(best, FOUR_OF_A_KIND_POINTS[Integer.numberOfTrailingZeros(quads)]);
+        }
+        return best;
+    }
 
-        if (longestRun >= 5) {
-            maxPoints = 100;
-        } else if (longestRun == 4) {
-            maxPoints = 50;
-        } else if (longestRun == 3) {
-            maxPoints = 20;
+    /**
+     * @return suit to sequence points for every suit holding a sequence
+     */
+    public static Map<Boja, Integer> evaluateAllSequences(int hand) {
+        Map<Boja, Integer> sequencesByColor = new EnumMap<>(Boja.class);
+        for (Boja suit : Boja.values()) {
+            int points = sequencePoints(hand, suit);
+            if (points > 0) {
+                sequencesByColor.put(suit, points);
+            }
         }
+        return sequencesByColor;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  list API                                                          */
+    /* ------------------------------------------------------------------ */
+
+    public static boolean isBela(List<Card> hand, Boja adut) {
+        return isBela(CardSet.of(hand), adut);
+    }
 
-        return maxPoints > 0 ? Optional.of(maxPoints) : Optional.empty();
+    // tris, cetri, pet
+    public static Optional<Integer> evaluateSequence(List<Card> hand, Boja boja) {
+        int points = SEQUENCE_POINTS_NON_TRUMP_ORDER[CardSet.lane(CardSet.of(hand), boja)];
+        return points > 0 ? Optional.of(points) : Optional.empty();
     }
+
     /**
      * Evaluates all sequences across all suits in a player's hand.
      * @param hand The player's hand
      * @return Map of suit to sequence points for all valid sequences
      */
     public static Map<Boja, Integer> evaluateAllSequences(List<Card> hand) {
-        Map<Boja, Integer> sequencesByColor = new HashMap<>();
-
-        // Check sequences in each suit
-        for (Boja suit : Boja.values()) {
-            List<Card> suitCards = hand.stream()
-                    .filter(card -> card.getBoja() == suit)
-                    .sorted(BelotRankComparator.getSequenceComparator())
-                    .toList();
-
-            detectSequences(suitCards).ifPresent(points ->
-                    sequencesByColor.put(suit, points));
-        }
-
-        return sequencesByColor;
+        return evaluateAllSequences(CardSet.of(hand));
     }
+
     /**
      * Evaluates four-of-a-kind combinations in a player's hand.
      * @param hand The player's hand
      * @return Optional containing points if a valid four-of-a-kind is found
      */
     public static Optional<Integer> evaluateFourOfAKind(List<Card> hand) {
-        Map<Rank, Long> rankCounts = hand.stream()
-                .collect(Collectors.groupingBy(Card::getRank, Collectors.counting()));
-
-        for (Map.Entry<Rank, Long> entry : rankCounts.entrySet()) {
-            if (entry.getValue() == 4) {
-                Rank rank = entry.getKey();
-                if (rank == Rank.DECKO) return Optional.of(200);
-                if (rank == Rank.DEVETKA) return Optional.of(150);
-                if (rank == Rank.AS || rank == Rank.DESETKA ||
-                        rank == Rank.KRALJ || rank == Rank.BABA)
-                    return Optional.of(100);
-            }
-        }
-        return Optional.empty();
+        int points = fourOfAKindPoints(CardSet.of(hand));
+        return points > 0 ? Optional.of(points) : Optional.empty();
     }
-
-
 }
@@ -0,0 +1,14 @@
+package backend.belatro.repos;
+
+import backend.belatro.models.MatchMove;
+
+import java.util.List;
+
+public interface MatchMoveRepoCustom {
+
+    /**
+     * The match's moves in number order, whichever layout of {@code belatro.moves.layout} they
+     * were written in.
+     */
+    List<MatchMove> findByMatchIdOrderByNumber(String matchId);
+}
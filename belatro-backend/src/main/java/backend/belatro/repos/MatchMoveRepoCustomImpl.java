@@ -0,0 +1,46 @@
+package backend.belatro.repos;
+
+import backend.belatro.components.MoveBuckets;
+import backend.belatro.models.MatchMove;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+import static org.springframework.data.mongodb.core.query.Query.query;
+
+/**
+ * Reads {@code match_moves} and, with the {@code buckets} layout, the match's
+ * {@code match_move_buckets} as well: a match that was being played when the layout changed has
+ * moves in both.
+ */
+public class MatchMoveRepoCustomImpl implements MatchMoveRepoCustom {
+
+    private final MongoOperations mongo;
+    private final MoveBuckets buckets;
+
+    public MatchMoveRepoCustomImpl(MongoOperations mongo, MoveBuckets buckets) {
+        this.mongo = mongo;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public List<MatchMove> findByMatchIdOrderByNumber(String matchId) {
+        List<MatchMove> documents = mongo.find(
+                query(where("matchId").is(matchId)).with(Sort.by("number")), MatchMove.class);
+        if (!buckets.enabled()) {
+            return documents;
+        }
+        List<MatchMove> moves = buckets.read(matchId);
+        if (documents.isEmpty()) {
+            return moves;
+        }
+        List<MatchMove> merged = new ArrayList<>(documents);
+        merged.addAll(moves);
+        merged.sort(Comparator.comparingInt(MatchMove::getNumber));
+        return merged;
+    }
+}
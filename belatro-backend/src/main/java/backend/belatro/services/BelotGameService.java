@@ -1,6 +1,9 @@
 package backend.belatro.services;
 
-import backend.belatro.annotations.GameAction;
+import backend.belatro.callbacks.HandCompletionCallback;
+import backend.belatro.components.GameLeases;
+import backend.belatro.components.GameMailboxes;
+import backend.belatro.components.LiveGameCache;
 import backend.belatro.dtos.BidDTO;
 import backend.belatro.dtos.PlayerPublicInfo;
 import backend.belatro.dtos.PrivateGameView;
@@ -9,6 +12,8 @@ import backend.belatro.enums.MoveType;
 import backend.belatro.events.GameStartedEvent;
 import backend.belatro.events.GameStateChangedEvent;
 import backend.belatro.events.TurnStartedEvent;
+import backend.belatro.exceptions.GameNotOwnedException;
+import backend.belatro.exceptions.StaleGameException;
 import backend.belatro.models.User;
 import backend.belatro.pojo.gamelogic.*;
 import backend.belatro.pojo.gamelogic.enums.Boja;
@@ -20,7 +25,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
@@ -29,18 +33,30 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class BelotGameService {
 
-    private static final String KEY_PREFIX = "belot:game:";
     private static final Logger LOGGER = LoggerFactory.getLogger(BelotGameService.class);
     private static final int TARGET_SCORE = 1001;
 
     private static final long CHALLENGE_WINDOW_MS = 10_000L;
-
-    private final RedisTemplate<String, BelotGame> redis;
+    /** How long a finished game stays readable, so clients can fetch the final state. */
+    private static final Duration FINISHED_GRACE = Duration.ofMinutes(3);
+    /** Attempts an action gets before a lost save race is passed on to the caller. */
+    private static final int MAX_ATTEMPTS = 5;
+    /**
+     * Move numbers each save of a game has room for: its moves are numbered from the saved
+     * version times this. One action records at most a card, the trick and hand it ends, or a
+     * challenge and the hand it ends.
+     */
+    private static final int MOVES_PER_SAVE = 8;
+
+    private final LiveGameCache games;
+    private final GameMailboxes mailboxes;
+    private final GameLeases leases;
     private final ApplicationEventPublisher eventPublisher;
     private final UserRepo userRepository;
     private final IMatchService matchService;
@@ -49,21 +65,17 @@ public class BelotGameService {
     private final Map<String, ScheduledFuture<?>> postHandTimers = new ConcurrentHashMap<>();
     private final Map<String, Long> scheduledWindowExpiry = new ConcurrentHashMap<>();
 
-
-
-
-    private static final java.util.concurrent.ConcurrentHashMap<String, java.util.concurrent.locks.ReentrantLock> GAME_LOCKS = new java.util.concurrent.ConcurrentHashMap<>();
-    private static java.util.concurrent.locks.ReentrantLock lockFor(String gameId) {
-        return GAME_LOCKS.computeIfAbsent(gameId, id -> new java.util.concurrent.locks.ReentrantLock());
-    }
-
     @Autowired
-    public BelotGameService(RedisTemplate<String, BelotGame> redis,
+    public BelotGameService(LiveGameCache games,
+                            GameMailboxes mailboxes,
+                            GameLeases leases,
                             ApplicationEventPublisher eventPublisher,
                             UserRepo userRepository,
                             IMatchService matchService,
                             @Qualifier("gameScheduler") TaskScheduler scheduler) {
-        this.redis = redis;
+        this.games = games;
+        this.mailboxes = mailboxes;
+        this.leases = leases;
         this.eventPublisher = eventPublisher;
         this.userRepository = userRepository;
         this.matchService = matchService;
@@ -71,79 +83,84 @@ public class BelotGameService {
     }
 
     public BelotGame start(String gameId, Team teamA, Team teamB) {
-        BelotGame game = new BelotGame(gameId, teamA, teamB);
-        game.setHandCompletionCallback(this::recordHandEnd);
+        return mailboxes.call(gameId, () -> {
+            BelotGame game = new BelotGame(gameId, teamA, teamB);
 
-        game.startGame();
-        save(game);
+            game.startGame();
+            UnitOfWork work = new UnitOfWork(gameId);
+            work.save(game);
 
-        eventPublisher.publishEvent(new TurnStartedEvent(
-                gameId,
-                game.getCurrentLead().getId(),
-                GameState.BIDDING));
+            work.publish(new TurnStartedEvent(
+                    gameId,
+                    game.getCurrentLead().getId(),
+                    GameState.BIDDING));
 
-        eventPublisher.publishEvent(new GameStartedEvent(this, gameId));
-        LOGGER.info("Published GameStartedEvent for gameId: {}", gameId);
+            work.publish(new GameStartedEvent(this, gameId));
+            work.complete();
+            LOGGER.info("Published GameStartedEvent for gameId: {}", gameId);
 
-        return game;
+            return game;
+        });
     }
 
-    @GameAction
     public ChallengeOutcome challengeHand(String gameId, String playerId) {
-        var lock = lockFor(gameId);
-        lock.lock();
-        try {
-            BelotGame g = getOrThrow(gameId);
+        return update(gameId, work -> {
+            BelotGame g = work.game();
+            int handNo = g.getHandNo();
+            int trickNo = g.getTrickNo();
             boolean ok = g.challengeHand(playerId);
 
+            boolean cleared = false;
             if (ok) {
                 cancelScheduledFutureOnly(gameId);
-                clearWindowExpiryIfMatches(gameId, scheduledWindowExpiry.get(gameId), "challenge_success");
+                cleared = clearWindowExpiryIfMatches(g, scheduledWindowExpiry.get(gameId), "challenge_success");
             }
 
-
-
-            save(g);
+            work.save(g);
+            if (cleared) {
+                work.publish(new GameStateChangedEvent(gameId));
+            }
 
             boolean challengerIsA =
                     g.getTeamA().getPlayers().stream().anyMatch(p -> p.getId().equals(playerId));
             String violatingTeam = challengerIsA ? "B" : "A";
-            matchService.recordMove(
-                    gameId,
+            work.record(
                     MoveType.CHALLENGE,
                     Map.of(
                             "playerId", playerId,
                             "success", ok,
                             "violatingTeam", violatingTeam
                     ),
-                    0.0
+                    handNo, trickNo
             );
 
             return new ChallengeOutcome(g, ok);
-        } finally {
-            lock.unlock();
-        }
+        });
     }
 
     public BelotGame get(String gameId) {
-        return redis.opsForValue().get(KEY_PREFIX + gameId);
+        return games.get(gameId);
+    }
+
+    /**
+     * @return version, state and player to act, for checks that need no more than that
+     */
+    public LiveGameCache.GameHead head(String gameId) {
+        return games.head(gameId);
     }
 
-    @GameAction
     public BelotGame playCard(String gameId,
                               String playerId,
                               Card card,
                               boolean declareBela) {
 
-        var lock = lockFor(gameId);
-        lock.lock();
-        try {
-            BelotGame game = getOrThrow(gameId);
-            Player p = game.findPlayerById(playerId);
-            boolean isLegal = game.isValidPlay(p, card);
+        return update(gameId, work -> {
+            BelotGame game = work.game();
+            int seat = game.seatOf(playerId);
+            boolean isLegal = game.isValidPlay(seat, card);
             boolean isTurn = (game.getGameState() == GameState.PLAYING)
-                    && game.getCurrentPlayer() != null
-                    && p.getId().equals(game.getCurrentPlayer().getId());
+                    && seat >= 0
+                    && seat == game.getCurrentSeat();
 
             if (!isTurn) {
                 LOGGER.warn("Rejected out-of-turn play by {}", playerId);
@@ -151,10 +168,12 @@ public class BelotGameService {
             }
 
             int beforeTricks = game.getCompletedTricks().size();
+            int handNo = game.getHandNo();
+            int trickNo = game.getTrickNo();
 
             boolean accepted;
             try {
-                accepted = game.playCard(p, card, declareBela);
+                accepted = game.playCard(seat, card, declareBela);
             } catch (RuntimeException ex) {
                 LOGGER.warn("Domain rejected play by {}: {}", playerId, ex.getMessage());
                 return game; // do not record
@@ -164,14 +183,14 @@ public class BelotGameService {
                 return game; // do not record
             }
 
-            save(game);
+            work.save(game);
 
             Map<String, Object> payload = new HashMap<>();
             payload.put("playerId", playerId);
             payload.put("card", card.toString());
             payload.put("declareBela", declareBela);
             payload.put("legal", isLegal);
-            matchService.recordMove(gameId, MoveType.PLAY_CARD, payload, 0.0);
+            work.record(MoveType.PLAY_CARD, payload, handNo, trickNo);
 
             int afterTricks = game.getCompletedTricks().size();
             if (afterTricks > beforeTricks) {
@@ -179,19 +198,18 @@ public class BelotGameService {
                 String winnerId = last.determineWinner();
                 int trickPoints = last.calculatePoints(); // raw card points (no +10 here)
 
-                matchService.recordMove(
-                        gameId,
+                work.record(
                         MoveType.END_TRICK,
                         Map.of(
                                 "winnerId", winnerId,
                                 "points", trickPoints
                         ),
-                        0.0
+                        handNo, trickNo
                 );
             }
 
             if (game.getCurrentPlayer() != null) {
-                eventPublisher.publishEvent(new TurnStartedEvent(
+                work.publish(new TurnStartedEvent(
                         game.getGameId(),
                         game.getCurrentPlayer().getId(),
                         GameState.PLAYING
@@ -199,29 +217,27 @@ public class BelotGameService {
             }
 
             return game;
-        } finally {
-            lock.unlock();
-        }
+        });
     }
 
 
-    @GameAction
     public BelotGame placeBid(String gameId, Bid bid) {
-        var lock = lockFor(gameId);
-        lock.lock();
-        try {
-            BelotGame game = getOrThrow(gameId);
-            Player p = game.findPlayerById(bid.getPlayer().getId());
+        return update(gameId, work -> {
+            BelotGame game = work.game();
+            int seat = game.seatOf(bid.getPlayer().getId());
 
             boolean isTurn = game.getGameState() == GameState.BIDDING
-                    && p.getId().equals(game.getCurrentLead().getId());
+                    && seat >= 0
+                    && seat == game.getCurrentSeat();
             if (!isTurn) {
-                LOGGER.warn("Rejected out-of-turn bid by {}", p.getId());
+                LOGGER.warn("Rejected out-of-turn bid by {}", bid.getPlayer().getId());
                 return game; // do not record
             }
 
+            int handNo = game.getHandNo();
+            int trickNo = game.getTrickNo();
             boolean placed = game.placeBid(bid);
-            save(game);
+            work.save(game);
 
             if (placed) {
                 Map<String, Object> payload = new HashMap<>();
@@ -230,12 +246,12 @@ public class BelotGameService {
                 if (bid.isTrumpCall() && bid.getSelectedTrump() != null) {
                     payload.put("trump", bid.getSelectedTrump().name());
                 }
-                matchService.recordMove(gameId, MoveType.BID, payload, 0.0);
+                work.record(MoveType.BID, payload, handNo, trickNo);
             }
 
             // still bidding → announce next bidder
             if (game.getGameState() == GameState.BIDDING) {
-                eventPublisher.publishEvent(new TurnStartedEvent(
+                work.publish(new TurnStartedEvent(
                         gameId,
                         game.getCurrentLead().getId(),
                         GameState.BIDDING
@@ -243,54 +259,260 @@ public class BelotGameService {
             }
 
             return game;
-        } finally {
-            lock.unlock();
-        }
+        });
     }
 
+    /**
+     * Saves {@code game} on its own, outside any action.
+     *
+     * @throws StaleGameException if the game was saved by someone else since {@code game} was read
+     */
     public void save(BelotGame game) {
-        BelotGame before = redis.opsForValue().get(KEY_PREFIX + game.getGameId());
+        mailboxes.call(game.getGameId(), () -> {
+            UnitOfWork work = new UnitOfWork(game.getGameId());
+            work.save(game);
+            work.complete();
+            return null;
+        });
+    }
 
-        redis.opsForValue().set(KEY_PREFIX + game.getGameId(), game);
+    /**
+     * Runs {@code task} in the game's turn, after the actions already queued for it, without
+     * waiting for it. For timers, whose threads should not wait on a game.
+     */
+    public void execute(String gameId, Runnable task) {
+        mailboxes.submit(gameId, () -> {
+            task.run();
+            return null;
+        }).exceptionally(ex -> {
+            LOGGER.error("Queued task for game {} failed", gameId, ex);
+            return null;
+        });
+    }
 
-        if (before != null && before.getGameState() != game.getGameState()) {
-            eventPublisher.publishEvent(new GameStateChangedEvent(game.getGameId()));
+    /**
+     * Takes over a game from another node: starts its turn timer again, or its challenge window
+     * if the hand is waiting on one, as the node that ran it would have.
+     */
+    public void resume(String gameId) {
+        execute(gameId, () -> {
+            BelotGame g = games.get(gameId);
+            if (g == null) {
+                return;
+            }
+            switch (g.getGameState()) {
+                case HAND_COMPLETE -> {
+                    Long expires = g.getChallengeWindowExpiresAt();
+                    if (expires != null) {
+                        scheduleChallengeWindow(gameId, expires);
+                    }
+                }
+                case BIDDING, PLAYING -> {
+                    int seat = g.getCurrentSeat();
+                    if (seat >= 0) {
+                        eventPublisher.publishEvent(new TurnStartedEvent(gameId, g.playerAt(seat).getId(), g.getGameState()));
+                    }
+                }
+                default -> { /* nothing is waiting on a timer */ }
+            }
+        });
+    }
+
+    /**
+     * Stops the challenge window timers of games another node now runs.
+     */
+    public void release(Collection<String> gameIds) {
+        for (String gameId : gameIds) {
+            cancelScheduledFutureOnly(gameId);
+            scheduledWindowExpiry.remove(gameId);
+            mailboxes.retire(gameId);
         }
+    }
 
-        boolean justFinished = game.getGameState() == GameState.COMPLETED
-                && (before == null || before.getGameState() != GameState.COMPLETED);
+    /**
+     * Runs an action against the current game in the game's mailbox, one action per game at a
+     * time, so actions on one node never race each other, and under the game's
+     * {@link GameLeases lease}, so no other node runs the game meanwhile. A save that loses to an
+     * earlier one on this node starts the action over on a fresh copy. The action's save is its
+     * last change to the game, so whatever it does after the save runs once, for the attempt that
+     * won. What the action hands to its {@link UnitOfWork} happens after that.
+     */
+    private <R> R update(String gameId, Function<UnitOfWork, R> action) {
+        return mailboxes.call(gameId, () -> replay(gameId, action));
+    }
 
-        if (justFinished) {
-            String winnerLine = String.format(
-                    "%s wins %d–%d",
-                    game.getTeamAScore() > game.getTeamBScore() ? "Team A" : "Team B",
-                    game.getTeamAScore(), game.getTeamBScore());
+    private <R> R replay(String gameId, Function<UnitOfWork, R> action) {
+        for (int attempt = 1; ; attempt++) {
+            UnitOfWork work = new UnitOfWork(gameId);
+            R result;
+            try {
+                result = action.apply(work);
+            } catch (StaleGameException ex) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw ex;
+                }
+                LOGGER.debug("Replaying action on {} (attempt {}): {}", gameId, attempt + 1, ex.getMessage());
+                continue;
+            }
+            work.complete();
+            return result;
+        }
+    }
 
-            matchService.finaliseMatch(game.getGameId(), winnerLine, Instant.now());
+    /**
+     * Everything one attempt at an action writes or announces. The game state is saved, with
+     * its activity stamp, in one write to the {@link LiveGameCache}, which reaches Redis in the
+     * cache's next pipelined flush. The move log, hand ends included, is collected and written
+     * in one batch when the action is done, each move numbered after the save it came with. Events are published last, each one once. An
+     * attempt that loses its save race is dropped with nothing recorded or published.
+     */
+    private final class UnitOfWork implements HandCompletionCallback {
+        private final String gameId;
+        private final List<IMatchService.MoveEntry> moves = new ArrayList<>();
+        /** Hands end in the middle of the action's card play, but are logged after it. */
+        private final List<IMatchService.MoveEntry> handEnds = new ArrayList<>();
+        private final List<Runnable> afterSave = new ArrayList<>();
+        private final Set<Object> events = new LinkedHashSet<>();
+        /** Version the game was saved at, -1 until it is. */
+        private long savedVersion = -1;
+
+        /**
+         * @throws GameNotOwnedException if another node runs the game
+         */
+        UnitOfWork(String gameId) {
+            leases.hold(gameId);
+            this.gameId = gameId;
+        }
 
-            // grace period for UI to fetch final states
-            redis.expire(KEY_PREFIX + game.getGameId(), Duration.ofMinutes(3));
+        BelotGame game() {
+            BelotGame g = get(gameId);
+            if (g == null) {
+                throw new IllegalStateException("Game not found: " + gameId);
+            }
+            g.setHandCompletionCallback(this);
+            return g;
         }
 
-        // If gameplay returned to bidding (new hand), notify who starts bidding
-        if (before != null
-                && before.getGameState() != GameState.BIDDING
-                && game.getGameState() == GameState.BIDDING) {
+        /**
+         * @param handNo  hand the move belongs to, as the game numbered it when the move was made
+         * @param trickNo trick the move belongs to, likewise
+         */
+        void record(MoveType type, Map<String, Object> payload, int handNo, int trickNo) {
+            moves.add(new IMatchService.MoveEntry(type, payload, 0.0, new IMatchService.MoveContext(0, handNo, trickNo)));
+        }
 
-            eventPublisher.publishEvent(new TurnStartedEvent(
-                    game.getGameId(),
-                    game.getCurrentLead().getId(),
-                    GameState.BIDDING));
+        void publish(Object event) {
+            events.add(event);
         }
-    }
 
-    private BelotGame getOrThrow(String gameId) {
-        BelotGame g = get(gameId);
-        if (g == null) {
-            throw new IllegalStateException("Game not found: " + gameId);
+        void save(BelotGame game) {
+            game.setLastActivity(Instant.now());
+            boolean finished = game.getGameState() == GameState.COMPLETED;
+            // a finished game is kept for a grace period so the UI can fetch the final state
+            GameState before = games.save(game, finished ? FINISHED_GRACE : null);
+            savedVersion = game.getVersion();
+
+            if (before != null && before != game.getGameState()) {
+                publish(new GameStateChangedEvent(gameId));
+            }
+
+            boolean justFinished = finished && before != GameState.COMPLETED;
+
+            if (justFinished) {
+                String winnerLine = String.format(
+                        "%s wins %d–%d",
+                        game.getTeamAScore() > game.getTeamBScore() ? "Team A" : "Team B",
+                        game.getTeamAScore(), game.getTeamBScore());
+
+                afterSave.add(() -> matchService.finaliseMatch(gameId, winnerLine, Instant.now()));
+            }
+            if (finished || game.getGameState() == GameState.CANCELLED) {
+                afterSave.add(() -> {
+                    mailboxes.retire(gameId);
+                    leases.release(List.of(gameId));
+                });
+            }
+
+            // If gameplay returned to bidding (new hand), notify who starts bidding
+            if (before != null
+                    && before != GameState.BIDDING
+                    && game.getGameState() == GameState.BIDDING) {
+
+                publish(new TurnStartedEvent(
+                        gameId,
+                        game.getCurrentLead().getId(),
+                        GameState.BIDDING));
+            }
+        }
+
+        /** Writes the move log, runs the deferred work, then publishes the events. */
+        void complete() {
+            moves.addAll(handEnds);
+            if (!moves.isEmpty()) {
+                matchService.recordMoves(gameId, numbered(moves));
+            }
+            afterSave.forEach(Runnable::run);
+            events.forEach(eventPublisher::publishEvent);
+        }
+
+        /**
+         * Numbers the moves after the save they came with, so that numbers grow with the game's
+         * version and a move recorded again, by the same save, gets the same number.
+         */
+        private List<IMatchService.MoveEntry> numbered(List<IMatchService.MoveEntry> recorded) {
+            if (savedVersion < 0) {
+                throw new IllegalStateException("Moves recorded without a save on game " + gameId);
+            }
+            if (recorded.size() > MOVES_PER_SAVE) {
+                // more would take the numbers of the next save's moves, and the log would drop those
+                throw new IllegalStateException(recorded.size() + " moves recorded by one action on game "
+                        + gameId + ", at most " + MOVES_PER_SAVE + " fit");
+            }
+            int first = Math.toIntExact(savedVersion * MOVES_PER_SAVE);
+            List<IMatchService.MoveEntry> numbered = new ArrayList<>(recorded.size());
+            for (int i = 0; i < recorded.size(); i++) {
+                IMatchService.MoveEntry move = recorded.get(i);
+                numbered.add(new IMatchService.MoveEntry(move.type(), move.payload(), move.evaluation(),
+                        new IMatchService.MoveContext(first + i, move.context().handNo(), move.context().trickNo())));
+            }
+            return numbered;
+        }
+
+        @Override
+        public void onHandCompleted(BelotGame game,
+                                    int teamAHandPoints, int teamBHandPoints,
+                                    int teamADeclPoints, int teamBDeclPoints,
+                                    int teamATricksWon, int teamBTricksWon,
+                                    boolean padanje, boolean capot) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("teamAHandPoints", teamAHandPoints);
+            payload.put("teamBHandPoints", teamBHandPoints);
+            payload.put("teamADeclPoints", teamADeclPoints);
+            payload.put("teamBDeclPoints", teamBDeclPoints);
+            payload.put("teamATricksWon", teamATricksWon);
+            payload.put("teamBTricksWon", teamBTricksWon);
+            payload.put("padanje", padanje);
+            payload.put("capot", capot);
+            payload.put("finalScoreA", game.getTeamAScore());
+            payload.put("finalScoreB", game.getTeamBScore());
+            payload.put("finalTeamAScore", game.getTeamAScore());
+            payload.put("finalTeamBScore", game.getTeamBScore());
+            handEnds.add(new IMatchService.MoveEntry(MoveType.END_HAND, payload, 0.0,
+                    new IMatchService.MoveContext(0, game.getHandNo(), game.getCompletedTricks().size())));
+
+            LOGGER.info("Hand ended for gameId={} ; domain state={}", gameId, game.getGameState());
+
+            if (game.getGameState() == GameState.COMPLETED) return;
+            if (game.getGameState() == GameState.HAND_COMPLETE) {
+                // saved with the action that ended the hand; the timer starts once that save is in
+                long expiresMs = Instant.now().plusMillis(CHALLENGE_WINDOW_MS).toEpochMilli();
+                game.setChallengeWindowExpiresAt(expiresMs);
+                publish(new GameStateChangedEvent(gameId));
+                afterSave.add(() -> scheduleChallengeWindow(gameId, expiresMs));
+            } else {
+                LOGGER.info("Hand ended: domain did not set HAND_COMPLETE (state={}), not opening window", game.getGameState());
+            }
         }
-        g.setHandCompletionCallback(this::recordHandEnd);
-        return g;
     }
 
     public PublicGameView toPublicView(BelotGame g) {
@@ -388,11 +610,8 @@ public class BelotGameService {
     }
 
     public PrivateGameView toPrivateView(BelotGame g, Player p) {
-        boolean yourTurn =
-                g.getGameState() == GameState.BIDDING
-                        ? g.getCurrentLead().getId().equals(p.getId())
-                        : g.getCurrentPlayer() != null
-                        && g.getCurrentPlayer().getId().equals(p.getId());
+        int seat = g.seatOf(p);
+        boolean yourTurn = seat >= 0 && seat == g.getCurrentSeat();
         boolean challengeUsed = g.hasPlayerChallenged(p);
 
         List<Boja> suitOrder = new ArrayList<>(EnumSet.allOf(Boja.class));
@@ -419,93 +638,52 @@ public class BelotGameService {
     public record ChallengeOutcome(BelotGame game, boolean success) {}
 
     public BelotGame cancelMatch(String matchId, String callerId) {
-        var lock = lockFor(matchId);
-        lock.lock();
-        try {
-            BelotGame g = getOrThrow(matchId);
+        return update(matchId, work -> {
+            BelotGame g = work.game();
+            int handNo = g.getHandNo();
+            int trickNo = g.getTrickNo();
             g.cancelMatch();
-            cancelWindowTimer(matchId);
-            save(g);
+            boolean cleared = cancelWindowTimer(g);
+            work.save(g);
+            if (cleared) {
+                work.publish(new GameStateChangedEvent(matchId));
+            }
 
-            matchService.recordMove(matchId, MoveType.SYSTEM, Map.of("by", callerId), 0.0);
+            work.record(MoveType.SYSTEM, Map.of("by", callerId), handNo, trickNo);
 
             return g;
-        } finally {
-            lock.unlock();
-        }
+        });
     }
 
     private static backend.belatro.dtos.DeclarationsDTO buildDeclarations(Player pl, Boja trump) {
-        boolean bela = (trump != null) && ZvanjaValidator.isBela(pl.getHand(), trump);
-        var seqs = ZvanjaValidator.evaluateAllSequences(pl.getHand());
-        int bestSeq = seqs.values().stream().mapToInt(Integer::intValue).max().orElse(0);
-        int four = ZvanjaValidator.evaluateFourOfAKind(pl.getHand()).orElse(0);
+        int hand = pl.getHandSet();
+        boolean bela = (trump != null) && ZvanjaValidator.isBela(hand, trump);
+        var seqs = ZvanjaValidator.evaluateAllSequences(hand);
+        int bestSeq = ZvanjaValidator.bestSequencePoints(hand);
+        int four = ZvanjaValidator.fourOfAKindPoints(hand);
         return new backend.belatro.dtos.DeclarationsDTO(bela, seqs, four, bestSeq);
     }
 
-    public void recordHandEnd(BelotGame game,
-                              int teamAHandPoints, int teamBHandPoints,
-                              int teamADeclPoints, int teamBDeclPoints,
-                              int teamATricksWon, int teamBTricksWon,
-                              boolean padanje, boolean capot) {
-
-        save(game);
-
-        String gameId = game.getGameId();
-
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("teamAHandPoints", teamAHandPoints);
-        payload.put("teamBHandPoints", teamBHandPoints);
-        payload.put("teamADeclPoints", teamADeclPoints);
-        payload.put("teamBDeclPoints", teamBDeclPoints);
-        payload.put("teamATricksWon", teamATricksWon);
-        payload.put("teamBTricksWon", teamBTricksWon);
-        payload.put("padanje", padanje);
-        payload.put("capot", capot);
-        payload.put("finalScoreA", game.getTeamAScore());
-        payload.put("finalScoreB", game.getTeamBScore());
-        payload.put("finalTeamAScore", game.getTeamAScore());
-        payload.put("finalTeamBScore", game.getTeamBScore());
-
-        matchService.recordMove(gameId, MoveType.END_HAND, payload, 0.0);
-
-        LOGGER.info("recordHandEnd called for gameId={} ; domain state={}", gameId, game.getGameState());
-
-        if (game.getGameState() == GameState.COMPLETED) return;
-        if (game.getGameState() == GameState.HAND_COMPLETE) {
-        LOGGER.info("recordHandEnd: opening challenge window for gameId={}", gameId);
-            openChallengeWindow(game);   // <-- pass the instance, not the id
-        } else {
-            LOGGER.info("recordHandEnd: domain did not set HAND_COMPLETE (state={}), not opening window", game.getGameState());
-        }
-    }
+    private void scheduleChallengeWindow(String gameId, long expiresMs) {
+        cancelScheduledFutureOnly(gameId);
 
-
-
-    private void openChallengeWindow(BelotGame g) {
-        String gameId = g.getGameId();
-
-        cancelScheduledFutureOnly(gameId); //
-
-        Instant expiresAt = Instant.now().plusMillis(CHALLENGE_WINDOW_MS);
-        long expiresMs = expiresAt.toEpochMilli();
-
-        g.setChallengeWindowExpiresAt(expiresMs);
-        save(g);                                   // persist
-        eventPublisher.publishEvent(new GameStateChangedEvent(gameId)); // push to clients
         LOGGER.info("openChallengeWindow -> gameId={} expiresAt={}", gameId, expiresMs);
 
         scheduledWindowExpiry.put(gameId, expiresMs);
         ScheduledFuture<?> f = scheduler.schedule(
-                () -> onChallengeWindowExpired(gameId, expiresMs), // token-aware
-                expiresAt
+                () -> execute(gameId, () -> onChallengeWindowExpired(gameId, expiresMs)), // token-aware
+                Instant.ofEpochMilli(expiresMs)
         );
         postHandTimers.put(gameId, f);
     }
 
-    private void cancelWindowTimer(String gameId) {
-
-
+    /**
+     * Stops the challenge window timer and clears the window on {@code g}; the caller saves it.
+     *
+     * @return true if {@code g} had a window open
+     */
+    private boolean cancelWindowTimer(BelotGame g) {
+        String gameId = g.getGameId();
         ScheduledFuture<?> f = postHandTimers.remove(gameId);
 
         LOGGER.info("cancelWindowTimer -> cleared expiry for gameId={}", gameId);
@@ -514,42 +692,39 @@ public class BelotGameService {
             try { f.cancel(false); } catch (Exception ex) { LOGGER.warn("cancelWindowTimer: {}", ex.getMessage()); }
         }
 
-        try {
-            BelotGame g = get(gameId);
-            if (g != null && g.getChallengeWindowExpiresAt() != null) {
-                g.setChallengeWindowExpiresAt(null);
-                save(g); // broadcasts state change
-
-                eventPublisher.publishEvent(new GameStateChangedEvent(gameId));
-            }
-        } catch (Exception ex) {
-            LOGGER.warn("Failed clearing persisted challengeWindowExpiresAt for {}: {}", gameId, ex.getMessage());
+        if (g.getChallengeWindowExpiresAt() == null) {
+            return false;
         }
+        g.setChallengeWindowExpiresAt(null);
+        return true;
     }
 
     private void onChallengeWindowExpired(String gameId, long expectedExpiresMs) {
         LOGGER.info("onChallengeWindowExpired fired for gameId={} expected={}", gameId, expectedExpiresMs);
-        var lock = lockFor(gameId); lock.lock();
         try {
-            BelotGame g = getOrThrow(gameId);
-            Long current = g.getChallengeWindowExpiresAt();
-            if (current == null || !current.equals(expectedExpiresMs) || g.getGameState() != GameState.HAND_COMPLETE) {
-                LOGGER.info("onChallengeWindowExpired: stale/irrelevant; current={}, state={}", current, g.getGameState());
-                return;
-            }
+            update(gameId, work -> {
+                BelotGame g = work.game();
+                Long current = g.getChallengeWindowExpiresAt();
+                if (current == null || !current.equals(expectedExpiresMs) || g.getGameState() != GameState.HAND_COMPLETE) {
+                    LOGGER.info("onChallengeWindowExpired: stale/irrelevant; current={}, state={}", current, g.getGameState());
+                    return null;
+                }
 
-            boolean advanced = g.startNextHandAfterWindow();
-            clearWindowExpiryIfMatches(gameId, expectedExpiresMs, "natural_expiry");
+                int handNo = g.getHandNo();
+                int trickNo = g.getTrickNo();
+                boolean advanced = g.startNextHandAfterWindow();
+                clearWindowExpiryIfMatches(g, expectedExpiresMs, "natural_expiry");
+                work.save(g);
 
-            if (advanced) {
-                matchService.recordMove(gameId, MoveType.SYSTEM, Map.of("event","CHALLENGE_WINDOW_EXPIRED"), 0.0);
-                save(g);
-                eventPublisher.publishEvent(new GameStateChangedEvent(gameId));
-            }
+                if (advanced) {
+                    work.record(MoveType.SYSTEM, Map.of("event","CHALLENGE_WINDOW_EXPIRED"), handNo, trickNo);
+                }
+                work.publish(new GameStateChangedEvent(gameId));
+                return null;
+            });
         } finally {
             scheduledWindowExpiry.remove(gameId, expectedExpiresMs);
             cancelScheduledFutureOnly(gameId);
-            lock.unlock();
         }
     }
 
@@ -563,18 +738,21 @@ public class BelotGameService {
         }
     }
 
-    private void clearWindowExpiryIfMatches(String gameId, Long expected, String reason) {
-        BelotGame g = getOrThrow(gameId);
+    /**
+     * Clears the challenge window on {@code g} if it is still the expected one; the caller saves
+     * {@code g} and tells the clients.
+     *
+     * @return true if the window was cleared
+     */
+    private boolean clearWindowExpiryIfMatches(BelotGame g, Long expected, String reason) {
         Long cur = g.getChallengeWindowExpiresAt();
         if (!Objects.equals(cur, expected)) {
             LOGGER.info("clearWindowExpiryIfMatches: skip (current={}, expected={}) reason={}", cur, expected, reason);
-            return;
+            return false;
         }
         g.setChallengeWindowExpiresAt(null);
-        save(g);
-        eventPublisher.publishEvent(new GameStateChangedEvent(gameId));
-        LOGGER.info("clearWindowExpiryIfMatches: cleared for gameId={} reason={}", gameId, reason);
+        LOGGER.info("clearWindowExpiryIfMatches: cleared for gameId={} reason={}", g.getGameId(), reason);
+        return true;
     }
 
-
 }
@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public interface IMatchService {
     MatchDTO createMatch(MatchDTO matchDTO);
@@ -17,10 +18,34 @@ public interface IMatchService {
     MatchDTO updateMatch(String id,
                          MatchDTO matchDTO);
     void deleteMatch(String id);
-    void recordMove(String matchId,
-                    MoveType type,
-                    Map<String, Object> payload,
-                    double evaluation);
+
+    /**
+     * Records the moves of one game action, in order, each numbered by the game. They are
+     * journalled and reach the move log with its next batch.
+     */
+    void recordMoves(String matchId, List<MoveEntry> moves);
+
+    /**
+     * One move for {@link #recordMoves}.
+     *
+     * @param context where the move stands in the match
+     */
+    record MoveEntry(MoveType type, Map<String, Object> payload, double evaluation, MoveContext context) {
+
+        public MoveEntry {
+            Objects.requireNonNull(context, "context");
+        }
+    }
+
+    /**
+     * Where a move stands in its match, as the game knew it when the move was made.
+     *
+     * @param number  increases with every move of the match; a move recorded twice gets the same
+     *                number both times, so it also tells duplicates apart
+     * @param handNo  hand the move belongs to, from 1
+     * @param trickNo trick the move belongs to, from 1
+     */
+    record MoveContext(int number, int handNo, int trickNo) {}
 
     List<HandDTO> getStructuredMoves(String matchId);
 
@@ -1,5 +1,6 @@
 package backend.belatro.services.impl;
 
+import backend.belatro.components.MoveJournal;
 import backend.belatro.dtos.*;
 import backend.belatro.enums.GameMode;
 import backend.belatro.enums.MoveType;
@@ -23,7 +24,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -36,18 +36,19 @@ public class MatchServiceImpl implements IMatchService {
     private final MatchMoveRepo matchMoveRepo;
     private final RankHistoryService rankHistoryService;
     private final UserService userService; // ← add
+    private final MoveJournal moveJournal;
 
-    private static final int PLAYS_PER_HAND  = 32;
     private static final int PLAYS_PER_TRICK = 4;
-    private static final AtomicLong GLOBAL_MOVE_SEQUENCE = new AtomicLong();
 
 
     @Autowired
-    public MatchServiceImpl(MatchRepo matchRepo, MatchMoveRepo matchMoveRepo, RankHistoryService rankHistoryService, UserService userService) {
+    public MatchServiceImpl(MatchRepo matchRepo, MatchMoveRepo matchMoveRepo, RankHistoryService rankHistoryService, UserService userService,
+                            MoveJournal moveJournal) {
         this.matchRepo = matchRepo;
         this.matchMoveRepo = matchMoveRepo;
         this.rankHistoryService = rankHistoryService;
         this.userService = userService;
+        this.moveJournal = moveJournal;
     }
 
     @Override
@@ -90,96 +91,28 @@ public class MatchServiceImpl implements IMatchService {
         matchRepo.deleteById(id);
     }
 
-    @Transactional
+    /**
+     * Hands the moves to the {@link MoveJournal} as they are, numbered by the game, and they
+     * reach Mongo with its next batch.
+     */
     @Override
-    public void recordMove(String matchId,
-                           MoveType moveType,
-                           Map<String, Object> payload,
-                           double evaluation) {
-
-        int lastEndNo = matchMoveRepo
-                .findFirstByMatchIdAndTypeOrderByNumberDesc(matchId, MoveType.END_HAND)
-                .map(MatchMove::getNumber)
-                .orElse(0);
-
-        long handsFinished = matchMoveRepo.countByMatchIdAndType(matchId, MoveType.END_HAND);
-        int handNo = (int) handsFinished + 1;
-
-        long playsSinceBoundary = matchMoveRepo
-                .countByMatchIdAndTypeAndNumberGreaterThan(matchId, MoveType.PLAY_CARD, lastEndNo);
-
-        int trickNo;
-        switch (moveType) {
-            case PLAY_CARD -> {
-                long afterThis = playsSinceBoundary + 1;
-                trickNo = (int) ((afterThis - 1) / PLAYS_PER_TRICK) + 1;
-            }
-            case END_TRICK -> {
-                trickNo = (int) Math.max(1, (playsSinceBoundary / PLAYS_PER_TRICK));
-            }
-            case END_HAND -> {
-                trickNo = (playsSinceBoundary == 0)
-                        ? 0
-                        : (int) (((playsSinceBoundary - 1) / PLAYS_PER_TRICK) + 1);
-            }
-            default -> {
-                trickNo = (int) ((playsSinceBoundary) / PLAYS_PER_TRICK) + 1;
-            }
-        }
-        if (moveType == MoveType.CHALLENGE
-                && Boolean.TRUE.equals(payload.get("success"))
-                && handsFinished > 0) {
-            handNo = (int) handsFinished;
-        }
-
-        if (moveType == MoveType.PLAY_CARD) {
-            var last = matchMoveRepo.findFirstByMatchIdAndTypeOrderByNumberDesc(matchId, MoveType.PLAY_CARD);
-            if (last.isPresent()
-                    && last.get().getType() == MoveType.PLAY_CARD
-                    && Objects.equals(last.get().getPayload().get("playerId"), payload.get("playerId"))
-                    && Objects.equals(last.get().getPayload().get("card"),     payload.get("card"))) {
-                return; // skip duplicate
-            }
-        }
-
+    public void recordMoves(String matchId, List<MoveEntry> entries) {
+        moveJournal.append(entries.stream().map(entry -> toMove(matchId, entry)).toList());
+    }
 
+    private static MatchMove toMove(String matchId, MoveEntry entry) {
         MatchMove move = new MatchMove();
         move.setMatchId(matchId);
-        move.setNumber((int) GLOBAL_MOVE_SEQUENCE.incrementAndGet());
-        move.setType(moveType);
-        move.setPayload(payload);
-        move.setEvaluation(evaluation);
-        move.setHandNo(handNo);
-        move.setTrickNo(trickNo);
+        move.setNumber(entry.context().number());
+        move.setType(entry.type());
+        move.setPayload(entry.payload());
+        move.setEvaluation(entry.evaluation());
+        move.setHandNo(entry.context().handNo());
+        move.setTrickNo(entry.context().trickNo());
         move.setTs(Instant.now());
-
-
-        matchMoveRepo.save(move);
+        return move;
     }
 
-
-
-    private long calculateTotalCardPlays(String matchId, MoveType moveType) {
-        long existingCardPlays = matchMoveRepo.countByMatchIdAndType(matchId, MoveType.PLAY_CARD);
-
-        if (moveType == MoveType.PLAY_CARD) {
-            existingCardPlays++;
-        }
-
-        return existingCardPlays;
-    }
-
-    private int calculateHandNumber(long totalCardPlays) {
-        return (int) ((totalCardPlays - 1) / PLAYS_PER_HAND) + 1;
-    }
-
-    private int calculateTrickNumber(long totalCardPlays) {
-        long cardInCurrentHand = ((totalCardPlays - 1) % PLAYS_PER_HAND) + 1;
-        return (int) ((cardInCurrentHand - 1) / PLAYS_PER_TRICK) + 1;
-    }
-
-
-
     @Override
     public List<HandDTO> getStructuredMoves(String matchId) {
         List<MatchMove> moves = matchMoveRepo.findByMatchIdOrderByNumber(matchId);
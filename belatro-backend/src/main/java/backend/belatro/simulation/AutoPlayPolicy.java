@@ -0,0 +1,26 @@
+package backend.belatro.simulation;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Card;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+
+/**
+ * Acts for a player whose turn timer ran out. Unlike {@link SeatPolicy} it brings its own
+ * randomness and must not modify {@code game}; the caller applies the decision through the
+ * normal service path.
+ */
+public interface AutoPlayPolicy {
+
+    /**
+     * @param forced true when every other seat passed and the dealer has to call
+     * @return the trump to call, or null to pass (never null when {@code forced})
+     */
+    Boja chooseTrump(BelotGame game, int seat, boolean forced);
+
+    /**
+     * Called only when it is {@code seat}'s turn to play.
+     *
+     * @return one of {@link BelotGame#getLegalMoveSet()}
+     */
+    Card chooseCard(BelotGame game, int seat);
+}
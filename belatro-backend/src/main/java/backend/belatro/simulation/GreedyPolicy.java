@@ -0,0 +1,103 @@
+package backend.belatro.simulation;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+
+import java.util.SplittableRandom;
+
+/**
+ * One-trick lookahead: calls the suit its hand is strongest in, leads its strongest card,
+ * takes a trick with the cheapest card that wins it, loads points on a partner who is
+ * winning, and otherwise throws its least valuable card.
+ */
+public class GreedyPolicy implements SeatPolicy {
+
+    /** Trump points (J=20, 9=14, ...) plus {@link #PER_CARD} per card needed to call. */
+    private static final int CALL_THRESHOLD = 45;
+    private static final int PER_CARD = 5;
+
+    private static final Boja[] SUITS = Boja.values();
+
+    @Override
+    public Boja chooseTrump(BelotGame game, int seat, boolean forced, SplittableRandom random) {
+        int hand = game.playerAt(seat).getHandSet();
+
+        Boja best = null;
+        int bestValue = -1;
+        for (Boja suit : Boja.values()) {
+            int value = 0;
+            for (int cards = CardSet.ofSuit(hand, suit); cards != 0; cards &= cards - 1) {
+                value += TrickTable.points(suit, Integer.numberOfTrailingZeros(cards)) + PER_CARD;
+            }
+            if (value > bestValue) {
+                best = suit;
+                bestValue = value;
+            }
+        }
+        return forced || bestValue >= CALL_THRESHOLD ? best : null;
+    }
+
+    @Override
+    public Card chooseCard(BelotGame game, int seat, SplittableRandom random) {
+        Trick trick = game.getCurrentTrick();
+        if (trick.size() == 0) {
+            return CardSet.card(choose(game.getLegalMoveSet(), game.getTrump(), null, 0, false));
+        }
+
+        Boja lead = trick.getLeadCard().getBoja();
+        int toBeat = TrickTable.strength(game.getTrump(), lead, trick.getWinningCard().ordinal());
+        boolean partnerWinning = game.seatOf(trick.determineWinner()) == (seat ^ 2);
+        return CardSet.card(choose(game.getLegalMoveSet(), game.getTrump(), lead, toBeat, partnerWinning));
+    }
+
+    /**
+     * The card choice on masks, shared with the Monte Carlo rollouts.
+     *
+     * @param lead   the lead suit, or null when leading
+     * @param toBeat strength of the card currently winning the trick
+     * @return the ordinal of the card to play
+     */
+    static int choose(int legal, Boja trump, Boja lead, int toBeat, boolean partnerWinning) {
+        if (lead == null) {
+            return pick(legal, trump, null, Goal.STRONGEST, 0);
+        }
+        if (partnerWinning) {
+            return pick(legal, trump, lead, Goal.MOST_POINTS, 0);
+        }
+        int winner = pick(legal, trump, lead, Goal.CHEAPEST_WINNER, toBeat);
+        return winner >= 0 ? winner : pick(legal, trump, lead, Goal.FEWEST_POINTS, 0);
+    }
+
+    private enum Goal { STRONGEST, CHEAPEST_WINNER, MOST_POINTS, FEWEST_POINTS }
+
+    /**
+     * @param lead the lead suit, or null when leading (each card then counts as its own lead)
+     * @return the ordinal of the chosen card, -1 if no card meets {@link Goal#CHEAPEST_WINNER}
+     */
+    private static int pick(int legal, Boja trump, Boja lead, Goal goal, int toBeat) {
+        int chosen = -1;
+        int chosenScore = 0;
+        for (int cards = legal; cards != 0; cards &= cards - 1) {
+            int card = Integer.numberOfTrailingZeros(cards);
+            Boja suit = lead != null ? lead : SUITS[card >>> 3];
+            int strength = TrickTable.strength(trump, suit, card);
+            int points = TrickTable.points(trump, card);
+
+            int score;
+            switch (goal) {
+                case STRONGEST -> score = strength;
+                case CHEAPEST_WINNER -> {
+                    if (strength <= toBeat) continue;
+                    score = -strength;
+                }
+                case MOST_POINTS -> score = points * 32 - strength;
+                default -> score = -(points * 32 + strength);
+            }
+            if (chosen < 0 || score > chosenScore) {
+                chosen = card;
+                chosenScore = score;
+            }
+        }
+        return chosen;
+    }
+}
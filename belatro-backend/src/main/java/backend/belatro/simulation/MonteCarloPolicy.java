@@ -0,0 +1,456 @@
+package backend.belatro.simulation;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Determinized Monte Carlo search over the rest of the current hand.
+ * <p>
+ * The game is first reduced to what the deciding seat can actually know: its own hand, the
+ * cards played so far, how many cards every other seat holds and which suits they have shown
+ * to be out of (by not following, or by not trumping when they could not follow). Each sample
+ * deals the unseen cards to the other seats consistently with those voids and plays the hand
+ * out once for every legal card, every seat playing {@link GreedyPolicy} with a little random
+ * exploration. The card with the best total team margin wins, scored with declarations,
+ * padanje, capot and the last-trick bonus.
+ * <p>
+ * A decision samples on the calling thread and on {@code threads} pool threads until its budget
+ * is spent and returns whatever was sampled by then, falling back to the greedy card if nothing
+ * was (a pool busy with other games, say). The pool queue is bounded; a task that does not fit
+ * runs on the caller, which still stops at the deadline.
+ */
+public class MonteCarloPolicy implements AutoPlayPolicy, SeatPolicy, AutoCloseable {
+
+    /** Chance that a seat in a rollout plays a random legal card instead of the greedy one. */
+    private static final double EXPLORATION = 0.2;
+    /** Deals tried per sample before the void constraints are given up on (they can be wrong after a foul). */
+    private static final int MAX_DEAL_ATTEMPTS = 16;
+    /** Share of the budget spent sampling; the rest is left to collect the workers' totals. */
+    private static final int SAMPLING_PERCENT = 90;
+
+    private static final int LAST_TRICK_BONUS = 10;
+    private static final int CAPOT_BONUS = 90;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final Boja[] SUITS = Boja.values();
+
+    private final GreedyPolicy greedy = new GreedyPolicy();
+    private final long budgetNanos;
+    private final int threads;
+    private final ExecutorService pool;
+
+    /**
+     * @param budget  time allowed per decision
+     * @param threads pool threads sampling next to the calling thread; 0 samples on the caller only
+     */
+    public MonteCarloPolicy(Duration budget, int threads) {
+        this.budgetNanos = budget.toNanos();
+        this.threads = threads;
+        this.pool = threads > 0 ? newPool(threads) : null;
+    }
+
+    private static ExecutorService newPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                task -> {
+                    Thread thread = new Thread(task, "autoplay-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * @param card    the chosen card
+     * @param samples deals played out for every legal card, 0 if the choice was forced or greedy
+     */
+    public record Decision(Card card, long samples) {
+    }
+
+    @Override
+    public Boja chooseTrump(BelotGame game, int seat, boolean forced) {
+        return greedy.chooseTrump(game, seat, forced, null);    // greedy bidding draws no randomness
+    }
+
+    @Override
+    public Card chooseCard(BelotGame game, int seat) {
+        return decide(game, seat, ThreadLocalRandom.current().nextLong()).card();
+    }
+
+    @Override
+    public Boja chooseTrump(BelotGame game, int seat, boolean forced, SplittableRandom random) {
+        return greedy.chooseTrump(game, seat, forced, random);
+    }
+
+    @Override
+    public Card chooseCard(BelotGame game, int seat, SplittableRandom random) {
+        return decide(game, seat, random.nextLong()).card();
+    }
+
+    /**
+     * Picks the card for {@code seat}, whose turn it must be, without modifying {@code game}.
+     *
+     * @param seed seeds the deals and rollouts; decisions are only reproducible with no pool threads,
+     *             since the sample count depends on timing
+     */
+    public Decision decide(BelotGame game, int seat, long seed) {
+        long start = System.nanoTime();
+        int legal = game.getLegalMoveSet();
+        if (CardSet.size(legal) == 1) {
+            return new Decision(CardSet.get(legal, 0), 0);
+        }
+
+        View view = new View(game, seat, legal);
+        long stopAt = start + budgetNanos * SAMPLING_PERCENT / 100;
+        long deadline = start + budgetNanos;
+
+        List<Future<long[]>> futures = new ArrayList<>(threads);
+        for (int i = 1; i <= threads; i++) {
+            futures.add(pool.submit(new Sampler(view, seed + i * GOLDEN_GAMMA, stopAt)));
+        }
+        long[] totals = new Sampler(view, seed, stopAt).call();
+
+        boolean interrupted = false;
+        for (Future<long[]> future : futures) {
+            if (interrupted) {
+                future.cancel(true);
+                continue;
+            }
+            try {
+                long[] sampled = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += sampled[i];
+                }
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                interrupted = true;
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Monte Carlo sampling failed", ex.getCause());
+            }
+        }
+
+        int[] candidates = view.candidates;
+        long samples = totals[candidates.length];
+        if (samples == 0) {
+            return new Decision(greedy.chooseCard(game, seat, null), 0);
+        }
+        int best = 0;
+        for (int i = 1; i < candidates.length; i++) {
+            if (totals[i] > totals[best]) {
+                best = i;
+            }
+        }
+        return new Decision(CardSet.card(candidates[best]), samples);
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  what the deciding seat knows                                      */
+    /* ------------------------------------------------------------------ */
+
+    /** Immutable snapshot of the hand from one seat's point of view, shared by the samplers. */
+    private static final class View {
+        final Boja trump;
+        final int seat;
+        final int hand;
+        final int[] candidates;
+        /** cards neither in {@link #hand} nor played */
+        final int unseen;
+        final int[] handSizes = new int[4];
+        /** per seat, bit {@code suit.ordinal()} set when the seat has shown it has none of that suit */
+        final int[] voids = new int[4];
+
+        /* the trick being played, in play order */
+        final byte[] trick = new byte[4];
+        final int trickCount;
+        final int trickLead;
+
+        /* per team: 0 is the even seats */
+        final int tricksDone;
+        final int[] points = new int[2];
+        final int[] won = new int[2];
+        final int[] declarations = new int[2];
+        /** team that called trump, -1 if unknown */
+        final int callerTeam;
+
+        View(BelotGame game, int seat, int legal) {
+            this.trump = game.getTrump();
+            this.seat = seat;
+            this.hand = game.playerAt(seat).getHandSet();
+
+            candidates = new int[CardSet.size(legal)];
+            int i = 0;
+            for (int cards = legal; cards != 0; cards &= cards - 1) {
+                candidates[i++] = Integer.numberOfTrailingZeros(cards);
+            }
+
+            int played = CardSet.EMPTY;
+            List<Trick> completed = game.getCompletedTricks();
+            for (Trick done : completed) {
+                played |= done.getPlayedSet();
+                observeVoids(game, done);
+                int team = game.seatOf(done.determineWinner()) & 1;
+                points[team] += done.calculatePoints();
+                won[team]++;
+            }
+            tricksDone = completed.size();
+
+            Trick current = game.getCurrentTrick();
+            observeVoids(game, current);
+            played |= current.getPlayedSet();
+            int count = 0;
+            int lead = seat;
+            for (Map.Entry<String, Card> play : current.getPlays().entrySet()) {
+                if (count == 0) {
+                    lead = game.seatOf(play.getKey());
+                }
+                trick[count++] = (byte) play.getValue().ordinal();
+            }
+            trickCount = count;
+            trickLead = lead;
+
+            for (int s = 0; s < 4; s++) {
+                handSizes[s] = CardSet.size(game.playerAt(s).getHandSet());
+            }
+            unseen = CardSet.FULL_DECK & ~hand & ~played;
+
+            declarations[0] = game.getTeamADeclPoints();
+            declarations[1] = game.getTeamBDeclPoints();
+            int caller = game.getTrumpCaller() != null ? game.seatOf(game.getTrumpCaller()) : -1;
+            callerTeam = caller >= 0 ? caller & 1 : -1;
+        }
+
+        private void observeVoids(BelotGame game, Trick trick) {
+            Card leadCard = trick.getLeadCard();
+            if (leadCard == null) {
+                return;
+            }
+            Boja lead = leadCard.getBoja();
+            for (Map.Entry<String, Card> play : trick.getPlays().entrySet()) {
+                Boja suit = play.getValue().getBoja();
+                if (suit == lead) {
+                    continue;
+                }
+                int s = game.seatOf(play.getKey());
+                voids[s] |= 1 << lead.ordinal();
+                if (trump != null && suit != trump) {
+                    voids[s] |= 1 << trump.ordinal();
+                }
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  sampling                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * Samples until {@code stopAt} and returns the summed margin per candidate, followed by the
+     * number of samples. Scratch arrays are reused, so a rollout does not allocate.
+     */
+    private static final class Sampler implements Callable<long[]> {
+        private final View view;
+        private final SplittableRandom random;
+        private final long stopAt;
+
+        private final byte[] unseen;
+        private final int[] dealt = new int[4];
+        private final int[] room = new int[4];
+        private final int[] hands = new int[4];
+        private final byte[] trick = new byte[4];
+        private final int[] points = new int[2];
+        private final int[] won = new int[2];
+
+        Sampler(View view, long seed, long stopAt) {
+            this.view = view;
+            this.random = new SplittableRandom(seed);
+            this.stopAt = stopAt;
+
+            unseen = new byte[CardSet.size(view.unseen)];
+            int i = 0;
+            for (int cards = view.unseen; cards != 0; cards &= cards - 1) {
+                unseen[i++] = (byte) Integer.numberOfTrailingZeros(cards);
+            }
+        }
+
+        @Override
+        public long[] call() {
+            int[] candidates = view.candidates;
+            long[] totals = new long[candidates.length + 1];
+            // one sample even when started late, so a stalled thread still gives an answer
+            do {
+                deal();
+                for (int i = 0; i < candidates.length; i++) {
+                    totals[i] += rollout(candidates[i]);
+                }
+                totals[candidates.length]++;
+            } while (System.nanoTime() < stopAt && !Thread.currentThread().isInterrupted());
+            return totals;
+        }
+
+        private void deal() {
+            for (int attempt = 0; attempt < MAX_DEAL_ATTEMPTS; attempt++) {
+                if (tryDeal(true)) {
+                    return;
+                }
+            }
+            tryDeal(false);
+        }
+
+        /**
+         * Shuffles the unseen cards and hands each to a seat with room left, chosen with
+         * probability proportional to that room.
+         *
+         * @return false if some card fit no seat that is not void in its suit
+         */
+        private boolean tryDeal(boolean respectVoids) {
+            for (int i = unseen.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                byte card = unseen[i];
+                unseen[i] = unseen[j];
+                unseen[j] = card;
+            }
+            for (int s = 0; s < 4; s++) {
+                dealt[s] = CardSet.EMPTY;
+                room[s] = view.handSizes[s];
+            }
+            dealt[view.seat] = view.hand;
+            room[view.seat] = 0;
+
+            for (byte card : unseen) {
+                int suit = 1 << (card >>> 3);
+                int total = 0;
+                for (int s = 0; s < 4; s++) {
+                    if (fits(s, suit, respectVoids)) {
+                        total += room[s];
+                    }
+                }
+                if (total == 0) {
+                    return false;
+                }
+                int pick = random.nextInt(total);
+                for (int s = 0; s < 4; s++) {
+                    if (fits(s, suit, respectVoids) && (pick -= room[s]) < 0) {
+                        dealt[s] |= 1 << card;
+                        room[s]--;
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean fits(int seat, int suit, boolean respectVoids) {
+            return room[seat] > 0 && (!respectVoids || (view.voids[seat] & suit) == 0);
+        }
+
+        /**
+         * Plays {@code first} for the deciding seat, then the rest of the hand on the current deal.
+         *
+         * @return the deciding team's margin over the other team for the hand
+         */
+        private int rollout(int first) {
+            Boja trump = view.trump;
+            System.arraycopy(dealt, 0, hands, 0, 4);
+            System.arraycopy(view.trick, 0, trick, 0, view.trickCount);
+            System.arraycopy(view.points, 0, points, 0, 2);
+            System.arraycopy(view.won, 0, won, 0, 2);
+            int count = view.trickCount;
+            int lead = view.trickLead;
+            int done = view.tricksDone;
+            int played = CardSet.EMPTY;
+            for (int i = 0; i < count; i++) {
+                played |= 1 << trick[i];
+            }
+
+            int seat = view.seat;
+            int card = first;
+            while (card >= 0) {
+                hands[seat] &= ~(1 << card);
+                trick[count++] = (byte) card;
+                played |= 1 << card;
+
+                if (count == 4) {
+                    int winner = (lead + TrickTable.winner(trump, trick, 4, 0)) & 3;
+                    int team = winner & 1;
+                    points[team] += TrickTable.points(trump, trick, 4);
+                    won[team]++;
+                    if (++done == 8) {
+                        points[team] += LAST_TRICK_BONUS;
+                        break;
+                    }
+                    lead = winner;
+                    seat = winner;
+                    count = 0;
+                    played = CardSet.EMPTY;
+                } else {
+                    seat = (seat + 1) & 3;
+                }
+                card = choose(seat, count, played, lead);
+            }
+            return margin();
+        }
+
+        /**
+         * @return the card {@code seat} plays in a rollout, -1 if it has none left
+         */
+        private int choose(int seat, int count, int played, int lead) {
+            Boja trump = view.trump;
+            Boja leadSuit = count == 0 ? null : SUITS[trick[0] >>> 3];
+            int legal = LegalMoves.of(hands[seat], played, leadSuit, trump);
+            if (legal == CardSet.EMPTY) {
+                return -1;
+            }
+            if ((legal & (legal - 1)) == 0) {
+                return Integer.numberOfTrailingZeros(legal);
+            }
+            if (random.nextDouble() < EXPLORATION) {
+                for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                    legal &= legal - 1;
+                }
+                return Integer.numberOfTrailingZeros(legal);
+            }
+            if (count == 0) {
+                return GreedyPolicy.choose(legal, trump, null, 0, false);
+            }
+            int best = TrickTable.winner(trump, trick, count, 0);
+            int toBeat = TrickTable.strength(trump, leadSuit, trick[best]);
+            boolean partnerWinning = ((lead + best) & 3) == (seat ^ 2);
+            return GreedyPolicy.choose(legal, trump, leadSuit, toBeat, partnerWinning);
+        }
+
+        /** Scores the finished hand the way {@link BelotGame} does and returns our margin. */
+        private int margin() {
+            // a team without a trick loses its declarations
+            int a = points[0] + (won[0] > 0 ? view.declarations[0] : 0);
+            int b = points[1] + (won[1] > 0 ? view.declarations[1] : 0);
+            if (view.callerTeam == 0 && a <= b) {
+                b += a;
+                a = 0;
+            } else if (view.callerTeam == 1 && b <= a) {
+                a += b;
+                b = 0;
+            }
+            if (won[0] == 8) a += CAPOT_BONUS;
+            if (won[1] == 8) b += CAPOT_BONUS;
+            return (view.seat & 1) == 0 ? a - b : b - a;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package backend.belatro.simulation;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Card;
+import backend.belatro.pojo.gamelogic.CardSet;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Passes or calls a random suit, then plays a uniformly random legal card.
+ */
+public class RandomLegalPolicy implements SeatPolicy, AutoPlayPolicy {
+
+    private static final Boja[] SUITS = Boja.values();
+
+    /** Chance of calling trump when not forced to. */
+    private final double callRate;
+
+    public RandomLegalPolicy() {
+        this(0.25);
+    }
+
+    public RandomLegalPolicy(double callRate) {
+        this.callRate = callRate;
+    }
+
+    @Override
+    public Boja chooseTrump(BelotGame game, int seat, boolean forced, SplittableRandom random) {
+        if (!forced && random.nextDouble() >= callRate) {
+            return null;
+        }
+        return SUITS[random.nextInt(SUITS.length)];
+    }
+
+    @Override
+    public Card chooseCard(BelotGame game, int seat, SplittableRandom random) {
+        int legal = game.getLegalMoveSet();
+        return CardSet.get(legal, random.nextInt(CardSet.size(legal)));
+    }
+
+    @Override
+    public Boja chooseTrump(BelotGame game, int seat, boolean forced) {
+        if (!forced && ThreadLocalRandom.current().nextDouble() >= callRate) {
+            return null;
+        }
+        return SUITS[ThreadLocalRandom.current().nextInt(SUITS.length)];
+    }
+
+    @Override
+    public Card chooseCard(BelotGame game, int seat) {
+        int legal = game.getLegalMoveSet();
+        return CardSet.get(legal, ThreadLocalRandom.current().nextInt(CardSet.size(legal)));
+    }
+}
@@ -0,0 +1,41 @@
+package backend.belatro.simulation;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Card;
+import backend.belatro.pojo.gamelogic.Player;
+import backend.belatro.pojo.gamelogic.ZvanjaValidator;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+
+import java.util.SplittableRandom;
+
+/**
+ * Decides bids and plays for one seat of a {@link BelotGame} without going through the
+ * services, so games can be driven headless.
+ */
+public interface SeatPolicy {
+
+    /**
+     * @param forced true when every other seat passed and the dealer has to call
+     * @return the trump to call, or null to pass (never null when {@code forced})
+     */
+    Boja chooseTrump(BelotGame game, int seat, boolean forced, SplittableRandom random);
+
+    /**
+     * Called only when it is {@code seat}'s turn to play.
+     *
+     * @return a card from the seat's hand, normally one of {@link BelotGame#getLegalMoveSet()}
+     */
+    Card chooseCard(BelotGame game, int seat, SplittableRandom random);
+
+    /**
+     * @return true to declare bela with {@code card}; by default whenever it is allowed
+     */
+    default boolean declareBela(BelotGame game, int seat, Card card) {
+        Player player = game.playerAt(seat);
+        return card.getBoja() == game.getTrump()
+                && (card.getRank() == Rank.KRALJ || card.getRank() == Rank.BABA)
+                && ZvanjaValidator.isBela(player.getHandSet(), game.getTrump())
+                && !game.hasBelaDeclared(player.getId());
+    }
+}
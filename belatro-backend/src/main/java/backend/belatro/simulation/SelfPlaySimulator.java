@@ -0,0 +1,450 @@
+package backend.belatro.simulation;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays complete matches (to 1001) between {@link SeatPolicy seat policies} directly on
+ * {@link BelotGame}, in parallel on a {@link ForkJoinPool}, and checks rule invariants after
+ * every action.
+ * <p>
+ * Besides measuring engine throughput it doubles as a fuzzer: seats can be made to play an
+ * illegal card now and then and to challenge at random, which drives fouls,
+ * {@link BelotGame#challengeHand(int)} and padanje scoring through paths real players rarely hit.
+ * Every batch of games draws from its own {@link SplittableRandom} split off the run seed, which
+ * also seeds the deals, so a run is reproducible for a given seed.
+ */
+public class SelfPlaySimulator {
+
+    private static final int GAMES_PER_TASK = 16;
+    private static final int MAX_HANDS_PER_GAME = 1000;
+    private static final int MAX_SAMPLE_VIOLATIONS = 20;
+
+    private static final int FULL_HAND_POINTS = 162;
+    private static final int LAST_TRICK_BONUS = 10;
+    private static final int CAPOT_BONUS = 90;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final SeatPolicy[] policies;
+    private final double foulRate;
+    private final double challengeRate;
+
+    public SelfPlaySimulator(List<SeatPolicy> policies) {
+        this(policies, 0, 0);
+    }
+
+    /**
+     * @param policies      one policy per seat; seats alternate teams, so 0 and 2 are team A
+     * @param foulRate      chance that a seat holding an illegal card plays it instead
+     * @param challengeRate chance that a random seat challenges, tried before every trick
+     *                      and once more when the hand is over
+     */
+    public SelfPlaySimulator(List<SeatPolicy> policies, double foulRate, double challengeRate) {
+        if (policies.size() != 4) {
+            throw new IllegalArgumentException("Need one policy per seat, got " + policies.size());
+        }
+        this.policies = policies.toArray(new SeatPolicy[0]);
+        this.foulRate = foulRate;
+        this.challengeRate = challengeRate;
+    }
+
+    public SimulationReport run(long games, long seed, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            Tally tally = pool.invoke(new Batch(0, games, new SplittableRandom(seed)));
+            return tally.toReport(System.nanoTime() - start);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  fork/join                                                         */
+    /* ------------------------------------------------------------------ */
+
+    private final class Batch extends RecursiveTask<Tally> {
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        Batch(long from, long to, SplittableRandom random) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                Tally tally = new Tally();
+                for (long index = from; index < to; index++) {
+                    new Match(index, random, tally).play();
+                }
+                return tally;
+            }
+            long mid = (from + to) >>> 1;
+            Batch left = new Batch(from, mid, random.split());
+            left.fork();
+            Tally right = new Batch(mid, to, random).compute();
+            return right.add(left.join());
+        }
+    }
+
+    /** Mutable counters of one batch; merged on join. */
+    private static final class Tally {
+        long games;
+        long hands;
+        long tricks;
+        long fouls;
+        long challenges;
+        long successfulChallenges;
+        long padanje;
+        long capot;
+        long teamAWins;
+        long teamBWins;
+        long teamAMargin;
+        long allocatedBytes;
+        long violations;
+        final List<String> sampleViolations = new ArrayList<>();
+
+        void violation(String message) {
+            violations++;
+            if (sampleViolations.size() < MAX_SAMPLE_VIOLATIONS) {
+                sampleViolations.add(message);
+            }
+        }
+
+        Tally add(Tally other) {
+            games += other.games;
+            hands += other.hands;
+            tricks += other.tricks;
+            fouls += other.fouls;
+            challenges += other.challenges;
+            successfulChallenges += other.successfulChallenges;
+            padanje += other.padanje;
+            capot += other.capot;
+            teamAWins += other.teamAWins;
+            teamBWins += other.teamBWins;
+            teamAMargin += other.teamAMargin;
+            allocatedBytes = allocatedBytes < 0 || other.allocatedBytes < 0
+                    ? -1 : allocatedBytes + other.allocatedBytes;
+            violations += other.violations;
+            for (String message : other.sampleViolations) {
+                if (sampleViolations.size() < MAX_SAMPLE_VIOLATIONS) {
+                    sampleViolations.add(message);
+                }
+            }
+            return this;
+        }
+
+        SimulationReport toReport(long elapsedNanos) {
+            return new SimulationReport(games, hands, tricks, fouls, challenges, successfulChallenges,
+                    padanje, capot, teamAWins, teamBWins, teamAMargin, allocatedBytes, violations, List.copyOf(sampleViolations), elapsedNanos);
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  one match                                                         */
+    /* ------------------------------------------------------------------ */
+
+    private final class Match {
+        private final long index;
+        private final SplittableRandom random;
+        private final Tally tally;
+        private BelotGame game;
+
+        private int hands;
+        private boolean aborted;
+        private boolean challenging;
+
+        /* per hand: scores when it started, teams that fouled (bit 0 A, bit 1 B), seats that challenged */
+        private int startA;
+        private int startB;
+        private int foulTeams;
+        private int challengedSeats;
+
+        Match(long index, SplittableRandom random, Tally tally) {
+            this.index = index;
+            this.random = random;
+            this.tally = tally;
+        }
+
+        void play() {
+            long allocated = allocatedBytes();
+
+            Team teamA = new Team(List.of(new Player("a1"), new Player("a2")));
+            Team teamB = new Team(List.of(new Player("b1"), new Player("b2")));
+            game = new BelotGame("sim-" + index, teamA, teamB, random.nextLong());
+            game.setHandCompletionCallback(this::onHandCompleted);
+
+            try {
+                game.startGame();
+                checkCards();
+                while (!aborted && game.getGameState() != GameState.COMPLETED) {
+                    if (hands >= MAX_HANDS_PER_GAME) {
+                        violation("no winner after " + hands + " hands");
+                        break;
+                    }
+                    switch (game.getGameState()) {
+                        case BIDDING -> bid();
+                        case PLAYING -> playCard();
+                        case HAND_COMPLETE -> finishHand();
+                        default -> violation("unexpected state");
+                    }
+                    if (!aborted) {
+                        checkCards();
+                    }
+                }
+            } catch (RuntimeException ex) {
+                violation("engine threw " + ex);
+            }
+
+            tally.games++;
+            if (!aborted && game.getGameState() == GameState.COMPLETED) {
+                Team winner = game.getWinner();
+                if (winner == game.getTeamA()) tally.teamAWins++;
+                else if (winner == game.getTeamB()) tally.teamBWins++;
+                tally.teamAMargin += game.getTeamAScore() - game.getTeamBScore();
+            }
+            tally.allocatedBytes = allocated < 0 || tally.allocatedBytes < 0
+                    ? -1 : tally.allocatedBytes + allocatedBytes() - allocated;
+        }
+
+        private void violation(String message) {
+            aborted = true;
+            tally.violation("game " + index + " hand " + hands + ": " + message + " in " + game);
+        }
+
+        private void newHand() {
+            startA = game.getTeamAScore();
+            startB = game.getTeamBScore();
+            foulTeams = 0;
+            challengedSeats = 0;
+        }
+
+        /* --------------------------- actions --------------------------- */
+
+        private void bid() {
+            int seat = game.getCurrentSeat();
+            Player player = game.playerAt(seat);
+            boolean forced = seat == game.seatOf(game.getDealer());
+
+            Boja trump = policies[seat].chooseTrump(game, seat, forced, random);
+            Bid bid = trump != null ? Bid.callTrump(player, trump) : Bid.pass(player);
+            if (!game.placeBid(bid)) {
+                violation((trump != null ? "call " + trump : "pass") + " by seat " + seat + " refused");
+            }
+        }
+
+        private void playCard() {
+            if (game.getCurrentTrick().size() == 0 && challengeRate > 0 && random.nextDouble() < challengeRate) {
+                challenge(random.nextInt(4));
+                if (aborted || game.getGameState() != GameState.PLAYING) {
+                    return;
+                }
+            }
+
+            int seat = game.getCurrentSeat();
+            Player player = game.playerAt(seat);
+            int hand = player.getHandSet();
+            int legal = game.getLegalMoveSet();
+            if (legal == CardSet.EMPTY || (legal & ~hand) != 0) {
+                violation("legal moves " + CardSet.toString(legal) + " for hand " + CardSet.toString(hand));
+                return;
+            }
+
+            Card card;
+            int illegal = hand & ~legal;
+            if (illegal != CardSet.EMPTY && foulRate > 0 && random.nextDouble() < foulRate) {
+                card = CardSet.get(illegal, random.nextInt(CardSet.size(illegal)));
+            } else {
+                card = policies[seat].chooseCard(game, seat, random);
+                if (!CardSet.contains(legal, card)) {
+                    violation("policy of seat " + seat + " chose illegal " + card);
+                    return;
+                }
+            }
+            if (!CardSet.contains(legal, card)) {
+                tally.fouls++;
+                foulTeams |= 1 << (seat & 1);
+            }
+
+            int tricksBefore = game.getCompletedTrickCount();
+            if (!game.playCard(seat, card, policies[seat].declareBela(game, seat, card))) {
+                violation("play of " + card + " by seat " + seat + " refused");
+                return;
+            }
+            tally.tricks += game.getCompletedTrickCount() - tricksBefore;
+        }
+
+        private void finishHand() {
+            if (challengeRate > 0 && random.nextDouble() < challengeRate) {
+                challenge(random.nextInt(4));
+                if (aborted || game.getGameState() != GameState.HAND_COMPLETE) {
+                    return;
+                }
+            }
+            game.startNextHandAfterWindow();
+            newHand();
+        }
+
+        private void challenge(int seat) {
+            tally.challenges++;
+            int team = 1 << (seat & 1);
+            boolean expected = (challengedSeats & 1 << seat) == 0
+                    && foulTeams != 0
+                    && (foulTeams == 3 || (foulTeams & team) == 0);
+            challengedSeats |= 1 << seat;
+
+            int declPoints = (seat & 1) == 0 ? game.getTeamADeclPoints() : game.getTeamBDeclPoints();
+            int beforeA = game.getTeamAScore();
+            int beforeB = game.getTeamBScore();
+
+            challenging = true;
+            boolean success = game.challengeHand(seat);
+            challenging = false;
+
+            if (success != expected) {
+                violation("challenge by seat " + seat + " returned " + success + " with fouls " + foulTeams);
+                return;
+            }
+            if (!success) {
+                if (game.getTeamAScore() != beforeA || game.getTeamBScore() != beforeB) {
+                    violation("failed challenge changed scores " + beforeA + "/" + beforeB + " to "
+                            + game.getTeamAScore() + "/" + game.getTeamBScore());
+                }
+                return;
+            }
+
+            tally.successfulChallenges++;
+            int award = FULL_HAND_POINTS + declPoints;
+            int expectedA = startA + (team == 1 ? award : 0);
+            int expectedB = startB + (team == 2 ? award : 0);
+            if (game.getTeamAScore() != expectedA || game.getTeamBScore() != expectedB) {
+                violation("challenge scored " + game.getTeamAScore() + "/" + game.getTeamBScore()
+                        + ", expected " + expectedA + "/" + expectedB);
+            }
+            newHand();
+        }
+
+        /* -------------------------- invariants ------------------------- */
+
+        private void onHandCompleted(BelotGame g,
+                                     int handA, int handB,
+                                     int declA, int declB,
+                                     int tricksA, int tricksB,
+                                     boolean padanje, boolean capot) {
+            hands++;
+            tally.hands++;
+            if (challenging) {
+                return;                      // checked by challenge()
+            }
+            if (padanje) tally.padanje++;
+            if (capot) tally.capot++;
+
+            List<Trick> tricks = g.getCompletedTricks();
+            int cardPoints = 0;
+            for (Trick trick : tricks) {
+                cardPoints += trick.calculatePoints();
+            }
+            if (tricks.size() != 8 || tricksA + tricksB != 8) {
+                violation(tricks.size() + " tricks, " + tricksA + "+" + tricksB + " won");
+                return;
+            }
+            if (cardPoints + LAST_TRICK_BONUS != FULL_HAND_POINTS) {
+                violation("card points " + cardPoints + " + " + LAST_TRICK_BONUS + " != " + FULL_HAND_POINTS);
+                return;
+            }
+
+            // a team without a trick loses its declarations
+            int expectedHand = FULL_HAND_POINTS + (tricksA > 0 ? declA : 0) + (tricksB > 0 ? declB : 0);
+            if (handA + handB != expectedHand) {
+                violation("hand points " + handA + "+" + handB + " != " + expectedHand);
+                return;
+            }
+
+            boolean callerIsA = (g.seatOf(g.getTrumpCaller()) & 1) == 0;
+            if (padanje != (callerIsA ? handA <= handB : handB <= handA)) {
+                violation("padanje " + padanje + " for hand points " + handA + "/" + handB);
+                return;
+            }
+            if (capot != (tricksA == 8 || tricksB == 8)) {
+                violation("capot " + capot + " for tricks " + tricksA + "/" + tricksB);
+                return;
+            }
+
+            int all = handA + handB;
+            int deltaA = (padanje ? (callerIsA ? 0 : all) : handA) + (tricksA == 8 ? CAPOT_BONUS : 0);
+            int deltaB = (padanje ? (callerIsA ? all : 0) : handB) + (tricksB == 8 ? CAPOT_BONUS : 0);
+            if (g.getTeamAScore() - startA != deltaA || g.getTeamBScore() - startB != deltaB) {
+                violation("scored " + (g.getTeamAScore() - startA) + "/" + (g.getTeamBScore() - startB)
+                        + ", expected " + deltaA + "/" + deltaB);
+            }
+        }
+
+        /**
+         * Every card is in exactly one place: a hand, the talon, a completed trick or the
+         * trick being played; and every seat holds the number of cards the phase implies.
+         */
+        private void checkCards() {
+            GameState state = game.getGameState();
+            if (state == GameState.COMPLETED) {
+                return;
+            }
+
+            List<Trick> completed = game.getCompletedTricks();
+            int seen = CardSet.of(game.getTalon());
+            int count = game.getTalon().size();
+            for (Trick trick : completed) {
+                seen |= trick.getPlayedSet();
+                count += trick.size();
+            }
+            Trick current = game.getCurrentTrick();
+            boolean livePlays = state == GameState.PLAYING && current != null;
+            if (livePlays) {
+                seen |= current.getPlayedSet();
+                count += current.size();
+            }
+
+            for (int seat = 0; seat < 4; seat++) {
+                Player player = game.playerAt(seat);
+                int hand = player.getHandSet();
+                seen |= hand;
+                count += CardSet.size(hand);
+
+                int expected = switch (state) {
+                    case BIDDING -> 6;
+                    case PLAYING -> 8 - completed.size() - (current.hasPlayed(player.getId()) ? 1 : 0);
+                    default -> 0;
+                };
+                if (CardSet.size(hand) != expected) {
+                    violation("seat " + seat + " holds " + CardSet.size(hand) + " cards, expected " + expected);
+                    return;
+                }
+            }
+
+            if (seen != CardSet.FULL_DECK || count != CardSet.DECK_SIZE) {
+                violation(count + " cards accounted for, missing " + CardSet.toString(~seen));
+            }
+        }
+    }
+}
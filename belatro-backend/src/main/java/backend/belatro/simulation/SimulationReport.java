@@ -0,0 +1,71 @@
+package backend.belatro.simulation;
+
+import java.util.List;
+
+/**
+ * Totals of a {@link SelfPlaySimulator} run.
+ *
+ * @param teamAWins       games won by seats 0 and 2
+ * @param teamAMargin     final score of seats 0 and 2 minus that of seats 1 and 3, summed over games
+ * @param allocatedBytes  heap allocated by the simulating threads, -1 if the JVM can't tell
+ * @param violations      number of broken rule invariants
+ * @param sampleViolations the first few violation messages
+ */
+public record SimulationReport(
+        long games,
+        long hands,
+        long tricks,
+        long fouls,
+        long challenges,
+        long successfulChallenges,
+        long padanje,
+        long capot,
+        long teamAWins,
+        long teamBWins,
+        long teamAMargin,
+        long allocatedBytes,
+        long violations,
+        List<String> sampleViolations,
+        long elapsedNanos) {
+
+    public double gamesPerSecond() {
+        return games * 1e9 / elapsedNanos;
+    }
+
+    public double handsPerSecond() {
+        return hands * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return share of the decided games won by seats 0 and 2
+     */
+    public double teamAWinRate() {
+        long decided = teamAWins + teamBWins;
+        return decided == 0 ? 0 : (double) teamAWins / decided;
+    }
+
+    /**
+     * @return bytes allocated per hand, -1 if allocation could not be measured
+     */
+    public long bytesPerHand() {
+        return allocatedBytes < 0 || hands == 0 ? -1 : allocatedBytes / hands;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("games=%d hands=%d tricks=%d in %.2fs%n",
+                games, hands, tricks, elapsedNanos / 1e9));
+        sb.append(String.format("%.1f games/s, %.1f hands/s, %d bytes/hand%n",
+                gamesPerSecond(), handsPerSecond(), bytesPerHand()));
+        sb.append(String.format("fouls=%d challenges=%d (%d successful) padanje=%d capot=%d%n",
+                fouls, challenges, successfulChallenges, padanje, capot));
+        sb.append(String.format("team A won %d, team B won %d (%.1f%%), team A margin %.1f/game%n",
+                teamAWins, teamBWins, teamAWinRate() * 100, games == 0 ? 0 : (double) teamAMargin / games));
+        sb.append("invariant violations=").append(violations);
+        for (String violation : sampleViolations) {
+            sb.append(System.lineSeparator()).append("  ").append(violation);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package backend.belatro.util;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.BelotGameCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * Redis value serializer for live games. Writes the {@link BelotGameCodec binary form} and
+ * reads both that and the JSON games were stored as before, so keys written by older nodes
+ * keep working until they expire. Writing JSON can be switched back on while old nodes that
+ * cannot read the binary form are still running.
+ */
+public class BelotGameRedisSerializer implements RedisSerializer<BelotGame> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ObjectMapper mapper;
+    private final boolean writeJson;
+
+    /**
+     * @param mapper    reads (and with {@code writeJson}, writes) the JSON form
+     * @param writeJson write JSON instead of the binary form
+     */
+    public BelotGameRedisSerializer(ObjectMapper mapper, boolean writeJson) {
+        this.mapper = mapper;
+        this.writeJson = writeJson;
+    }
+
+    @Override
+    public byte[] serialize(BelotGame game) throws SerializationException {
+        if (game == null) {
+            return EMPTY;
+        }
+        if (!writeJson) {
+            return BelotGameCodec.encode(game);
+        }
+        try {
+            return mapper.writeValueAsBytes(game);
+        } catch (IOException ex) {
+            throw new SerializationException("Could not write BelotGame " + game.getGameId() + " as JSON", ex);
+        }
+    }
+
+    @Override
+    public BelotGame deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return BelotGameCodec.isBinary(bytes)
+                    ? BelotGameCodec.decode(bytes)
+                    : mapper.readValue(bytes, BelotGame.class);
+        } catch (IOException | RuntimeException ex) {
+            throw new SerializationException("Could not read BelotGame", ex);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package backend.belatro.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Assigns keys to nodes by consistent hashing. Each node sits on the ring at
+ * {@link #POINTS_PER_NODE} points, and a key belongs to the first point at or after its hash.
+ * When a node joins or leaves, only the keys on the arcs it gains or loses change owner, about
+ * one in n of them, and every node computes the same owner from the same member list. Immutable.
+ */
+public final class ConsistentHashRing {
+
+    /** Points per node; enough that each node's share stays within a few percent of 1/n. */
+    public static final int POINTS_PER_NODE = 128;
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final Set<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+        for (String node : this.nodes) {
+            for (int i = 0; i < POINTS_PER_NODE; i++) {
+                points.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /**
+     * @return the node that owns {@code key}, null if the ring is empty
+     */
+    public String ownerOf(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    /** FNV-1a over the UTF-8 bytes, then a 64-bit finalizer so near-equal strings spread out. */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ConsistentHashRing ring && ring.nodes.equals(nodes);
+    }
+
+    @Override
+    public int hashCode() {
+        return nodes.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ConsistentHashRing" + nodes;
+    }
+}
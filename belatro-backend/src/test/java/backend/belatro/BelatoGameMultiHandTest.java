@@ -13,6 +13,9 @@ import java.util.UUID;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class BelatoGameMultiHandTest {
+    /** Seed whose first hand, played with the first legal card, has a player cut while holding trumps. */
+    private static final long TRUMP_CUT_SEED = 1L;
+
     private BelotGame game;
     private Player player1, player2, player3, player4;
 
@@ -222,7 +225,8 @@ public class BelatoGameMultiHandTest {
     }
     @Test
     void testTrumpCuttingRule() {
-        // 1. Start a new game
+        // 1. Start a new game, dealt from a seed that brings a cut with trumps in hand
+        game = new BelotGame(game.getGameId(), game.getTeamA(), game.getTeamB(), TRUMP_CUT_SEED);
         game.startGame();
 
         // 2. Set trump to KARO
@@ -0,0 +1,237 @@
+package backend.belatro;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import backend.belatro.simulation.GreedyPolicy;
+import backend.belatro.util.BelotGameRedisSerializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static backend.belatro.TestGames.newGame;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BelotGameCodecTest {
+
+    private final ObjectMapper mapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private final BelotGameRedisSerializer serializer = new BelotGameRedisSerializer(mapper, false);
+
+    @Test
+    void testEveryStateRoundTripsAsItsJson() throws Exception {
+        SplittableRandom random = new SplittableRandom(9);
+        GreedyPolicy greedy = new GreedyPolicy();
+        BelotGame game = newGame("codec-21", 21L);
+        assertRoundTrip(game);
+
+        game.startGame();
+        int actions = 0;
+        while (game.getHandNumber() < 3 && game.getGameState() != GameState.COMPLETED) {
+            int seat = game.getCurrentSeat();
+            switch (game.getGameState()) {
+                case BIDDING -> {
+                    boolean forced = seat == game.seatOf(game.getDealer());
+                    Boja trump = greedy.chooseTrump(game, seat, forced, random);
+                    Player player = game.playerAt(seat);
+                    game.placeBid(trump != null ? Bid.callTrump(player, trump) : Bid.pass(player));
+                }
+                case PLAYING -> {
+                    int illegal = game.playerAt(seat).getHandSet() & ~game.getLegalMoveSet();
+                    Card card = illegal != CardSet.EMPTY && random.nextInt(10) == 0
+                            ? CardSet.get(illegal, 0)                       // a foul now and then
+                            : greedy.chooseCard(game, seat, random);
+                    game.playCard(seat, card, greedy.declareBela(game, seat, card));
+                }
+                case HAND_COMPLETE -> {
+                    assertRoundTrip(game);
+                    game.challengeHand(random.nextInt(4));
+                    if (game.getGameState() == GameState.HAND_COMPLETE) {
+                        game.startNextHandAfterWindow();
+                    }
+                }
+                default -> fail("unexpected state " + game.getGameState());
+            }
+            assertRoundTrip(game);
+            actions++;
+        }
+        assertTrue(actions > 60);
+    }
+
+    @Test
+    void testBinaryIsMuchSmallerThanJson() throws Exception {
+        BelotGame game = newGame("codec-4", 4L);
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), new GreedyPolicy()
+                .chooseTrump(game, game.getCurrentSeat(), true, new SplittableRandom(1))));
+        for (int i = 0; i < 16; i++) {
+            int seat = game.getCurrentSeat();
+            game.playCard(seat, CardSet.get(game.getLegalMoveSet(), 0), false);
+        }
+
+        int binary = serializer.serialize(game).length;
+        int json = mapper.writeValueAsBytes(game).length;
+        assertTrue(binary * 10 < json, binary + " bytes binary vs " + json + " bytes JSON");
+    }
+
+    @Test
+    void testReadsLegacyJson() throws Exception {
+        BelotGame game = newGame("codec-5", 5L);
+        game.startGame();
+        byte[] json = mapper.writeValueAsBytes(game);
+
+        BelotGame read = serializer.deserialize(json);
+
+        assertEquals(mapper.readTree(json), mapper.readTree(mapper.writeValueAsBytes(read)));
+        assertFalse(BelotGameCodec.isBinary(json));
+        assertTrue(BelotGameCodec.isBinary(serializer.serialize(read)));
+    }
+
+    @Test
+    void testLegacyJsonWithPlaysOutOfSeatOrderScoresTheSameTrick() throws Exception {
+        BelotGame game = newGame("codec-2", 2L);                 // the third card played takes this trick
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC));
+        for (int i = 0; i < 3; i++) {
+            game.playCard(game.getCurrentSeat(), CardSet.get(game.getLegalMoveSet(), 0), false);
+        }
+
+        // a HashMap wrote the plays: lead first here, the other two swapped
+        ObjectNode json = (ObjectNode) mapper.readTree(mapper.writeValueAsBytes(game));
+        ObjectNode plays = (ObjectNode) json.path("currentTrick").path("plays");
+        List<String> ids = new ArrayList<>();
+        plays.fieldNames().forEachRemaining(ids::add);
+        ObjectNode swapped = mapper.createObjectNode();
+        swapped.set(ids.get(0), plays.get(ids.get(0)));
+        swapped.set(ids.get(2), plays.get(ids.get(2)));
+        swapped.set(ids.get(1), plays.get(ids.get(1)));
+        ((ObjectNode) json.get("currentTrick")).set("plays", swapped);
+
+        BelotGame read = serializer.deserialize(mapper.writeValueAsBytes(json));
+        assertEquals(List.of(ids.get(0), ids.get(2), ids.get(1)),
+                new ArrayList<>(read.getCurrentTrick().getPlays().keySet()));
+
+        Card last = CardSet.get(game.getLegalMoveSet(), 0);
+        int seat = game.getCurrentSeat();
+        assertEquals(seat, read.getCurrentSeat());
+        game.playCard(seat, last, false);
+        read.playCard(seat, last, false);
+
+        assertEquals(ids.get(2), game.getCompletedTricks().getLast().determineWinner());
+        assertEquals(ids.get(2), read.getCompletedTricks().getLast().determineWinner());
+        assertEquals(game.getCurrentSeat(), read.getCurrentSeat());
+        assertEquals(game.getTeamAScore(), read.getTeamAScore());
+        assertEquals(game.getTeamBScore(), read.getTeamBScore());
+    }
+
+    @Test
+    void testReadsVersion2() {
+        // written by the version 2 encoder: hand 2, third trick done, two cards into the fourth
+        byte[] v2 = Base64.getDecoder().decode(
+                "twIAAAAAAAAAAAMQY29kZWMtMjEEQTEsQAAAAARCMQAIiAMABEEyAgQTAAAEQjIAMiAAAPgBdAAAAAAAAAAVAupP/ykl/tW/"
+                        + "AwADAQABRnwAAAIE+AF0AQAAAAAB/tqirQ2oq4jRAwACBQYBAAQjRWQHAQAEJkJwFwIABF5/GDwBAwACbgo=");
+
+        BelotGame read = BelotGameCodec.decode(v2);
+
+        assertEquals(GameState.PLAYING, read.getGameState());
+        assertEquals(1, read.getHandNumber());
+        assertEquals(Boja.KARA, read.getTrump());
+        assertEquals(124, read.getTeamAScore());
+        assertEquals(58, read.getTeamBScore());
+        assertEquals(List.of(742391808, 559107, 33821440, 3284992),
+                List.of(read.playerAt(0).getHandSet(), read.playerAt(1).getHandSet(),
+                        read.playerAt(2).getHandSet(), read.playerAt(3).getHandSet()));
+        assertEquals(1, read.getBids().size());
+        assertEquals(3, read.getCompletedTricks().size());
+        assertEquals(2, read.getCurrentTrick().getPlays().size());
+        assertEquals("B1", read.getCurrentPlayer().getId());
+    }
+
+    @Test
+    void testJsonWritingCanBeSwitchedBackOn() throws Exception {
+        BelotGame game = newGame("codec-6", 6L);
+        game.startGame();
+
+        byte[] bytes = new BelotGameRedisSerializer(mapper, true).serialize(game);
+
+        assertEquals('{', bytes[0]);
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(game)),
+                mapper.readTree(mapper.writeValueAsBytes(serializer.deserialize(bytes))));
+    }
+
+    @Test
+    void testHeaderCarriesVersionAndState() {
+        BelotGame game = newGame("codec-8", 8L);
+        game.startGame();
+        game.setVersion(0x0102030405L);
+
+        byte[] bytes = serializer.serialize(game);
+
+        assertEquals(0x0102030405L, ByteBuffer.wrap(bytes, BelotGameCodec.VERSION_OFFSET, 8).getLong());
+        assertEquals(GameState.BIDDING.ordinal(), bytes[BelotGameCodec.STATE_OFFSET]);
+        assertEquals(0x0102030405L, serializer.deserialize(bytes).getVersion());
+    }
+
+    @Test
+    void testSectionsAreTheBodyInPieces() throws Exception {
+        BelotGame game = newGame("codec-10", 10L);
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.KARA));
+        game.playCard(game.getCurrentSeat(), CardSet.get(game.getLegalMoveSet(), 0), false);
+        game.setVersion(3);
+
+        byte[] bytes = serializer.serialize(game);
+        byte[][] sections = BelotGameCodec.encodeSections(game);
+
+        ByteBuffer body = ByteBuffer.allocate(bytes.length - BelotGameCodec.STATE_OFFSET - 1);
+        for (byte[] section : sections) {
+            body.put(section);
+        }
+        assertArrayEquals(Arrays.copyOfRange(bytes, BelotGameCodec.STATE_OFFSET + 1, bytes.length), body.array());
+
+        BelotGame read = BelotGameCodec.decodeSections(sections, 3);
+        assertEquals(mapper.readTree(mapper.writeValueAsBytes(game)), mapper.readTree(mapper.writeValueAsBytes(read)));
+        assertEquals(3, read.getVersion());
+
+        sections[BelotGameCodec.SECTIONS.indexOf("bids")] = null;
+        assertThrows(IllegalArgumentException.class, () -> BelotGameCodec.decodeSections(sections, 3));
+    }
+
+    @Test
+    void testRejectsUnknownVersionAndTruncatedValues() {
+        BelotGame game = newGame("codec-7", 7L);
+        game.startGame();
+        byte[] bytes = serializer.serialize(game);
+
+        byte[] future = bytes.clone();
+        future[1] = BelotGameCodec.VERSION + 1;
+        assertThrows(SerializationException.class, () -> serializer.deserialize(future));
+
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+
+        assertNull(serializer.deserialize(new byte[0]));
+        assertNull(serializer.deserialize(null));
+    }
+
+    private void assertRoundTrip(BelotGame game) throws Exception {
+        BelotGame read = serializer.deserialize(serializer.serialize(game));
+
+        JsonNode expected = mapper.readTree(mapper.writeValueAsBytes(game));
+        assertEquals(expected, mapper.readTree(mapper.writeValueAsBytes(read)));
+        assertEquals(game.getTalon(), read.getTalon());
+        for (int seat = 0; seat < 4; seat++) {
+            assertEquals(game.playerAt(seat).getHandSet(), read.playerAt(seat).getHandSet());
+        }
+    }
+}
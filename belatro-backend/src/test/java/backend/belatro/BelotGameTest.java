@@ -2,6 +2,8 @@ package backend.belatro;
 
 import backend.belatro.pojo.gamelogic.BelotGame;
 import backend.belatro.pojo.gamelogic.Bid;
+import backend.belatro.pojo.gamelogic.Card;
+import backend.belatro.pojo.gamelogic.Deck;
 import backend.belatro.pojo.gamelogic.Player;
 import backend.belatro.pojo.gamelogic.Team;
 import backend.belatro.pojo.gamelogic.enums.Boja;
@@ -11,6 +13,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
+import static backend.belatro.TestGames.newGame;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class BelotGameTest {
@@ -111,4 +114,76 @@ public class BelotGameTest {
         // Talon should be empty after dealing remaining cards
         assertEquals(0, game.getTalon().size(), "Talon should be empty after dealing remaining cards");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSeatsAlternateTeamsAndFollowPlay() {
+        game.startGame();
+
+        // Seating alternates teams and the first bidder sits after the dealer
+        List<Player> order = game.getTurnOrder();
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(teamA.getPlayers().contains(order.get(i)),
+                    teamA.getPlayers().contains(order.get((i + 2) % 4)), "Partners should sit opposite each other");
+        }
+        assertEquals(game.getDealer(), order.getLast(), "The dealer should bid last");
+
+        assertTrue(game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC)));
+
+        for (int trick = 0; trick < 8; trick++) {
+            for (int play = 0; play < 4; play++) {
+                Player current = game.getCurrentPlayer();
+                assertEquals(game.seatOf(current), game.getCurrentSeat());
+                Card card = game.getLegalMoves().getFirst();
+
+                // Nobody else may play in this seat's turn
+                Player other = game.playerAt((game.getCurrentSeat() + 1) % 4);
+                assertFalse(game.playCard(other, card, false),
+                        "An out-of-turn play should be refused");
+
+                assertTrue(game.playCard(current, card, false));
+            }
+            if (game.getGameState() == GameState.PLAYING) {
+                Player winner = game.findPlayerById(game.getCompletedTricks().getLast().determineWinner());
+                assertEquals(winner, game.getCurrentLead(), "The trick winner should lead the next trick");
+            }
+        }
+    }
+
+    @Test
+    public void testDealIsRegeneratedFromSeedAndHandNumber() {
+        game = new BelotGame("game1", teamA, teamB, 42L);
+        game.startGame();
+        assertDealMatchesSeed();
+
+        // play the hand out and deal the next one
+        assertTrue(game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC)));
+        for (int i = 0; i < 32; i++) {
+            assertTrue(game.playCard(game.getCurrentPlayer(), game.getLegalMoves().getFirst(), false));
+        }
+        if (game.getGameState() == GameState.HAND_COMPLETE) {
+            assertTrue(game.startNextHandAfterWindow());
+        }
+        assertEquals(1, game.getHandNumber());
+        assertDealMatchesSeed();
+
+        // the same seed deals the same first hand in a fresh game
+        BelotGame original = newGame("game2", 42L);
+        BelotGame replay = newGame("game3", 42L);
+        original.startGame();
+        replay.startGame();
+        assertEquals(original.getDealer().getId(), replay.getDealer().getId());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(original.getTurnOrder().get(i).getHand(), replay.getTurnOrder().get(i).getHand());
+        }
+    }
+
+    private void assertDealMatchesSeed() {
+        assertEquals(Deck.handSeed(game.getSeed(), game.getHandNumber()), game.getHandSeed());
+
+        Deck deck = Deck.forHand(game.getSeed(), game.getHandNumber());
+        for (Player player : game.getTurnOrder()) {
+            assertEquals(deck.dealSet(6), player.getHandSet(), "Hand of " + player.getId());
+        }
+        assertEquals(deck.getRemaining(), game.getTalon());
+    }
+}
@@ -0,0 +1,102 @@
+package backend.belatro;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CardSetTest {
+
+    @Test
+    void testEverySuitOwnsOneLane() {
+        int all = CardSet.EMPTY;
+        for (Boja boja : Boja.values()) {
+            assertEquals(8, CardSet.size(CardSet.suitMask(boja)));
+            assertEquals(0, all & CardSet.suitMask(boja), "Lanes must not overlap");
+            all |= CardSet.suitMask(boja);
+        }
+        assertEquals(CardSet.FULL_DECK, all);
+    }
+
+    @Test
+    void testRoundTripThroughList() {
+        List<Card> cards = List.of(
+                Card.of(Boja.PIK, Rank.AS),
+                Card.of(Boja.KARA, Rank.SEDMICA),
+                Card.of(Boja.HERC, Rank.DECKO));
+
+        int set = CardSet.of(cards);
+
+        assertEquals(3, CardSet.size(set));
+        assertTrue(CardSet.contains(set, Card.of(Boja.HERC, Rank.DECKO)));
+        assertFalse(CardSet.contains(set, Card.of(Boja.HERC, Rank.DEVETKA)));
+        assertEquals(List.of(
+                Card.of(Boja.KARA, Rank.SEDMICA),
+                Card.of(Boja.HERC, Rank.DECKO),
+                Card.of(Boja.PIK, Rank.AS)), CardSet.toList(set));
+        assertEquals(1, CardSet.lane(set, Boja.PIK) >>> Rank.AS.ordinal());
+    }
+
+    @Test
+    void testHandViewFollowsPlayerState() {
+        Player player = new Player("player1");
+        List<Card> hand = player.getHand();
+        assertTrue(hand.isEmpty());
+
+        player.setHand(new ArrayList<>(List.of(
+                Card.of(Boja.TREF, Rank.KRALJ),
+                Card.of(Boja.TREF, Rank.BABA))));
+        assertEquals(2, hand.size());
+
+        player.playCard(Card.of(Boja.TREF, Rank.KRALJ));
+        assertEquals(List.of(Card.of(Boja.TREF, Rank.BABA)), hand);
+        assertThrows(UnsupportedOperationException.class, () -> hand.add(Card.of(Boja.PIK, Rank.AS)));
+    }
+
+    @Test
+    void testDeckDealsEveryCardOnce() {
+        Deck deck = new Deck();
+        deck.shuffle();
+
+        int dealt = CardSet.EMPTY;
+        while (!deck.isEmpty()) {
+            int next = deck.dealSet(3);
+            assertEquals(0, dealt & next, "Card dealt twice");
+            dealt |= next;
+        }
+        assertEquals(CardSet.FULL_DECK, dealt);
+    }
+
+    @Test
+    void testSeededShuffleIsReproducible() {
+        Deck first = Deck.forHand(42L, 3);
+        Deck second = new Deck();
+        second.shuffle(Deck.handSeed(42L, 3));
+
+        assertEquals(first.getRemaining(), second.getRemaining());
+        assertNotEquals(first.getRemaining(), Deck.forHand(42L, 4).getRemaining());
+        assertEquals(CardSet.FULL_DECK, CardSet.of(first.getRemaining()));
+        assertEquals(CardSet.DECK_SIZE, first.getRemaining().size());
+    }
+
+    @Test
+    void testCardsAreInterned() throws Exception {
+        assertSame(Card.of(Boja.HERC, Rank.AS), Card.of(Boja.HERC, Rank.AS));
+        assertSame(Card.of(Boja.HERC, Rank.AS), CardSet.card(Card.of(Boja.HERC, Rank.AS).ordinal()));
+
+        ObjectMapper mapper = new ObjectMapper();
+        Card read = mapper.readValue("{\"rank\":\"AS\",\"extra\":[1],\"boja\":\"HERC\"}", Card.class);
+        assertSame(Card.of(Boja.HERC, Rank.AS), read);
+        assertSame(read, mapper.readValue(mapper.writeValueAsString(read), Card.class));
+
+        Player player = mapper.readValue(
+                "{\"id\":\"p1\",\"hand\":[{\"boja\":\"PIK\",\"rank\":\"DECKO\"}]}", Player.class);
+        assertSame(Card.of(Boja.PIK, Rank.DECKO), player.getHand().getFirst());
+    }
+}
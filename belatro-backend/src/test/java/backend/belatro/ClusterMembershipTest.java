@@ -0,0 +1,65 @@
+package backend.belatro;
+
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.events.ClusterMembershipChangedEvent;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ClusterMembershipTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, BelotGame> redis = mock(RedisTemplate.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+
+    @Test
+    void testHeartbeatPublishesOnlyChangedMembership() {
+        ClusterMembership cluster = new ClusterMembership(redis, events, true, "n1", 10_000);
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any()))
+                .thenReturn(members("n1", "n2"))
+                .thenReturn(members("n2", "n1"))
+                .thenThrow(new QueryTimeoutException("redis down"));
+
+        cluster.heartbeat();
+        cluster.heartbeat();
+        cluster.heartbeat();
+
+        verify(events, times(1)).publishEvent(any(ClusterMembershipChangedEvent.class));
+        assertEquals(Set.of("n2"), cluster.peers());
+        long local = List.of("g1", "g2", "g3", "g4", "g5", "g6", "g7", "g8").stream()
+                .filter(cluster::isLocal)
+                .count();
+        assertTrue(local > 0 && local < 8, "both nodes should own some of the games");
+    }
+
+    @Test
+    void testDisabledClusterOwnsEverythingWithoutRedis() {
+        ClusterMembership cluster = new ClusterMembership(redis, events, false, "", 10_000);
+
+        cluster.join();
+        cluster.heartbeat();
+        cluster.leave();
+
+        assertTrue(cluster.isLocal("any"));
+        assertEquals(cluster.nodeId(), cluster.ownerOf("any"));
+        verifyNoInteractions(redis, events);
+    }
+
+    /** Reply of the heartbeat script: the live members. */
+    private static List<byte[]> members(String... nodes) {
+        return Arrays.stream(nodes).map(node -> node.getBytes(StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,55 @@
+package backend.belatro;
+
+import backend.belatro.util.ConsistentHashRing;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final List<String> GAMES = IntStream.range(0, 20_000)
+            .mapToObj(i -> "game-" + i)
+            .toList();
+
+    @Test
+    void testGamesSpreadEvenlyOverTheNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("n1", "n2", "n3", "n4"));
+        Map<String, Integer> owned = new HashMap<>();
+        GAMES.forEach(game -> owned.merge(ring.ownerOf(game), 1, Integer::sum));
+
+        assertEquals(ring.nodes(), owned.keySet());
+        owned.values().forEach(count ->
+                assertEquals(GAMES.size() / 4.0, count, GAMES.size() / 4.0 * 0.25));
+    }
+
+    @Test
+    void testJoiningNodeTakesGamesOnlyForItself() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("n1", "n2", "n3"));
+        ConsistentHashRing after = new ConsistentHashRing(List.of("n1", "n2", "n3", "n4"));
+
+        long moved = 0;
+        for (String game : GAMES) {
+            String owner = after.ownerOf(game);
+            if (!owner.equals(before.ownerOf(game))) {
+                assertEquals("n4", owner);
+                moved++;
+            }
+        }
+        assertEquals(GAMES.size() / 4.0, moved, GAMES.size() / 4.0 * 0.25);
+    }
+
+    @Test
+    void testEveryNodeAgreesWhateverTheOrder() {
+        ConsistentHashRing one = new ConsistentHashRing(List.of("a", "b", "c"));
+        ConsistentHashRing other = new ConsistentHashRing(List.of("c", "a", "b"));
+
+        assertEquals(one, other);
+        GAMES.subList(0, 1_000).forEach(game -> assertEquals(one.ownerOf(game), other.ownerOf(game)));
+        assertNull(new ConsistentHashRing(List.of()).ownerOf("game-1"));
+    }
+}
@@ -0,0 +1,109 @@
+package backend.belatro;
+
+import backend.belatro.components.ActiveGameIndex;
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.components.EmptyMatchReaper;
+import backend.belatro.components.GameWatchers;
+import backend.belatro.components.LiveGameCache;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import backend.belatro.services.BelotGameService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpSubscriptionMatcher;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class EmptyMatchReaperTest {
+
+    private final ActiveGameIndex index = mock(ActiveGameIndex.class);
+    private final BelotGameService games = mock(BelotGameService.class);
+    private final SimpUserRegistry users = mock(SimpUserRegistry.class);
+
+    @Test
+    void testOnlyIdleGamesAreReadAndOnlyUnwatchedOnesCancelled() {
+        EmptyMatchReaper reaper = new EmptyMatchReaper(index, games, ClusterMembership.standalone(),
+                new GameWatchers(null, ClusterMembership.standalone(), users, 60_000));
+        when(index.idleSince(any())).thenReturn(List.of("watched", "empty", "gone"));
+        when(games.head("watched")).thenReturn(new LiveGameCache.GameHead(3, GameState.PLAYING, "A1"));
+        when(games.head("empty")).thenReturn(new LiveGameCache.GameHead(9, GameState.BIDDING, "B2"));
+        watching("watched");
+
+        Instant before = Instant.now();
+        reaper.reap();
+        Instant after = Instant.now();
+
+        verify(index).idleSince(argThat(cutoff -> !cutoff.isBefore(before.minus(Duration.ofMinutes(20)))
+                && !cutoff.isAfter(after.minus(Duration.ofMinutes(20)))));
+        verify(games).cancelMatch(eq("empty"), anyString());
+        verify(games, never()).cancelMatch(eq("watched"), anyString());
+        verify(index).remove("gone");
+        verify(games, never()).get(anyString());
+    }
+
+    @Test
+    void testInAClusterOnlyOwnedGamesAreReapedAndWatchersOnOtherNodesCount() {
+        ClusterMembership cluster = mock(ClusterMembership.class);
+        when(cluster.isLocal(anyString())).thenAnswer(inv -> !inv.getArgument(0, String.class).startsWith("theirs"));
+        GameWatchers watchers = mock(GameWatchers.class);
+        when(watchers.isWatched("remote")).thenReturn(true);    // a session on another node
+        EmptyMatchReaper reaper = new EmptyMatchReaper(index, games, cluster, watchers);
+        when(index.idleSince(any())).thenReturn(List.of("theirs-empty", "theirs-gone", "remote", "empty"));
+        when(games.head(anyString())).thenReturn(new LiveGameCache.GameHead(3, GameState.PLAYING, "A1"));
+        when(games.head("theirs-gone")).thenReturn(null);
+
+        reaper.reap();
+
+        verify(games).cancelMatch(eq("empty"), anyString());
+        verify(games, never()).cancelMatch(eq("remote"), anyString());
+        verify(games, never()).cancelMatch(eq("theirs-empty"), anyString());
+        verify(games, never()).head(startsWith("theirs"));
+        verify(index, never()).remove(anyString());
+    }
+
+    @Test
+    void testWatchersAskRedisOnlyInAClusterAndKeepGamesWhenItIsDown() {
+        ClusterMembership cluster = mock(ClusterMembership.class);
+        @SuppressWarnings("unchecked")
+        RedisTemplate<String, BelotGame> redis = mock(RedisTemplate.class);
+        GameWatchers watchers = new GameWatchers(redis, cluster, users, 60_000);
+        watching("local");
+
+        assertTrue(watchers.isWatched("local"));
+        assertFalse(watchers.isWatched("remote"));
+        verifyNoInteractions(redis);
+
+        when(cluster.isEnabled()).thenReturn(true);
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenReturn(true, false)
+                .thenThrow(new IllegalStateException("down"));
+        assertTrue(watchers.isWatched("remote"));
+        assertFalse(watchers.isWatched("nobody"));
+        assertTrue(watchers.isWatched("unknown"));
+    }
+
+    private void watching(String... gameIds) {
+        List<SimpSubscription> subscriptions = Arrays.stream(gameIds).map(gameId -> {
+            SimpSubscription subscription = mock(SimpSubscription.class);
+            when(subscription.getDestination()).thenReturn("/topic/games/" + gameId);
+            return subscription;
+        }).toList();
+        when(users.findSubscriptions(any(SimpSubscriptionMatcher.class))).thenAnswer(inv -> {
+            SimpSubscriptionMatcher matcher = inv.getArgument(0);
+            return subscriptions.stream().filter(matcher::match).collect(Collectors.toSet());
+        });
+    }
+}
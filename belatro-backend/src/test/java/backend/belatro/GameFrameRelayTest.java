@@ -0,0 +1,152 @@
+package backend.belatro;
+
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.components.GameFrameRelay;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import io.lettuce.core.RedisNoScriptException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class GameFrameRelayTest {
+
+    private final ClusterMembership cluster = mock(ClusterMembership.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, BelotGame> redis = mock(RedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisScriptingCommands scripts = mock(RedisScriptingCommands.class);
+    private final RedisStreamCommands streams = mock(RedisStreamCommands.class);
+    private final MessageChannel broker = mock(MessageChannel.class);
+
+    private GameFrameRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(cluster.isEnabled()).thenReturn(true);
+        when(cluster.nodeId()).thenReturn("n1");
+        when(connection.scriptingCommands()).thenReturn(scripts);
+        when(connection.streamCommands()).thenReturn(streams);
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenAnswer(inv ->
+                inv.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        relay = new GameFrameRelay(cluster, redis, broker, 10_000, 200, 600_000);
+    }
+
+    @Test
+    void testGameFramesAreAppendedOnceAndStamped() {
+        when(scripts.evalSha(anyString(), any(), anyInt(), any(byte[][].class)))
+                .thenReturn("17-0".getBytes(StandardCharsets.UTF_8));
+
+        Message<?> sent = relay.preSend(frame("/user/Alice/queue/games/g1", "{}"), broker);
+
+        assertEquals("17-0", SimpMessageHeaderAccessor.wrap(sent).getFirstNativeHeader(GameFrameRelay.SEQ_HEADER));
+        ArgumentCaptor<byte[][]> keysAndArgs = ArgumentCaptor.forClass(byte[][].class);
+        verify(scripts).evalSha(anyString(), any(), eq(2), keysAndArgs.capture());
+        assertEquals("belot:frames:g1", new String(keysAndArgs.getValue()[1], StandardCharsets.UTF_8));
+
+        // resolved user destinations and other topics pass untouched
+        Message<?> resolved = frame("/queue/games/g1-user123", "{}");
+        assertSame(resolved, relay.preSend(resolved, broker));
+        Message<?> lobby = frame("/topic/lobbies/l1", "{}");
+        assertSame(lobby, relay.preSend(lobby, broker));
+        verify(scripts, times(1)).evalSha(anyString(), any(), anyInt(), any(byte[][].class));
+    }
+
+    @Test
+    void testScriptMissingFromRedisIsSentWhole() {
+        // as the Lettuce exception converter hands it over: the driver's error as the cause only
+        when(scripts.evalSha(anyString(), any(), anyInt(), any(byte[][].class))).thenThrow(
+                new RedisSystemException("Error in execution", new RedisNoScriptException("NOSCRIPT No matching script. Please use EVAL.")));
+        when(scripts.eval(any(byte[].class), any(), anyInt(), any(byte[][].class)))
+                .thenReturn("18-0".getBytes(StandardCharsets.UTF_8));
+
+        Message<?> sent = relay.preSend(frame("/topic/games/g1", "{}"), broker);
+
+        assertEquals("18-0", SimpMessageHeaderAccessor.wrap(sent).getFirstNativeHeader(GameFrameRelay.SEQ_HEADER));
+        verify(scripts).eval(any(byte[].class), any(), eq(2), any(byte[][].class));
+    }
+
+    @Test
+    void testFramesFromOtherNodesReachTheLocalBrokerInOrder() {
+        when(streams.xRead(any(), any())).thenReturn(List.of(
+                record("5-0", "n2", "/topic/games/g1", "first"),
+                record("5-1", "n1", "/topic/games/g1", "mine"),
+                record("6-0", "n2", "/user/Bob/queue/games/g1", "second")));
+
+        assertEquals(2, relay.poll());
+
+        ArgumentCaptor<Message<?>> delivered = ArgumentCaptor.forClass(Message.class);
+        verify(broker, times(2)).send(delivered.capture());
+        List<String> seen = delivered.getAllValues().stream()
+                .map(m -> SimpMessageHeaderAccessor.getDestination(m.getHeaders()) + " "
+                        + new String((byte[]) m.getPayload(), StandardCharsets.UTF_8) + " "
+                        + SimpMessageHeaderAccessor.wrap(m).getFirstNativeHeader(GameFrameRelay.SEQ_HEADER))
+                .toList();
+        assertEquals(List.of("/topic/games/g1 first 5-0", "/user/Bob/queue/games/g1 second 6-0"), seen);
+
+        // a relayed frame is delivered here, never appended again
+        assertSame(delivered.getValue(), relay.preSend(delivered.getValue(), broker));
+        verifyNoInteractions(scripts);
+    }
+
+    @Test
+    void testReplayGivesTheUsersFramesOrNullPastTheWindow() {
+        when(streams.xRange(any(), any(), any())).thenReturn(List.of(record("5-0", null, "/topic/games/g1", "a")));
+        when(streams.xRange(any(), any())).thenReturn(List.of(
+                record("6-0", null, "/topic/games/g1", "b"),
+                record("6-1", null, "/user/Bob/queue/games/g1", "bob"),
+                record("6-2", null, "/user/Alice/queue/games/g1", "alice")));
+
+        List<GameFrameRelay.Frame> frames = relay.replay("g1", "5-0", "Alice");
+        assertEquals(List.of("6-0", "6-2"), frames.stream().map(GameFrameRelay.Frame::seq).toList());
+
+        assertNull(relay.replay("g1", "4-9", "Alice"));
+        assertNull(relay.replay("g1", "not-an-id", "Alice"));
+    }
+
+    private static Message<byte[]> frame(String destination, String body) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), headers.getMessageHeaders());
+    }
+
+    private static ByteRecord record(String id, String node, String destination, String body) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        if (node != null) {
+            fields.put("n".getBytes(StandardCharsets.UTF_8), node.getBytes(StandardCharsets.UTF_8));
+        }
+        fields.put("d".getBytes(StandardCharsets.UTF_8), destination.getBytes(StandardCharsets.UTF_8));
+        fields.put("c".getBytes(StandardCharsets.UTF_8), "application/json".getBytes(StandardCharsets.UTF_8));
+        fields.put("p".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+        return StreamRecords.newRecord().in("belot:frames".getBytes(StandardCharsets.UTF_8))
+                .withId(RecordId.of(id)).ofBytes(fields);
+    }
+}
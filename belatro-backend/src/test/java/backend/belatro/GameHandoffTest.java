@@ -0,0 +1,83 @@
+package backend.belatro;
+
+import backend.belatro.components.*;
+import backend.belatro.events.ClusterMembershipChangedEvent;
+import backend.belatro.services.BelotGameService;
+import backend.belatro.util.ConsistentHashRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class GameHandoffTest {
+
+    private final ClusterMembership cluster = mock(ClusterMembership.class);
+    private final LiveGameCache cache = mock(LiveGameCache.class);
+    private final GameLeases leases = mock(GameLeases.class);
+    private final ActiveGameIndex activeGames = mock(ActiveGameIndex.class);
+    private final BelotGameService games = mock(BelotGameService.class);
+    private final TurnTimerService timers = mock(TurnTimerService.class);
+    private final GameMailboxes mailboxes = new GameMailboxes(new SimpleMeterRegistry());
+    private final GameHandoff handoff = new GameHandoff(cluster, cache, leases, mailboxes, activeGames, games, timers);
+
+    @AfterEach
+    void tearDown() {
+        mailboxes.shutdown();
+    }
+
+    @Test
+    void testGameIsReleasedOnlyAfterTheActionRunningInItsMailbox() throws Exception {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a"));
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b"));
+        String gameId = IntStream.range(0, 100).mapToObj(i -> "g" + i)
+                .filter(id -> "b".equals(after.ownerOf(id)))
+                .findFirst().orElseThrow();
+        when(cluster.nodeId()).thenReturn("a");
+        when(cache.ids()).thenReturn(Set.of(gameId));
+        when(activeGames.byState()).thenReturn(Map.of());
+
+        List<String> happened = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(inv -> happened.add("released")).when(cache).release(List.of(gameId));
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        CompletableFuture<Void> action = mailboxes.submit(gameId, () -> {
+            running.countDown();
+            awaitQuietly(proceed);
+            happened.add("saved");
+            return null;
+        });
+        running.await();
+
+        CompletableFuture<Void> handedOff = CompletableFuture.runAsync(
+                () -> handoff.onMembershipChanged(new ClusterMembershipChangedEvent(before, after)));
+        assertThrows(TimeoutException.class, () -> handedOff.get(200, TimeUnit.MILLISECONDS));
+        proceed.countDown();
+        handedOff.get();
+
+        assertTrue(action.isDone());
+        assertEquals(List.of("saved", "released"), happened);
+        verify(leases).release(List.of(gameId));
+        verify(timers).cancelTimer(gameId);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
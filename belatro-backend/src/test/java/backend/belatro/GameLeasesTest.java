@@ -0,0 +1,88 @@
+package backend.belatro;
+
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.components.GameLeases;
+import backend.belatro.exceptions.GameNotOwnedException;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class GameLeasesTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, BelotGame> redis = mock(RedisTemplate.class);
+
+    @Test
+    void testHeldLeaseIsOnlyRenewedWhenHalfOfItIsLeft() throws Exception {
+        GameLeases leases = new GameLeases(redis, new ClusterMembership(null, null, true, "n1", 0), 200);
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenReturn(new byte[0]);
+
+        leases.hold("g1");
+        leases.hold("g1");
+        verify(redis, times(1)).execute(ArgumentMatchers.<RedisCallback<Object>>any());
+
+        Thread.sleep(120);
+        leases.hold("g1");
+        verify(redis, times(2)).execute(ArgumentMatchers.<RedisCallback<Object>>any());
+    }
+
+    @Test
+    void testLeaseHeldElsewhereRefusesTheActionUntilItIsFree() {
+        GameLeases leases = new GameLeases(redis, new ClusterMembership(null, null, true, "n1", 0), 10_000);
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any()))
+                .thenReturn("n2".getBytes(StandardCharsets.UTF_8))
+                .thenReturn(new byte[0]);
+
+        GameNotOwnedException refused = assertThrows(GameNotOwnedException.class, () -> leases.hold("g1"));
+        assertTrue(refused.getMessage().contains("n2"));
+        leases.hold("g1");
+        leases.hold("g1");
+
+        verify(redis, times(2)).execute(ArgumentMatchers.<RedisCallback<Object>>any());
+    }
+
+    @Test
+    void testReleasedLeaseIsTakenAgainOnTheNextAction() {
+        GameLeases leases = new GameLeases(redis, new ClusterMembership(null, null, true, "n1", 0), 10_000);
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenReturn(new byte[0]);
+
+        leases.hold("g1");
+        leases.release(List.of("g1"));
+        leases.hold("g1");
+
+        verify(redis).executePipelined(any(RedisCallback.class));
+        verify(redis, times(2)).execute(ArgumentMatchers.<RedisCallback<Object>>any());
+    }
+
+    @Test
+    void testLeasesThatRanOutAreForgotten() throws Exception {
+        GameLeases leases = new GameLeases(redis, new ClusterMembership(null, null, true, "n1", 0), 50);
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenReturn(new byte[0]);
+        leases.hold("g1");
+        leases.evictExpired();
+        assertEquals(1, leases.size());
+
+        Thread.sleep(60);
+        leases.evictExpired();
+        assertEquals(0, leases.size());
+    }
+
+    @Test
+    void testNodeOnItsOwnNeverAsksRedis() {
+        GameLeases leases = new GameLeases(redis, ClusterMembership.standalone(), 10_000);
+
+        leases.hold("g1");
+        leases.release(List.of("g1"));
+
+        verifyNoInteractions(redis);
+    }
+}
@@ -0,0 +1,130 @@
+package backend.belatro;
+
+import backend.belatro.components.GameMailboxes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameMailboxesTest {
+
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+    private final GameMailboxes mailboxes = new GameMailboxes(meters);
+
+    @AfterEach
+    void tearDown() {
+        mailboxes.shutdown();
+    }
+
+    @Test
+    void testCommandsForOneGameRunOneAtATimeInArrivalOrder() throws Exception {
+        List<Integer> ran = new ArrayList<>();            // not thread-safe on purpose
+        AtomicBoolean inside = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+
+        try (ExecutorService senders = Executors.newFixedThreadPool(8)) {
+            for (int sender = 0; sender < 8; sender++) {
+                int base = sender * 1_000;
+                senders.execute(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        int value = base + i;
+                        CompletableFuture<Void> result = mailboxes.submit("g1", () -> {
+                            overlapped.compareAndSet(false, !inside.compareAndSet(false, true));
+                            ran.add(value);
+                            inside.set(false);
+                            return null;
+                        });
+                        synchronized (results) {
+                            results.add(result);
+                        }
+                    }
+                });
+            }
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get();
+
+        assertFalse(overlapped.get());
+        assertEquals(400, ran.size());
+        for (int sender = 0; sender < 8; sender++) {
+            int base = sender * 1_000;
+            List<Integer> own = ran.stream().filter(v -> v / 1_000 == base / 1_000).toList();
+            assertEquals(own.stream().sorted().toList(), own);
+        }
+        assertEquals(400, meters.get("belatro.game.command.run").timer().count());
+        assertEquals(0.0, meters.get("belatro.game.commands.queued").gauge().value());
+    }
+
+    @Test
+    void testSlowGameDoesNotHoldUpOthers() {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = mailboxes.submit("slow", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        });
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> assertEquals("fast", mailboxes.call("fast", () -> "fast")));
+        assertFalse(slow.isDone());
+
+        release.countDown();
+        assertEquals("slow", slow.join());
+    }
+
+    @Test
+    void testCallFromInsideTheSameGameRunsInline() {
+        int result = assertTimeoutPreemptively(Duration.ofSeconds(2),
+                () -> mailboxes.call("g2", () -> mailboxes.call("g2", () -> 1) + 1));
+        assertEquals(2, result);
+    }
+
+    @Test
+    void testFailureReachesTheCallerAndTheMailboxKeepsWorking() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> mailboxes.call("g3", () -> {
+                    throw new IllegalStateException("Game not found: g3");
+                }));
+        assertEquals("Game not found: g3", thrown.getMessage());
+        assertEquals("next", mailboxes.call("g3", () -> "next"));
+    }
+
+    @Test
+    void testRetiredMailboxIsDroppedOnceEmpty() {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = mailboxes.submit("g4", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        mailboxes.call("g5", () -> null);
+        assertEquals(2, mailboxes.size());
+
+        mailboxes.retire("g4");
+        mailboxes.retire("g5");
+        assertEquals(1, mailboxes.size());                // g4 still has its command running
+
+        release.countDown();
+        running.join();
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (mailboxes.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(0, mailboxes.size());
+    }
+}
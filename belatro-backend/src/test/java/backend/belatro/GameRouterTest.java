@@ -0,0 +1,85 @@
+package backend.belatro;
+
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.components.GameRouter;
+import backend.belatro.dtos.BidMsg;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class GameRouterTest {
+
+    private final ClusterMembership cluster = mock(ClusterMembership.class);
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, BelotGame> redis = mock(RedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisMessageListenerContainer listeners = mock(RedisMessageListenerContainer.class);
+
+    private GameRouter router;
+
+    @BeforeEach
+    void setUp() {
+        when(cluster.isEnabled()).thenReturn(true);
+        when(cluster.nodeId()).thenReturn("n1");
+        when(cluster.isLocal(any())).thenAnswer(inv -> inv.getArgument(0).equals("mine"));
+        when(cluster.ownerOf(any())).thenReturn("n2");
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenAnswer(inv ->
+                inv.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        router = new GameRouter(cluster, redis, listeners, new ObjectMapper());
+    }
+
+    @Test
+    void testCommandForAnotherNodesGameIsPublishedToItAndRunThere() {
+        when(connection.publish(any(), any())).thenReturn(1L);
+        BidMsg bid = new BidMsg("Alice", false, Boja.HERC);
+        Principal alice = () -> "Alice";
+
+        assertFalse(router.forward("mine", "bid", bid, alice));
+        assertTrue(router.forward("theirs", "bid", bid, alice));
+
+        ArgumentCaptor<byte[]> message = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).publish(eq("belot:node:n2".getBytes(StandardCharsets.UTF_8)), message.capture());
+
+        // the owner's side: the listener runs the registered handler, which must not forward again
+        List<String> ran = new ArrayList<>();
+        router.on("bid", BidMsg.class, (gameId, payload, principal) -> {
+            ran.add(gameId + " " + payload + " " + principal.getName());
+            assertFalse(router.forward(gameId, "bid", payload, principal));
+        });
+        router.listen();
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(listeners).addMessageListener(listener.capture(), eq(new ChannelTopic("belot:node:n1")));
+        listener.getValue().onMessage(new DefaultMessage("belot:node:n1".getBytes(StandardCharsets.UTF_8), message.getValue()), null);
+
+        assertEquals(List.of("theirs " + bid + " Alice"), ran);
+        verify(connection, times(1)).publish(any(), any());
+    }
+
+    @Test
+    void testCommandNobodyReceivesRunsHere() {
+        when(connection.publish(any(), any())).thenReturn(0L);
+
+        assertFalse(router.forward("theirs", "cancel", null, null));
+    }
+}
@@ -0,0 +1,111 @@
+package backend.belatro;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: the mask based {@link LegalMoves} must agree with the original
+ * list/stream implementation of {@code BelotGame.getLegalMoves()} on random positions.
+ */
+public class LegalMovesTest {
+
+    private static final int POSITIONS = 2_000_000;
+    private static final String[] SEATS = {"p0", "p1", "p2", "p3"};
+
+    @Test
+    void testMatchesListImplementationOnRandomPositions() {
+        Random random = new Random(42);
+        List<Card> deck = new ArrayList<>(CardSet.toList(CardSet.FULL_DECK));
+
+        for (int i = 0; i < POSITIONS; i++) {
+            Collections.shuffle(deck, random);
+            Boja trump = Boja.values()[random.nextInt(4)];
+            int plays = random.nextInt(4);
+            int handSize = 1 + random.nextInt(8);
+
+            Trick trick = new Trick(SEATS[0], trump);
+            for (int p = 0; p < plays; p++) {
+                trick.addPlay(SEATS[p], deck.get(p));
+            }
+            List<Card> hand = deck.subList(plays, plays + handSize);
+
+            Set<Card> expected = new HashSet<>(legacyLegalMoves(hand, trick, trump));
+            Boja leadSuit = plays > 0 ? trick.getLeadCard().getBoja() : null;
+            int actual = LegalMoves.of(CardSet.of(hand), trick.getPlayedSet(), leadSuit, trump);
+
+            assertEquals(expected, new HashSet<>(CardSet.toList(actual)),
+                    () -> "Mismatch for hand " + hand + " in " + trick);
+        }
+    }
+
+    @Test
+    void testGameUsesMaskGenerator() {
+        Player p1 = new Player("player1");
+        Player p2 = new Player("player2");
+        Player p3 = new Player("player3");
+        Player p4 = new Player("player4");
+        BelotGame game = new BelotGame(UUID.randomUUID().toString(),
+                new Team(List.of(p1, p3)), new Team(List.of(p2, p4)));
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC));
+
+        for (int i = 0; i < 32; i++) {
+            Player current = game.getCurrentPlayer();
+            List<Card> legal = game.getLegalMoves();
+            assertFalse(legal.isEmpty());
+            for (Card card : current.getHand()) {
+                assertEquals(legal.contains(card), game.isValidPlay(current, card));
+            }
+            game.playCard(current, legal.getFirst(), false);
+        }
+    }
+
+    /** Verbatim copy of the pre-mask {@code BelotGame.getLegalMoves()} rules. */
+    private static List<Card> legacyLegalMoves(List<Card> hand, Trick currentTrick, Boja trump) {
+        if (currentTrick.getPlays().isEmpty()) {
+            return new ArrayList<>(hand);
+        }
+
+        Card leadCard = currentTrick.getLeadCard();
+        Boja leadSuit = leadCard.getBoja();
+
+        List<Card> leadSuitCards = hand.stream()
+                .filter(c -> c.getBoja() == leadSuit)
+                .toList();
+        if (!leadSuitCards.isEmpty()) {
+            Card currentWinner = currentTrick.getWinningCard();
+            Comparator<Card> comparator = (leadSuit == trump)
+                    ? BelotRankComparator.getTrumpComparator()
+                    : BelotRankComparator.getNonTrumpComparator();
+            List<Card> overcards = leadSuitCards.stream()
+                    .filter(c -> comparator.compare(c, currentWinner) > 0)
+                    .toList();
+            return overcards.isEmpty() ? leadSuitCards : overcards;
+        }
+
+        List<Card> trumpCards = hand.stream()
+                .filter(c -> c.getBoja() == trump)
+                .toList();
+        if (!trumpCards.isEmpty()) {
+            Optional<Card> highestTrumpInTrick = currentTrick.getPlays().values().stream()
+                    .filter(c -> c.getBoja() == trump)
+                    .max(BelotRankComparator.getTrumpComparator());
+            if (highestTrumpInTrick.isPresent()) {
+                Card highestTrump = highestTrumpInTrick.get();
+                List<Card> overtrumps = trumpCards.stream()
+                        .filter(c -> BelotRankComparator.getTrumpComparator()
+                                .compare(c, highestTrump) > 0)
+                        .toList();
+                return overtrumps.isEmpty() ? trumpCards : overtrumps;
+            }
+            return trumpCards;
+        }
+
+        return new ArrayList<>(hand);
+    }
+}
@@ -0,0 +1,413 @@
+package backend.belatro;
+
+import backend.belatro.components.ActiveGameIndex;
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.components.LiveGameCache;
+import backend.belatro.components.NearGameCache;
+import backend.belatro.components.ReactiveGameStore;
+import backend.belatro.exceptions.StaleGameException;
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import backend.belatro.util.BelotGameRedisSerializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisNoScriptException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.invocation.Invocation;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static backend.belatro.TestGames.newGame;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class LiveGameCacheTest {
+
+    private final BelotGameRedisSerializer serializer = new BelotGameRedisSerializer(
+            JsonMapper.builder().addModule(new JavaTimeModule()).build(), false);
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, BelotGame> redis = mock(RedisTemplate.class);
+    private final RedisConnection connection = mock(RedisConnection.class);
+    private final RedisScriptingCommands scripts = mock(RedisScriptingCommands.class);
+    private final ReactiveGameStore store = mock(ReactiveGameStore.class);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+    /** What the save script answers for each call of the next pipeline. */
+    private final List<Object> replies = new ArrayList<>();
+
+    /** Flushes only when the test asks to. */
+    private LiveGameCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(connection.scriptingCommands()).thenReturn(scripts);
+        when(store.load(any())).thenReturn(Mono.empty());
+        when(store.head(any())).thenReturn(Mono.empty());
+        when(redis.executePipelined(any(RedisCallback.class), any(RedisSerializer.class))).thenAnswer(inv -> pipeline(inv.getArgument(0)));
+        when(redis.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenAnswer(inv ->
+                inv.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        cache = new LiveGameCache(redis, store, serializer, ClusterMembership.standalone(), NearGameCache.disabled(), meters, TimeUnit.HOURS.toMillis(1), "string");
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void testSavesCoalesceIntoOneWritePerGame() {
+        BelotGame game = newGame("g1");
+        assertNull(cache.save(game, null));
+        game.startGame();
+        assertEquals(GameState.INITIALIZED, cache.save(game, null));
+        assertEquals(GameState.BIDDING, cache.save(game, null));
+        cache.save(newGame("g2"), null);
+
+        BelotGame read = cache.get("g1");
+        assertEquals(GameState.BIDDING, read.getGameState());
+        assertEquals(3, read.getVersion());
+        assertNotSame(read, cache.get("g1"));
+        verifyNoInteractions(connection);
+
+        replies.add(List.of(1L, 0L));
+        replies.add(List.of(1L, 0L));
+        cache.flushNow();
+
+        verify(redis, times(1)).executePipelined(any(RedisCallback.class), any(RedisSerializer.class));
+        assertSaved("g1", arg(0), serializer.serialize(game), arg(0));
+        assertSaved("g2", arg(0), null, arg(0));
+        assertEquals(2, mockingDetails(scripts).getInvocations().size());
+
+        // the index keys follow the game key, so the script can file the game in the same call
+        Object[] call = mockingDetails(scripts).getInvocations().iterator().next().getArguments();
+        assertEquals(1 + 1 + ActiveGameIndex.LIVE_STATES.size(), call[2]);
+        assertEquals(ActiveGameIndex.ACTIVE_KEY, new String((byte[]) call[4], StandardCharsets.UTF_8));
+        assertEquals(ActiveGameIndex.STATE_KEY_PREFIX + ActiveGameIndex.LIVE_STATES.get(0),
+                new String((byte[]) call[5], StandardCharsets.UTF_8));
+        assertEquals(0, pendingWrites());
+
+        // the next write expects what this one left in Redis
+        read.setLastActivity(Instant.now());
+        cache.save(read, Duration.ofMinutes(3));
+        replies.add(List.of(1L, 3L, "BIDDING"));
+        cache.flushNow();
+        assertSaved("g1", arg(3), null, arg(180_000));
+    }
+
+    @Test
+    void testSaveFromAnOldCopyIsRefused() {
+        BelotGame game = newGame("g5");
+        cache.save(game, null);
+        BelotGame first = cache.get("g5");
+        BelotGame second = cache.get("g5");
+
+        first.startGame();
+        assertEquals(GameState.INITIALIZED, cache.save(first, null));
+        assertThrows(StaleGameException.class, () -> cache.save(second, null));
+
+        assertEquals(GameState.BIDDING, cache.get("g5").getGameState());
+        assertEquals(2, cache.get("g5").getVersion());
+    }
+
+    @Test
+    void testUnknownGameIsLoadedFromRedisOnce() {
+        BelotGame stored = newGame("g3");
+        stored.startGame();
+        stored.setVersion(7);
+        inRedis(stored, null);
+
+        assertEquals(GameState.BIDDING, cache.get("g3").getGameState());
+        assertEquals(7, cache.get("g3").getVersion());
+        assertNull(cache.get("missing"));
+        verify(store, times(1)).load("g3");
+
+        assertEquals(GameState.BIDDING, cache.save(cache.get("g3"), null));
+        replies.add(List.of(1L, 7L, "BIDDING"));
+        cache.flushNow();
+        assertSaved("g3", arg(7), null, arg(0));
+    }
+
+    @Test
+    void testConflictInRedisDropsTheLocalCopy() {
+        BelotGame mine = newGame("g6");
+        mine.startGame();
+        cache.save(mine, null);
+        BelotGame theirs = newGame("g6");
+        theirs.setVersion(4);
+        inRedis(theirs, null);
+
+        replies.add(List.of(0L, 4L, "INITIALIZED"));
+        cache.flushNow();
+
+        assertEquals(1, conflicts());
+        assertEquals(0, pendingWrites());
+        assertEquals(GameState.INITIALIZED, cache.get("g6").getGameState());
+        assertEquals(4, cache.get("g6").getVersion());
+    }
+
+    @Test
+    void testFailedFlushKeepsTheNewestSnapshot() {
+        BelotGame game = newGame("g4");
+        cache.save(game, null);
+        when(redis.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenThrow(new QueryTimeoutException("redis down"))
+                .thenAnswer(inv -> pipeline(inv.getArgument(0)));
+
+        cache.flushNow();
+        assertEquals(1, pendingWrites());
+
+        game.startGame();
+        cache.save(game, Duration.ofMinutes(3));
+        replies.add(List.of(1L, 0L));
+        cache.flushNow();
+
+        assertSaved("g4", arg(0), serializer.serialize(game), arg(180_000));
+        assertEquals(1, mockingDetails(scripts).getInvocations().size());
+        assertEquals(0, pendingWrites());
+    }
+
+    @Test
+    void testMissingScriptIsLoadedAndTheFlushRetried() {
+        cache.save(newGame("g7"), null);
+        when(redis.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenThrow(new RedisPipelineException(new RedisSystemException("Error in execution",
+                        new RedisNoScriptException("NOSCRIPT No matching script. Please use EVAL.")), List.of()))
+                .thenAnswer(inv -> pipeline(inv.getArgument(0)));
+
+        replies.add(List.of(1L, 0L));
+        cache.flushNow();
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (saves("g7").isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertSaved("g7", arg(0), null, arg(0));
+
+        verify(scripts).scriptLoad(any(byte[].class));
+        assertEquals(0, pendingWrites());
+    }
+
+    @Test
+    void testScriptIsLoadedAtStartAndOnEveryReconnect() {
+        LettuceConnectionFactory factory = mock(LettuceConnectionFactory.class);
+        RedisClient client = mock(RedisClient.class);
+        when(redis.getConnectionFactory()).thenReturn(factory);
+        when(factory.getNativeClient()).thenReturn(client);
+
+        cache.start();
+        cache.flushNow();   // runs after the load on the writer thread
+        verify(scripts, times(1)).scriptLoad(any(byte[].class));
+
+        ArgumentCaptor<RedisConnectionStateListener> listener = ArgumentCaptor.forClass(RedisConnectionStateListener.class);
+        verify(client).addListener(listener.capture());
+        listener.getValue().onRedisConnected(mock(RedisChannelHandler.class), null);
+        cache.flushNow();
+        verify(scripts, times(2)).scriptLoad(any(byte[].class));
+    }
+
+    @Test
+    void testHashLayoutWritesOnlyTheChangedSections() {
+        LiveGameCache hashed = new LiveGameCache(redis, store, serializer, ClusterMembership.standalone(), NearGameCache.disabled(), new SimpleMeterRegistry(), TimeUnit.HOURS.toMillis(1), "hash");
+        try {
+            BelotGame game = newGame("h1");
+            game.startGame();
+            game.placeBid(Bid.callTrump(game.getCurrentPlayer(), Boja.HERC));
+            hashed.save(game, null);
+            hashed.flushNow();
+
+            List<String> first = lastSaveArgs();
+            assertEquals(List.of("belot:game:h1", "0", "1", "PLAYING", game.getCurrentPlayer().getId(), "0", "1"),
+                    first.subList(0, 7));
+            assertEquals(BelotGameCodec.SECTIONS, fieldNames(first));
+
+            game = hashed.get("h1");
+            int seat = game.getCurrentSeat();
+            game.playCard(seat, CardSet.get(game.getLegalMoveSet(), 0), false);
+            hashed.save(game, Duration.ofMinutes(3));
+            replies.add(List.of(1L, 1L, "PLAYING"));
+            hashed.flushNow();
+
+            List<String> second = lastSaveArgs();
+            assertEquals(List.of("belot:game:h1", "1", "2", "PLAYING", game.getCurrentPlayer().getId(), "180000", "0"),
+                    second.subList(0, 7));
+            assertEquals(List.of("hand" + seat, "trick"), fieldNames(second));
+        } finally {
+            hashed.shutdown();
+        }
+    }
+
+    @Test
+    void testHashLayoutHeadReadsThreeFieldsAndGetReadsTheHash() {
+        BelotGame stored = newGame("h2");
+        stored.startGame();
+        stored.setVersion(5);
+        inRedis(stored, BelotGameCodec.encodeSections(stored));
+        when(store.head("h2")).thenReturn(Mono.just(
+                new LiveGameCache.GameHead(5, GameState.BIDDING, stored.getCurrentPlayer().getId())));
+
+        LiveGameCache hashed = new LiveGameCache(redis, store, serializer, ClusterMembership.standalone(), NearGameCache.disabled(), new SimpleMeterRegistry(), TimeUnit.HOURS.toMillis(1), "hash");
+        try {
+            assertEquals(new LiveGameCache.GameHead(5, GameState.BIDDING, stored.getCurrentPlayer().getId()), hashed.head("h2"));
+            assertNull(hashed.head("missing"));
+            verify(store, never()).load(any());
+
+            BelotGame read = hashed.get("h2");
+            assertEquals(5, read.getVersion());
+            assertArrayEquals(serializer.serialize(stored), serializer.serialize(read));
+
+            // sections read from Redis count as written: an unchanged save writes none of them
+            hashed.save(read, null);
+            replies.add(List.of(1L, 5L, "BIDDING"));
+            hashed.flushNow();
+            List<String> args = lastSaveArgs();
+            assertEquals(List.of("5", "6", "0"), List.of(args.get(1), args.get(2), args.get(6)));
+            assertEquals(List.of(), fieldNames(args));
+        } finally {
+            hashed.shutdown();
+        }
+    }
+
+    @Test
+    void testGameOwnedElsewhereIsReadThroughAndNotKept() {
+        ClusterMembership cluster = mock(ClusterMembership.class);
+        when(cluster.isLocal(any())).thenAnswer(inv -> !inv.getArgument(0).equals("away"));
+        LiveGameCache shared = new LiveGameCache(redis, store, serializer, cluster, NearGameCache.disabled(), new SimpleMeterRegistry(), TimeUnit.HOURS.toMillis(1), "string");
+        try {
+            BelotGame stored = newGame("away");
+            stored.startGame();
+            stored.setVersion(4);
+            inRedis(stored, null);
+
+            assertEquals(4, shared.get("away").getVersion());
+            assertEquals(GameState.BIDDING, shared.head("away").state());
+            verify(store, times(2)).load("away");
+
+            // a save still expects the version it read, and is dropped once written
+            shared.save(shared.get("away"), null);
+            shared.save(newGame("home"), null);
+            replies.add(List.of(1L, 4L, "BIDDING"));
+            replies.add(List.of(1L, 0L));
+            shared.flushNow();
+            assertSaved("away", arg(4), null, arg(0));
+            assertEquals(Set.of("home"), shared.ids());
+
+            shared.release(List.of("home"));
+            assertEquals(Set.of(), shared.ids());
+        } finally {
+            shared.shutdown();
+        }
+    }
+
+    /** Makes the store answer with a fresh copy of {@code game} on every read. */
+    private void inRedis(BelotGame game, byte[][] sections) {
+        byte[] bytes = serializer.serialize(game);
+        when(store.load(game.getGameId())).thenAnswer(inv ->
+                Mono.fromSupplier(() -> new ReactiveGameStore.Loaded(serializer.deserialize(bytes), sections)));
+    }
+
+    /** Arguments after the keys of each save script call for {@code gameId}, in call order. */
+    private List<List<byte[]>> saves(String gameId) {
+        List<List<byte[]>> saves = new ArrayList<>();
+        for (Invocation call : mockingDetails(scripts).getInvocations()) {
+            Object[] args = call.getArguments();
+            if (call.getMethod().getName().equals("evalSha") && Arrays.equals((byte[]) args[3], key(gameId))) {
+                List<byte[]> argv = new ArrayList<>();
+                for (int i = 3 + (Integer) args[2]; i < args.length; i++) {
+                    argv.add((byte[]) args[i]);
+                }
+                saves.add(argv);
+            }
+        }
+        return saves;
+    }
+
+    /** Asserts some save of {@code gameId} was called with {@code argv}, null matching anything. */
+    private void assertSaved(String gameId, byte[]... argv) {
+        boolean found = saves(gameId).stream().anyMatch(call -> {
+            for (int i = 0; i < argv.length; i++) {
+                if (argv[i] != null && !Arrays.equals(argv[i], call.get(i))) {
+                    return false;
+                }
+            }
+            return call.size() == argv.length;
+        });
+        assertTrue(found, "no save of " + gameId + " with the expected arguments");
+    }
+
+    /** Key and arguments of the last save script call, as text. */
+    private List<String> lastSaveArgs() {
+        Invocation call = mockingDetails(scripts).getInvocations().stream()
+                .filter(inv -> inv.getMethod().getName().equals("evalSha"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        Object[] args = call.getArguments();
+        List<String> text = new ArrayList<>();
+        text.add(new String((byte[]) args[3], StandardCharsets.UTF_8));
+        for (int i = 3 + (Integer) args[2]; i < args.length; i++) {
+            text.add(new String((byte[]) args[i], StandardCharsets.UTF_8));
+        }
+        return text;
+    }
+
+    /** Section fields among {@link #lastSaveArgs} of a hash layout save. */
+    private static List<String> fieldNames(List<String> args) {
+        List<String> names = new ArrayList<>();
+        for (int i = 7; i < args.size(); i += 2) {
+            names.add(args.get(i));
+        }
+        return names;
+    }
+
+    /** Runs {@code callback} and answers with {@link #replies}, or with a success per call if none were set. */
+    private List<Object> pipeline(RedisCallback<?> callback) {
+        int before = mockingDetails(scripts).getInvocations().size();
+        callback.doInRedis(connection);
+        int calls = mockingDetails(scripts).getInvocations().size() - before;
+        List<Object> answered = new ArrayList<>(replies);
+        replies.clear();
+        while (answered.size() < calls) {
+            answered.add(List.of(1L, 0L));
+        }
+        return answered;
+    }
+
+    private static byte[] key(String gameId) {
+        return ("belot:game:" + gameId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] arg(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private double conflicts() {
+        return meters.get("belatro.game-cache.conflicts").functionCounter().count();
+    }
+
+    private double pendingWrites() {
+        return meters.get("belatro.game-cache.pending").gauge().value();
+    }
+}
@@ -0,0 +1,60 @@
+package backend.belatro;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.simulation.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonteCarloPolicyTest {
+
+    @Test
+    void testDecidesLegallyWithinBudgetWithoutTouchingTheGame() {
+        SplittableRandom random = new SplittableRandom(3);
+        GreedyPolicy greedy = new GreedyPolicy();
+        BelotGame game = new BelotGame("mc",
+                new Team(List.of(new Player("p1"), new Player("p3"))),
+                new Team(List.of(new Player("p2"), new Player("p4"))), 11L);
+        game.startGame();
+        game.placeBid(Bid.callTrump(game.getCurrentPlayer(),
+                greedy.chooseTrump(game, game.getCurrentSeat(), true, random)));
+
+        try (MonteCarloPolicy policy = new MonteCarloPolicy(Duration.ofMillis(20), 2)) {
+            while (game.getCompletedTrickCount() < 7) {
+                int seat = game.getCurrentSeat();
+                int hand = game.playerAt(seat).getHandSet();
+                int legal = game.getLegalMoveSet();
+                int tablePlays = game.getCurrentTrick().size();
+
+                long start = System.nanoTime();
+                MonteCarloPolicy.Decision decision = policy.decide(game, seat, random.nextLong());
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+                assertTrue(CardSet.contains(legal, decision.card()), decision + " not in " + CardSet.toString(legal));
+                assertTrue(elapsedMs < 200, "decision took " + elapsedMs + " ms");
+                assertTrue(CardSet.size(legal) == 1 || decision.samples() > 0);
+                assertEquals(hand, game.playerAt(seat).getHandSet());
+                assertEquals(tablePlays, game.getCurrentTrick().size());
+
+                assertTrue(game.playCard(seat, decision.card(), false));
+            }
+        }
+    }
+
+    @Test
+    void testMonteCarloAgainstGreedyKeepsInvariants() {
+        try (MonteCarloPolicy mc = new MonteCarloPolicy(Duration.ofMillis(1), 0)) {
+            SelfPlaySimulator simulator = new SelfPlaySimulator(List.of(mc, new GreedyPolicy(), mc, new GreedyPolicy()));
+
+            SimulationReport report = simulator.run(4, 5L, 2);
+
+            assertEquals(4, report.games());
+            assertEquals(4, report.teamAWins() + report.teamBWins());
+            assertEquals(0, report.violations(), report::toString);
+        }
+    }
+}
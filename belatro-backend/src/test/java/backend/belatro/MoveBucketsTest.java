@@ -0,0 +1,257 @@
+package backend.belatro;
+
+import backend.belatro.components.MoveBuckets;
+import backend.belatro.enums.MoveType;
+import backend.belatro.models.MatchMove;
+import backend.belatro.models.MatchMoveBucket;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class MoveBucketsTest {
+
+    private final MongoMappingContext mapping = new MongoMappingContext();
+    private final MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mapping);
+
+    {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        mapping.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void testHandReadsBackAsTheMovesThatWereRecorded() {
+        Map<String, Object> handEnd = new HashMap<>();
+        handEnd.put("teamAHandPoints", 92);
+        handEnd.put("capot", false);
+        List<MatchMove> hand = List.of(
+                move(8, 1, MoveType.BID, Map.of("playerId", "p1", "pass", true)),
+                move(16, 1, MoveType.BID, Map.of("playerId", "p2", "pass", false, "trump", "HERC")),
+                move(24, 1, MoveType.PLAY_CARD, Map.of("playerId", "p2", "card", "AS of HERC", "declareBela", false, "legal", true)),
+                move(25, 1, MoveType.END_TRICK, Map.of("winnerId", "p2", "points", 11)),
+                move(32, 2, MoveType.CHALLENGE, Map.of("playerId", "p1", "success", true, "violatingTeam", "B")),
+                move(33, 2, MoveType.END_HAND, handEnd),
+                move(40, 2, MoveType.SYSTEM, Map.of("event", "CHALLENGE_WINDOW_EXPIRED")));
+
+        MatchMoveBucket bucket = MoveBuckets.bucket("m1", 3, hand);
+        assertEquals(2, bucket.getBids().size());
+        assertEquals(1, bucket.getPlays().size());
+        assertEquals(2, bucket.getEvents().size());
+        assertEquals(40, bucket.getLast());
+
+        Document stored = new Document();
+        converter.write(bucket, stored);
+        Document play = stored.getList("plays", Document.class).get(0);
+        assertEquals(Integer.class, play.get("c").getClass());
+        assertFalse(play.containsKey("_class"));
+
+        List<MatchMove> read = MoveBuckets.moves(converter.read(MatchMoveBucket.class, stored));
+        read = read.stream().sorted((a, b) -> Integer.compare(a.getNumber(), b.getNumber())).toList();
+        assertEquals(hand.size(), read.size());
+        for (int i = 0; i < hand.size(); i++) {
+            assertEquals(hand.get(i).getNumber(), read.get(i).getNumber());
+            assertEquals(hand.get(i).getType(), read.get(i).getType());
+            assertEquals(hand.get(i).getPayload(), read.get(i).getPayload());
+            assertEquals(3, read.get(i).getHandNo());
+            assertEquals(hand.get(i).getTrickNo(), read.get(i).getTrickNo());
+            assertEquals(Instant.EPOCH, read.get(i).getTs());
+        }
+    }
+
+    @Test
+    void testPushUpsertsEachHandByIdAlone() {
+        BulkOperations ops = mock(BulkOperations.class);
+        buckets().push(ops, List.of(
+                move(8, 1, MoveType.BID, Map.of("playerId", "p1", "pass", true)),
+                move(16, 1, MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "AS of HERC", "declareBela", false, "legal", true)),
+                moveInHand(17, 2, MoveType.BID, Map.of("playerId", "p1", "pass", true))));
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(ops, times(2)).upsert(queries.capture(), any(UpdateDefinition.class));
+        assertEquals(new Document("_id", "m1:1"), queries.getAllValues().get(0).getQueryObject());
+        assertEquals(new Document("_id", "m1:2"), queries.getAllValues().get(1).getQueryObject());
+    }
+
+    @Test
+    void testReplayThatPartlyOverlapsAddsOnlyTheMissingMoves() {
+        Document stored = new Document();
+        converter.write(MoveBuckets.bucket("m1", 1, List.of(
+                move(8, 1, MoveType.BID, Map.of("playerId", "p1", "pass", false, "trump", "HERC")),
+                move(16, 1, MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "AS of HERC", "declareBela", false, "legal", true)),
+                move(24, 1, MoveType.PLAY_CARD, Map.of("playerId", "p2", "card", "KRALJ of HERC", "declareBela", false, "legal", true)))),
+                stored);
+
+        // the journal retries a batch whose first two moves were stored before it failed
+        Document updated = push(stored, List.of(
+                move(16, 1, MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "AS of HERC", "declareBela", false, "legal", true)),
+                move(24, 1, MoveType.PLAY_CARD, Map.of("playerId", "p2", "card", "KRALJ of HERC", "declareBela", false, "legal", true)),
+                move(25, 1, MoveType.END_TRICK, Map.of("winnerId", "p1", "points", 15)),
+                move(32, 2, MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "DESETKA of HERC", "declareBela", false, "legal", true))));
+
+        MatchMoveBucket bucket = converter.read(MatchMoveBucket.class, updated);
+        assertEquals(List.of(8, 16, 24, 25, 32), MoveBuckets.moves(bucket).stream().map(MatchMove::getNumber).sorted().toList());
+        assertEquals(5, bucket.getCount());
+        assertEquals(32, bucket.getLast());
+        assertEquals(3, bucket.getPlays().size());
+
+        // replaying all of it again changes nothing
+        assertEquals(updated, push(updated, List.of(
+                move(24, 1, MoveType.PLAY_CARD, Map.of("playerId", "p2", "card", "KRALJ of HERC", "declareBela", false, "legal", true)),
+                move(32, 2, MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "DESETKA of HERC", "declareBela", false, "legal", true)))));
+    }
+
+    @Test
+    void testEarlierMovesPushedAfterLaterOnesStillLand() {
+        // the new owner pushed the end of the trick before the old owner's journal got to its plays
+        Document stored = push(new Document("_id", "m1:1"), List.of(
+                move(25, 1, MoveType.END_TRICK, Map.of("winnerId", "p1", "points", 15)),
+                move(32, 2, MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "DESETKA of HERC", "declareBela", false, "legal", true))));
+
+        Document updated = push(stored, List.of(
+                move(16, 1, MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "AS of HERC", "declareBela", false, "legal", true)),
+                move(24, 1, MoveType.PLAY_CARD, Map.of("playerId", "p2", "card", "KRALJ of HERC", "declareBela", false, "legal", true)),
+                move(25, 1, MoveType.END_TRICK, Map.of("winnerId", "p1", "points", 15))));
+
+        MatchMoveBucket bucket = converter.read(MatchMoveBucket.class, updated);
+        assertEquals(List.of(16, 24, 25, 32), MoveBuckets.moves(bucket).stream().map(MatchMove::getNumber).sorted().toList());
+        assertEquals(4, bucket.getCount());
+        assertEquals(32, bucket.getLast());
+        assertEquals(1, bucket.getTricks().size());
+    }
+
+    @Test
+    void testPushIntoAHandNotStoredYetCreatesItsBucket() {
+        Document created = push(new Document("_id", "m1:1"), List.of(
+                move(8, 1, MoveType.BID, Map.of("playerId", "p1", "pass", true)),
+                move(9, 1, MoveType.SYSTEM, Map.of("event", "$not a field path"))));
+
+        MatchMoveBucket bucket = converter.read(MatchMoveBucket.class, created);
+        assertEquals("m1", bucket.getMatchId());
+        assertEquals(1, bucket.getHandNo());
+        assertEquals(2, bucket.getCount());
+        assertEquals(9, bucket.getLast());
+        assertEquals(Map.of("event", "$not a field path"), bucket.getEvents().get(0).getPayload());
+        assertFalse(created.getList("bids", Document.class).get(0).containsKey("_class"));
+    }
+
+    @Test
+    void testMovesOnlyGoToBucketsWithTheBucketLayout() {
+        assertFalse(new MoveBuckets(mock(MongoOperations.class), MoveBuckets.DOCUMENTS).enabled());
+        assertTrue(new MoveBuckets(mock(MongoOperations.class), MoveBuckets.BUCKETS).enabled());
+        assertThrows(IllegalArgumentException.class, () -> new MoveBuckets(mock(MongoOperations.class), "hands"));
+    }
+
+    private MoveBuckets buckets() {
+        MongoOperations mongo = mock(MongoOperations.class);
+        when(mongo.getConverter()).thenReturn(converter);
+        return new MoveBuckets(mongo, MoveBuckets.BUCKETS);
+    }
+
+    /** The bucket after the update {@link MoveBuckets#push} makes for {@code moves}, all of one hand. */
+    private Document push(Document stored, List<MatchMove> moves) {
+        BulkOperations ops = mock(BulkOperations.class);
+        buckets().push(ops, moves);
+        ArgumentCaptor<UpdateDefinition> update = ArgumentCaptor.forClass(UpdateDefinition.class);
+        verify(ops).upsert(any(Query.class), update.capture());
+        List<AggregationOperation> stages = ((AggregationUpdate) update.getValue()).getPipeline().getOperations();
+        assertEquals(1, stages.size());
+        Document set = stages.get(0).toDocument(Aggregation.DEFAULT_CONTEXT).get("$set", Document.class);
+        Document updated = new Document(stored);
+        set.forEach((field, expression) -> updated.put(field, eval(expression, stored, Map.of())));
+        return updated;
+    }
+
+    /** Evaluates the aggregation expressions the update uses, against the stored document. */
+    private static Object eval(Object expression, Document stored, Map<String, Object> variables) {
+        if (expression instanceof String path && path.startsWith("$$")) {
+            String[] parts = path.substring(2).split("\\.");
+            Object value = variables.get(parts[0]);
+            for (int i = 1; i < parts.length; i++) {
+                value = ((Document) value).get(parts[i]);
+            }
+            return value;
+        }
+        if (expression instanceof String path && path.startsWith("$")) {
+            Object value = stored;
+            for (String field : path.substring(1).split("\\.")) {
+                value = value instanceof List<?> list
+                        ? list.stream().map(item -> ((Document) item).get(field)).toList()
+                        : value == null ? null : ((Document) value).get(field);
+            }
+            return value;
+        }
+        if (expression instanceof List<?> list) {
+            return list.stream().map(item -> eval(item, stored, variables)).toList();
+        }
+        if (!(expression instanceof Document operator) || operator.size() != 1
+                || !operator.keySet().iterator().next().startsWith("$")) {
+            return expression;
+        }
+        String name = operator.keySet().iterator().next();
+        Object argument = operator.get(name);
+        switch (name) {
+            case "$literal":
+                return argument;
+            case "$size":
+                return ((List<?>) eval(argument, stored, variables)).size();
+            case "$filter": {
+                Document filter = (Document) argument;
+                return ((List<?>) eval(filter.get("input"), stored, variables)).stream().filter(item -> {
+                    Map<String, Object> scope = new HashMap<>(variables);
+                    scope.put(filter.getString("as"), item);
+                    return (Boolean) eval(filter.get("cond"), stored, scope);
+                }).toList();
+            }
+            default:
+                break;
+        }
+        List<?> arguments = (List<?>) eval(argument, stored, variables);
+        return switch (name) {
+            case "$ifNull" -> arguments.get(0) != null ? arguments.get(0) : arguments.get(1);
+            case "$concatArrays" -> arguments.stream().flatMap(array -> ((List<?>) array).stream()).toList();
+            case "$not" -> !(Boolean) arguments.get(0);
+            case "$in" -> ((List<?>) arguments.get(1)).contains(arguments.get(0));
+            case "$add" -> arguments.stream().mapToInt(value -> ((Number) value).intValue()).sum();
+            case "$max" -> arguments.stream().mapToInt(value -> ((Number) value).intValue()).max().orElseThrow();
+            default -> throw new IllegalArgumentException("Not evaluated here: " + name);
+        };
+    }
+
+    private static MatchMove move(int number, int trickNo, MoveType type, Map<String, Object> payload) {
+        MatchMove move = new MatchMove();
+        move.setMatchId("m1");
+        move.setNumber(number);
+        move.setHandNo(1);
+        move.setTrickNo(trickNo);
+        move.setType(type);
+        move.setPayload(payload);
+        move.setTs(Instant.EPOCH);
+        return move;
+    }
+
+    private static MatchMove moveInHand(int number, int handNo, MoveType type, Map<String, Object> payload) {
+        MatchMove move = move(number, 1, type, payload);
+        move.setHandNo(handNo);
+        return move;
+    }
+}
@@ -0,0 +1,204 @@
+package backend.belatro;
+
+import backend.belatro.components.MoveBuckets;
+import backend.belatro.components.MoveJournal;
+import backend.belatro.enums.MoveType;
+import backend.belatro.models.MatchMove;
+import backend.belatro.models.MatchMoveBucket;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class MoveJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final MongoOperations mongo = mock(MongoOperations.class);
+    private final BulkOperations bulk = mock(BulkOperations.class);
+    private final List<List<MatchMove>> inserted = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, MatchMove.class)).thenReturn(bulk);
+        when(bulk.insert(any(List.class))).thenAnswer(inv -> {
+            inserted.add(List.copyOf(inv.<List<MatchMove>>getArgument(0)));
+            return bulk;
+        });
+    }
+
+    @Test
+    void testMovesReachMongoInOneBatchWithStableIds() {
+        MoveJournal journal = journal(mongo, 100);
+        journal.append(List.of(move("m1", 8), move("m1", 9)));
+        journal.append(List.of(move("m2", 16)));
+        journal.flushNow();
+
+        assertEquals(1, inserted.size());
+        assertEquals(List.of("m1:8", "m1:9", "m2:16"), inserted.get(0).stream().map(MatchMove::getId).toList());
+        assertEquals(0, journal.pendingMoves());
+        journal.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testMovesNotInMongoAreReplayedAtTheNextStart() throws IOException {
+        MongoOperations down = mock(MongoOperations.class);
+        when(down.bulkOps(any(BulkOperations.BulkMode.class), any(Class.class)))
+                .thenThrow(new DataAccessResourceFailureException("Mongo is down"));
+        MoveJournal crashed = journal(down, 100);
+        crashed.append(List.of(move("m1", 8)));
+        crashed.append(List.of(move("m1", 16), move("m1", 17)));
+        crashed.flushNow();
+        assertEquals(3, crashed.pendingMoves());
+        crashed.shutdown();                         // a crash lets go of the directory too
+
+        // a record cut short by the crash
+        Path segment;
+        try (var files = Files.list(dir)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".wal")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        int end = 0;
+        while (readInt(bytes, end) > 0) {
+            end += 8 + readInt(bytes, end);
+        }
+        try (var channel = Files.newByteChannel(segment, StandardOpenOption.WRITE)) {
+            channel.position(end);
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 50, 1, 2, 3, 4, '[', '{'}));
+        }
+
+        MoveJournal restarted = journal(mongo, 100);
+        restarted.flushNow();
+
+        assertEquals(1, inserted.size());
+        assertEquals(List.of("m1:8", "m1:16", "m1:17"), inserted.get(0).stream().map(MatchMove::getId).toList());
+        assertEquals(Instant.EPOCH, inserted.get(0).get(0).getTs());
+        assertEquals("AS_HERC", inserted.get(0).get(0).getPayload().get("card"));
+        assertEquals(0, restarted.pendingMoves());
+        restarted.shutdown();
+    }
+
+    @Test
+    void testSecondJournalOnTheSameDirectoryFailsToStart() {
+        MoveJournal first = journal(mongo, 100);
+
+        assertThrows(IllegalStateException.class, () -> journal(mongo, 100));
+
+        first.shutdown();
+        journal(mongo, 100).shutdown();
+    }
+
+    @Test
+    void testMovesAlreadyInMongoCountAsInserted() {
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error collection: belatro.match_moves "
+                + "index: _id_ dup key: { _id: \"m1:8\" }", new BsonDocument(), 0);
+        when(bulk.execute()).thenThrow(new BulkOperationException("duplicate",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate), null,
+                        new ServerAddress(), Set.of())));
+        MoveJournal journal = journal(mongo, 2);
+        journal.append(List.of(move("m1", 8), move("m1", 9), move("m1", 10)));
+        journal.flushNow();
+
+        assertEquals(2, inserted.size());   // batches of two
+        assertEquals(0, journal.pendingMoves());
+        journal.shutdown();
+    }
+
+    @Test
+    void testMoveCollidingWithALegacyNumberStaysInTheJournal() {
+        BulkWriteError collision = new BulkWriteError(11000, "E11000 duplicate key error collection: belatro.match_moves "
+                + "index: matchId_number dup key: { matchId: \"m1\", number: 9 }", new BsonDocument(), 1);
+        when(bulk.execute()).thenThrow(new BulkOperationException("duplicate",
+                new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(collision), null,
+                        new ServerAddress(), Set.of())));
+        MoveJournal journal = journal(mongo, 100);
+        journal.append(List.of(move("m1", 8), move("m1", 9)));
+        journal.flushNow();
+
+        assertEquals(1, inserted.size());
+        assertEquals(2, journal.pendingMoves());
+        journal.shutdown();
+    }
+
+    @Test
+    void testBucketUpsertThatLostTheRaceToCreateItIsPushedAgain() {
+        MoveBuckets buckets = mock(MoveBuckets.class);
+        BulkOperations upserts = mock(BulkOperations.class);
+        when(buckets.enabled()).thenReturn(true);
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, MatchMoveBucket.class)).thenReturn(upserts);
+        when(buckets.push(eq(upserts), anyList())).thenReturn(upserts);
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error collection: belatro.match_move_buckets "
+                + "index: _id_ dup key: { _id: \"m1:1\" }", new BsonDocument(), 0);
+        when(upserts.execute())
+                .thenThrow(new BulkOperationException("duplicate",
+                        new MongoBulkWriteException(BulkWriteResult.unacknowledged(), List.of(duplicate), null,
+                                new ServerAddress(), Set.of())))
+                .thenReturn(BulkWriteResult.unacknowledged());
+
+        MoveJournal journal = journal(mongo, buckets, 100);
+        journal.append(List.of(move("m1", 8), move("m1", 9)));
+        journal.flushNow();
+
+        verify(buckets, times(2)).push(eq(upserts), anyList());
+        assertEquals(0, journal.pendingMoves());
+        journal.shutdown();
+    }
+
+    private MoveJournal journal(MongoOperations mongo, int batchSize) {
+        return journal(mongo, new MoveBuckets(mongo, MoveBuckets.DOCUMENTS), batchSize);
+    }
+
+    private MoveJournal journal(MongoOperations mongo, MoveBuckets buckets, int batchSize) {
+        MoveJournal journal = new MoveJournal(mongo, buckets, JsonMapper.builder().addModule(new JavaTimeModule()).build(),
+                new SimpleMeterRegistry(), dir, 4096, batchSize, 60_000);
+        journal.open();
+        return journal;
+    }
+
+    private static MatchMove move(String matchId, int number) {
+        MatchMove move = new MatchMove();
+        move.setMatchId(matchId);
+        move.setNumber(number);
+        move.setType(MoveType.PLAY_CARD);
+        move.setPayload(Map.of("playerId", "p1", "card", "AS_HERC"));
+        move.setHandNo(1);
+        move.setTrickNo(1);
+        move.setTs(Instant.EPOCH);
+        return move;
+    }
+
+    private static int readInt(byte[] bytes, int at) {
+        return (bytes[at] & 0xFF) << 24 | (bytes[at + 1] & 0xFF) << 16 | (bytes[at + 2] & 0xFF) << 8 | bytes[at + 3] & 0xFF;
+    }
+}
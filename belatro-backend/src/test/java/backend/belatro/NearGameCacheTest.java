@@ -0,0 +1,136 @@
+package backend.belatro;
+
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.components.LiveGameCache;
+import backend.belatro.components.NearGameCache;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.StatefulRedisConnectionImpl;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class NearGameCacheTest {
+
+    private final RedisClient client = mock(RedisClient.class);
+    @SuppressWarnings("unchecked")
+    private final StatefulRedisConnectionImpl<byte[], byte[]> connection = mock(StatefulRedisConnectionImpl.class);
+    private final AtomicInteger reads = new AtomicInteger();
+    private final Function<String, NearGameCache.Cached> reader = gameId -> {
+        reads.incrementAndGet();
+        return new NearGameCache.Cached(new byte[]{1}, new LiveGameCache.GameHead(4, GameState.PLAYING, "p1"));
+    };
+
+    private NearGameCache near;
+    private PushListener pushes;
+    private RedisConnectionStateListener states;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        LettuceConnectionFactory factory = mock(LettuceConnectionFactory.class);
+        when(factory.getRequiredNativeClient()).thenReturn(client);
+        when(client.connect(ByteArrayCodec.INSTANCE)).thenReturn(connection);
+        RedisAsyncCommands<byte[], byte[]> async = mock(RedisAsyncCommands.class);
+        RedisFuture<String> tracking = mock(RedisFuture.class);
+        when(tracking.whenComplete(any())).thenAnswer(inv -> {
+            inv.<BiConsumer<String, Throwable>>getArgument(0).accept("OK", null);
+            return tracking;
+        });
+        when(async.clientTracking(any())).thenReturn(tracking);
+        when(connection.async()).thenReturn(async);
+
+        near = new NearGameCache(factory, new ClusterMembership(null, null, true, "n1", 0), true, 100);
+        near.start();
+
+        ArgumentCaptor<PushListener> push = ArgumentCaptor.forClass(PushListener.class);
+        verify(connection).addListener(push.capture());
+        pushes = push.getValue();
+        ArgumentCaptor<RedisConnectionStateListener> state = ArgumentCaptor.forClass(RedisConnectionStateListener.class);
+        verify(client).addListener(state.capture());
+        states = state.getValue();
+        verify(async).clientTracking(any());
+    }
+
+    @Test
+    void testReadIsKeptUntilRedisInvalidatesIt() {
+        near.read("g1", reader);
+        NearGameCache.Cached cached = near.read("g1", reader);
+
+        assertEquals(1, reads.get());
+        assertEquals(4, cached.head().version());
+        assertEquals(1, near.hits());
+
+        pushes.onPushMessage(invalidate("belot:game:g1"));
+        near.read("g1", reader);
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void testReadRacingAnInvalidationIsNotKept() {
+        near.read("g1", gameId -> {
+            pushes.onPushMessage(invalidate("belot:game:g1"));
+            return reader.apply(gameId);
+        });
+        near.read("g1", reader);
+
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void testNothingIsKeptWhileTheTrackingConnectionIsDown() {
+        near.read("g1", reader);
+        states.onRedisDisconnected(connection);
+
+        near.read("g1", reader);
+        near.read("g1", reader);
+        assertEquals(3, reads.get());
+    }
+
+    @Test
+    void testLocalInvalidationAndFlushDropEntries() {
+        near.read("g1", reader);
+        near.read("g2", reader);
+        near.invalidate("g1");
+        near.read("g1", reader);
+        assertEquals(3, reads.get());
+
+        pushes.onPushMessage(message(null));   // FLUSHALL
+        near.read("g1", reader);
+        near.read("g2", reader);
+        assertEquals(5, reads.get());
+    }
+
+    private static PushMessage invalidate(String key) {
+        return message(List.of(ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static PushMessage message(List<ByteBuffer> keys) {
+        PushMessage message = mock(PushMessage.class);
+        when(message.getType()).thenReturn("invalidate");
+        List<Object> content = new ArrayList<>();
+        content.add(ByteBuffer.wrap("invalidate".getBytes(StandardCharsets.UTF_8)));
+        content.add(keys);
+        when(message.getContent()).thenReturn(content);
+        return message;
+    }
+}
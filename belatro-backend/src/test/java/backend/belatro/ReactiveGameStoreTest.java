@@ -0,0 +1,107 @@
+package backend.belatro;
+
+import backend.belatro.components.LiveGameCache;
+import backend.belatro.components.ReactiveGameStore;
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.BelotGameCodec;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import backend.belatro.util.BelotGameRedisSerializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.ReactiveHashCommands;
+import org.springframework.data.redis.connection.ReactiveKeyCommands;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveStringCommands;
+import org.springframework.data.redis.core.ReactiveRedisCallback;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static backend.belatro.TestGames.newGame;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class ReactiveGameStoreTest {
+
+    private final BelotGameRedisSerializer serializer = new BelotGameRedisSerializer(
+            JsonMapper.builder().addModule(new JavaTimeModule()).build(), false);
+
+    @SuppressWarnings("unchecked")
+    private final ReactiveRedisTemplate<String, byte[]> redis = mock(ReactiveRedisTemplate.class);
+    private final ReactiveRedisConnection connection = mock(ReactiveRedisConnection.class);
+    private final ReactiveKeyCommands keys = mock(ReactiveKeyCommands.class);
+    private final ReactiveStringCommands strings = mock(ReactiveStringCommands.class);
+    private final ReactiveHashCommands hashes = mock(ReactiveHashCommands.class);
+
+    private ReactiveGameStore store;
+
+    @BeforeEach
+    void setUp() {
+        when(connection.keyCommands()).thenReturn(keys);
+        when(connection.stringCommands()).thenReturn(strings);
+        when(connection.hashCommands()).thenReturn(hashes);
+        when(keys.type(any(ByteBuffer.class))).thenReturn(Mono.just(DataType.NONE));
+        when(redis.createMono(any())).thenAnswer(inv ->
+                Mono.from(inv.<ReactiveRedisCallback<?>>getArgument(0).doInRedis(connection)));
+        store = new ReactiveGameStore(redis, serializer);
+    }
+
+    @Test
+    void testLoadReadsEitherLayout() {
+        BelotGame flat = newGame("s1");
+        flat.setVersion(3);
+        when(keys.type(key("s1"))).thenReturn(Mono.just(DataType.STRING));
+        when(strings.get(key("s1"))).thenReturn(Mono.just(ByteBuffer.wrap(serializer.serialize(flat))));
+
+        BelotGame hashed = newGame("h1");
+        hashed.startGame();
+        byte[][] sections = BelotGameCodec.encodeSections(hashed);
+        List<Map.Entry<ByteBuffer, ByteBuffer>> fields = new ArrayList<>();
+        for (int i = 0; i < sections.length; i++) {
+            fields.add(Map.entry(buffer(BelotGameCodec.SECTIONS.get(i)), ByteBuffer.wrap(sections[i])));
+        }
+        fields.add(Map.entry(buffer("v"), buffer("8")));
+        when(keys.type(key("h1"))).thenReturn(Mono.just(DataType.HASH));
+        when(hashes.hGetAll(key("h1"))).thenReturn(Flux.fromIterable(fields));
+
+        ReactiveGameStore.Loaded fromString = store.load("s1").block();
+        assertEquals(3, fromString.game().getVersion());
+        assertNull(fromString.sections());
+
+        ReactiveGameStore.Loaded fromHash = store.load("h1").block();
+        assertEquals(8, fromHash.game().getVersion());
+        assertEquals(GameState.BIDDING, fromHash.game().getGameState());
+        assertArrayEquals(sections[1], fromHash.sections()[1]);
+
+        assertNull(store.load("missing").block());
+    }
+
+    @Test
+    void testHeadReadsThreeHashFields() {
+        when(hashes.hMGet(any(ByteBuffer.class), anyCollection())).thenAnswer(inv -> Mono.just(
+                inv.getArgument(0).equals(key("h2"))
+                        ? List.of(buffer("5"), buffer("PLAYING"), buffer("A1"))
+                        : Arrays.asList((ByteBuffer) null, null, null)));
+
+        assertEquals(new LiveGameCache.GameHead(5, GameState.PLAYING, "A1"), store.head("h2").block());
+        assertNull(store.head("missing").block());
+        verifyNoInteractions(strings);
+    }
+
+    private static ByteBuffer key(String gameId) {
+        return buffer("belot:game:" + gameId);
+    }
+
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,38 @@
+package backend.belatro;
+
+import backend.belatro.simulation.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SelfPlaySimulatorTest {
+
+    @Test
+    void testGreedyAgainstRandomKeepsInvariants() {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(List.of(
+                new GreedyPolicy(), new RandomLegalPolicy(), new GreedyPolicy(), new RandomLegalPolicy()));
+
+        SimulationReport report = simulator.run(40, 1L, 4);
+
+        assertEquals(40, report.games());
+        assertTrue(report.hands() >= 40 * 6, "A match to 1001 takes several hands");
+        assertEquals(8 * report.hands(), report.tricks());
+        assertEquals(0, report.violations(), report::toString);
+    }
+
+    @Test
+    void testFoulsAndChallengesKeepInvariants() {
+        SelfPlaySimulator simulator = new SelfPlaySimulator(List.of(
+                new RandomLegalPolicy(), new RandomLegalPolicy(), new RandomLegalPolicy(), new RandomLegalPolicy()),
+                0.05, 0.2);
+
+        SimulationReport report = simulator.run(40, 2L, 4);
+
+        assertEquals(40, report.games());
+        assertTrue(report.fouls() > 0);
+        assertTrue(report.successfulChallenges() > 0);
+        assertEquals(0, report.violations(), report::toString);
+    }
+}
@@ -0,0 +1,29 @@
+package backend.belatro;
+
+import backend.belatro.pojo.gamelogic.BelotGame;
+import backend.belatro.pojo.gamelogic.Player;
+import backend.belatro.pojo.gamelogic.Team;
+
+import java.util.List;
+
+/**
+ * The game the tests play: A1 and A2 against B1 and B2, not started yet.
+ */
+public final class TestGames {
+
+    /** Seed for tests that do not care how the cards fall, only that they fall the same each run. */
+    public static final long SEED = 11L;
+
+    private TestGames() {
+    }
+
+    public static BelotGame newGame(String gameId) {
+        return newGame(gameId, SEED);
+    }
+
+    public static BelotGame newGame(String gameId, long seed) {
+        return new BelotGame(gameId,
+                new Team(List.of(new Player("A1"), new Player("A2"))),
+                new Team(List.of(new Player("B1"), new Player("B2"))), seed);
+    }
+}
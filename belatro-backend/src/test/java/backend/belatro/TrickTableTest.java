@@ -0,0 +1,117 @@
+package backend.belatro;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: {@link Trick} resolution through {@link TrickTable} must agree with the
+ * original comparator based rules.
+ */
+public class TrickTableTest {
+
+    private static final int TRICKS = 1_000_000;
+    private static final String[] SEATS = {"p0", "p1", "p2", "p3"};
+
+    @Test
+    void testMatchesComparatorImplementationOnRandomTricks() {
+        Random random = new Random(42);
+        List<Card> deck = new ArrayList<>(CardSet.toList(CardSet.FULL_DECK));
+        Boja[] trumps = {Boja.KARA, Boja.HERC, Boja.TREF, Boja.PIK, null};
+
+        for (int i = 0; i < TRICKS; i++) {
+            Collections.shuffle(deck, random);
+            Boja trump = trumps[random.nextInt(trumps.length)];
+            int plays = 1 + random.nextInt(4);
+
+            Trick trick = new Trick(SEATS[0], trump);
+            for (int p = 0; p < plays; p++) {
+                trick.addPlay(SEATS[p], deck.get(p));
+            }
+            List<Card> cards = deck.subList(0, plays);
+
+            int winner = legacyWinner(cards, trump);
+            assertEquals(SEATS[winner], trick.determineWinner(), () -> "Winner differs for " + trick);
+            assertEquals(cards.get(winner), trick.getWinningCard());
+            assertEquals(legacyPoints(cards, trump), trick.calculatePoints());
+            assertEquals(cards.getLast(), trick.getLastCardPlayed());
+        }
+    }
+
+    @Test
+    void testJsonRoundTripKeepsLeadFirst() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String json = "{\"leadPlayerId\":\"p2\",\"trump\":\"HERC\",\"plays\":{"
+                + "\"p3\":{\"boja\":\"PIK\",\"rank\":\"AS\"},"
+                + "\"p2\":{\"boja\":\"TREF\",\"rank\":\"SEDMICA\"},"
+                + "\"p0\":{\"boja\":\"TREF\",\"rank\":\"OSMICA\"}}}";
+
+        Trick trick = mapper.readValue(json, Trick.class);
+
+        assertEquals(Card.of(Boja.TREF, Rank.SEDMICA), trick.getLeadCard());
+        assertEquals(List.of("p2", "p3", "p0"), new ArrayList<>(trick.getPlays().keySet()));
+        assertEquals("p0", trick.determineWinner());
+        assertEquals(CardSet.of(trick.getPlays().values()), trick.getPlayedSet());
+        assertEquals(trick.getPlays(), mapper.readValue(mapper.writeValueAsString(trick), Trick.class).getPlays());
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  the comparator based rules the tables replaced                    */
+    /* ------------------------------------------------------------------ */
+
+    private static int legacyWinner(List<Card> cards, Boja trump) {
+        Boja leadSuit = cards.getFirst().getBoja();
+        int winner = 0;
+        for (int i = 1; i < cards.size(); i++) {
+            if (!isCardWinning(cards.get(winner), cards.get(i), leadSuit, trump)) {
+                winner = i;
+            }
+        }
+        return winner;
+    }
+
+    private static boolean isCardWinning(Card winningCard, Card challengerCard, Boja leadSuit, Boja trump) {
+        if (winningCard.getBoja() == trump && challengerCard.getBoja() != trump) {
+            return true;
+        }
+        if (challengerCard.getBoja() == trump && winningCard.getBoja() != trump) {
+            return false;
+        }
+        if (winningCard.getBoja() == trump) {
+            return BelotRankComparator.getTrumpComparator().compare(winningCard, challengerCard) > 0;
+        }
+        if (winningCard.getBoja() == leadSuit && challengerCard.getBoja() != leadSuit) {
+            return true;
+        }
+        if (challengerCard.getBoja() == leadSuit && winningCard.getBoja() != leadSuit) {
+            return false;
+        }
+        if (winningCard.getBoja() == leadSuit) {
+            return BelotRankComparator.getNonTrumpComparator().compare(winningCard, challengerCard) > 0;
+        }
+        return true;
+    }
+
+    private static int legacyPoints(List<Card> cards, Boja trump) {
+        int total = 0;
+        for (Card card : cards) {
+            boolean isTrump = card.getBoja() == trump;
+            total += switch (card.getRank()) {
+                case DECKO -> isTrump ? 20 : 2;
+                case DEVETKA -> isTrump ? 14 : 0;
+                case AS -> 11;
+                case DESETKA -> 10;
+                case KRALJ -> 4;
+                case BABA -> 3;
+                default -> 0;
+            };
+        }
+        return total;
+    }
+}
@@ -0,0 +1,158 @@
+package backend.belatro;
+
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.Rank;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test: the table driven {@link ZvanjaValidator} must agree with the original
+ * stream based implementation.
+ */
+public class ZvanjaValidatorTest {
+
+    private static final int HANDS = 1_000_000;
+
+    @Test
+    void testEverySuitSubsetMatchesListImplementation() {
+        for (Boja suit : Boja.values()) {
+            for (int lane = 0; lane < 256; lane++) {
+                List<Card> hand = CardSet.toList(lane << (suit.ordinal() << 3));
+
+                assertEquals(legacyEvaluateAllSequences(hand), ZvanjaValidator.evaluateAllSequences(hand),
+                        () -> "Sequences differ for " + hand);
+                for (Boja boja : Boja.values()) {
+                    assertEquals(legacyEvaluateSequence(hand, boja), ZvanjaValidator.evaluateSequence(hand, boja),
+                            () -> "evaluateSequence differs for " + hand);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRandomHandsMatchListImplementation() {
+        Random random = new Random(42);
+        List<Card> deck = new ArrayList<>(CardSet.toList(CardSet.FULL_DECK));
+
+        for (int i = 0; i < HANDS; i++) {
+            Collections.shuffle(deck, random);
+            List<Card> hand = deck.subList(0, 6 + random.nextInt(3));
+            int handSet = CardSet.of(hand);
+
+            for (Boja adut : Boja.values()) {
+                assertEquals(legacyIsBela(hand, adut), ZvanjaValidator.isBela(handSet, adut));
+            }
+
+            Map<Boja, Integer> sequences = legacyEvaluateAllSequences(hand);
+            assertEquals(sequences, ZvanjaValidator.evaluateAllSequences(handSet));
+            assertEquals(sequences.values().stream().mapToInt(Integer::intValue).max().orElse(0),
+                    ZvanjaValidator.bestSequencePoints(handSet));
+
+            // the old version returned whichever quad its HashMap yielded first; the table takes the best
+            Set<Integer> quads = legacyFourOfAKindCandidates(hand);
+            int points = ZvanjaValidator.fourOfAKindPoints(handSet);
+            if (quads.isEmpty()) {
+                assertEquals(Optional.empty(), legacyEvaluateFourOfAKind(hand));
+                assertEquals(0, points);
+            } else {
+                assertTrue(quads.contains(legacyEvaluateFourOfAKind(hand).orElseThrow()));
+                assertEquals(Collections.max(quads), points);
+            }
+        }
+    }
+
+    @Test
+    void testTwoQuadsScoreTheBetterOne() {
+        List<Card> hand = new ArrayList<>();
+        for (Boja boja : Boja.values()) {
+            hand.add(Card.of(boja, Rank.DEVETKA));
+            hand.add(Card.of(boja, Rank.DECKO));
+        }
+        assertEquals(Optional.of(200), ZvanjaValidator.evaluateFourOfAKind(hand));
+    }
+
+    /* ------------------------------------------------------------------ */
+    /*  verbatim copies of the stream based implementation                */
+    /* ------------------------------------------------------------------ */
+
+    private static boolean legacyIsBela(List<Card> hand, Boja adut) {
+        boolean hasKralj = hand.stream().anyMatch(card -> card.getBoja() == adut && card.getRank() == Rank.KRALJ);
+        boolean hasBaba = hand.stream().anyMatch(card -> card.getBoja() == adut && card.getRank() == Rank.BABA);
+        return hasKralj && hasBaba;
+    }
+
+    private static Optional<Integer> legacyEvaluateSequence(List<Card> hand, Boja boja) {
+        List<Card> suitCards = hand.stream()
+                .filter(card -> card.getBoja() == boja)
+                .sorted(BelotRankComparator.getComparator())
+                .toList();
+        return legacyDetectSequences(suitCards);
+    }
+
+    private static Map<Boja, Integer> legacyEvaluateAllSequences(List<Card> hand) {
+        Map<Boja, Integer> sequencesByColor = new HashMap<>();
+        for (Boja suit : Boja.values()) {
+            List<Card> suitCards = hand.stream()
+                    .filter(card -> card.getBoja() == suit)
+                    .sorted(BelotRankComparator.getSequenceComparator())
+                    .toList();
+            legacyDetectSequences(suitCards).ifPresent(points -> sequencesByColor.put(suit, points));
+        }
+        return sequencesByColor;
+    }
+
+    private static Optional<Integer> legacyDetectSequences(List<Card> suitCards) {
+        if (suitCards.size() < 3) {
+            return Optional.empty();
+        }
+        int longestRun = 1;
+        int currentRun = 1;
+        for (int i = 1; i < suitCards.size(); i++) {
+            int previousRankValue = BelotRankComparator.getSequenceRankOrder().get(suitCards.get(i - 1).getRank());
+            int currentRankValue = BelotRankComparator.getSequenceRankOrder().get(suitCards.get(i).getRank());
+            if (currentRankValue == previousRankValue + 1) {
+                currentRun++;
+            } else if (currentRankValue != previousRankValue) {
+                currentRun = 1;
+            }
+            longestRun = Math.max(longestRun, currentRun);
+        }
+        int maxPoints = longestRun >= 5 ? 100 : longestRun == 4 ? 50 : longestRun == 3 ? 20 : 0;
+        return maxPoints > 0 ? Optional.of(maxPoints) : Optional.empty();
+    }
+
+    private static Optional<Integer> legacyEvaluateFourOfAKind(List<Card> hand) {
+        Map<Rank, Long> rankCounts = hand.stream()
+                .collect(Collectors.groupingBy(Card::getRank, Collectors.counting()));
+        for (Map.Entry<Rank, Long> entry : rankCounts.entrySet()) {
+            if (entry.getValue() == 4) {
+                Rank rank = entry.getKey();
+                if (rank == Rank.DECKO) return Optional.of(200);
+                if (rank == Rank.DEVETKA) return Optional.of(150);
+                if (rank == Rank.AS || rank == Rank.DESETKA ||
+                        rank == Rank.KRALJ || rank == Rank.BABA)
+                    return Optional.of(100);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Every score {@link #legacyEvaluateFourOfAKind} could return, depending on map order. */
+    private static Set<Integer> legacyFourOfAKindCandidates(List<Card> hand) {
+        Set<Integer> candidates = new HashSet<>();
+        for (Rank rank : Rank.values()) {
+            List<Card> single = hand.stream()
+                    .filter(c -> c.getRank() == rank)
+                    .toList();
+            if (single.size() == 4) {
+                legacyEvaluateFourOfAKind(single).ifPresent(candidates::add);
+            }
+        }
+        return candidates;
+    }
+}
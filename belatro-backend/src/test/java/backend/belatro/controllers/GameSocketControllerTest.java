@@ -1,10 +1,11 @@
 package backend.belatro.controllers;
 
+import backend.belatro.components.GameFrameRelay;
+import backend.belatro.components.GameRouter;
 import backend.belatro.dtos.BidMsg;
 import backend.belatro.dtos.PlayCardMsg;
 import backend.belatro.dtos.PrivateGameView;
 import backend.belatro.dtos.PublicGameView;
-import backend.belatro.enums.MoveType;
 import backend.belatro.pojo.gamelogic.*;
 import backend.belatro.pojo.gamelogic.enums.Boja;
 import backend.belatro.pojo.gamelogic.enums.Rank;
@@ -19,7 +20,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
 import java.util.List;
-import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -33,6 +33,8 @@ class GameSocketControllerTest {
     @Mock  BelotGameService      svc;        // <- we already had this
     @Mock  SimpMessagingTemplate bus;
     @Mock  IMatchService         matchSvc;
+    @Mock  GameRouter            router;     // every game is local unless stubbed
+    @Mock  GameFrameRelay        frames;
 
     @InjectMocks
     GameSocketController ctrl;
@@ -68,7 +70,7 @@ class GameSocketControllerTest {
     void play_broadcastsPublicAndPrivateViews() {
         // arrange
         PlayCardMsg msg = new PlayCardMsg("Alice",
-                new Card(Boja.HERC, Rank.KRALJ),
+                Card.of(Boja.HERC, Rank.KRALJ),
                 false);
 
         when(svc.playCard(eq("g42"),
@@ -92,12 +94,6 @@ class GameSocketControllerTest {
                 any(PrivateGameView.class));       // payload
 
         // service calls
-        verify(matchSvc).recordMove(
-                eq("g42"),
-                eq(MoveType.PLAY_CARD),
-                any(Map.class),
-                eq(0.0));
-
         verify(svc).playCard(eq("g42"),
                 eq("Alice"),
                 any(Card.class),
@@ -131,12 +127,6 @@ class GameSocketControllerTest {
                 any(PrivateGameView.class));
 
         // service calls
-        verify(matchSvc).recordMove(
-                eq("g42"),
-                eq(MoveType.BID),
-                any(Map.class),
-                eq(0.0));
-
         verify(svc).placeBid(eq("g42"), any(Bid.class));
     }
 }
@@ -0,0 +1,148 @@
+package backend.belatro.services;
+
+import backend.belatro.components.ClusterMembership;
+import backend.belatro.components.GameLeases;
+import backend.belatro.components.GameMailboxes;
+import backend.belatro.components.LiveGameCache;
+import backend.belatro.components.NearGameCache;
+import backend.belatro.components.ReactiveGameStore;
+import backend.belatro.enums.MoveType;
+import backend.belatro.events.GameStateChangedEvent;
+import backend.belatro.pojo.gamelogic.*;
+import backend.belatro.pojo.gamelogic.enums.Boja;
+import backend.belatro.pojo.gamelogic.enums.GameState;
+import backend.belatro.repos.UserRepo;
+import backend.belatro.util.BelotGameRedisSerializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BelotGameServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, BelotGame> redis = mock(RedisTemplate.class);
+    private final ApplicationEventPublisher bus = mock(ApplicationEventPublisher.class);
+    private final IMatchService matchService = mock(IMatchService.class);
+    private final TaskScheduler scheduler = mock(TaskScheduler.class);
+
+    private final GameMailboxes mailboxes = new GameMailboxes(new SimpleMeterRegistry());
+    private LiveGameCache cache;
+    private BelotGameService service;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LiveGameCache(redis, mock(ReactiveGameStore.class),
+                new BelotGameRedisSerializer(JsonMapper.builder().addModule(new JavaTimeModule()).build(), false),
+                ClusterMembership.standalone(), NearGameCache.disabled(), new SimpleMeterRegistry(), TimeUnit.HOURS.toMillis(1), "string");
+        when(redis.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(List.of(1L, 0L)));
+        doReturn(mock(ScheduledFuture.class)).when(scheduler).schedule(any(Runnable.class), any(Instant.class));
+        service = new BelotGameService(cache, mailboxes,
+                new GameLeases(redis, ClusterMembership.standalone(), 0), bus, mock(UserRepo.class), matchService, scheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailboxes.shutdown();
+        cache.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void everyActionWritesItsMovesOnceAndThenPublishesEachEventOnce() {
+        service.start("g1",
+                new Team(List.of(new Player("A1"), new Player("A2"))),
+                new Team(List.of(new Player("B1"), new Player("B2"))));
+        BelotGame game = service.get("g1");
+        service.placeBid("g1", Bid.callTrump(game.getCurrentLead(), Boja.HERC));
+
+        Instant before = Instant.now();
+        int lastNumber = -1;
+        for (int i = 0; i < 32; i++) {
+            game = service.get("g1");
+            int seat = game.getCurrentSeat();
+            clearInvocations(bus, matchService);
+            service.playCard("g1", game.playerAt(seat).getId(), CardSet.get(game.getLegalMoveSet(), 0), false);
+
+            ArgumentCaptor<List<IMatchService.MoveEntry>> moves = ArgumentCaptor.forClass(List.class);
+            verify(matchService, times(1)).recordMoves(eq("g1"), moves.capture());
+            List<MoveType> types = moves.getValue().stream().map(IMatchService.MoveEntry::type).toList();
+            if (i == 31) {
+                assertEquals(List.of(MoveType.PLAY_CARD, MoveType.END_TRICK, MoveType.END_HAND), types);
+            } else if (i % 4 == 3) {
+                assertEquals(List.of(MoveType.PLAY_CARD, MoveType.END_TRICK), types);
+            } else {
+                assertEquals(List.of(MoveType.PLAY_CARD), types);
+            }
+            for (IMatchService.MoveEntry move : moves.getValue()) {
+                assertTrue(move.context().number() > lastNumber);
+                lastNumber = move.context().number();
+                assertEquals(1, move.context().handNo());
+                assertEquals(move.type() == MoveType.END_HAND ? 8 : i / 4 + 1, move.context().trickNo());
+            }
+        }
+
+        // the last card changes the state and opens the challenge window: one event for both
+        InOrder order = inOrder(matchService, scheduler, bus);
+        order.verify(matchService).recordMoves(eq("g1"), anyList());
+        order.verify(scheduler).schedule(any(Runnable.class), any(Instant.class));
+        order.verify(bus).publishEvent(new GameStateChangedEvent("g1"));
+        verify(bus, times(1)).publishEvent(new GameStateChangedEvent("g1"));
+
+        BelotGame ended = service.get("g1");
+        assertEquals(GameState.HAND_COMPLETE, ended.getGameState());
+        assertNotNull(ended.getChallengeWindowExpiresAt());
+        assertFalse(ended.getLastActivity().isBefore(before));
+        assertEquals(34, ended.getVersion());                 // start, bid, 32 cards: one save each
+        verifyNoInteractions(redis);
+    }
+
+    @Test
+    void cancelledGameGivesBackItsLease() {
+        GameLeases leases = mock(GameLeases.class);
+        BelotGameService leased = new BelotGameService(cache, mailboxes, leases, bus, mock(UserRepo.class), matchService, scheduler);
+        leased.start("g3",
+                new Team(List.of(new Player("A1"), new Player("A2"))),
+                new Team(List.of(new Player("B1"), new Player("B2"))));
+
+        leased.cancelMatch("g3", "A1");
+
+        assertEquals(GameState.CANCELLED, leased.get("g3").getGameState());
+        verify(leases).release(List.of("g3"));
+    }
+
+    @Test
+    void rejectedPlayWritesNothing() {
+        service.start("g2",
+                new Team(List.of(new Player("A1"), new Player("A2"))),
+                new Team(List.of(new Player("B1"), new Player("B2"))));
+        BelotGame game = service.get("g2");
+        clearInvocations(bus, matchService);
+
+        int notOnTurn = (game.getCurrentSeat() + 1) % 4;
+        service.playCard("g2", game.playerAt(notOnTurn).getId(),
+                CardSet.get(game.playerAt(notOnTurn).getHandSet(), 0), false);
+
+        verifyNoInteractions(bus, matchService);
+        assertEquals(game.getVersion(), service.get("g2").getVersion());
+    }
+}
@@ -1,15 +1,20 @@
 package backend.belatro.services;
 
+import backend.belatro.components.MoveJournal;
 import backend.belatro.dtos.LobbyDTO;
 import backend.belatro.dtos.MatchDTO;
 import backend.belatro.enums.GameMode;
+import backend.belatro.enums.MoveType;
 import backend.belatro.models.Lobbies;
 import backend.belatro.models.Match;
+import backend.belatro.models.MatchMove;
 import backend.belatro.models.User;
+import backend.belatro.repos.MatchMoveRepo;
 import backend.belatro.repos.MatchRepo;
 import backend.belatro.services.impl.MatchServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -25,6 +30,12 @@ class MatchServiceImplTest {
     @Mock
     private MatchRepo matchRepo;
 
+    @Mock
+    private MatchMoveRepo matchMoveRepo;
+
+    @Mock
+    private MoveJournal moveJournal;
+
     @InjectMocks
     private MatchServiceImpl matchService;
 
@@ -300,4 +311,33 @@ class MatchServiceImplTest {
 
         verify(matchRepo, times(1)).findById("match123");
     }
+
+    @Test
+    void recordMoves_WithoutContext_ShouldBeRefused() {
+        // only the game can number a move: the log does not see moves still in the journal
+        assertThrows(NullPointerException.class, () -> matchService.recordMoves("match123", List.of(
+                new IMatchService.MoveEntry(MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "AS_HERC"), 0.0, null))));
+
+        verifyNoInteractions(moveJournal, matchMoveRepo);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordMoves_WithContext_ShouldJournalWithoutReadingTheLog() {
+        matchService.recordMoves("match123", List.of(
+                new IMatchService.MoveEntry(MoveType.PLAY_CARD, Map.of("playerId", "p1", "card", "AS_HERC"), 0.0,
+                        new IMatchService.MoveContext(272, 2, 8)),
+                new IMatchService.MoveEntry(MoveType.END_TRICK, Map.of("winnerId", "p1", "points", 20), 0.0,
+                        new IMatchService.MoveContext(273, 2, 8))));
+
+        ArgumentCaptor<List<MatchMove>> journalled = ArgumentCaptor.forClass(List.class);
+        verify(moveJournal, times(1)).append(journalled.capture());
+        verifyNoInteractions(matchMoveRepo);
+
+        List<MatchMove> moves = journalled.getValue();
+        assertEquals(List.of(272, 273), moves.stream().map(MatchMove::getNumber).toList());
+        assertEquals(List.of(2, 2), moves.stream().map(MatchMove::getHandNo).toList());
+        assertEquals(List.of(8, 8), moves.stream().map(MatchMove::getTrickNo).toList());
+        assertEquals("match123", moves.get(0).getMatchId());
+    }
 }